@@ -0,0 +1,74 @@
+package com.Health;
+
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Alert pipeline against a local webhook stub: cost of raising a change on
+ * the probe thread, grouping of a mass outage into few notifications, flap
+ * deduplication, and a webhook that answers slower than its timeout
+ *
+ * Usage: java com.Health.AlertBenchmark [targets] [webhookDelayMs] [webhookTimeoutMs]
+ */
+public class AlertBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        int targets = args.length > 0 ? Integer.parseInt(args[0]) : 5000;
+        int webhookDelayMs = args.length > 1 ? Integer.parseInt(args[1]) : 2000;
+        int webhookTimeoutMs = args.length > 2 ? Integer.parseInt(args[2]) : 500;
+
+        WebhookStub webhook = new WebhookStub(webhookDelayMs);
+        boolean[] healthy = new boolean[targets];
+        int[] unhealthy = new int[1];
+        AlertDispatcher alerts = new AlertDispatcher(
+            Collections.singletonList(new WebhookAlertSink(webhook.url(), webhookTimeoutMs)),
+            60, targets * 4, 500, 60_000,
+            id -> "target-" + id, id -> "http://10.0.0." + (id % 250) + "/health",
+            id -> healthy[id], () -> unhealthy[0], () -> targets, 3);
+        ProbeResult down = ProbeResult.failure("http://10.0.0.1/health", 10_000_000_000L,
+            "connect timed out", ProbeError.CONNECT);
+        ProbeResult up = ProbeResult.response("http://10.0.0.1/health", 200, 5_000_000L);
+
+        System.out.println("📊 Alert benchmark: " + targets + " targets, webhook answers after " + webhookDelayMs
+            + " ms with a " + webhookTimeoutMs + " ms timeout");
+        try {
+            // Mass outage: every target goes down at once
+            long start = System.nanoTime();
+            for (int id = 0; id < targets; id++) {
+                unhealthy[0]++;
+                alerts.targetDown(id, down);
+            }
+            long raiseNanos = System.nanoTime() - start;
+            System.out.println(String.format("Outage raised: %.0f ns per change on the probe thread (%.1f ms for all)",
+                (double) raiseNanos / targets, raiseNanos / 1e6));
+
+            TimeUnit.MILLISECONDS.sleep(1000);
+
+            // Flapping: half the targets recover and fail again after the outage was reported
+            for (int id = 0; id < targets / 2; id++) {
+                alerts.targetRecovered(id, up);
+                alerts.targetDown(id, down);
+            }
+            TimeUnit.MILLISECONDS.sleep(1500);
+
+            // Recovery of every target
+            for (int id = 0; id < targets; id++) {
+                healthy[id] = true;
+                unhealthy[0]--;
+                alerts.targetRecovered(id, up);
+            }
+            TimeUnit.MILLISECONDS.sleep(2000 + webhookTimeoutMs * 2L);
+
+            AlertDispatcher.SinkWorker sink = alerts.sinks().get(0);
+            System.out.println(String.format("Changes accepted: %,d, dropped: %,d, deduplicated: %,d",
+                alerts.accepted(), alerts.dropped(), alerts.deduplicated()));
+            System.out.println(String.format("Grouped notifications: %d, webhook requests received: %d",
+                alerts.notifications(), webhook.received()));
+            System.out.println(String.format("Sink: %d delivered, %d failed (%d timeouts), %d merged while busy",
+                sink.sent(), sink.failed(), sink.timeouts(), sink.merged()));
+        } finally {
+            alerts.shutdown();
+            webhook.stop();
+        }
+    }
+}
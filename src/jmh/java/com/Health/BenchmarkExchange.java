@@ -0,0 +1,128 @@
+package com.Health;
+
+import com.sun.net.httpserver.Headers;
+import com.sun.net.httpserver.HttpContext;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpPrincipal;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+
+/**
+ * In-memory HttpExchange so handlers can be measured without sockets
+ */
+class BenchmarkExchange extends HttpExchange {
+
+    private static final InetSocketAddress LOOPBACK = new InetSocketAddress("127.0.0.1", 8080);
+
+    private final String method;
+    private final URI uri;
+    private final Headers requestHeaders = new Headers();
+    private final Headers responseHeaders = new Headers();
+    private final ByteArrayOutputStream body = new ByteArrayOutputStream(4096);
+    private int responseCode = -1;
+
+    BenchmarkExchange(String method, String path) {
+        this.method = method;
+        this.uri = URI.create(path);
+    }
+
+    /**
+     * Clear the response so the exchange can be reused between invocations
+     */
+    BenchmarkExchange reset() {
+        responseHeaders.clear();
+        body.reset();
+        responseCode = -1;
+        return this;
+    }
+
+    int responseLength() {
+        return body.size();
+    }
+
+    @Override
+    public Headers getRequestHeaders() {
+        return requestHeaders;
+    }
+
+    @Override
+    public Headers getResponseHeaders() {
+        return responseHeaders;
+    }
+
+    @Override
+    public URI getRequestURI() {
+        return uri;
+    }
+
+    @Override
+    public String getRequestMethod() {
+        return method;
+    }
+
+    @Override
+    public HttpContext getHttpContext() {
+        return null;
+    }
+
+    @Override
+    public void close() {
+    }
+
+    @Override
+    public InputStream getRequestBody() {
+        return new ByteArrayInputStream(new byte[0]);
+    }
+
+    @Override
+    public OutputStream getResponseBody() {
+        return body;
+    }
+
+    @Override
+    public void sendResponseHeaders(int rCode, long responseLength) {
+        responseCode = rCode;
+    }
+
+    @Override
+    public InetSocketAddress getRemoteAddress() {
+        return LOOPBACK;
+    }
+
+    @Override
+    public int getResponseCode() {
+        return responseCode;
+    }
+
+    @Override
+    public InetSocketAddress getLocalAddress() {
+        return LOOPBACK;
+    }
+
+    @Override
+    public String getProtocol() {
+        return "HTTP/1.1";
+    }
+
+    @Override
+    public Object getAttribute(String name) {
+        return null;
+    }
+
+    @Override
+    public void setAttribute(String name, Object value) {
+    }
+
+    @Override
+    public void setStreams(InputStream i, OutputStream o) {
+    }
+
+    @Override
+    public HttpPrincipal getPrincipal() {
+        return null;
+    }
+}
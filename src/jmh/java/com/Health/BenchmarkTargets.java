@@ -0,0 +1,23 @@
+package com.Health;
+
+/**
+ * Synthetic targets with recorded results for the benchmarks
+ */
+final class BenchmarkTargets {
+
+    private BenchmarkTargets() {
+    }
+
+    /**
+     * Register targets until the registry holds the given count and record a few results for each
+     */
+    static void populate(TargetRegistry registry, int count) {
+        for (int i = registry.size(); i < count; i++) {
+            int id = registry.register(new TargetSpec("bench-target-" + i, "http://127.0.0.1:9/health/" + i));
+            for (int probe = 0; probe < 20; probe++) {
+                int statusCode = (id + probe) % 10 == 0 ? 503 : 200;
+                registry.record(id, ProbeResult.response(registry.url(id), statusCode, (5 + probe) * 1_000_000L));
+            }
+        }
+    }
+}
@@ -0,0 +1,127 @@
+package com.Health;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadInfo;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Collections;
+
+/**
+ * Cost of body assertions against a local stub: bytes taken off the
+ * connection, heap allocated on the prober's threads and throughput per
+ * probe, for a status-only probe (body discarded), the whole body buffered
+ * and then checked, and the streaming BodyAssertion. Bodies are small and
+ * large health documents with the asserted field first or last, and a failing one
+ *
+ * Usage: java com.Health.BodyAssertionBenchmark [probes] [largeBodyKb]
+ */
+public class BodyAssertionBenchmark {
+
+    private static final String ASSERTION = "status=UP";
+
+    public static void main(String[] args) throws Exception {
+        int probes = args.length > 0 ? Integer.parseInt(args[0]) : 2000;
+        int largeKb = args.length > 1 ? Integer.parseInt(args[1]) : 1024;
+
+        StubServer stub = new StubServer(2);
+        HttpClient client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+        BodyAssertion streaming = BodyAssertion.jsonEquals(ASSERTION, BodyAssertion.DEFAULT_LIMIT_BYTES);
+        BodyAssertion unbounded = BodyAssertion.jsonEquals(ASSERTION, Integer.MAX_VALUE);
+
+        String padding = "\"" + "x".repeat(1000) + "\"";
+        String details = "\"details\":[" + String.join(",", Collections.nCopies(largeKb, padding)) + "]";
+        String[][] bodies = {
+            {"small, UP", "{\"status\":\"UP\",\"checks\":{\"db\":\"UP\",\"disk\":\"UP\"}}"},
+            {"small, DOWN", "{\"status\":\"DOWN\",\"checks\":{\"db\":\"DOWN\",\"disk\":\"UP\"}}"},
+            {largeKb + " KB, field first", "{\"status\":\"UP\"," + details + "}"},
+            {largeKb + " KB, field last", "{" + details + ",\"status\":\"UP\"}"},
+        };
+
+        System.out.println("📊 Body assertion benchmark: body-json=" + ASSERTION + ", " + probes + " probes per case, limit "
+            + BodyAssertion.DEFAULT_LIMIT_BYTES + " bytes");
+        System.out.println(String.format("%-22s %-10s %10s %14s %14s %10s  %s",
+            "body", "method", "probes/s", "bytes/probe", "alloc/probe", "healthy", "reason"));
+        try {
+            for (int i = 0; i < bodies.length; i++) {
+                byte[] body = bodies[i][1].getBytes(StandardCharsets.UTF_8);
+                URI uri = URI.create(stub.serve("/body-" + i, body));
+                for (String method : new String[] {"status", "buffered", "streaming"}) {
+                    run(client, uri, method, body.length, streaming, unbounded, probes / 10);
+                    Case result = run(client, uri, method, body.length, streaming, unbounded, probes);
+                    System.out.println(String.format("%-22s %-10s %,10.0f %,14d %,14d %10s  %s",
+                        bodies[i][0], method, result.perSecond, result.bytes, result.allocated,
+                        result.healthy, result.reason != null ? result.reason : ""));
+                }
+            }
+        } finally {
+            stub.stop();
+        }
+        System.exit(0);
+    }
+
+    private static final class Case {
+        double perSecond;
+        long bytes;
+        long allocated;
+        boolean healthy;
+        String reason;
+    }
+
+    private static Case run(HttpClient client, URI uri, String method, int bodyLength, BodyAssertion streaming,
+                            BodyAssertion unbounded, int probes) throws Exception {
+        HttpRequest request = HttpRequest.newBuilder(uri).timeout(Duration.ofSeconds(10)).build();
+        Case result = new Case();
+        long bytes = 0;
+        long allocatedBefore = allocatedBytes();
+        long start = System.nanoTime();
+        for (int i = 0; i < probes; i++) {
+            BodyAssertion.Evaluation evaluation = null;
+            switch (method) {
+                case "status":
+                    // The former probe: status code only, body drained and discarded
+                    client.send(request, HttpResponse.BodyHandlers.discarding());
+                    bytes += bodyLength;
+                    break;
+                case "buffered":
+                    byte[] body = client.send(request, HttpResponse.BodyHandlers.ofByteArray()).body();
+                    evaluation = unbounded.start();
+                    evaluation.accept(ByteBuffer.wrap(body));
+                    evaluation.complete();
+                    bytes += body.length;
+                    break;
+                default:
+                    evaluation = client.send(request, streaming.handler(BodyAssertion.DEFAULT_DRAIN_BYTES)).body();
+                    bytes += evaluation.received();
+                    break;
+            }
+            result.healthy = evaluation == null || evaluation.passed();
+            result.reason = evaluation != null ? evaluation.reason() : null;
+        }
+        long elapsed = System.nanoTime() - start;
+        result.allocated = (allocatedBytes() - allocatedBefore) / probes;
+        result.bytes = bytes / probes;
+        result.perSecond = probes * 1e9 / elapsed;
+        return result;
+    }
+
+    /**
+     * Heap allocated so far on the prober side: this thread and the client's selector and
+     * worker threads. The stub's threads stand for the remote service and are left out
+     */
+    private static long allocatedBytes() {
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long total = 0;
+        for (ThreadInfo thread : threads.getThreadInfo(threads.getAllThreadIds())) {
+            if (thread != null && (thread.getThreadName().startsWith("HttpClient")
+                    || thread.getThreadId() == Thread.currentThread().getId())) {
+                total += Math.max(threads.getThreadAllocatedBytes(thread.getThreadId()), 0);
+            }
+        }
+        return total;
+    }
+}
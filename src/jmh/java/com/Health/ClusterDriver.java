@@ -0,0 +1,209 @@
+package com.Health;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BooleanSupplier;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * Cluster test on loopback: a simulated target farm and several prober
+ * processes (HealthCheckService in cluster mode) on consecutive ports.
+ * Checks that the nodes converge on one membership, split the targets
+ * without overlap and each see the whole fleet, and how many targets move
+ * when a node is killed and when a new node joins
+ *
+ * Usage: java com.Health.ClusterDriver [nodes] [targets] [basePort]
+ */
+public class ClusterDriver {
+
+    private static final Pattern NUMBER_FIELD = Pattern.compile("\"(\\w+)\": (\\d+)");
+    private static final HttpClient CLIENT = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(1)).build();
+
+    public static void main(String[] args) throws Exception {
+        int nodes = args.length > 0 ? Integer.parseInt(args[0]) : 3;
+        int targets = args.length > 1 ? Integer.parseInt(args[1]) : 2000;
+        int basePort = args.length > 2 ? Integer.parseInt(args[2]) : 7400;
+
+        Path directory = Files.createTempDirectory("cluster-driver");
+        TargetFarm farm = new TargetFarm(targets, TargetFarm.Profile.parse("latency=fixed:5,errors=0.01"));
+        Path targetsFile = directory.resolve("targets.txt");
+        farm.writeTargetsFile(targetsFile);
+
+        System.out.println("📊 Cluster driver: " + nodes + " nodes on ports " + basePort + "-" + (basePort + nodes - 1)
+            + ", " + targets + " targets, node logs in " + directory);
+        Map<Integer, Process> running = new HashMap<>();
+        try {
+            long start = System.currentTimeMillis();
+            for (int i = 0; i < nodes; i++) {
+                running.put(basePort + i, spawn(basePort + i, basePort, targetsFile, directory));
+            }
+            report("Membership converged", waitFor(() -> converged(running.keySet(), nodes), 60000, start));
+            report("Whole fleet visible on every node", waitFor(() -> fleetVisible(running.keySet()), 60000, start));
+            printOwnership(running.keySet());
+
+            // Node loss: its targets move to the survivors, nothing else moves
+            int victim = basePort + nodes - 1;
+            Map<Integer, Long> before = owned(running.keySet());
+            running.remove(victim).destroyForcibly().waitFor();
+            long killed = System.currentTimeMillis();
+            report("Node " + victim + " killed, survivors rebalanced",
+                waitFor(() -> converged(running.keySet(), nodes - 1), 60000, killed));
+            printMoves(before, owned(running.keySet()), targets, nodes);
+
+            // Node join: it takes about 1/N of the targets from the others
+            int joiner = basePort + nodes;
+            before = owned(running.keySet());
+            long joined = System.currentTimeMillis();
+            running.put(joiner, spawn(joiner, basePort, targetsFile, directory));
+            report("Node " + joiner + " joined, ring rebalanced",
+                waitFor(() -> converged(running.keySet(), nodes), 60000, joined));
+            printMoves(before, owned(running.keySet()), targets, nodes);
+            report("Whole fleet visible on the new node", waitFor(() -> fleetVisible(List.of(joiner)), 60000, joined));
+            printOwnership(running.keySet());
+        } finally {
+            for (Process process : running.values()) {
+                process.destroyForcibly();
+            }
+            farm.stop();
+            try (Stream<Path> files = Files.walk(directory)) {
+                files.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+            }
+        }
+        System.exit(0);
+    }
+
+    private static Process spawn(int port, int seedPort, Path targetsFile, Path directory) throws IOException {
+        List<String> command = new ArrayList<>();
+        command.add(Paths.get(System.getProperty("java.home"), "bin", "java").toString());
+        command.add("-cp");
+        command.add(System.getProperty("java.class.path"));
+        command.add("-Xmx256m");
+        command.add("-Dhealth.cluster.enabled=true");
+        command.add("-Dhealth.cluster.port=" + port);
+        command.add("-Dhealth.cluster.seeds=127.0.0.1:" + seedPort);
+        command.add("-Dhealth.targets.file=" + targetsFile);
+        command.add("-Dhealth.check.interval=2000");
+        command.add("-Dhealth.check.timeout=2000");
+        command.add("-Dhealth.history.enabled=false");
+        command.add("-Dhealth.log.enabled=false");
+        command.add("-Dhealth.alerts.console=false");
+        command.add("com.Health.HealthCheckService");
+        return new ProcessBuilder(command)
+            .redirectErrorStream(true)
+            .redirectOutput(directory.resolve("node-" + port + ".log").toFile())
+            .start();
+    }
+
+    /**
+     * Every node sees the expected number of members and the owned counts add up to the fleet
+     * (the farm plus any targets from application.properties)
+     */
+    private static boolean converged(Iterable<Integer> ports, int members) {
+        long owned = 0;
+        long targets = -1;
+        for (int port : ports) {
+            Map<String, Long> status = status(port);
+            if (status.getOrDefault("members", 0L) != members) {
+                return false;
+            }
+            owned += status.getOrDefault("owned", 0L);
+            targets = status.get("targets");
+        }
+        return owned == targets;
+    }
+
+    private static boolean fleetVisible(Iterable<Integer> ports) {
+        for (int port : ports) {
+            Map<String, Long> status = status(port);
+            if (status.isEmpty() || status.get("fleet_unknown") != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static Map<Integer, Long> owned(Iterable<Integer> ports) {
+        Map<Integer, Long> owned = new HashMap<>();
+        for (int port : ports) {
+            owned.put(port, status(port).getOrDefault("owned", 0L));
+        }
+        return owned;
+    }
+
+    private static void printOwnership(Iterable<Integer> ports) {
+        for (int port : ports) {
+            Map<String, Long> status = status(port);
+            System.out.println(String.format("  node %d: owns %,d, sees %,d healthy / %,d unhealthy, %,d rows merged",
+                port, status.get("owned"), status.get("fleet_healthy"), status.get("fleet_unhealthy"),
+                status.get("rows_merged")));
+        }
+    }
+
+    private static void printMoves(Map<Integer, Long> before, Map<Integer, Long> after, int targets, int nodes) {
+        long gained = 0;
+        long handedOver = 0;
+        for (Map.Entry<Integer, Long> entry : after.entrySet()) {
+            long delta = entry.getValue() - before.getOrDefault(entry.getKey(), 0L);
+            if (delta > 0) {
+                gained += delta;
+            } else {
+                handedOver -= delta;
+            }
+        }
+        long moved = Math.max(gained, handedOver);
+        System.out.println(String.format("  %,d of %,d targets moved (%.1f%%, ideal %.1f%%)",
+            moved, targets, moved * 100.0 / targets, 100.0 / nodes));
+    }
+
+    private static void report(String event, long elapsedMs) {
+        System.out.println(elapsedMs >= 0
+            ? String.format("%s after %,d ms", event, elapsedMs)
+            : event + ": timed out");
+    }
+
+    /**
+     * Milliseconds from start until the condition holds, or -1 on timeout
+     */
+    private static long waitFor(BooleanSupplier condition, long timeoutMs, long start) throws InterruptedException {
+        while (System.currentTimeMillis() - start < timeoutMs) {
+            if (condition.getAsBoolean()) {
+                return System.currentTimeMillis() - start;
+            }
+            Thread.sleep(100);
+        }
+        return -1;
+    }
+
+    private static Map<String, Long> status(int port) {
+        Map<String, Long> fields = new HashMap<>();
+        try {
+            HttpResponse<String> response = CLIENT.send(
+                HttpRequest.newBuilder(URI.create("http://127.0.0.1:" + port + "/cluster/status"))
+                    .timeout(Duration.ofSeconds(2)).build(),
+                HttpResponse.BodyHandlers.ofString());
+            Matcher matcher = NUMBER_FIELD.matcher(response.body());
+            while (matcher.find()) {
+                fields.put(matcher.group(1), Long.parseLong(matcher.group(2)));
+            }
+        } catch (IOException e) {
+            // Node not up yet
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return fields;
+    }
+}
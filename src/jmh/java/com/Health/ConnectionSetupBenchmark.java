@@ -0,0 +1,102 @@
+package com.Health;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.security.KeyStore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of connection setup for probes: full TLS handshakes against resumed
+ * sessions and kept-alive connections, and DNS lookups against the DnsCache.
+ * Runs against a local self-signed HTTPS stub and a resolver stand-in that
+ * answers localhost after a fixed delay and fails every other name
+ *
+ * Usage: java com.Health.ConnectionSetupBenchmark [probes] [lookupDelayMs]
+ */
+public class ConnectionSetupBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        int probes = args.length > 0 ? Integer.parseInt(args[0]) : 500;
+        int lookupDelayMs = args.length > 1 ? Integer.parseInt(args[1]) : 20;
+
+        KeyStore keyStore = StubServer.selfSignedKeyStore();
+        StubServer stub = new StubServer(4, 0, StubServer.serverContext(keyStore));
+        String url = stub.url();
+        String closeUrl = url + "?close";
+        System.out.println("📊 Connection setup benchmark against " + url + ", " + probes + " sequential probes per case");
+
+        try {
+            ProbeEngine engine = new ProbeEngine(10000, null, ProbeEngine.tlsContext(keyStore, 1000, 3600));
+
+            // Warm up the TLS stack and the JIT
+            run(engine, closeUrl, probes, true);
+            run(engine, url, probes, false);
+
+            double full = run(engine, closeUrl, probes, true);
+            double resumed = run(engine, closeUrl, probes, false);
+            double keptAlive = run(engine, url, probes, false);
+            System.out.println(String.format("New connection, full handshake:   %7.3f ms/probe", full));
+            System.out.println(String.format("New connection, resumed session:  %7.3f ms/probe", resumed));
+            System.out.println(String.format("Kept-alive connection:            %7.3f ms/probe", keptAlive));
+            System.out.println(String.format("Handshake time saved by resumption: %.3f ms per new connection (%.0f%%)",
+                full - resumed, full > 0 ? (full - resumed) / full * 100 : 0));
+            TlsHandshakes handshakes = engine.handshakes();
+            System.out.println(String.format("TLS sessions cached: %d; handshakes %d full (%.3f ms), %d resumed (%.3f ms), "
+                    + "%.0f ms saved", engine.tlsSessions(), handshakes.full(), handshakes.meanFullMillis(),
+                handshakes.resumed(), handshakes.meanResumedMillis(), handshakes.savedMillis()));
+
+            dns(keyStore, stub, probes, lookupDelayMs);
+        } finally {
+            stub.stop();
+        }
+    }
+
+    /**
+     * Mean latency of sequential probes in milliseconds
+     */
+    private static double run(ProbeEngine engine, String url, int probes, boolean forgetSessions) {
+        long total = 0;
+        for (int i = 0; i < probes; i++) {
+            if (forgetSessions) {
+                engine.clearTlsSessions();
+            }
+            ProbeResult result = engine.probe(url).join();
+            if (!result.isHealthy()) {
+                throw new IllegalStateException("Probe failed: " + result.getError());
+            }
+            total += result.getLatencyNanos();
+        }
+        return total / 1e6 / probes;
+    }
+
+    private static void dns(KeyStore keyStore, StubServer stub, int probes, int lookupDelayMs) throws InterruptedException {
+        DnsCache.Resolver standIn = host -> {
+            try {
+                TimeUnit.MILLISECONDS.sleep(lookupDelayMs);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            if (!"localhost".equals(host)) {
+                throw new UnknownHostException(host);
+            }
+            return new InetAddress[] {InetAddress.getLoopbackAddress()};
+        };
+        DnsCache cache = new DnsCache(standIn, 30000, 10000, 1000, 2);
+        ProbeEngine engine = new ProbeEngine(10000, cache, ProbeEngine.tlsContext(keyStore, 1000, 3600));
+        String url = stub.url().replace("127.0.0.1", "localhost");
+        String missing = "https://missing.invalid/health_check";
+
+        ProbeResult first = engine.probe(missing).join();
+        long total = 0;
+        for (int i = 0; i < probes; i++) {
+            engine.probe(url).join();
+            total += engine.probe(missing).join().getLatencyNanos();
+        }
+        System.out.println(String.format("DNS (stand-in resolver, %d ms per lookup): hit rate %.1f%%, %d lookups, "
+                + "%d negative hits, %.0f ms of failing lookups avoided",
+            lookupDelayMs, cache.hitRate() * 100, cache.misses(), cache.negativeHits(), cache.failedLookupMillisAvoided()));
+        System.out.println(String.format("Unresolvable name: first probe %.3f ms, cached failure %.3f ms/probe",
+            first.getLatencyNanos() / 1e6, total / 1e6 / probes));
+        cache.shutdown();
+    }
+}
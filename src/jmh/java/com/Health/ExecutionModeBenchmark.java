@@ -0,0 +1,83 @@
+package com.Health;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Memory and throughput of the probe execution modes against a local stub
+ * Run on Java 21 to include the virtual-thread mode
+ *
+ * Usage: java com.Health.ExecutionModeBenchmark [probes] [stubDelayMs] [poolSize]
+ */
+public class ExecutionModeBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        int probes = args.length > 0 ? Integer.parseInt(args[0]) : 5000;
+        int delayMs = args.length > 1 ? Integer.parseInt(args[1]) : 50;
+        int poolSize = args.length > 2 ? Integer.parseInt(args[2]) : 200;
+
+        StubServer stub = new StubServer(8, delayMs);
+        System.out.println("📊 Execution mode benchmark: " + probes + " concurrent probes, stub delay "
+            + delayMs + " ms (Java " + Runtime.version().feature() + ")");
+
+        try {
+            run("fixed-pool (3 threads)", ProbeExecutor.Mode.FIXED_POOL, 3, Math.min(probes, 300), stub.url());
+            run("fixed-pool (" + poolSize + " threads)", ProbeExecutor.Mode.FIXED_POOL, poolSize, probes, stub.url());
+            if (ProbeExecutor.newVirtualThreadExecutor() != null) {
+                run("virtual-threads", ProbeExecutor.Mode.VIRTUAL_THREADS, poolSize, probes, stub.url());
+            } else {
+                System.out.println("virtual-threads: skipped, needs Java 21+");
+            }
+            run("async", ProbeExecutor.Mode.ASYNC, poolSize, probes, stub.url());
+        } finally {
+            stub.stop();
+        }
+    }
+
+    private static void run(String label, ProbeExecutor.Mode mode, int poolSize, int probes, String url) {
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        Runtime runtime = Runtime.getRuntime();
+
+        ProbeEngine engine = new ProbeEngine(30000);
+        ProbeExecutor executor = new ProbeExecutor(engine, mode, poolSize, probes);
+
+        // Warm up the client and the stub
+        executor.probe(url, 30000).join();
+
+        System.gc();
+        long heapBefore = runtime.totalMemory() - runtime.freeMemory();
+        threads.resetPeakThreadCount();
+
+        long start = System.nanoTime();
+        CompletableFuture<?>[] futures = new CompletableFuture<?>[probes];
+        for (int i = 0; i < probes; i++) {
+            futures[i] = executor.probe(url, 30000);
+        }
+        long heapInFlight = runtime.totalMemory() - runtime.freeMemory();
+        CompletableFuture.allOf(futures).join();
+        long elapsed = System.nanoTime() - start;
+
+        long healthy = 0;
+        for (CompletableFuture<?> future : futures) {
+            if (((ProbeResult) future.join()).isHealthy()) {
+                healthy++;
+            }
+        }
+        executor.shutdown();
+
+        System.out.println(String.format("%-28s %,8.0f probes/sec  %,6d ok  peak threads %,5d  heap in flight %,7d KB",
+            label + ":",
+            probes / (elapsed / 1e9),
+            healthy,
+            threads.getPeakThreadCount(),
+            Math.max(0, heapInFlight - heapBefore) / 1024));
+
+        try {
+            TimeUnit.MILLISECONDS.sleep(500);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package com.Health;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Capacity test: the real scheduler and probe path against a simulated target farm
+ * Reports achieved probes/sec against the schedule, probe latency percentiles,
+ * outcomes by error class and missed schedules. The probe execution mode follows
+ * health.probe.mode, so modes can be compared with -Dhealth.probe.mode=...
+ *
+ * Usage: java com.Health.FarmDriver [targets] [intervalMs] [seconds] [timeoutMs] [profile]
+ */
+public class FarmDriver {
+
+    public static void main(String[] args) throws Exception {
+        int targets = args.length > 0 ? Integer.parseInt(args[0]) : 5000;
+        int intervalMs = args.length > 1 ? Integer.parseInt(args[1]) : 1000;
+        int seconds = args.length > 2 ? Integer.parseInt(args[2]) : 30;
+        int timeoutMs = args.length > 3 ? Integer.parseInt(args[3]) : 2000;
+        TargetFarm.Profile profile = TargetFarm.Profile.parse(args.length > 4 ? args[4]
+            : "latency=lognormal:20:250,errors=0.01,hangs=0.001,drip=0.005:10:100");
+
+        TargetFarm farm = new TargetFarm(targets, profile);
+        TargetRegistry registry = new TargetRegistry();
+        farm.registerAll(registry);
+
+        ProbeEngine engine = new ProbeEngine(timeoutMs);
+        ProbeExecutor executor = ProbeExecutor.fromConfig(engine, HealthConfig.get());
+        LatencyHistogram latency = new LatencyHistogram();
+        LongAdder[] outcomes = new LongAdder[ProbeError.values().length];
+        for (int i = 0; i < outcomes.length; i++) {
+            outcomes[i] = new LongAdder();
+        }
+
+        ProbeScheduler scheduler = new ProbeScheduler(registry, (id, timeout) ->
+            executor.probe(registry.url(id), timeout).thenAccept(result -> {
+                registry.record(id, result);
+                latency.recordMicros(result.getLatencyNanos() / 1000);
+                outcomes[result.getErrorClass().ordinal()].increment();
+            }), intervalMs, timeoutMs, AdaptiveInterval.fromConfig(HealthConfig.get()));
+
+        double expectedRate = targets * 1000.0 / intervalMs;
+        System.out.println("📊 Farm driver: " + targets + " targets every " + intervalMs + " ms ("
+            + String.format("%,.0f", expectedRate) + " probes/sec scheduled), timeout " + timeoutMs
+            + " ms, mode " + HealthConfig.get().getString("health.probe.mode", "async"));
+        System.out.println("🧪 Farm profile: " + profile);
+
+        scheduler.start();
+        long start = System.nanoTime();
+        long lastCompleted = 0;
+        for (int elapsed = 5; elapsed <= seconds; elapsed += 5) {
+            TimeUnit.SECONDS.sleep(5);
+            long completed = latency.count();
+            System.out.println(String.format("[%3ds] %,8.0f probes/sec  dispatched %,d  skipped (in flight) %,d  late firings %,d  mean interval %,.0f ms",
+                elapsed, (completed - lastCompleted) / 5.0, scheduler.dispatched(),
+                scheduler.skippedInFlight(), scheduler.lateFirings(), scheduler.meanIntervalMs()));
+            lastCompleted = completed;
+        }
+        scheduler.stop();
+        double runSeconds = (System.nanoTime() - start) / 1e9;
+
+        long[] percentiles = latency.percentilesMicros(50, 90, 99, 99.9);
+        System.out.println("\n--- Results ---");
+        System.out.println(String.format("Completed: %,d probes, %,.0f probes/sec (%.1f%% of schedule)",
+            latency.count(), latency.count() / runSeconds, latency.count() / runSeconds / expectedRate * 100));
+        System.out.println(String.format("Latency ms: p50 %.1f  p90 %.1f  p99 %.1f  p99.9 %.1f  max %.1f",
+            percentiles[0] / 1000.0, percentiles[1] / 1000.0, percentiles[2] / 1000.0, percentiles[3] / 1000.0,
+            latency.maxMicros() / 1000.0));
+        StringBuilder outcomeLine = new StringBuilder("Outcomes:");
+        for (ProbeError error : ProbeError.values()) {
+            long count = outcomes[error.ordinal()].sum();
+            if (count > 0) {
+                outcomeLine.append(String.format(" %s %,d", error, count));
+            }
+        }
+        System.out.println(outcomeLine);
+        System.out.println(String.format("Missed schedules: %,d skipped while in flight, %,d late firings, max lag %d ms",
+            scheduler.skippedInFlight(), scheduler.lateFirings(), scheduler.maxLagMillis()));
+        HostLimiter hosts = executor.hostLimiter();
+        System.out.println(String.format("Hosts: %,d queued for a host slot, %,d fast-failed, %,d circuit trips",
+            hosts.queued(), hosts.fastFailed(), hosts.trips()));
+        System.out.println(String.format("Adaptive: mean interval %,.0f ms, %,d confirmation probes brought forward",
+            scheduler.meanIntervalMs(), scheduler.confirmations()));
+        System.out.println(String.format("Farm: %,d requests, %,d errors, %,d hangs, %,d slow drips",
+            farm.requests(), farm.errors(), farm.hangs(), farm.drips()));
+
+        executor.shutdown();
+        farm.stop();
+        System.exit(0);
+    }
+}
@@ -0,0 +1,109 @@
+package com.Health;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntPredicate;
+
+/**
+ * Outbound probe volume with several front-ends running against a simulated
+ * target farm. "separate" is the former layout: the background monitor, three
+ * CLI loops probing every target on their own, and API clients whose requests
+ * re-probe results older than the freshness TTL. "shared" is one monitor that
+ * the API and the consoles read from
+ *
+ * Usage: java com.Health.FrontEndBenchmark [targets] [intervalMs] [seconds] [apiClients]
+ */
+public class FrontEndBenchmark {
+
+    private static final int CLI_LOOPS = 3;
+
+    public static void main(String[] args) throws Exception {
+        int targets = args.length > 0 ? Integer.parseInt(args[0]) : 500;
+        int intervalMs = args.length > 1 ? Integer.parseInt(args[1]) : 2000;
+        int seconds = args.length > 2 ? Integer.parseInt(args[2]) : 20;
+        int apiClients = args.length > 3 ? Integer.parseInt(args[3]) : 4;
+
+        TargetFarm farm = new TargetFarm(targets, TargetFarm.Profile.parse("latency=fixed:5"));
+        ProbeEngine engine = new ProbeEngine(intervalMs);
+        System.out.println("📊 Front-end benchmark: " + targets + " targets every " + intervalMs + " ms, "
+            + apiClients + " API clients polling every " + intervalMs / 4 + " ms, " + seconds + " s per layout");
+        try {
+            double separate = run("separate", farm, engine, intervalMs, seconds, apiClients, CLI_LOOPS, id -> false);
+            double shared = run("shared", farm, engine, intervalMs, seconds, apiClients, 0, id -> true);
+            System.out.println(String.format("Outbound probes reduced %.1fx", shared > 0 ? separate / shared : 0));
+        } finally {
+            farm.stop();
+        }
+        System.exit(0);
+    }
+
+    /**
+     * Probes per target per interval under one front-end layout
+     */
+    private static double run(String layout, TargetFarm farm, ProbeEngine engine, int intervalMs, int seconds,
+                              int apiClients, int cliLoops, IntPredicate monitored) throws InterruptedException {
+        TargetRegistry registry = new TargetRegistry();
+        farm.registerAll(registry);
+        ProbeScheduler.ProbeTask record = (id, timeoutMs) -> engine.probe(registry.url(id), timeoutMs)
+            .thenAccept(result -> registry.record(id, result));
+        ProbeScheduler monitor = new ProbeScheduler(registry, record, intervalMs, intervalMs);
+        // Freshness TTL at half the interval, the ratio of the defaults (15 s against 30 s)
+        ProbeCoalescer api = new ProbeCoalescer(registry,
+            id -> engine.probe(registry.url(id)).thenApply(result -> {
+                registry.record(id, result);
+                return result.isHealthy();
+            }),
+            intervalMs / 2, monitored);
+
+        long before = farm.requests();
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(seconds);
+        monitor.start();
+        List<Thread> frontEnds = new ArrayList<>();
+        for (int i = 0; i < apiClients; i++) {
+            frontEnds.add(loop("api-client-" + i, deadline, intervalMs / 4, () -> {
+                CompletableFuture<?>[] checks = new CompletableFuture<?>[registry.size()];
+                for (int id = 0; id < checks.length; id++) {
+                    checks[id] = api.check(id);
+                }
+                CompletableFuture.allOf(checks).join();
+            }));
+        }
+        for (int i = 0; i < cliLoops; i++) {
+            frontEnds.add(loop("cli-loop-" + i, deadline, intervalMs, () -> {
+                CompletableFuture<?>[] probes = new CompletableFuture<?>[registry.size()];
+                for (int id = 0; id < probes.length; id++) {
+                    probes[id] = engine.probe(registry.url(id));
+                }
+                CompletableFuture.allOf(probes).join();
+            }));
+        }
+        for (Thread frontEnd : frontEnds) {
+            frontEnd.join();
+        }
+        monitor.stop();
+        long probes = farm.requests() - before;
+
+        double perTargetInterval = (double) probes / registry.size() / (seconds * 1000.0 / intervalMs);
+        System.out.println(String.format("%-9s %,9d outbound probes, %.2f per target per interval "
+                + "(API: %,d requests, %,d probes issued)",
+            layout + ":", probes, perTargetInterval, api.requests(), api.issued()));
+        return perTargetInterval;
+    }
+
+    private static Thread loop(String name, long deadlineNanos, long periodMs, Runnable body) {
+        Thread thread = new Thread(() -> {
+            while (System.nanoTime() < deadlineNanos) {
+                body.run();
+                try {
+                    TimeUnit.MILLISECONDS.sleep(periodMs);
+                } catch (InterruptedException e) {
+                    return;
+                }
+            }
+        }, name);
+        thread.start();
+        return thread;
+    }
+}
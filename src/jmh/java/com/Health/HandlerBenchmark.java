@@ -0,0 +1,63 @@
+package com.Health;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Per-request CPU of the /health handlers of HealthCheckServer and HealthServer, without the network
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Dhealth.history.enabled=false")
+public class HandlerBenchmark {
+
+    @Param({"3", "1000"})
+    public int targets;
+
+    private final HealthCheckServer.HealthHandler snapshotHandler = new HealthCheckServer.HealthHandler();
+    private final HealthServer.HealthHandler legacyHandler = new HealthServer.HealthHandler();
+    private BenchmarkExchange full;
+    private BenchmarkExchange conditional;
+    private BenchmarkExchange legacy;
+
+    @Setup
+    public void setup() {
+        BenchmarkTargets.populate(HealthCheckService.registry(), targets);
+        full = new BenchmarkExchange("GET", "/health");
+        conditional = new BenchmarkExchange("GET", "/health");
+        conditional.getRequestHeaders().set("If-None-Match", HealthCheckService.snapshot().etag());
+        legacy = new BenchmarkExchange("GET", "/health");
+    }
+
+    @Benchmark
+    public int healthCheckServerFull() throws IOException {
+        snapshotHandler.handle(full.reset());
+        return full.responseLength();
+    }
+
+    @Benchmark
+    public int healthCheckServerNotModified() throws IOException {
+        snapshotHandler.handle(conditional.reset());
+        return conditional.getResponseCode();
+    }
+
+    @Benchmark
+    public int healthServer() throws IOException {
+        legacyHandler.handle(legacy.reset());
+        return legacy.responseLength();
+    }
+}
@@ -0,0 +1,97 @@
+package com.Health;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+/**
+ * Append throughput and range-query cost of the probe history
+ *
+ * Usage: java com.Health.HistoryBenchmark [records] [threads] [targets]
+ */
+public class HistoryBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        int records = args.length > 0 ? Integer.parseInt(args[0]) : 5_000_000;
+        int threads = args.length > 1 ? Integer.parseInt(args[1]) : 4;
+        int targets = args.length > 2 ? Integer.parseInt(args[2]) : 10000;
+
+        Path directory = Files.createTempDirectory("probe-history-bench");
+        try {
+            ProbeHistory history = ProbeHistory.open(directory, 1 << 20, 0);
+            for (int i = 0; i < targets; i++) {
+                history.targetId("target-" + i);
+            }
+            System.out.println("📊 History benchmark: " + records + " records, " + threads + " writers, "
+                + targets + " targets");
+
+            // Spread the records over a simulated week so segments cover distinct time ranges
+            long baseMillis = System.currentTimeMillis() - 7 * 86400_000L;
+            long stepMillis = Math.max(1, 7 * 86400_000L / records);
+            AtomicLong sequence = new AtomicLong();
+            int perThread = records / threads;
+
+            long start = System.nanoTime();
+            Thread[] writers = new Thread[threads];
+            for (int t = 0; t < threads; t++) {
+                writers[t] = new Thread(() -> {
+                    for (int i = 0; i < perThread; i++) {
+                        long n = sequence.getAndIncrement();
+                        int statusCode = n % 50 == 0 ? 503 : 200;
+                        history.append((int) (n % targets), baseMillis + n * stepMillis, statusCode,
+                            (int) (n % 200_000), statusCode == 200 ? ProbeError.NONE : ProbeError.HTTP_STATUS);
+                    }
+                });
+                writers[t].start();
+            }
+            for (Thread writer : writers) {
+                writer.join();
+            }
+            long appendNanos = System.nanoTime() - start;
+            System.out.println(String.format("append: %,.0f records/sec (%,.0f ns/record), %d segments",
+                history.appended() / (appendNanos / 1e9), (double) appendNanos * threads / history.appended(),
+                history.segments()));
+
+            // One target over the last hour, then over the whole week
+            long endMillis = baseMillis + sequence.get() * stepMillis;
+            query(history, "last hour", endMillis - 3600_000L, endMillis);
+            query(history, "full week", baseMillis, endMillis);
+
+            start = System.nanoTime();
+            long[] scanned = new long[1];
+            history.scan((id, timestamp, statusCode, latencyMicros, error) -> {
+                scanned[0]++;
+                return true;
+            });
+            System.out.println(String.format("full scan (startup restore): %,d records in %.1f ms",
+                scanned[0], (System.nanoTime() - start) / 1e6));
+            history.close();
+        } finally {
+            try (Stream<Path> files = Files.walk(directory)) {
+                files.sorted(Comparator.reverseOrder()).forEach(HistoryBenchmark::delete);
+            }
+        }
+    }
+
+    private static void query(ProbeHistory history, String label, long fromMillis, long toMillis) {
+        int rounds = 20;
+        long found = 0;
+        long start = System.nanoTime();
+        for (int i = 0; i < rounds; i++) {
+            found = history.query(42, fromMillis, toMillis, (id, timestamp, statusCode, latencyMicros, error) -> true);
+        }
+        System.out.println(String.format("query one target, %s: %,d records in %.2f ms",
+            label, found, (System.nanoTime() - start) / 1e6 / rounds));
+    }
+
+    private static void delete(Path path) {
+        try {
+            Files.delete(path);
+        } catch (IOException e) {
+            System.err.println("Failed to delete " + path + ": " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package com.Health;
+
+import java.io.IOException;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Throughput comparison between the old per-check HttpURLConnection path
+ * and the pooled asynchronous ProbeEngine, both against a local stub server
+ *
+ * Usage: java com.Health.ProbeBenchmark [seconds] [threads] [inFlight] [stubDelayMs]
+ *
+ * The stub delay models the network round trip to a remote service; with a
+ * delay of 0 both paths are bound by loopback CPU cost instead of latency
+ */
+public class ProbeBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        int seconds = args.length > 0 ? Integer.parseInt(args[0]) : 10;
+        int threads = args.length > 1 ? Integer.parseInt(args[1]) : 3;
+        int inFlight = args.length > 2 ? Integer.parseInt(args[2]) : 256;
+        int delayMs = args.length > 3 ? Integer.parseInt(args[3]) : 20;
+
+        StubServer stub = new StubServer(8, delayMs);
+        String url = stub.url();
+
+        System.out.println("📊 Probe throughput benchmark against " + url);
+        System.out.println("Duration: " + seconds + "s per path, stub delay: " + delayMs + " ms");
+
+        try {
+            // Warm up both paths before measuring
+            runLegacy(url, threads, 2);
+            runEngine(url, inFlight, 2);
+
+            long legacy = runLegacy(url, threads, seconds);
+            long engine = runEngine(url, inFlight, seconds);
+
+            System.out.println(String.format("HttpURLConnection (%d threads): %,10.0f probes/sec",
+                threads, (double) legacy / seconds));
+            System.out.println(String.format("ProbeEngine (%d in flight):     %,10.0f probes/sec",
+                inFlight, (double) engine / seconds));
+            System.out.println(String.format("Speedup: %.1fx", legacy > 0 ? (double) engine / legacy : 0));
+        } finally {
+            stub.stop();
+        }
+    }
+
+    /**
+     * The original probe: new connection per check, response stream never read or closed
+     */
+    private static long runLegacy(String url, int threads, int seconds) throws InterruptedException {
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        AtomicLong completed = new AtomicLong();
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(seconds);
+
+        for (int i = 0; i < threads; i++) {
+            pool.execute(() -> {
+                while (System.nanoTime() < deadline) {
+                    try {
+                        HttpURLConnection connection = (HttpURLConnection) new URL(url).openConnection();
+                        connection.setRequestMethod("GET");
+                        connection.setConnectTimeout(10000);
+                        connection.setReadTimeout(10000);
+                        connection.getResponseCode();
+                        completed.incrementAndGet();
+                    } catch (IOException e) {
+                        // Count only completed probes
+                    }
+                }
+            });
+        }
+
+        pool.shutdown();
+        pool.awaitTermination(seconds + 30, TimeUnit.SECONDS);
+        return completed.get();
+    }
+
+    /**
+     * Pooled asynchronous probes with a bounded number in flight
+     */
+    private static long runEngine(String url, int inFlight, int seconds) throws InterruptedException {
+        ProbeEngine engine = new ProbeEngine(10000);
+        Semaphore window = new Semaphore(inFlight);
+        AtomicLong completed = new AtomicLong();
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(seconds);
+
+        while (System.nanoTime() < deadline) {
+            window.acquire();
+            engine.probe(url).whenComplete((result, error) -> {
+                if (result != null && result.isHealthy()) {
+                    completed.incrementAndGet();
+                }
+                window.release();
+            });
+        }
+
+        // Let the last window drain
+        window.tryAcquire(inFlight, 30, TimeUnit.SECONDS);
+        return completed.get();
+    }
+}
@@ -0,0 +1,114 @@
+package com.Health;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Comparator;
+import java.util.stream.Stream;
+
+/**
+ * Per-probe logging cost on the probing thread: the old synchronized
+ * String.format + println path against the ring-buffer ProbeLog, both
+ * writing to a file in a temporary directory
+ *
+ * Usage: java com.Health.ProbeLogBenchmark [records] [threads]
+ */
+public class ProbeLogBenchmark {
+
+    private static final String URL = "https://prod.npontu.io/endpoint_1/health_check";
+
+    public static void main(String[] args) throws Exception {
+        int records = args.length > 0 ? Integer.parseInt(args[0]) : 2_000_000;
+        int threads = args.length > 1 ? Integer.parseInt(args[1]) : 4;
+        ProbeResult healthy = ProbeResult.response(URL, 200, 12_345_000L);
+        ProbeResult failed = ProbeResult.failure(URL, 10_000_000_000L, "request timed out", ProbeError.TIMEOUT);
+
+        Path directory = Files.createTempDirectory("probe-log-bench");
+        try {
+            System.out.println("📊 Probe log benchmark: " + records + " records from " + threads + " threads");
+
+            // Warm up both paths
+            runLegacy(directory.resolve("warmup.log"), records / 10, threads, healthy, failed);
+            runRing(directory.resolve("warmup-ring.log"), records / 10, threads, healthy, failed);
+
+            double legacy = runLegacy(directory.resolve("legacy.log"), records, threads, healthy, failed);
+            double ring = runRing(directory.resolve("ring.log"), records, threads, healthy, failed);
+            System.out.println(String.format("Speedup on the probing thread: %.1fx", ring > 0 ? legacy / ring : 0));
+        } finally {
+            try (Stream<Path> files = Files.walk(directory)) {
+                files.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+            }
+        }
+    }
+
+    /**
+     * The original per-probe logging: a new formatter and a synchronized println per probe
+     */
+    private static double runLegacy(Path file, int records, int threads, ProbeResult healthy, ProbeResult failed)
+            throws IOException, InterruptedException {
+        try (PrintStream out = new PrintStream(new BufferedOutputStream(Files.newOutputStream(file)), true)) {
+            long nanos = runThreads(records, threads, i -> {
+                ProbeResult result = i % 100 == 0 ? failed : healthy;
+                if (result.getError() != null) {
+                    out.println(String.format("[%s] ERROR checking %s: %s",
+                        LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss")),
+                        URL, result.getError()));
+                } else {
+                    out.println(String.format("[%s] %s - Status: %d - %s (%d ms)",
+                        LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss")),
+                        URL, result.getStatusCode(), result.isHealthy() ? "HEALTHY" : "UNHEALTHY",
+                        result.getLatencyMillis()));
+                }
+            });
+            double perRecord = (double) nanos * threads / records;
+            System.out.println(String.format("format + println:  %,8.0f ns per probe on the probing thread", perRecord));
+            return perRecord;
+        }
+    }
+
+    private static double runRing(Path file, int records, int threads, ProbeResult healthy, ProbeResult failed)
+            throws IOException, InterruptedException {
+        // Large enough to hold the whole run, so the probing side is measured on its own
+        ProbeLog log = new ProbeLog(records, id -> URL, file, 64L * 1024 * 1024, 2, null);
+        long start = System.nanoTime();
+        long nanos = runThreads(records, threads, i -> log.log((int) (i & 1023), i % 100 == 0 ? failed : healthy));
+        log.close();
+        double seconds = (System.nanoTime() - start) / 1e9;
+        double perRecord = (double) nanos * threads / records;
+        System.out.println(String.format("ring buffer:       %,8.0f ns per probe on the probing thread", perRecord));
+        System.out.println(String.format("  writer: %,d lines in %,d batches, %,.0f lines/sec including the final drain, %,d dropped",
+            log.written(), log.batches(), log.written() / seconds, log.dropped()));
+        return perRecord;
+    }
+
+    private interface Body {
+        void run(long index) throws IOException;
+    }
+
+    private static long runThreads(int records, int threads, Body body) throws InterruptedException {
+        int perThread = records / threads;
+        Thread[] workers = new Thread[threads];
+        long start = System.nanoTime();
+        for (int t = 0; t < threads; t++) {
+            long offset = (long) t * perThread;
+            workers[t] = new Thread(() -> {
+                try {
+                    for (int i = 0; i < perThread; i++) {
+                        body.run(offset + i);
+                    }
+                } catch (IOException e) {
+                    throw new IllegalStateException(e);
+                }
+            });
+            workers[t].start();
+        }
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        return System.nanoTime() - start;
+    }
+}
@@ -0,0 +1,63 @@
+package com.Health;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Probe throughput of the shared engine against a loopback stub
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ProbeThroughputBenchmark {
+
+    private static final int BATCH = 64;
+
+    private StubServer stub;
+    private ProbeEngine engine;
+    private String url;
+
+    @Setup
+    public void setup() throws Exception {
+        stub = new StubServer(4);
+        engine = new ProbeEngine(10000);
+        url = stub.url();
+        engine.probe(url).join();
+    }
+
+    @TearDown
+    public void tearDown() {
+        stub.stop();
+    }
+
+    @Benchmark
+    public ProbeResult sequential() {
+        return engine.probe(url).join();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public int concurrent() {
+        CompletableFuture<?>[] probes = new CompletableFuture<?>[BATCH];
+        for (int i = 0; i < BATCH; i++) {
+            probes[i] = engine.probe(url);
+        }
+        CompletableFuture.allOf(probes).join();
+        return probes.length;
+    }
+}
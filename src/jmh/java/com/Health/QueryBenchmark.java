@@ -0,0 +1,130 @@
+package com.Health;
+
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Cost of fleet queries answered from the TargetRegistry's indexes against a
+ * pass over every target, on a synthetic fleet: each target carries one of 20
+ * team tags and one of 4 region tags, 2.5% are tagged payments, ten targets
+ * share a host, and 1% are unhealthy. Every query is read to its last page.
+ * Also measures the status changes per second the registry applies while
+ * keeping the bitsets in step
+ *
+ * Usage: java com.Health.QueryBenchmark [targets] [iterations]
+ */
+public class QueryBenchmark {
+
+    private static final String[] REGIONS = {"eu", "us", "ap", "sa"};
+
+    public static void main(String[] args) {
+        int targets = args.length > 0 ? Integer.parseInt(args[0]) : 100000;
+        int iterations = args.length > 1 ? Integer.parseInt(args[1]) : 200;
+
+        TargetRegistry registry = new TargetRegistry();
+        long now = System.currentTimeMillis();
+        for (int i = 0; i < targets; i++) {
+            String tags = "team-" + (i % 20) + "," + REGIONS[(i / 20) % REGIONS.length]
+                + (i % 40 == 3 ? ",payments" : "");
+            registry.register(new TargetSpec("fleet-" + i, "http://host-" + (i / 10) + ".internal:8080/health",
+                Map.of("tags", tags)));
+            boolean healthy = i % 100 != 43;
+            registry.restore(i, healthy, healthy ? 200 : 503, 1000, now, 1, healthy ? 0 : 1, healthy ? 0 : 1);
+        }
+
+        System.out.println("📊 Query benchmark: " + targets + " targets, "
+            + registry.countStatus(TargetRegistry.STATUS_UNHEALTHY) + " unhealthy, " + iterations + " iterations");
+        System.out.println(String.format("%-48s %8s %10s %14s %14s %8s",
+            "query", "matches", "examined", "indexed µs", "full scan µs", "speedup"));
+        TargetQuery[] queries = {
+            TargetQuery.parse("unhealthy", null, null),
+            TargetQuery.parse("unhealthy", "payments", null),
+            TargetQuery.parse(null, "payments", null),
+            TargetQuery.parse("healthy", "eu", null),
+            TargetQuery.parse(null, null, "host-4242.internal"),
+            TargetQuery.parse("unhealthy", "eu", "host-4242.internal"),
+        };
+        for (TargetQuery query : queries) {
+            int[] indexed = drain(registry, query, 1);
+            int[] scanned = scan(registry, query, 1);
+            if (indexed[0] != scanned[0]) {
+                throw new IllegalStateException("Index and scan disagree for " + describe(query)
+                    + ": " + indexed[0] + " vs " + scanned[0]);
+            }
+            // Warm up, then time
+            drain(registry, query, iterations);
+            scan(registry, query, iterations);
+            long start = System.nanoTime();
+            drain(registry, query, iterations);
+            double indexedMicros = (System.nanoTime() - start) / 1000.0 / iterations;
+            start = System.nanoTime();
+            scan(registry, query, iterations);
+            double scanMicros = (System.nanoTime() - start) / 1000.0 / iterations;
+            System.out.println(String.format("%-48s %,8d %,10d %,14.1f %,14.1f %7.0fx", describe(query),
+                indexed[0], indexed[1], indexedMicros, scanMicros, scanMicros / indexedMicros));
+        }
+
+        // Flip random targets between healthy and unhealthy, as probes would
+        int changes = targets * 10;
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        long start = System.nanoTime();
+        for (int i = 0; i < changes; i++) {
+            int id = random.nextInt(targets);
+            registry.restore(id, !registry.isHealthy(id), 200, 1000, now, 1, 0, 0);
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+        System.out.println(String.format("status changes with index upkeep: %,.0f/s", changes / seconds));
+    }
+
+    /**
+     * Read every page of a query; returns matches and candidates examined of the last iteration
+     */
+    private static int[] drain(TargetRegistry registry, TargetQuery query, int iterations) {
+        int matches = 0;
+        int examined = 0;
+        for (int i = 0; i < iterations; i++) {
+            matches = 0;
+            examined = 0;
+            int cursor = 0;
+            while (cursor >= 0) {
+                TargetQuery.Result page = query.run(registry, cursor, TargetQuery.DEFAULT_LIMIT);
+                matches += page.ids().length;
+                examined += page.examined();
+                cursor = page.nextCursor();
+            }
+        }
+        return new int[] {matches, examined};
+    }
+
+    /**
+     * The same filter checked against every target
+     */
+    private static int[] scan(TargetRegistry registry, TargetQuery query, int iterations) {
+        int matches = 0;
+        for (int i = 0; i < iterations; i++) {
+            matches = 0;
+            for (int id = 0, n = registry.size(); id < n; id++) {
+                if ((query.status() < 0 || registry.status(id) == query.status())
+                        && (query.tag() == null || registry.hasTag(id, query.tag()))
+                        && (query.host() == null || query.host().equals(registry.host(id)))) {
+                    matches++;
+                }
+            }
+        }
+        return new int[] {matches, registry.size()};
+    }
+
+    private static String describe(TargetQuery query) {
+        StringBuilder description = new StringBuilder();
+        if (query.status() >= 0) {
+            description.append("status=").append(TargetQuery.statusName(query.status()).toLowerCase());
+        }
+        if (query.tag() != null) {
+            description.append(description.length() > 0 ? "&" : "").append("tag=").append(query.tag());
+        }
+        if (query.host() != null) {
+            description.append(description.length() > 0 ? "&" : "").append("host=").append(query.host());
+        }
+        return description.toString();
+    }
+}
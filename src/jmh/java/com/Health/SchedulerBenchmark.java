@@ -0,0 +1,118 @@
+package com.Health;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Scheduling overhead of the timer-wheel ProbeScheduler with a large fleet
+ * Probes are no-ops, so only the cost of scheduling and firing is measured
+ *
+ * Usage: java com.Health.SchedulerBenchmark [targets] [intervalMs] [seconds]
+ */
+public class SchedulerBenchmark {
+
+    private static final CompletableFuture<Void> DONE = CompletableFuture.completedFuture(null);
+
+    public static void main(String[] args) throws Exception {
+        int targets = args.length > 0 ? Integer.parseInt(args[0]) : 100_000;
+        int intervalMs = args.length > 1 ? Integer.parseInt(args[1]) : 1000;
+        int seconds = args.length > 2 ? Integer.parseInt(args[2]) : 10;
+
+        System.out.println("📊 Scheduler benchmark: " + targets + " targets, "
+            + intervalMs + " ms interval");
+
+        simulated(targets, intervalMs);
+        realTimeWheel(targets, intervalMs, seconds);
+        realTimeExecutor(targets, intervalMs, seconds);
+    }
+
+    private static TargetRegistry registry(int targets) {
+        TargetRegistry registry = new TargetRegistry();
+        for (int i = 0; i < targets; i++) {
+            registry.register(new TargetSpec("target-" + i, "http://127.0.0.1/" + i));
+        }
+        return registry;
+    }
+
+    /**
+     * Drive the wheel through simulated time as fast as possible
+     */
+    private static void simulated(int targets, int intervalMs) {
+        TargetRegistry registry = registry(targets);
+        ProbeScheduler scheduler = new ProbeScheduler(registry, (id, timeout) -> DONE, intervalMs, intervalMs);
+
+        long start = System.nanoTime();
+        for (int id = 0; id < targets; id++) {
+            scheduler.add(id);
+        }
+        long addNanos = System.nanoTime() - start;
+
+        // Ten full periods of simulated time
+        long ticks = scheduler.wheel().ticksFor(intervalMs) * 10;
+        start = System.nanoTime();
+        scheduler.wheel().advanceTicks(ticks);
+        long runNanos = System.nanoTime() - start;
+        long fired = scheduler.dispatched();
+
+        System.out.println("\n--- Timer wheel, simulated time ---");
+        System.out.println(String.format("Schedule: %,d ns per target", addNanos / targets));
+        System.out.println(String.format("Fired %,d probes over %,d ticks: %,d ns per firing, %,d ns per tick",
+            fired, ticks, fired > 0 ? runNanos / fired : 0, runNanos / ticks));
+    }
+
+    /**
+     * Run the wheel in real time and report how late firings were
+     */
+    private static void realTimeWheel(int targets, int intervalMs, int seconds) throws InterruptedException {
+        TargetRegistry registry = registry(targets);
+        ProbeScheduler scheduler = new ProbeScheduler(registry, (id, timeout) -> DONE, intervalMs, intervalMs);
+        scheduler.start();
+        TimeUnit.SECONDS.sleep(seconds);
+        scheduler.stop();
+
+        System.out.println("\n--- Timer wheel, real time ---");
+        System.out.println(String.format("Dispatched: %,.0f probes/sec", (double) scheduler.dispatched() / seconds));
+        System.out.println(String.format("Late firings (> 1 tick): %,d, max lag: %d ms",
+            scheduler.lateFirings(), scheduler.maxLagMillis()));
+    }
+
+    /**
+     * Baseline: one ScheduledThreadPoolExecutor task per target
+     */
+    private static void realTimeExecutor(int targets, int intervalMs, int seconds) throws InterruptedException {
+        ScheduledExecutorService executor = Executors.newScheduledThreadPool(1);
+        AtomicLong fired = new AtomicLong();
+        AtomicLong late = new AtomicLong();
+        AtomicLong maxLag = new AtomicLong();
+
+        long start = System.nanoTime();
+        for (int i = 0; i < targets; i++) {
+            long phase = ThreadLocalRandom.current().nextLong(intervalMs);
+            long first = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(phase);
+            long[] due = {first};
+            executor.scheduleAtFixedRate(() -> {
+                long lag = System.nanoTime() - due[0];
+                due[0] += TimeUnit.MILLISECONDS.toNanos(intervalMs);
+                fired.incrementAndGet();
+                if (lag > TimeUnit.MILLISECONDS.toNanos(100)) {
+                    late.incrementAndGet();
+                }
+                maxLag.accumulateAndGet(lag, Math::max);
+            }, phase, intervalMs, TimeUnit.MILLISECONDS);
+        }
+        long addNanos = System.nanoTime() - start;
+
+        TimeUnit.SECONDS.sleep(seconds);
+        executor.shutdownNow();
+
+        System.out.println("\n--- ScheduledThreadPoolExecutor, real time ---");
+        System.out.println(String.format("Schedule: %,d ns per target", addNanos / targets));
+        System.out.println(String.format("Fired: %,.0f tasks/sec", (double) fired.get() / seconds));
+        System.out.println(String.format("Late firings (> 100 ms): %,d, max lag: %d ms",
+            late.get(), TimeUnit.NANOSECONDS.toMillis(maxLag.get())));
+    }
+}
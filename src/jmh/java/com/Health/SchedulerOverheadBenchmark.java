@@ -0,0 +1,64 @@
+package com.Health;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Timer-wheel cost per tick and per reschedule with no-op probes, at different fleet sizes
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SchedulerOverheadBenchmark {
+
+    private static final CompletableFuture<Void> DONE = CompletableFuture.completedFuture(null);
+    private static final int INTERVAL_MS = 1000;
+
+    @Param({"10", "1000", "100000"})
+    public int targets;
+
+    private ProbeScheduler scheduler;
+    private int nextId;
+
+    @Setup
+    public void setup() {
+        TargetRegistry registry = new TargetRegistry();
+        for (int i = 0; i < targets; i++) {
+            registry.register(new TargetSpec("target-" + i, "http://127.0.0.1/" + i));
+        }
+        scheduler = new ProbeScheduler(registry, (id, timeout) -> DONE, INTERVAL_MS, INTERVAL_MS);
+        for (int id = 0; id < targets; id++) {
+            scheduler.add(id);
+        }
+    }
+
+    /**
+     * One tick of simulated time; fires about targets / 10 probes with a 1 s interval
+     */
+    @Benchmark
+    public int tick() {
+        return scheduler.wheel().advanceTicks(1);
+    }
+
+    @Benchmark
+    public int reschedule() {
+        int id = nextId;
+        nextId = id + 1 == targets ? 0 : id + 1;
+        scheduler.wheel().schedule(id, INTERVAL_MS);
+        return id;
+    }
+}
@@ -0,0 +1,157 @@
+package com.Health;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadInfo;
+import java.lang.management.ThreadMXBean;
+import java.net.URI;
+import java.security.KeyStore;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.IntFunction;
+import javax.net.ssl.SSLContext;
+
+/**
+ * Checks per second of the SelectorProbeEngine against the local target farm
+ * (plain TCP and HTTP) and a self-signed TLS stub, for each check type, with
+ * a fixed number of checks kept in flight. Besides wall-clock throughput it
+ * reports checks per CPU-second of the selector threads, which is what one
+ * core sustains once the farm and the submitting thread are not sharing it.
+ * The HttpClient ProbeEngine on kept-alive connections is the baseline
+ *
+ * Usage: java com.Health.SelectorBenchmark [seconds] [inFlight] [targets]
+ */
+public class SelectorBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        int seconds = args.length > 0 ? Integer.parseInt(args[0]) : 5;
+        int inFlight = args.length > 1 ? Integer.parseInt(args[1]) : 256;
+        int targets = args.length > 2 ? Integer.parseInt(args[2]) : 1000;
+
+        TargetFarm farm = new TargetFarm(targets, TargetFarm.Profile.parse("latency=fixed:0"));
+        KeyStore keyStore = StubServer.selfSignedKeyStore();
+        StubServer tlsStub = new StubServer(4, 0, StubServer.serverContext(keyStore));
+        SSLContext trust = ProbeEngine.tlsContext(keyStore, 10000, 3600);
+        SelectorProbeEngine sockets = new SelectorProbeEngine(Runtime.getRuntime().availableProcessors(), null, trust);
+        ProbeEngine http = new ProbeEngine(10000, null, trust);
+
+        URI farmUri = URI.create(farm.url(0));
+        URI tlsUri = URI.create(tlsStub.url());
+        String[] urls = new String[targets];
+        SocketCheck[] statusLines = new SocketCheck[targets];
+        for (int i = 0; i < targets; i++) {
+            urls[i] = farm.url(i);
+            statusLines[i] = SocketCheck.statusLine(URI.create(urls[i]));
+        }
+        SocketCheck tcp = SocketCheck.tcp(farmUri.getHost(), farmUri.getPort());
+        // The stub's certificate is valid for two days, below the default cert-min-days
+        SocketCheck tls = SocketCheck.tls(tlsUri.getHost(), tlsUri.getPort(), 1);
+        SocketCheck expiring = SocketCheck.tls(tlsUri.getHost(), tlsUri.getPort(), SocketCheck.DEFAULT_CERT_MIN_DAYS);
+        SocketCheck httpsStatusLine = SocketCheck.statusLine(tlsUri);
+
+        System.out.println("📊 Selector probe engine benchmark: " + sockets.threads() + " selector thread(s), "
+            + inFlight + " checks in flight, " + seconds + " s per case, " + targets + " farm targets");
+        System.out.println(String.format("%-26s %12s %16s %10s  %s",
+            "check", "checks/s", "checks/core-s", "failed", "last failure"));
+        try {
+            long nanos = seconds * 1_000_000_000L;
+            Case[] cases = {
+                new Case("tcp connect", i -> sockets.probe(tcp, "tcp://" + farmUri.getAuthority(), 10000)),
+                new Case("http status-line", i -> sockets.probe(statusLines[i % targets], urls[i % targets], 10000)),
+                new Case("tls handshake", i -> sockets.probe(tls, "tls://" + tlsUri.getAuthority(), 10000)),
+                new Case("https status-line", i -> sockets.probe(httpsStatusLine, tlsStub.url(), 10000)),
+                new Case("httpclient GET (baseline)", i -> http.probe(urls[i % targets], 10000)),
+            };
+            for (Case c : cases) {
+                boolean selector = c != cases[cases.length - 1];
+                c.run(nanos / 5, inFlight, sockets, selector);
+                c.reset();
+                c.run(nanos, inFlight, sockets, selector);
+                System.out.println(String.format("%-26s %,12.0f %,16.0f %,10d  %s", c.name, c.perSecond(),
+                    c.perCoreSecond(), c.failed.sum(), c.lastFailure.get() != null ? c.lastFailure.get() : ""));
+            }
+
+            ProbeResult result = sockets.probe(expiring, "tls://" + tlsUri.getAuthority(), 10000).join();
+            System.out.println("cert-min-days=" + SocketCheck.DEFAULT_CERT_MIN_DAYS + " against the stub: " + result);
+        } finally {
+            sockets.shutdown();
+            farm.stop();
+            tlsStub.stop();
+        }
+        System.exit(0);
+    }
+
+    private static final class Case {
+        final String name;
+        final IntFunction<CompletableFuture<ProbeResult>> probe;
+        final LongAdder passed = new LongAdder();
+        final LongAdder failed = new LongAdder();
+        final AtomicReference<String> lastFailure = new AtomicReference<>();
+        long elapsedNanos;
+        long cpuNanos;
+
+        Case(String name, IntFunction<CompletableFuture<ProbeResult>> probe) {
+            this.name = name;
+            this.probe = probe;
+        }
+
+        void reset() {
+            passed.reset();
+            failed.reset();
+            lastFailure.set(null);
+        }
+
+        /**
+         * Keep inFlight checks running for the given time, then wait for the last ones
+         */
+        void run(long nanos, int inFlight, SelectorProbeEngine sockets, boolean selector) throws InterruptedException {
+            Semaphore permits = new Semaphore(inFlight);
+            long cpuBefore = engineCpuNanos(sockets, selector);
+            long start = System.nanoTime();
+            for (int i = 0; System.nanoTime() - start < nanos; i++) {
+                permits.acquire();
+                probe.apply(i).whenComplete((result, error) -> {
+                    if (result != null && result.isHealthy()) {
+                        passed.increment();
+                    } else {
+                        failed.increment();
+                        lastFailure.set(result != null ? result.getError() : String.valueOf(error));
+                    }
+                    permits.release();
+                });
+            }
+            permits.acquire(inFlight);
+            elapsedNanos = System.nanoTime() - start;
+            cpuNanos = engineCpuNanos(sockets, selector) - cpuBefore;
+        }
+
+        double perSecond() {
+            return (passed.sum() + failed.sum()) * 1e9 / elapsedNanos;
+        }
+
+        double perCoreSecond() {
+            return cpuNanos > 0 ? (passed.sum() + failed.sum()) * 1e9 / cpuNanos : 0;
+        }
+    }
+
+    /**
+     * CPU time of the selector threads, or of the HttpClient's threads for the baseline
+     */
+    private static long engineCpuNanos(SelectorProbeEngine sockets, boolean selector) {
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        long total = 0;
+        if (selector) {
+            for (long id : sockets.threadIds()) {
+                total += Math.max(threads.getThreadCpuTime(id), 0);
+            }
+            return total;
+        }
+        for (ThreadInfo thread : threads.getThreadInfo(threads.getAllThreadIds())) {
+            if (thread != null && thread.getThreadName().startsWith("HttpClient")) {
+                total += Math.max(threads.getThreadCpuTime(thread.getThreadId()), 0);
+            }
+        }
+        return total;
+    }
+}
@@ -0,0 +1,44 @@
+package com.Health;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Cost of encoding the /health document, and of serving the published snapshot
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Dhealth.history.enabled=false")
+public class SerializationBenchmark {
+
+    @Param({"3", "100", "1000"})
+    public int targets;
+
+    @Setup
+    public void setup() {
+        BenchmarkTargets.populate(HealthCheckService.registry(), targets);
+    }
+
+    @Benchmark
+    public String buildHealthMetrics() {
+        return HealthCheckService.buildHealthMetrics();
+    }
+
+    @Benchmark
+    public String getHealthMetrics() {
+        return HealthCheckService.getHealthMetrics();
+    }
+}
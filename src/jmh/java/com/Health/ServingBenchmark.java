@@ -0,0 +1,225 @@
+package com.Health;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Load test of the lite mode's /health under many concurrent pollers, for each
+ * serving mode: the former layout (handlers on the dispatcher thread, backlog
+ * 0), a bounded worker pool with a deep backlog, the same with gzip, and
+ * virtual threads where the runtime has them. Every poller sends its next
+ * request as soon as the last one is answered, while a few slow clients
+ * open a connection, send half a request and stall, as a hung load balancer
+ * or a client on a bad link would. The fleet document covers the given
+ * number of targets
+ *
+ * Usage: java com.Health.ServingBenchmark [pollers] [seconds] [targets] [slowClients]
+ */
+public class ServingBenchmark {
+
+    private static final String PARTIAL_REQUEST = "GET /health HTTP/1.1\r\nHost: localhost\r\n";
+
+    public static void main(String[] args) throws Exception {
+        int pollers = args.length > 0 ? Integer.parseInt(args[0]) : 500;
+        int seconds = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+        int targets = args.length > 2 ? Integer.parseInt(args[2]) : 2000;
+        int slowClients = args.length > 3 ? Integer.parseInt(args[3]) : 4;
+
+        // Configured before the service and the first HttpServer read their settings
+        Path directory = Files.createTempDirectory("serving-benchmark");
+        Path targetsFile = directory.resolve("targets.txt");
+        try (BufferedWriter writer = Files.newBufferedWriter(targetsFile, StandardCharsets.UTF_8)) {
+            for (int i = 0; i < targets; i++) {
+                writer.write("fleet-" + i + " http://127.0.0.1:9/t/" + i + "/health\n");
+            }
+        }
+        System.setProperty("health.targets.file", targetsFile.toString());
+        System.setProperty("health.server.port", "0");
+        System.setProperty("health.history.enabled", "false");
+        System.setProperty("health.log.enabled", "false");
+        System.setProperty("health.alerts.console", "false");
+        ServingMode.applyServerDefaults(HealthConfig.get());
+
+        List<ServingMode> modes = new ArrayList<>();
+        modes.add(new ServingMode(ServingMode.Executor.DISPATCHER, 1, 1, 0, true, false, 0));
+        modes.add(new ServingMode(ServingMode.Executor.BOUNDED, 32, 4096, 4096, true, false, 1024, 10000));
+        modes.add(new ServingMode(ServingMode.Executor.BOUNDED, 32, 4096, 4096, true, true, 1024, 10000));
+        if (ProbeExecutor.newVirtualThreadExecutor() != null) {
+            modes.add(new ServingMode(ServingMode.Executor.VIRTUAL, 0, 1, 4096, true, true, 1024, 10000));
+        }
+
+        int documentBytes = HealthCheckService.snapshot().json().length;
+        int gzipBytes = HealthCheckService.snapshot().gzip().length;
+        System.out.println("📊 Serving benchmark: " + pollers + " pollers, " + slowClients + " stalled clients, "
+            + seconds + " s per mode, /health document " + documentBytes + " bytes (" + gzipBytes + " gzipped)");
+
+        List<String> rows = new ArrayList<>();
+        for (ServingMode mode : modes) {
+            for (int stalledClients : new int[] {0, slowClients}) {
+                HealthCheckServer.startServer(mode);
+                URI uri = URI.create("http://127.0.0.1:" + HealthCheckServer.port() + "/health");
+                Stalled stalled = new Stalled(uri, stalledClients);
+                try {
+                    run(uri, pollers, 2);
+                    Result result = run(uri, pollers, seconds);
+                    rows.add(String.format("%-80s %7d %,10.0f %9.1f %9.1f %9.1f %7d %7d %8.1f", mode, stalledClients,
+                        result.perSecond, result.percentiles[0] / 1000.0, result.percentiles[1] / 1000.0,
+                        result.maxMicros / 1000.0, result.shed, result.errors, result.bytesPerResponse / 1024.0));
+                } finally {
+                    stalled.stop();
+                    HealthCheckServer.stopServer();
+                }
+            }
+        }
+        System.out.println(String.format("%-80s %7s %10s %9s %9s %9s %7s %7s %8s",
+            "mode", "stalled", "req/s", "p50 ms", "p99 ms", "max ms", "503", "errors", "KB/resp"));
+        rows.forEach(System.out::println);
+        Files.deleteIfExists(targetsFile);
+        Files.deleteIfExists(directory);
+        System.exit(0);
+    }
+
+    private static final class Result {
+        double perSecond;
+        long[] percentiles;
+        long maxMicros;
+        long shed;
+        long errors;
+        double bytesPerResponse;
+    }
+
+    /**
+     * Closed-loop pollers for the given time; each sends its next request when the last one is answered
+     */
+    private static Result run(URI uri, int pollers, int seconds) throws InterruptedException {
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        HttpClient client = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .connectTimeout(Duration.ofSeconds(30))
+            .executor(executor)
+            .build();
+        HttpRequest request = HttpRequest.newBuilder(uri)
+            .header("Accept-Encoding", "gzip")
+            .timeout(Duration.ofSeconds(30))
+            .build();
+        LatencyHistogram latency = new LatencyHistogram();
+        LongAdder ok = new LongAdder();
+        LongAdder shed = new LongAdder();
+        LongAdder errors = new LongAdder();
+        LongAdder bytes = new LongAdder();
+        LongAdder answeredInTime = new LongAdder();
+        long deadline = System.nanoTime() + seconds * 1_000_000_000L;
+        Object done = new Object();
+        int[] running = {pollers};
+
+        Runnable[] poll = new Runnable[1];
+        poll[0] = () -> {
+            long start = System.nanoTime();
+            // Bodies are discarded as they arrive; thousands of buffered fleet documents would not fit the heap
+            client.sendAsync(request, HttpResponse.BodyHandlers.discarding()).whenComplete((response, error) -> {
+                long now = System.nanoTime();
+                // Requests still open at the deadline are waited for, so a stall shows in the latency
+                latency.recordMicros((now - start) / 1000);
+                if (error != null) {
+                    errors.increment();
+                } else if (response.statusCode() == 503) {
+                    shed.increment();
+                } else {
+                    ok.increment();
+                    bytes.add(response.headers().firstValueAsLong("Content-Length").orElse(0));
+                }
+                if (now - deadline <= 0) {
+                    answeredInTime.increment();
+                    poll[0].run();
+                    return;
+                }
+                synchronized (done) {
+                    if (--running[0] == 0) {
+                        done.notifyAll();
+                    }
+                }
+            });
+        };
+        long start = System.nanoTime();
+        for (int i = 0; i < pollers; i++) {
+            poll[0].run();
+        }
+        synchronized (done) {
+            while (running[0] > 0) {
+                done.wait();
+            }
+        }
+        executor.shutdown();
+
+        Result result = new Result();
+        result.perSecond = answeredInTime.sum() * 1e9 / (deadline - start);
+        result.percentiles = latency.percentilesMicros(50, 99);
+        result.maxMicros = latency.maxMicros();
+        result.shed = shed.sum();
+        result.errors = errors.sum();
+        result.bytesPerResponse = ok.sum() > 0 ? (double) bytes.sum() / ok.sum() : 0;
+        return result;
+    }
+
+    /**
+     * Connections that send part of a request and then stall, reopened whenever the server cuts them off
+     */
+    private static final class Stalled {
+        private final Socket[] sockets;
+        private volatile boolean stopped;
+
+        Stalled(URI uri, int count) {
+            sockets = new Socket[count];
+            for (int i = 0; i < count; i++) {
+                int slot = i;
+                Thread holder = new Thread(() -> hold(uri, slot), "stalled-client-" + i);
+                holder.setDaemon(true);
+                holder.start();
+            }
+        }
+
+        private void hold(URI uri, int slot) {
+            while (!stopped) {
+                try (Socket socket = new Socket()) {
+                    sockets[slot] = socket;
+                    socket.connect(new InetSocketAddress(uri.getHost(), uri.getPort()), 5000);
+                    OutputStream out = socket.getOutputStream();
+                    out.write(PARTIAL_REQUEST.getBytes(StandardCharsets.US_ASCII));
+                    out.flush();
+                    InputStream in = socket.getInputStream();
+                    while (in.read() >= 0) {
+                        // Never finishes the request; waits for the server to give up
+                    }
+                } catch (IOException e) {
+                    // Cut off or stopped; reconnect unless stopped
+                }
+            }
+        }
+
+        void stop() throws IOException {
+            stopped = true;
+            for (Socket socket : sockets) {
+                if (socket != null) {
+                    socket.close();
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,212 @@
+package com.Health;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Startup cost of the launch modes: time from process launch to the first
+ * recorded probe and to the first served /health, for the lite mode
+ * (MainApplication, no Spring context) and the Spring mode, each with and
+ * without the AppCDS archives of the cds profile. Every target is pointed at
+ * a loopback stub and probed at the first scheduler tick (health.check.jitter=0)
+ *
+ * Without a jar the lite mode runs from this classpath and the Spring mode
+ * only when Spring Boot is on it. With the jar built by mvn -P cds package,
+ * the archives next to it are used for the CDS variants
+ *
+ * Usage: java com.Health.StartupBenchmark [runs] [jar]
+ */
+public class StartupBenchmark {
+
+    private static final String FIRST_PROBE_LINE = "First probe recorded";
+    private static final long TIMEOUT_MS = 60000;
+    private static final HttpClient CLIENT = HttpClient.newBuilder()
+        .version(HttpClient.Version.HTTP_1_1)
+        .connectTimeout(Duration.ofSeconds(1))
+        .build();
+
+    public static void main(String[] args) throws Exception {
+        int runs = args.length > 0 ? Integer.parseInt(args[0]) : 5;
+        Path jar = args.length > 1 ? Paths.get(args[1]).toAbsolutePath() : null;
+
+        StubServer stub = new StubServer(2);
+        Path directory = Files.createTempDirectory("startup-benchmark");
+        System.out.println("📊 Startup benchmark: " + runs + " runs per mode, "
+            + (jar != null ? jar.toString() : "classpath " + System.getProperty("java.class.path")));
+        System.out.println(String.format("%-12s %14s %14s", "mode", "first /health", "first probe"));
+        try {
+            for (boolean spring : new boolean[] {false, true}) {
+                String mode = spring ? "spring" : "lite";
+                if (spring && jar == null && !springOnClasspath()) {
+                    System.out.println(String.format("%-12s skipped, Spring Boot is not on the classpath (pass the jar)", mode));
+                    continue;
+                }
+                run(mode, runs, jar, spring, null, stub, directory);
+                Path archive = jar != null ? jar.resolveSibling("health-check-" + mode + ".jsa") : null;
+                if (archive != null && Files.exists(archive)) {
+                    run(mode + "+cds", runs, jar, spring, archive, stub, directory);
+                } else {
+                    System.out.println(String.format("%-12s skipped, no archive (build the jar with mvn -P cds package)",
+                        mode + "+cds"));
+                }
+            }
+        } finally {
+            stub.stop();
+            try (Stream<Path> files = Files.walk(directory)) {
+                files.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+            }
+        }
+        System.exit(0);
+    }
+
+    /**
+     * Launch one mode runs times and print the median of both milestones
+     */
+    private static void run(String mode, int runs, Path jar, boolean spring, Path archive, StubServer stub,
+                            Path directory) throws Exception {
+        long[] served = new long[runs];
+        long[] probed = new long[runs];
+        for (int i = 0; i < runs; i++) {
+            long[] milestones = launch(jar, spring, archive, stub, directory.resolve(mode + "-" + i));
+            served[i] = milestones[0];
+            probed[i] = milestones[1];
+        }
+        System.out.println(String.format("%-12s %14s %14s", mode, median(served), median(probed)));
+    }
+
+    /**
+     * Milliseconds from launch to the first 200 from /health and to the first recorded probe (-1 on timeout)
+     */
+    private static long[] launch(Path jar, boolean spring, Path archive, StubServer stub, Path workDirectory)
+            throws Exception {
+        Files.createDirectories(workDirectory);
+        int port = freePort();
+        List<String> command = new ArrayList<>();
+        command.add(Paths.get(System.getProperty("java.home"), "bin", "java").toString());
+        if (archive != null) {
+            command.add("-XX:SharedArchiveFile=" + archive);
+        }
+        command.add("-Dhealth.server.port=" + port);
+        command.add("-Dserver.port=" + port);
+        command.add("-Dhealth.check.jitter=0");
+        command.add("-Dhealth.history.dir=" + workDirectory.resolve("history"));
+        command.add("-Dhealth.log.file=" + workDirectory.resolve("probes.log"));
+        command.add("-Dhealth.alerts.console=false");
+        for (String name : targetNames()) {
+            command.add("-D" + TargetLoader.TARGET_PREFIX + name + "=" + stub.url());
+        }
+        if (jar != null) {
+            command.add("-jar");
+            command.add(jar.toString());
+            if (!spring) {
+                command.add("--lite");
+            }
+        } else {
+            command.add("-cp");
+            command.add(System.getProperty("java.class.path"));
+            command.add(spring ? "com.Health.HealthCheckApplication" : "com.Health.MainApplication");
+        }
+        URI health = URI.create("http://127.0.0.1:" + port + (spring ? "/health-check/api/health" : "/health"));
+
+        long start = System.nanoTime();
+        Process process = new ProcessBuilder(command).redirectErrorStream(true).start();
+        long[] firstProbe = {-1};
+        Thread reader = new Thread(() -> {
+            try (BufferedReader lines = new BufferedReader(
+                    new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8))) {
+                String line;
+                while ((line = lines.readLine()) != null) {
+                    if (firstProbe[0] < 0 && line.contains(FIRST_PROBE_LINE)) {
+                        synchronized (firstProbe) {
+                            firstProbe[0] = (System.nanoTime() - start) / 1_000_000;
+                            firstProbe.notifyAll();
+                        }
+                    }
+                }
+            } catch (IOException e) {
+                // Process exited
+            }
+        }, "startup-output");
+        reader.setDaemon(true);
+        reader.start();
+
+        try {
+            long served = -1;
+            while (served < 0 && System.nanoTime() - start < TIMEOUT_MS * 1_000_000 && process.isAlive()) {
+                try {
+                    HttpResponse<Void> response = CLIENT.send(
+                        HttpRequest.newBuilder(health).timeout(Duration.ofSeconds(5)).build(),
+                        HttpResponse.BodyHandlers.discarding());
+                    if (response.statusCode() == 200) {
+                        served = (System.nanoTime() - start) / 1_000_000;
+                    }
+                } catch (IOException e) {
+                    // Not listening yet
+                }
+                if (served < 0) {
+                    Thread.sleep(5);
+                }
+            }
+            synchronized (firstProbe) {
+                long deadline = start / 1_000_000 + TIMEOUT_MS;
+                while (firstProbe[0] < 0 && process.isAlive() && System.nanoTime() / 1_000_000 < deadline) {
+                    firstProbe.wait(100);
+                }
+                return new long[] {served, firstProbe[0]};
+            }
+        } finally {
+            process.destroy();
+            process.waitFor();
+        }
+    }
+
+    /**
+     * Names of the health.target.* entries in application.properties, so each one is redirected to the stub
+     */
+    private static List<String> targetNames() {
+        List<String> names = new ArrayList<>();
+        for (String key : HealthConfig.get().properties().stringPropertyNames()) {
+            if (key.startsWith(TargetLoader.TARGET_PREFIX) && key.indexOf('.', TargetLoader.TARGET_PREFIX.length()) < 0) {
+                names.add(key.substring(TargetLoader.TARGET_PREFIX.length()));
+            }
+        }
+        return names;
+    }
+
+    private static boolean springOnClasspath() {
+        try {
+            Class.forName("org.springframework.boot.SpringApplication", false, StartupBenchmark.class.getClassLoader());
+            return true;
+        } catch (ClassNotFoundException e) {
+            return false;
+        }
+    }
+
+    private static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+
+    private static String median(long[] values) {
+        long[] sorted = values.clone();
+        Arrays.sort(sorted);
+        return sorted[0] < 0 ? "no result" : String.format("%,d ms", sorted[sorted.length / 2]);
+    }
+}
@@ -0,0 +1,157 @@
+package com.Health;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import com.sun.net.httpserver.HttpsConfigurator;
+import com.sun.net.httpserver.HttpsServer;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.GeneralSecurityException;
+import java.security.KeyStore;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import javax.net.ssl.KeyManagerFactory;
+import javax.net.ssl.SSLContext;
+
+/**
+ * Local stub of a monitored service
+ * Answers GET /health_check with a small 200 response on a loopback port,
+ * optionally after a fixed delay to model network round-trip time. With a
+ * TLS context it serves HTTPS; a request with the query "close" gets
+ * Connection: close, so the next probe has to open a new connection
+ */
+public class StubServer {
+
+    static {
+        // Avoid Nagle/delayed-ACK stalls on small keep-alive responses
+        System.setProperty("sun.net.httpserver.nodelay", "true");
+    }
+
+    private static final byte[] BODY = "{\"status\":\"UP\"}".getBytes(StandardCharsets.UTF_8);
+    private static final char[] KEYSTORE_PASSWORD = "changeit".toCharArray();
+
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final ScheduledExecutorService delayer;
+
+    public StubServer(int threads) throws IOException {
+        this(threads, 0);
+    }
+
+    public StubServer(int threads, int delayMs) throws IOException {
+        this(threads, delayMs, null);
+    }
+
+    /**
+     * @param tls server context for HTTPS, or null for plain HTTP
+     */
+    public StubServer(int threads, int delayMs, SSLContext tls) throws IOException {
+        InetSocketAddress address = new InetSocketAddress(InetAddress.getLoopbackAddress(), 0);
+        if (tls != null) {
+            HttpsServer https = HttpsServer.create(address, 1024);
+            https.setHttpsConfigurator(new HttpsConfigurator(tls));
+            server = https;
+        } else {
+            server = HttpServer.create(address, 1024);
+        }
+        executor = Executors.newFixedThreadPool(threads);
+        delayer = Executors.newSingleThreadScheduledExecutor();
+
+        server.createContext("/health_check", exchange -> {
+            if (delayMs > 0) {
+                // Respond later without holding a server thread, like a remote service would
+                delayer.schedule(() -> respond(exchange, BODY), delayMs, TimeUnit.MILLISECONDS);
+            } else {
+                respond(exchange, BODY);
+            }
+        });
+
+        server.setExecutor(executor);
+        server.start();
+    }
+
+    /**
+     * Answer GET on another path with a fixed body, e.g. a large or failing health document
+     * @return URL of the path
+     */
+    public String serve(String path, byte[] body) {
+        server.createContext(path, exchange -> respond(exchange, body));
+        return url().replace("/health_check", path);
+    }
+
+    private static void respond(HttpExchange exchange, byte[] body) {
+        try (OutputStream os = exchange.getResponseBody()) {
+            exchange.getResponseHeaders().set("Content-Type", "application/json");
+            if ("close".equals(exchange.getRequestURI().getQuery())) {
+                exchange.getResponseHeaders().set("Connection", "close");
+            }
+            exchange.sendResponseHeaders(200, body.length);
+            os.write(body);
+        } catch (IOException e) {
+            // Client went away, nothing to do
+        }
+    }
+
+    public String url() {
+        String scheme = server instanceof HttpsServer ? "https" : "http";
+        return scheme + "://127.0.0.1:" + server.getAddress().getPort() + "/health_check";
+    }
+
+    /**
+     * Throwaway self-signed certificate for localhost and 127.0.0.1, made with the JDK's keytool
+     */
+    public static KeyStore selfSignedKeyStore() throws IOException, GeneralSecurityException {
+        Path directory = Files.createTempDirectory("stub-tls");
+        Path file = directory.resolve("stub.p12");
+        String keytool = Path.of(System.getProperty("java.home"), "bin", "keytool").toString();
+        Process process = new ProcessBuilder(keytool, "-genkeypair", "-alias", "stub",
+                "-keyalg", "RSA", "-keysize", "2048", "-validity", "2",
+                "-dname", "CN=localhost", "-ext", "SAN=dns:localhost,ip:127.0.0.1",
+                "-storetype", "PKCS12", "-keystore", file.toString(),
+                "-storepass", new String(KEYSTORE_PASSWORD), "-keypass", new String(KEYSTORE_PASSWORD))
+            .redirectErrorStream(true)
+            .start();
+        try {
+            byte[] output = process.getInputStream().readAllBytes();
+            if (process.waitFor() != 0) {
+                throw new IOException("keytool failed: " + new String(output, StandardCharsets.UTF_8));
+            }
+            KeyStore keyStore = KeyStore.getInstance("PKCS12");
+            try (InputStream in = Files.newInputStream(file)) {
+                keyStore.load(in, KEYSTORE_PASSWORD);
+            }
+            return keyStore;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while running keytool", e);
+        } finally {
+            Files.deleteIfExists(file);
+            Files.deleteIfExists(directory);
+        }
+    }
+
+    /**
+     * Server TLS context presenting the key in the keystore
+     */
+    public static SSLContext serverContext(KeyStore keyStore) throws GeneralSecurityException {
+        KeyManagerFactory keys = KeyManagerFactory.getInstance(KeyManagerFactory.getDefaultAlgorithm());
+        keys.init(keyStore, KEYSTORE_PASSWORD);
+        SSLContext context = SSLContext.getInstance("TLS");
+        context.init(keys.getKeyManagers(), null, null);
+        return context;
+    }
+
+    public void stop() {
+        server.stop(0);
+        executor.shutdownNow();
+        delayer.shutdownNow();
+    }
+}
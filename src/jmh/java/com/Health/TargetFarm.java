@@ -0,0 +1,324 @@
+package com.Health;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Simulated fleet of health endpoints for offline load and chaos testing
+ * Serves GET /t/{n}/health for n in [0, targets) on one loopback port. Every
+ * response is delayed by a sample from the latency distribution without
+ * holding a server thread; a share of requests fail, hang until the client
+ * gives up, or drip their body slowly
+ *
+ * Usage: java com.Health.TargetFarm [targets] [port] [profile] [targetsFile]
+ * then point health.targets.file at the written targets file
+ */
+public class TargetFarm {
+
+    static {
+        // Avoid Nagle/delayed-ACK stalls on small keep-alive responses
+        System.setProperty("sun.net.httpserver.nodelay", "true");
+    }
+
+    private static final byte[] BODY = "{\"status\":\"UP\"}".getBytes(StandardCharsets.UTF_8);
+    private static final byte[] ERROR_BODY = "{\"status\":\"DOWN\"}".getBytes(StandardCharsets.UTF_8);
+
+    // Hung requests are released eventually so the farm does not leak connections
+    private static final long HANG_RELEASE_MS = 120_000;
+
+    /**
+     * Behaviour of the simulated endpoints, parsed from a spec such as
+     * "latency=lognormal:20:250,errors=0.01,hangs=0.001,drip=0.005:10:100"
+     *
+     * latency=fixed:MS | uniform:MIN:MAX | exp:MEAN | lognormal:MEDIAN:P99
+     * errors=RATE (503 responses), hangs=RATE (no response),
+     * drip=RATE:CHUNKS:DELAY_MS (body written in chunks with a delay between them)
+     */
+    public static final class Profile {
+        private String latencyKind = "fixed";
+        private double latencyA = 20;
+        private double latencyB = 0;
+        private double errorRate;
+        private double hangRate;
+        private double dripRate;
+        private int dripChunks = 10;
+        private int dripDelayMs = 100;
+
+        public static Profile parse(String spec) {
+            Profile profile = new Profile();
+            if (spec == null || spec.trim().isEmpty()) {
+                return profile;
+            }
+            for (String entry : spec.split(",")) {
+                String[] keyValue = entry.trim().split("=", 2);
+                if (keyValue.length != 2) {
+                    throw new IllegalArgumentException("Invalid farm profile entry: " + entry);
+                }
+                String[] parts = keyValue[1].split(":");
+                switch (keyValue[0]) {
+                    case "latency":
+                        profile.latencyKind = parts[0];
+                        profile.latencyA = parts.length > 1 ? Double.parseDouble(parts[1]) : 0;
+                        profile.latencyB = parts.length > 2 ? Double.parseDouble(parts[2]) : 0;
+                        if (!profile.latencyKind.matches("fixed|uniform|exp|lognormal")) {
+                            throw new IllegalArgumentException("Unknown latency distribution: " + parts[0]);
+                        }
+                        break;
+                    case "errors":
+                        profile.errorRate = Double.parseDouble(parts[0]);
+                        break;
+                    case "hangs":
+                        profile.hangRate = Double.parseDouble(parts[0]);
+                        break;
+                    case "drip":
+                        profile.dripRate = Double.parseDouble(parts[0]);
+                        profile.dripChunks = parts.length > 1 ? Integer.parseInt(parts[1]) : profile.dripChunks;
+                        profile.dripDelayMs = parts.length > 2 ? Integer.parseInt(parts[2]) : profile.dripDelayMs;
+                        break;
+                    default:
+                        throw new IllegalArgumentException("Unknown farm profile key: " + keyValue[0]);
+                }
+            }
+            return profile;
+        }
+
+        /**
+         * Sample a response delay in milliseconds
+         */
+        long sampleLatencyMs(ThreadLocalRandom random) {
+            double value;
+            switch (latencyKind) {
+                case "uniform":
+                    value = latencyA + random.nextDouble() * (latencyB - latencyA);
+                    break;
+                case "exp":
+                    value = -latencyA * Math.log(1 - random.nextDouble());
+                    break;
+                case "lognormal":
+                    // Median latencyA, 99th percentile latencyB (z = 2.326)
+                    double sigma = latencyB > latencyA ? Math.log(latencyB / latencyA) / 2.326 : 0;
+                    value = latencyA * Math.exp(sigma * random.nextGaussian());
+                    break;
+                default:
+                    value = latencyA;
+                    break;
+            }
+            return Math.max(0, Math.round(value));
+        }
+
+        @Override
+        public String toString() {
+            return "latency=" + latencyKind + ":" + latencyA + (latencyB > 0 ? ":" + latencyB : "")
+                + ", errors=" + errorRate + ", hangs=" + hangRate
+                + ", drip=" + dripRate + ":" + dripChunks + ":" + dripDelayMs;
+        }
+    }
+
+    private final int targets;
+    private final Profile profile;
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final ScheduledExecutorService responders;
+
+    private final LongAdder requests = new LongAdder();
+    private final LongAdder errors = new LongAdder();
+    private final LongAdder hangs = new LongAdder();
+    private final LongAdder drips = new LongAdder();
+
+    public TargetFarm(int targets, Profile profile) throws IOException {
+        this(targets, profile, 0);
+    }
+
+    public TargetFarm(int targets, Profile profile, int port) throws IOException {
+        this.targets = targets;
+        this.profile = profile;
+        this.server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 4096);
+        this.executor = Executors.newFixedThreadPool(4, daemonThreads("target-farm-http"));
+        this.responders = Executors.newScheduledThreadPool(2, daemonThreads("target-farm-responder"));
+
+        server.createContext("/t/", this::handle);
+        server.setExecutor(executor);
+        server.start();
+    }
+
+    private static ThreadFactory daemonThreads(String name) {
+        AtomicInteger count = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, name + "-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    private void handle(HttpExchange exchange) {
+        requests.increment();
+        if (targetOf(exchange.getRequestURI().getPath()) < 0) {
+            respond(exchange, 404, ERROR_BODY);
+            return;
+        }
+
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        double roll = random.nextDouble();
+        if (roll < profile.hangRate) {
+            hangs.increment();
+            responders.schedule(exchange::close, HANG_RELEASE_MS, TimeUnit.MILLISECONDS);
+            return;
+        }
+        roll -= profile.hangRate;
+
+        long delayMs = profile.sampleLatencyMs(random);
+        if (roll < profile.errorRate) {
+            errors.increment();
+            responders.schedule(() -> respond(exchange, 503, ERROR_BODY), delayMs, TimeUnit.MILLISECONDS);
+        } else if (roll - profile.errorRate < profile.dripRate) {
+            drips.increment();
+            responders.schedule(() -> startDrip(exchange), delayMs, TimeUnit.MILLISECONDS);
+        } else {
+            responders.schedule(() -> respond(exchange, 200, BODY), delayMs, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Target number of a /t/{n}/health path, or -1
+     */
+    private int targetOf(String path) {
+        int end = path.indexOf('/', 3);
+        if (end < 0 || !path.startsWith("/health", end)) {
+            return -1;
+        }
+        try {
+            int target = Integer.parseInt(path.substring(3, end));
+            return target >= 0 && target < targets ? target : -1;
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    private static void respond(HttpExchange exchange, int status, byte[] body) {
+        try (OutputStream os = exchange.getResponseBody()) {
+            exchange.getResponseHeaders().set("Content-Type", "application/json");
+            exchange.sendResponseHeaders(status, body.length);
+            os.write(body);
+        } catch (IOException e) {
+            // Client went away, nothing to do
+        }
+    }
+
+    /**
+     * Send the headers now and the body one chunk per delay
+     */
+    private void startDrip(HttpExchange exchange) {
+        try {
+            exchange.getResponseHeaders().set("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, 0);
+        } catch (IOException e) {
+            exchange.close();
+            return;
+        }
+        drip(exchange, 0);
+    }
+
+    private void drip(HttpExchange exchange, int chunk) {
+        int from = BODY.length * chunk / profile.dripChunks;
+        int to = BODY.length * (chunk + 1) / profile.dripChunks;
+        try {
+            OutputStream os = exchange.getResponseBody();
+            os.write(BODY, from, to - from);
+            os.flush();
+        } catch (IOException e) {
+            exchange.close();
+            return;
+        }
+        if (chunk + 1 >= profile.dripChunks) {
+            exchange.close();
+        } else {
+            responders.schedule(() -> drip(exchange, chunk + 1), profile.dripDelayMs, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    public int targets() {
+        return targets;
+    }
+
+    public Profile profile() {
+        return profile;
+    }
+
+    public String url(int target) {
+        return "http://127.0.0.1:" + server.getAddress().getPort() + "/t/" + target + "/health";
+    }
+
+    /**
+     * Register every simulated endpoint as farm-{n}
+     */
+    public void registerAll(TargetRegistry registry) {
+        for (int target = 0; target < targets; target++) {
+            registry.register(new TargetSpec("farm-" + target, url(target)));
+        }
+    }
+
+    /**
+     * Write the endpoints in the health.targets.file format
+     */
+    public void writeTargetsFile(Path file) throws IOException {
+        try (BufferedWriter writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            writer.write("# Simulated targets: " + profile + "\n");
+            for (int target = 0; target < targets; target++) {
+                writer.write("farm-" + target + " " + url(target) + "\n");
+            }
+        }
+    }
+
+    public long requests() {
+        return requests.sum();
+    }
+
+    public long errors() {
+        return errors.sum();
+    }
+
+    public long hangs() {
+        return hangs.sum();
+    }
+
+    public long drips() {
+        return drips.sum();
+    }
+
+    public void stop() {
+        server.stop(0);
+        executor.shutdownNow();
+        responders.shutdownNow();
+    }
+
+    public static void main(String[] args) throws Exception {
+        int targets = args.length > 0 ? Integer.parseInt(args[0]) : 5000;
+        int port = args.length > 1 ? Integer.parseInt(args[1]) : 9090;
+        Profile profile = Profile.parse(args.length > 2 ? args[2] : "latency=lognormal:20:250,errors=0.01");
+        Path targetsFile = Paths.get(args.length > 3 ? args[3] : "farm-targets.txt");
+
+        TargetFarm farm = new TargetFarm(targets, profile, port);
+        farm.writeTargetsFile(targetsFile);
+        System.out.println("🧪 Target farm serving " + targets + " endpoints on port " + port + " (" + profile + ")");
+        System.out.println("📄 Targets written to " + targetsFile.toAbsolutePath()
+            + " - run the service with -Dhealth.targets.file=" + targetsFile);
+        Thread.currentThread().join();
+    }
+}
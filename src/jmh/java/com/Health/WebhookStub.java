@@ -0,0 +1,68 @@
+package com.Health;
+
+import com.sun.net.httpserver.HttpServer;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Local webhook receiver for exercising alert delivery
+ * Accepts POST /hook on a loopback port, answering after an optional delay
+ * to model a slow or hanging receiver, and keeps the last payload
+ */
+public class WebhookStub {
+
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final AtomicInteger received = new AtomicInteger();
+    private volatile int delayMs;
+    private volatile String lastPayload;
+
+    public WebhookStub(int delayMs) throws IOException {
+        this.delayMs = delayMs;
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 64);
+        executor = Executors.newCachedThreadPool();
+        server.createContext("/hook", exchange -> {
+            try (InputStream in = exchange.getRequestBody()) {
+                lastPayload = new String(in.readAllBytes(), StandardCharsets.UTF_8);
+            }
+            received.incrementAndGet();
+            try {
+                TimeUnit.MILLISECONDS.sleep(this.delayMs);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            exchange.sendResponseHeaders(204, -1);
+            exchange.close();
+        });
+        server.setExecutor(executor);
+        server.start();
+    }
+
+    public String url() {
+        return "http://127.0.0.1:" + server.getAddress().getPort() + "/hook";
+    }
+
+    public void setDelayMs(int delayMs) {
+        this.delayMs = delayMs;
+    }
+
+    public int received() {
+        return received.get();
+    }
+
+    public String lastPayload() {
+        return lastPayload;
+    }
+
+    public void stop() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+}
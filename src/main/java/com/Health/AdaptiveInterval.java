@@ -0,0 +1,71 @@
+package com.Health;
+
+/**
+ * Adaptive probe interval policy
+ * A stable target's interval grows by a constant factor after every healthy
+ * probe, up to its maximum. A status change or an unconfirmed failure drops
+ * it to the minimum so the change is confirmed quickly; once a failure is
+ * confirmed the target is probed at its configured interval again
+ *
+ * Per-target options: min-interval, max-interval (ms)
+ */
+public class AdaptiveInterval {
+
+    private final int minIntervalMs;
+    private final int maxIntervalMs;
+    private final double growth;
+    private final int confirmations;
+
+    public AdaptiveInterval(int minIntervalMs, int maxIntervalMs, double growth, int confirmations) {
+        this.minIntervalMs = minIntervalMs;
+        this.maxIntervalMs = maxIntervalMs;
+        this.growth = growth;
+        this.confirmations = confirmations;
+    }
+
+    /**
+     * Policy from health.check.adaptive.*, or null when adaptive intervals are disabled
+     */
+    public static AdaptiveInterval fromConfig(HealthConfig config) {
+        if (!config.getBoolean("health.check.adaptive", false)) {
+            return null;
+        }
+        String growth = config.getString("health.check.adaptive.growth", "1.5");
+        return new AdaptiveInterval(
+            config.getInt("health.check.min-interval", 5000),
+            config.getInt("health.check.max-interval", 120000),
+            Double.parseDouble(growth),
+            config.getInt("health.check.adaptive.confirmations", 3));
+    }
+
+    /**
+     * Default minimum interval; targets override it with min-interval
+     */
+    public int minIntervalMs() {
+        return minIntervalMs;
+    }
+
+    /**
+     * Default maximum interval; targets override it with max-interval
+     */
+    public int maxIntervalMs() {
+        return maxIntervalMs;
+    }
+
+    /**
+     * Interval to use after a probe completed
+     * @param changed the probe changed the target's known status
+     * @param consecutiveFailures failures in a row including this probe
+     */
+    public int next(int currentMs, int baseMs, int minMs, int maxMs,
+                    boolean changed, boolean healthy, int consecutiveFailures) {
+        if (changed || (!healthy && consecutiveFailures < confirmations)) {
+            return minMs;
+        }
+        if (!healthy) {
+            return Math.max(minMs, Math.min(maxMs, baseMs));
+        }
+        int grown = (int) Math.min((long) maxMs, Math.round(currentMs * growth));
+        return Math.max(minMs, Math.max(currentMs, grown));
+    }
+}
@@ -0,0 +1,152 @@
+package com.Health;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * One notification: the targets that went down or recovered within a
+ * grouping window, plus the fleet state when it was raised
+ */
+public final class Alert {
+
+    public enum Kind { DOWN, RECOVERED }
+
+    /**
+     * State change of one target
+     */
+    public static final class Change {
+        private final String target;
+        private final String url;
+        private final Kind kind;
+        private final int statusCode;
+        private final String error;
+        private final long timestampMillis;
+
+        public Change(String target, String url, Kind kind, int statusCode, String error, long timestampMillis) {
+            this.target = target;
+            this.url = url;
+            this.kind = kind;
+            this.statusCode = statusCode;
+            this.error = error;
+            this.timestampMillis = timestampMillis;
+        }
+
+        public String getTarget() {
+            return target;
+        }
+
+        public String getUrl() {
+            return url;
+        }
+
+        public Kind getKind() {
+            return kind;
+        }
+
+        public int getStatusCode() {
+            return statusCode;
+        }
+
+        public String getError() {
+            return error;
+        }
+
+        public long getTimestampMillis() {
+            return timestampMillis;
+        }
+    }
+
+    private final List<Change> changes;
+    private final int unhealthyTargets;
+    private final int totalTargets;
+    private final boolean serviceDown;
+    private final long createdMillis;
+
+    public Alert(List<Change> changes, int unhealthyTargets, int totalTargets, boolean serviceDown, long createdMillis) {
+        this.changes = Collections.unmodifiableList(new ArrayList<>(changes));
+        this.unhealthyTargets = unhealthyTargets;
+        this.totalTargets = totalTargets;
+        this.serviceDown = serviceDown;
+        this.createdMillis = createdMillis;
+    }
+
+    public List<Change> getChanges() {
+        return changes;
+    }
+
+    public int getUnhealthyTargets() {
+        return unhealthyTargets;
+    }
+
+    public int getTotalTargets() {
+        return totalTargets;
+    }
+
+    /**
+     * Whether enough targets are down to call the whole service down
+     */
+    public boolean isServiceDown() {
+        return serviceDown;
+    }
+
+    public long getCreatedMillis() {
+        return createdMillis;
+    }
+
+    public int count(Kind kind) {
+        int count = 0;
+        for (Change change : changes) {
+            if (change.kind == kind) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * This alert followed by a newer one: the latest change per target wins and
+     * the fleet state is taken from the newer alert
+     */
+    public Alert merge(Alert newer) {
+        Map<String, Change> latest = new LinkedHashMap<>();
+        for (Change change : changes) {
+            latest.put(change.target, change);
+        }
+        for (Change change : newer.changes) {
+            latest.remove(change.target);
+            latest.put(change.target, change);
+        }
+        return new Alert(new ArrayList<>(latest.values()), newer.unhealthyTargets, newer.totalTargets,
+            newer.serviceDown, newer.createdMillis);
+    }
+
+    /**
+     * Webhook payload
+     */
+    public String toJson() {
+        StringBuilder json = new StringBuilder(128 + changes.size() * 128);
+        json.append("{\"service_down\": ").append(serviceDown);
+        json.append(", \"unhealthy_targets\": ").append(unhealthyTargets);
+        json.append(", \"total_targets\": ").append(totalTargets);
+        json.append(", \"timestamp\": \"").append(Instant.ofEpochMilli(createdMillis)).append('"');
+        json.append(", \"changes\": [");
+        for (int i = 0; i < changes.size(); i++) {
+            Change change = changes.get(i);
+            json.append(i == 0 ? "" : ", ").append("{\"target\": ");
+            Json.quote(json, change.target).append(", \"url\": ");
+            Json.quote(json, change.url).append(", \"state\": \"").append(change.kind).append('"');
+            json.append(", \"status_code\": ").append(change.statusCode);
+            if (change.error != null) {
+                json.append(", \"error\": ");
+                Json.quote(json, change.error);
+            }
+            json.append(", \"timestamp\": \"").append(Instant.ofEpochMilli(change.timestampMillis)).append("\"}");
+        }
+        json.append("]}");
+        return json.toString();
+    }
+}
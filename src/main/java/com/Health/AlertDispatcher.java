@@ -0,0 +1,396 @@
+package com.Health;
+
+import java.net.http.HttpTimeoutException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.IntFunction;
+import java.util.function.IntPredicate;
+import java.util.function.IntSupplier;
+
+/**
+ * Asynchronous alert pipeline
+ * Probe threads offer target state changes to a bounded queue and return
+ * immediately (a full queue drops and counts the change). A grouping thread
+ * collects the changes of one window into a single notification, after
+ * per-target deduplication: a target is reported down once until it has
+ * been reported recovered, and at most once per dedup window; a relapse
+ * within the window is reported when the window ends, if the target is
+ * still down, and not at all if it recovers first. Every sink has
+ * its own worker with a token-bucket rate limit; while a sink is limited or
+ * busy, new notifications are merged into its one pending notification
+ */
+public class AlertDispatcher {
+
+    /**
+     * Target state change waiting to be grouped
+     */
+    private static final class Event {
+        final int targetId;
+        final Alert.Kind kind;
+        final int statusCode;
+        final String error;
+        final long timestampMillis;
+
+        Event(int targetId, Alert.Kind kind, int statusCode, String error, long timestampMillis) {
+            this.targetId = targetId;
+            this.kind = kind;
+            this.statusCode = statusCode;
+            this.error = error;
+            this.timestampMillis = timestampMillis;
+        }
+    }
+
+    /**
+     * Delivers notifications to one sink at its own pace
+     */
+    final class SinkWorker {
+        private final AlertSink sink;
+        private final double tokensPerMilli;
+        private final double burst;
+        private final Thread thread;
+        private Alert pending;
+        private double tokens;
+        private long refilledMillis = System.currentTimeMillis();
+
+        private final LongAdder sent = new LongAdder();
+        private final LongAdder failed = new LongAdder();
+        private final LongAdder timeouts = new LongAdder();
+        private final LongAdder merged = new LongAdder();
+
+        SinkWorker(AlertSink sink, int perMinute) {
+            this.sink = sink;
+            this.tokensPerMilli = perMinute / 60000.0;
+            this.burst = Math.max(1, perMinute);
+            this.tokens = burst;
+            this.thread = new Thread(this::run, "alert-sink-" + sink.name());
+            thread.setDaemon(true);
+        }
+
+        synchronized void offer(Alert alert) {
+            if (pending != null) {
+                pending = pending.merge(alert);
+                merged.increment();
+            } else {
+                pending = alert;
+            }
+            notifyAll();
+        }
+
+        private void run() {
+            while (running) {
+                Alert alert;
+                try {
+                    alert = next();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                try {
+                    sink.send(alert);
+                    sent.increment();
+                    lastNotificationMillis = System.currentTimeMillis();
+                } catch (HttpTimeoutException e) {
+                    timeouts.increment();
+                    failed.increment();
+                } catch (InterruptedException e) {
+                    return;
+                } catch (Exception e) {
+                    failed.increment();
+                    System.err.println("Alert sink " + sink.name() + " failed: " + e.getMessage());
+                }
+            }
+        }
+
+        /**
+         * Wait for a pending notification and a rate-limit token, then take the notification
+         */
+        private synchronized Alert next() throws InterruptedException {
+            while (true) {
+                if (pending == null) {
+                    wait();
+                    continue;
+                }
+                long now = System.currentTimeMillis();
+                tokens = Math.min(burst, tokens + (now - refilledMillis) * tokensPerMilli);
+                refilledMillis = now;
+                if (tokens >= 1) {
+                    tokens -= 1;
+                    Alert alert = pending;
+                    pending = null;
+                    return alert;
+                }
+                wait(Math.max(1, (long) Math.ceil((1 - tokens) / tokensPerMilli)));
+            }
+        }
+
+        public String name() {
+            return sink.name();
+        }
+
+        public long sent() {
+            return sent.sum();
+        }
+
+        public long failed() {
+            return failed.sum();
+        }
+
+        public long timeouts() {
+            return timeouts.sum();
+        }
+
+        /**
+         * Notifications folded into a pending one because the sink was busy or rate limited
+         */
+        public long merged() {
+            return merged.sum();
+        }
+    }
+
+    private final BlockingQueue<Event> queue;
+    private final long groupWindowMillis;
+    private final long dedupWindowMillis;
+    private final IntFunction<String> names;
+    private final IntFunction<String> urls;
+    private final IntPredicate healthy;
+    private final IntSupplier unhealthyTargets;
+    private final IntSupplier totalTargets;
+    private final int serviceDownThreshold;
+    private final List<SinkWorker> workers = new ArrayList<>();
+    private final Thread grouper;
+    private volatile boolean running = true;
+    private volatile long lastNotificationMillis;
+
+    // Dedup state, only touched by the grouping thread: targets currently reported down,
+    // time of each target's last down report, and relapses held back until their window ends
+    private final Map<Integer, Long> reportedDown = new HashMap<>();
+    private final Map<Integer, Long> lastDownReport = new HashMap<>();
+    private final Map<Integer, Event> deferred = new LinkedHashMap<>();
+
+    private final LongAdder accepted = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+    private final LongAdder deduplicated = new LongAdder();
+    private final LongAdder notifications = new LongAdder();
+
+    public AlertDispatcher(List<AlertSink> sinks, int sinkRatePerMinute, int queueSize, long groupWindowMillis,
+                           long dedupWindowMillis, IntFunction<String> names, IntFunction<String> urls,
+                           IntPredicate healthy, IntSupplier unhealthyTargets, IntSupplier totalTargets,
+                           int serviceDownThreshold) {
+        this.queue = new ArrayBlockingQueue<>(queueSize);
+        this.groupWindowMillis = groupWindowMillis;
+        this.dedupWindowMillis = dedupWindowMillis;
+        this.names = names;
+        this.urls = urls;
+        this.healthy = healthy;
+        this.unhealthyTargets = unhealthyTargets;
+        this.totalTargets = totalTargets;
+        this.serviceDownThreshold = serviceDownThreshold;
+        for (AlertSink sink : sinks) {
+            workers.add(new SinkWorker(sink, sinkRatePerMinute));
+        }
+        workers.forEach(worker -> worker.thread.start());
+
+        this.grouper = new Thread(this::groupLoop, "alert-grouper");
+        grouper.setDaemon(true);
+        grouper.start();
+    }
+
+    /**
+     * Dispatcher with the sinks configured by health.alerts.*
+     */
+    public static AlertDispatcher fromConfig(HealthConfig config, TargetRegistry registry, int serviceDownThreshold) {
+        List<AlertSink> sinks = new ArrayList<>();
+        if (config.getBoolean("health.alerts.console", true)) {
+            sinks.add(new ConsoleAlertSink());
+        }
+        String webhooks = config.getString("health.alerts.webhook.url", "");
+        int webhookTimeoutMs = config.getInt("health.alerts.webhook.timeout-ms", 5000);
+        for (String url : webhooks.split(",")) {
+            if (!url.trim().isEmpty()) {
+                sinks.add(new WebhookAlertSink(url.trim(), webhookTimeoutMs));
+            }
+        }
+        return new AlertDispatcher(sinks,
+            config.getInt("health.alerts.rate-per-minute", 6),
+            config.getInt("health.alerts.queue-size", 10000),
+            config.getInt("health.alerts.group-window-ms", 2000),
+            config.getInt("health.alerts.dedup-window-ms", 300000),
+            registry::name, registry::url, registry::isHealthy,
+            registry::unhealthyCount, registry::size,
+            serviceDownThreshold);
+    }
+
+    /**
+     * A target became unhealthy; never blocks
+     */
+    public boolean targetDown(int targetId, ProbeResult result) {
+        return offer(new Event(targetId, Alert.Kind.DOWN, result.getStatusCode(), result.getError(),
+            System.currentTimeMillis()));
+    }
+
+    /**
+     * A target became healthy; never blocks
+     */
+    public boolean targetRecovered(int targetId, ProbeResult result) {
+        return offer(new Event(targetId, Alert.Kind.RECOVERED, result.getStatusCode(), null,
+            System.currentTimeMillis()));
+    }
+
+    private boolean offer(Event event) {
+        if (queue.offer(event)) {
+            accepted.increment();
+            return true;
+        }
+        dropped.increment();
+        return false;
+    }
+
+    private void groupLoop() {
+        while (running) {
+            Map<Integer, Event> window = new LinkedHashMap<>();
+            try {
+                // Wake up now and then to release deferred relapses
+                Event first = queue.poll(1, TimeUnit.SECONDS);
+                if (first == null && deferred.isEmpty()) {
+                    continue;
+                }
+                if (first != null) {
+                    window.put(first.targetId, first);
+                }
+                long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(groupWindowMillis);
+                long remaining;
+                while (first != null && (remaining = deadline - System.nanoTime()) > 0) {
+                    Event event = queue.poll(remaining, TimeUnit.NANOSECONDS);
+                    if (event == null) {
+                        break;
+                    }
+                    // Latest change per target within the window
+                    window.remove(event.targetId);
+                    window.put(event.targetId, event);
+                }
+            } catch (InterruptedException e) {
+                return;
+            }
+            Alert alert = toAlert(window);
+            if (alert != null) {
+                notifications.increment();
+                for (SinkWorker worker : workers) {
+                    worker.offer(alert);
+                }
+            }
+        }
+    }
+
+    /**
+     * Notification for one window's changes after dedup, or null if nothing is left to report
+     */
+    private Alert toAlert(Map<Integer, Event> window) {
+        long now = System.currentTimeMillis();
+        List<Alert.Change> changes = new ArrayList<>();
+        for (Event event : window.values()) {
+            if (event.kind == Alert.Kind.DOWN) {
+                Long lastReport = lastDownReport.get(event.targetId);
+                if (reportedDown.containsKey(event.targetId)) {
+                    deduplicated.increment();
+                    continue;
+                }
+                if (lastReport != null && now - lastReport < dedupWindowMillis) {
+                    deferred.put(event.targetId, event);
+                    deduplicated.increment();
+                    continue;
+                }
+                reportDown(event.targetId, now);
+            } else if (deferred.remove(event.targetId) != null || reportedDown.remove(event.targetId) == null) {
+                // Recovery of a relapse that was never reported, or of a target never reported down
+                deduplicated.increment();
+                continue;
+            }
+            changes.add(change(event));
+        }
+
+        // Relapses whose dedup window has ended are reported if the target is still down
+        for (Iterator<Event> it = deferred.values().iterator(); it.hasNext(); ) {
+            Event event = it.next();
+            if (now - lastDownReport.getOrDefault(event.targetId, 0L) >= dedupWindowMillis) {
+                it.remove();
+                if (!healthy.test(event.targetId) && !reportedDown.containsKey(event.targetId)) {
+                    reportDown(event.targetId, now);
+                    changes.add(change(event));
+                }
+            }
+        }
+        if (lastDownReport.size() > 4096) {
+            lastDownReport.entrySet().removeIf(entry -> now - entry.getValue() >= dedupWindowMillis
+                && !reportedDown.containsKey(entry.getKey()) && !deferred.containsKey(entry.getKey()));
+        }
+
+        if (changes.isEmpty()) {
+            return null;
+        }
+        int unhealthy = unhealthyTargets.getAsInt();
+        return new Alert(changes, unhealthy, totalTargets.getAsInt(), unhealthy >= serviceDownThreshold, now);
+    }
+
+    private void reportDown(int targetId, long now) {
+        reportedDown.put(targetId, now);
+        lastDownReport.put(targetId, now);
+    }
+
+    private Alert.Change change(Event event) {
+        return new Alert.Change(names.apply(event.targetId), urls.apply(event.targetId), event.kind,
+            event.statusCode, event.error, event.timestampMillis);
+    }
+
+    public void shutdown() {
+        running = false;
+        grouper.interrupt();
+        workers.forEach(worker -> worker.thread.interrupt());
+    }
+
+    public List<SinkWorker> sinks() {
+        return workers;
+    }
+
+    /**
+     * Changes waiting to be grouped
+     */
+    public int queued() {
+        return queue.size();
+    }
+
+    public long accepted() {
+        return accepted.sum();
+    }
+
+    /**
+     * Changes lost because the queue was full
+     */
+    public long dropped() {
+        return dropped.sum();
+    }
+
+    public long deduplicated() {
+        return deduplicated.sum();
+    }
+
+    /**
+     * Grouped notifications handed to the sinks
+     */
+    public long notifications() {
+        return notifications.sum();
+    }
+
+    /**
+     * Time of the last notification any sink delivered, 0 if none yet
+     */
+    public long lastNotificationMillis() {
+        return lastNotificationMillis;
+    }
+}
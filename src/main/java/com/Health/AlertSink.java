@@ -0,0 +1,19 @@
+package com.Health;
+
+/**
+ * Destination for grouped alert notifications (console, webhook, pager, ...)
+ * Each sink is called from its own AlertDispatcher worker thread, so a slow or
+ * hanging sink only delays its own notifications, never probing or other sinks
+ */
+public interface AlertSink {
+
+    /**
+     * Short name used in thread names and metrics
+     */
+    String name();
+
+    /**
+     * Deliver one notification; throw to have the failure counted
+     */
+    void send(Alert alert) throws Exception;
+}
@@ -0,0 +1,709 @@
+package com.Health;
+
+import java.net.http.HttpResponse;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Flow;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+/**
+ * Per-target assertion on the response body of a 2xx probe, evaluated while
+ * the body streams in. Reading stops as soon as the assertion is decided or
+ * the byte limit is reached, so a large body is never buffered whole:
+ * substring and JSON checks keep a few counters per probe, a regex keeps at
+ * most the limit in memory
+ *
+ * Target options (one per target):
+ *   body-contains=&lt;text&gt;        - the body contains the text
+ *   body-regex=&lt;pattern&gt;        - the pattern is found in the body
+ *   body-json=&lt;path&gt;=&lt;value&gt;    - the field at a dotted path of object keys equals
+ *                                the value (string content, or the literal of a number,
+ *                                boolean or null)
+ *   body-limit=&lt;bytes&gt;          - bytes read before an undecided assertion fails
+ */
+public final class BodyAssertion {
+
+    public enum Kind { CONTAINS, REGEX, JSON_EQUALS, INVALID }
+
+    public static final int DEFAULT_LIMIT_BYTES = 64 * 1024;
+
+    // After a decision the rest of a short body is read and dropped so the
+    // connection can be reused; a longer remainder is cancelled
+    public static final int DEFAULT_DRAIN_BYTES = 16 * 1024;
+
+    private final Kind kind;
+    private final String expression;
+    private final int limitBytes;
+    private final byte[] needle;
+    private final int[] failure;
+    private final Pattern pattern;
+    private final String[] path;
+    private final byte[][] pathBytes;
+    private final byte[] expected;
+
+    private BodyAssertion(Kind kind, String expression, int limitBytes, byte[] needle, Pattern pattern,
+                          String[] path, byte[] expected) {
+        this.kind = kind;
+        this.expression = expression;
+        this.limitBytes = limitBytes;
+        this.needle = needle;
+        this.failure = needle != null ? failureTable(needle) : null;
+        this.pattern = pattern;
+        this.path = path;
+        this.expected = expected;
+        if (path != null) {
+            pathBytes = new byte[path.length][];
+            for (int i = 0; i < path.length; i++) {
+                pathBytes[i] = path[i].getBytes(StandardCharsets.UTF_8);
+            }
+        } else {
+            pathBytes = null;
+        }
+    }
+
+    public static BodyAssertion contains(String text, int limitBytes) {
+        if (text.isEmpty()) {
+            throw new IllegalArgumentException("body-contains needs a non-empty text");
+        }
+        return new BodyAssertion(Kind.CONTAINS, text, limitBytes, text.getBytes(StandardCharsets.UTF_8),
+            null, null, null);
+    }
+
+    public static BodyAssertion regex(String regex, int limitBytes) {
+        return new BodyAssertion(Kind.REGEX, regex, limitBytes, null, Pattern.compile(regex), null, null);
+    }
+
+    /**
+     * @param expression &lt;dotted.path&gt;=&lt;value&gt;; a quoted value is compared without its quotes
+     */
+    public static BodyAssertion jsonEquals(String expression, int limitBytes) {
+        int eq = expression.indexOf('=');
+        if (eq <= 0) {
+            throw new IllegalArgumentException("body-json needs <path>=<value>: " + expression);
+        }
+        String[] path = expression.substring(0, eq).trim().split("\\.");
+        for (String key : path) {
+            if (key.isEmpty()) {
+                throw new IllegalArgumentException("empty key in body-json path: " + expression);
+            }
+        }
+        String value = expression.substring(eq + 1).trim();
+        if (value.length() >= 2 && value.startsWith("\"") && value.endsWith("\"")) {
+            value = value.substring(1, value.length() - 1);
+        }
+        return new BodyAssertion(Kind.JSON_EQUALS, expression, limitBytes, null, null, path,
+            value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Assertion configured by a target's body-* options, or null if it has none
+     * A malformed option gives an assertion that always fails with the reason,
+     * so a misconfigured check never reports a target healthy
+     */
+    public static BodyAssertion of(TargetSpec spec) {
+        String contains = spec.option("body-contains", null);
+        String regex = spec.option("body-regex", null);
+        String json = spec.option("body-json", null);
+        if (contains == null && regex == null && json == null) {
+            return null;
+        }
+        int limit = Math.max(1, spec.intOption("body-limit", DEFAULT_LIMIT_BYTES));
+        try {
+            if ((contains != null ? 1 : 0) + (regex != null ? 1 : 0) + (json != null ? 1 : 0) > 1) {
+                throw new IllegalArgumentException("only one of body-contains, body-regex and body-json per target");
+            }
+            if (contains != null) {
+                return contains(contains, limit);
+            }
+            return regex != null ? regex(regex, limit) : jsonEquals(json, limit);
+        } catch (IllegalArgumentException e) {
+            String reason = e instanceof PatternSyntaxException
+                ? "invalid body-regex: " + ((PatternSyntaxException) e).getDescription()
+                : e.getMessage();
+            System.err.println("Invalid body assertion for target " + spec.getName() + ": " + reason);
+            return new BodyAssertion(Kind.INVALID, reason, limit, null, null, null, null);
+        }
+    }
+
+    public Kind kind() {
+        return kind;
+    }
+
+    public String expression() {
+        return expression;
+    }
+
+    public int limitBytes() {
+        return limitBytes;
+    }
+
+    /**
+     * Fresh per-probe state
+     */
+    public Evaluation start() {
+        switch (kind) {
+            case CONTAINS: return new ContainsEvaluation();
+            case REGEX: return new RegexEvaluation();
+            case JSON_EQUALS: return new JsonEvaluation();
+            default: return new InvalidEvaluation();
+        }
+    }
+
+    /**
+     * Body handler evaluating this assertion on 2xx responses; other bodies are discarded
+     * The body completes when the assertion is decided, before the response ends
+     */
+    public HttpResponse.BodyHandler<Evaluation> handler(int drainBytes) {
+        return info -> info.statusCode() >= 200 && info.statusCode() < 300
+            ? new StreamingSubscriber(start(), drainBytes)
+            : HttpResponse.BodySubscribers.replacing(null);
+    }
+
+    @Override
+    public String toString() {
+        return kind + " " + expression;
+    }
+
+    /**
+     * Evaluation of one response body, fed in order with the body's buffers
+     */
+    public abstract class Evaluation {
+        private long bytesRead;
+        private long received;
+        private boolean decided;
+        private boolean passed;
+        private String reason;
+
+        /**
+         * Feed the next bytes, up to the limit
+         * @return true once the assertion is decided
+         */
+        public final boolean accept(ByteBuffer buffer) {
+            if (decided) {
+                return true;
+            }
+            int room = (int) Math.min(buffer.remaining(), limitBytes - bytesRead);
+            ByteBuffer slice = buffer.duplicate();
+            slice.limit(slice.position() + room);
+            bytesRead += room;
+            scan(slice);
+            if (!decided && bytesRead >= limitBytes) {
+                end(true);
+            }
+            return decided;
+        }
+
+        /**
+         * The body ended before a decision
+         */
+        public final void complete() {
+            if (!decided) {
+                end(false);
+            }
+        }
+
+        public boolean decided() {
+            return decided;
+        }
+
+        public boolean passed() {
+            return decided && passed;
+        }
+
+        /**
+         * Why the assertion failed, or null
+         */
+        public String reason() {
+            return passed ? null : reason;
+        }
+
+        /**
+         * Bytes examined by the assertion
+         */
+        public long bytesRead() {
+            return bytesRead;
+        }
+
+        /**
+         * Bytes taken off the connection, including the drained remainder
+         */
+        public long received() {
+            return received;
+        }
+
+        protected abstract void scan(ByteBuffer buffer);
+
+        /**
+         * Decide at the end of the body, or at the limit when truncated
+         */
+        protected abstract void end(boolean truncated);
+
+        protected final void pass() {
+            decided = true;
+            passed = true;
+        }
+
+        protected final void fail(String why) {
+            decided = true;
+            passed = false;
+            reason = why;
+        }
+
+        protected final String within(boolean truncated) {
+            return truncated ? " within the first " + limitBytes + " bytes" : "";
+        }
+    }
+
+    private final class InvalidEvaluation extends Evaluation {
+        @Override
+        protected void scan(ByteBuffer buffer) {
+            fail("invalid body assertion: " + expression);
+        }
+
+        @Override
+        protected void end(boolean truncated) {
+            fail("invalid body assertion: " + expression);
+        }
+    }
+
+    /**
+     * Knuth-Morris-Pratt over the UTF-8 bytes: one int of state, no buffering
+     */
+    private final class ContainsEvaluation extends Evaluation {
+        private int matched;
+
+        @Override
+        protected void scan(ByteBuffer buffer) {
+            while (buffer.hasRemaining()) {
+                byte b = buffer.get();
+                while (matched > 0 && needle[matched] != b) {
+                    matched = failure[matched - 1];
+                }
+                if (needle[matched] == b && ++matched == needle.length) {
+                    pass();
+                    return;
+                }
+            }
+        }
+
+        @Override
+        protected void end(boolean truncated) {
+            fail("body does not contain '" + expression + "'" + within(truncated));
+        }
+    }
+
+    /**
+     * Keeps the body read so far (at most the limit) and searches it after every buffer
+     * A match that does not touch the end of the text so far cannot change with more input
+     */
+    private final class RegexEvaluation extends Evaluation {
+        private byte[] text = new byte[256];
+        private int length;
+
+        @Override
+        protected void scan(ByteBuffer buffer) {
+            int count = buffer.remaining();
+            if (length + count > text.length) {
+                text = Arrays.copyOf(text, Math.min(limitBytes, Math.max(text.length * 2, length + count)));
+            }
+            buffer.get(text, length, count);
+            length += count;
+            Matcher matcher = pattern.matcher(new String(text, 0, length, StandardCharsets.UTF_8));
+            if (matcher.find() && !matcher.hitEnd()) {
+                pass();
+            }
+        }
+
+        @Override
+        protected void end(boolean truncated) {
+            if (pattern.matcher(new String(text, 0, length, StandardCharsets.UTF_8)).find()) {
+                pass();
+            } else {
+                fail("body does not match /" + expression + "/" + within(truncated));
+            }
+        }
+    }
+
+    /**
+     * Incremental JSON scanner that follows only the containers on the path
+     * Keys are compared byte by byte, and only the target value is kept
+     */
+    private final class JsonEvaluation extends Evaluation {
+        private static final int VALUE = 0;
+        private static final int OBJECT_START = 1;
+        private static final int ARRAY_START = 2;
+        private static final int KEY = 3;
+        private static final int COLON = 4;
+        private static final int AFTER_VALUE = 5;
+        private static final int STRING = 6;
+        private static final int LITERAL = 7;
+        private static final int DONE = 8;
+
+        // true for an object, false for an array
+        private boolean[] containers = new boolean[16];
+        private int depth;
+        // Objects on the path enclosing the current position: depth - 1 while inside the path
+        private int matched;
+        private int state = VALUE;
+        private long position;
+
+        private boolean inKey;
+        private boolean keyOnPath;
+        private boolean capture;
+        private boolean collect;
+        private final byte[] token = new byte[tokenCapacity()];
+        private int tokenLength;
+        private boolean tokenOverflow;
+
+        // String escapes: 0 none, 1 after a backslash, 2-5 reading \\u hex digits
+        private int escape;
+        private int unicode;
+        private int highSurrogate;
+
+        @Override
+        protected void scan(ByteBuffer buffer) {
+            while (buffer.hasRemaining() && !decided()) {
+                byte b = buffer.get();
+                consume(b);
+                position++;
+            }
+        }
+
+        private void consume(byte b) {
+            switch (state) {
+                case STRING:
+                    string(b);
+                    return;
+                case LITERAL:
+                    if (b == ',' || b == '}' || b == ']' || whitespace(b)) {
+                        endValue();
+                        if (!decided()) {
+                            consume(b);
+                        }
+                    } else {
+                        append(b);
+                    }
+                    return;
+                default:
+                    break;
+            }
+            if (whitespace(b)) {
+                return;
+            }
+            switch (state) {
+                case ARRAY_START:
+                    if (b == ']') {
+                        close(false);
+                        return;
+                    }
+                    value(b);
+                    return;
+                case VALUE:
+                    value(b);
+                    return;
+                case OBJECT_START:
+                    if (b == '}') {
+                        close(true);
+                    } else if (b == '"') {
+                        beginKey();
+                    } else {
+                        invalid();
+                    }
+                    return;
+                case KEY:
+                    if (b == '"') {
+                        beginKey();
+                    } else {
+                        invalid();
+                    }
+                    return;
+                case COLON:
+                    if (b == ':') {
+                        state = VALUE;
+                    } else {
+                        invalid();
+                    }
+                    return;
+                case AFTER_VALUE:
+                    if (b == ',') {
+                        state = containers[depth - 1] ? KEY : VALUE;
+                    } else if (b == '}' && containers[depth - 1]) {
+                        close(true);
+                    } else if (b == ']' && !containers[depth - 1]) {
+                        close(false);
+                    } else {
+                        invalid();
+                    }
+                    return;
+                default:
+                    invalid();
+            }
+        }
+
+        private void value(byte b) {
+            boolean target = keyOnPath && matched == path.length - 1;
+            boolean onPath = keyOnPath || depth == 0;
+            keyOnPath = false;
+            if (b == '{' || b == '[') {
+                if (target) {
+                    fail(pathName() + " is " + (b == '{' ? "an object" : "an array") + ", expected " + expectedText());
+                    return;
+                }
+                push(b == '{');
+                if (b == '{' && onPath) {
+                    matched = depth - 1;
+                }
+                state = b == '{' ? OBJECT_START : ARRAY_START;
+            } else if (b == '"') {
+                capture = target;
+                beginString(false, target);
+            } else if (b == '-' || (b >= '0' && b <= '9') || (b >= 'a' && b <= 'z')) {
+                capture = target;
+                collect = target;
+                resetToken();
+                append(b);
+                state = LITERAL;
+            } else {
+                invalid();
+            }
+        }
+
+        private void beginKey() {
+            // Only keys of an object on the path are compared
+            beginString(true, matched == depth - 1);
+        }
+
+        private void beginString(boolean key, boolean keep) {
+            inKey = key;
+            collect = keep;
+            resetToken();
+            escape = 0;
+            highSurrogate = 0;
+            state = STRING;
+        }
+
+        private void string(byte b) {
+            if (escape == 1) {
+                escape = 0;
+                switch (b) {
+                    case 'n': append((byte) '\n'); break;
+                    case 't': append((byte) '\t'); break;
+                    case 'r': append((byte) '\r'); break;
+                    case 'b': append((byte) '\b'); break;
+                    case 'f': append((byte) '\f'); break;
+                    case 'u':
+                        escape = 2;
+                        unicode = 0;
+                        break;
+                    default: append(b);
+                }
+            } else if (escape >= 2) {
+                int digit = Character.digit(b, 16);
+                if (digit < 0) {
+                    invalid();
+                    return;
+                }
+                unicode = unicode << 4 | digit;
+                if (++escape == 6) {
+                    escape = 0;
+                    appendCodeUnit((char) unicode);
+                }
+            } else if (b == '\\') {
+                escape = 1;
+            } else if (b == '"') {
+                if (inKey) {
+                    keyOnPath = collect && !tokenOverflow && Arrays.equals(token, 0, tokenLength,
+                        pathBytes[depth - 1], 0, pathBytes[depth - 1].length);
+                    state = COLON;
+                } else {
+                    endValue();
+                }
+            } else {
+                append(b);
+            }
+        }
+
+        private void endValue() {
+            if (capture) {
+                boolean equal = !tokenOverflow && Arrays.equals(token, 0, tokenLength, expected, 0, expected.length);
+                if (equal) {
+                    pass();
+                } else {
+                    fail(pathName() + " is \"" + tokenText() + "\", expected " + expectedText());
+                }
+                return;
+            }
+            collect = false;
+            afterValue();
+        }
+
+        private void afterValue() {
+            if (depth == 0) {
+                state = DONE;
+                fail(pathName() + " not found");
+            } else {
+                state = AFTER_VALUE;
+            }
+        }
+
+        private void push(boolean object) {
+            if (depth == containers.length) {
+                containers = Arrays.copyOf(containers, depth * 2);
+            }
+            containers[depth++] = object;
+        }
+
+        private void close(boolean object) {
+            // Every key of an object on the path has been seen
+            if (object && matched == depth - 1) {
+                fail(pathName() + " not found");
+                return;
+            }
+            depth--;
+            afterValue();
+        }
+
+        private void resetToken() {
+            tokenLength = 0;
+            tokenOverflow = false;
+        }
+
+        private void append(byte b) {
+            if (!collect) {
+                return;
+            }
+            if (tokenLength < token.length) {
+                token[tokenLength++] = b;
+            } else {
+                tokenOverflow = true;
+            }
+        }
+
+        private void appendCodeUnit(char c) {
+            if (Character.isHighSurrogate(c)) {
+                highSurrogate = c;
+                return;
+            }
+            String text = highSurrogate != 0 && Character.isLowSurrogate(c)
+                ? new String(new char[] {(char) highSurrogate, c})
+                : String.valueOf(c);
+            highSurrogate = 0;
+            for (byte b : text.getBytes(StandardCharsets.UTF_8)) {
+                append(b);
+            }
+        }
+
+        private void invalid() {
+            fail("invalid JSON at byte " + position);
+        }
+
+        private int tokenCapacity() {
+            int capacity = expected.length;
+            for (byte[] key : pathBytes) {
+                capacity = Math.max(capacity, key.length);
+            }
+            // Room for a longer value to be reported, one more byte to tell a longer one apart
+            return Math.max(capacity + 1, 64);
+        }
+
+        private String tokenText() {
+            String text = new String(token, 0, tokenLength, StandardCharsets.UTF_8);
+            return tokenOverflow ? text + "..." : text;
+        }
+
+        private String expectedText() {
+            return "\"" + new String(expected, StandardCharsets.UTF_8) + "\"";
+        }
+
+        private String pathName() {
+            return String.join(".", path);
+        }
+
+        @Override
+        protected void end(boolean truncated) {
+            fail(truncated ? pathName() + " not found" + within(true) : "incomplete JSON, " + pathName() + " not found");
+        }
+    }
+
+    private static boolean whitespace(byte b) {
+        return b == ' ' || b == '\n' || b == '\r' || b == '\t';
+    }
+
+    private static int[] failureTable(byte[] needle) {
+        int[] table = new int[needle.length];
+        int k = 0;
+        for (int i = 1; i < needle.length; i++) {
+            while (k > 0 && needle[i] != needle[k]) {
+                k = table[k - 1];
+            }
+            if (needle[i] == needle[k]) {
+                k++;
+            }
+            table[i] = k;
+        }
+        return table;
+    }
+
+    /**
+     * Feeds the body to an evaluation; the body completes on the decision, and a
+     * short remainder is drained so the connection goes back to the pool
+     */
+    private static final class StreamingSubscriber implements HttpResponse.BodySubscriber<Evaluation> {
+        private final Evaluation evaluation;
+        private final int drainBytes;
+        private final CompletableFuture<Evaluation> body = new CompletableFuture<>();
+        private Flow.Subscription subscription;
+        private long drained;
+
+        StreamingSubscriber(Evaluation evaluation, int drainBytes) {
+            this.evaluation = evaluation;
+            this.drainBytes = drainBytes;
+        }
+
+        @Override
+        public CompletionStage<Evaluation> getBody() {
+            return body;
+        }
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            this.subscription = subscription;
+            subscription.request(1);
+        }
+
+        @Override
+        public void onNext(List<ByteBuffer> buffers) {
+            for (ByteBuffer buffer : buffers) {
+                int remaining = buffer.remaining();
+                evaluation.received += remaining;
+                if (body.isDone()) {
+                    drained += remaining;
+                } else if (evaluation.accept(buffer)) {
+                    body.complete(evaluation);
+                }
+            }
+            if (body.isDone() && drained > drainBytes) {
+                subscription.cancel();
+            } else {
+                subscription.request(1);
+            }
+        }
+
+        @Override
+        public void onError(Throwable error) {
+            body.completeExceptionally(error);
+        }
+
+        @Override
+        public void onComplete() {
+            evaluation.complete();
+            body.complete(evaluation);
+        }
+    }
+}
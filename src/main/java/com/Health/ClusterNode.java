@@ -0,0 +1,531 @@
+package com.Health;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.StringReader;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Cluster mode: several prober instances split the target set between them
+ * Nodes find each other by gossiping their member lists over HTTP, starting
+ * from the configured seeds. A member not heard of, directly or through
+ * another node, within the failure timeout is dropped. Targets are assigned
+ * by a consistent-hash ring over the live members, so a join or a loss only
+ * moves the targets on the affected arcs. Every node also pulls the state of
+ * the targets its peers own into its own registry, so any node can answer
+ * for the whole fleet
+ *
+ * Endpoints on health.cluster.port:
+ *   GET /cluster/members?from=&lt;node&gt;  gossip: live members and how long ago each was heard of
+ *   GET /cluster/state?since=&lt;millis&gt;  state of the targets this node owns, probed after since
+ *   GET /cluster/status                 membership and ownership summary as JSON
+ */
+public class ClusterNode {
+
+    /**
+     * Receives ownership changes and state merged from peers
+     */
+    public interface Listener {
+        void gained(int targetId);
+
+        void lost(int targetId);
+
+        void merged(int targetId, boolean statusChanged);
+    }
+
+    // Rows probed this close before a peer's previous answer are sent again, so a
+    // result recorded while that answer was being built is never missed
+    private static final long SYNC_OVERLAP_MS = 1000;
+
+    private final String self;
+    private final List<String> seeds;
+    private final int heartbeatMs;
+    private final int failureTimeoutMs;
+    private final int syncIntervalMs;
+    private final int virtualNodes;
+    private final TargetRegistry registry;
+    private final Listener listener;
+    private final HttpServer server;
+    private final ExecutorService serverThreads;
+    private final HttpClient client;
+    private final ScheduledExecutorService gossip;
+
+    // Local time each member was last heard of, guarded by this
+    private final Map<String, Long> lastSeen = new HashMap<>();
+    private final Map<String, Long> syncCursors = new ConcurrentHashMap<>();
+    private final Set<String> syncing = ConcurrentHashMap.newKeySet();
+    private final ConcurrentHashMap<Integer, long[]> remoteLatency = new ConcurrentHashMap<>();
+    private volatile HashRing ring;
+    private volatile boolean[] owned = new boolean[0];
+    private volatile boolean balanced;
+
+    private final AtomicLong rebalances = new AtomicLong();
+    private final AtomicLong targetsMoved = new AtomicLong();
+    private final AtomicLong syncs = new AtomicLong();
+    private final AtomicLong syncFailures = new AtomicLong();
+    private final AtomicLong rowsMerged = new AtomicLong();
+
+    /**
+     * @param port cluster port, 0 for any free port
+     * @param seeds addresses (host:port) of nodes to contact first
+     */
+    public ClusterNode(String host, int port, List<String> seeds, int heartbeatMs, int failureTimeoutMs,
+                       int syncIntervalMs, int virtualNodes, TargetRegistry registry, Listener listener)
+            throws IOException {
+        this.server = HttpServer.create(new InetSocketAddress(host, port), 0);
+        this.self = host + ":" + server.getAddress().getPort();
+        this.seeds = new ArrayList<>(seeds);
+        this.seeds.remove(self);
+        this.heartbeatMs = heartbeatMs;
+        this.failureTimeoutMs = failureTimeoutMs;
+        this.syncIntervalMs = syncIntervalMs;
+        this.virtualNodes = virtualNodes;
+        this.registry = registry;
+        this.listener = listener;
+        this.ring = new HashRing(Collections.singletonList(self), virtualNodes);
+
+        this.serverThreads = Executors.newFixedThreadPool(2, daemon("cluster-http"));
+        server.createContext("/cluster/members", this::handleMembers);
+        server.createContext("/cluster/state", this::handleState);
+        server.createContext("/cluster/status", this::handleStatus);
+        server.setExecutor(serverThreads);
+
+        this.client = HttpClient.newBuilder()
+            .connectTimeout(Duration.ofMillis(Math.max(500, heartbeatMs)))
+            .build();
+        this.gossip = Executors.newSingleThreadScheduledExecutor(daemon("cluster-gossip"));
+    }
+
+    /**
+     * Node configured by health.cluster.*, or null when cluster mode is off
+     */
+    public static ClusterNode fromConfig(HealthConfig config, TargetRegistry registry, Listener listener) {
+        if (!config.getBoolean("health.cluster.enabled", false)) {
+            return null;
+        }
+        String host = config.getString("health.cluster.host", "127.0.0.1");
+        int port = config.getInt("health.cluster.port", 7400);
+        List<String> seeds = new ArrayList<>();
+        for (String seed : config.getString("health.cluster.seeds", "").split(",")) {
+            if (!seed.trim().isEmpty()) {
+                seeds.add(seed.trim());
+            }
+        }
+        try {
+            return new ClusterNode(host, port, seeds,
+                config.getInt("health.cluster.heartbeat-ms", 1000),
+                config.getInt("health.cluster.failure-timeout-ms", 5000),
+                config.getInt("health.cluster.sync-interval-ms", 2000),
+                config.getInt("health.cluster.virtual-nodes", 128),
+                registry, listener);
+        } catch (IOException e) {
+            System.err.println("Cluster mode disabled, cannot listen on " + host + ":" + port + ": " + e.getMessage());
+            return null;
+        }
+    }
+
+    private static ThreadFactory daemon(String name) {
+        return runnable -> {
+            Thread thread = new Thread(runnable, name);
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    /**
+     * Contact the seeds once, take the initial share of the targets, then gossip and sync in the background
+     */
+    public void start() {
+        server.start();
+        for (String seed : seeds) {
+            try {
+                HttpResponse<String> response = client.send(membersRequest(seed), HttpResponse.BodyHandlers.ofString());
+                if (response.statusCode() == 200) {
+                    onMembers(seed, response.body());
+                }
+            } catch (IOException e) {
+                // Seed not up yet; gossip keeps trying
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+        refreshMembership();
+        gossip.scheduleWithFixedDelay(this::heartbeat, heartbeatMs, heartbeatMs, TimeUnit.MILLISECONDS);
+        gossip.scheduleWithFixedDelay(this::sync, syncIntervalMs, syncIntervalMs, TimeUnit.MILLISECONDS);
+        System.out.println("🔗 Cluster node " + self + " started with " + (ring.nodes().size() - 1)
+            + " peers, owning " + ownedCount() + " of " + registry.size() + " targets");
+    }
+
+    public void stop() {
+        gossip.shutdownNow();
+        server.stop(0);
+        serverThreads.shutdownNow();
+    }
+
+    /**
+     * Whether this node probes the target
+     */
+    public boolean owns(int targetId) {
+        boolean[] current = owned;
+        if (targetId < current.length) {
+            return current[targetId];
+        }
+        // Registered after the last rebalance
+        return self.equals(ring.owner(registry.name(targetId)));
+    }
+
+    /**
+     * p50, p90, p99, max (microseconds) and count of a peer-owned target as last reported, or null
+     */
+    public long[] remoteLatency(int targetId) {
+        return remoteLatency.get(targetId);
+    }
+
+    // --- Membership ---
+
+    private void heartbeat() {
+        try {
+            refreshMembership();
+            Set<String> peers = new LinkedHashSet<>(seeds);
+            synchronized (this) {
+                peers.addAll(lastSeen.keySet());
+            }
+            for (String peer : peers) {
+                client.sendAsync(membersRequest(peer), HttpResponse.BodyHandlers.ofString())
+                    .thenAccept(response -> {
+                        if (response.statusCode() == 200) {
+                            onMembers(peer, response.body());
+                        }
+                    });
+            }
+        } catch (RuntimeException e) {
+            System.err.println("Cluster heartbeat failed: " + e.getMessage());
+        }
+    }
+
+    private HttpRequest membersRequest(String peer) {
+        return HttpRequest.newBuilder(URI.create("http://" + peer + "/cluster/members?from=" + self))
+            .timeout(Duration.ofMillis(Math.max(500, heartbeatMs)))
+            .GET()
+            .build();
+    }
+
+    /**
+     * A peer answered: it is alive, and so are the members it heard of recently
+     */
+    private synchronized void onMembers(String peer, String body) {
+        long now = System.currentTimeMillis();
+        lastSeen.put(peer, now);
+        for (String line : body.split("\n")) {
+            int tab = line.indexOf('\t');
+            if (tab <= 0) {
+                continue;
+            }
+            String member = line.substring(0, tab);
+            long age = Long.parseLong(line.substring(tab + 1).trim());
+            if (!member.equals(self) && age < failureTimeoutMs) {
+                lastSeen.merge(member, now - age, Math::max);
+            }
+        }
+    }
+
+    /**
+     * Drop members past the failure timeout and rebalance if the live set changed
+     */
+    private void refreshMembership() {
+        Set<String> alive = new TreeSet<>();
+        alive.add(self);
+        synchronized (this) {
+            long now = System.currentTimeMillis();
+            for (Iterator<Map.Entry<String, Long>> it = lastSeen.entrySet().iterator(); it.hasNext(); ) {
+                Map.Entry<String, Long> member = it.next();
+                if (now - member.getValue() > failureTimeoutMs) {
+                    it.remove();
+                } else {
+                    alive.add(member.getKey());
+                }
+            }
+        }
+        if (!balanced || !alive.equals(new TreeSet<>(ring.nodes()))) {
+            rebalance(new HashRing(alive, virtualNodes));
+        }
+    }
+
+    /**
+     * Switch to a new ring and hand over only the targets whose owner changed
+     */
+    private void rebalance(HashRing next) {
+        boolean initial = !balanced;
+        boolean[] before = owned;
+        int targets = registry.size();
+        boolean[] after = new boolean[targets];
+        for (int id = 0; id < targets; id++) {
+            after[id] = self.equals(next.owner(registry.name(id)));
+        }
+        ring = next;
+        owned = after;
+        balanced = true;
+
+        int gained = 0;
+        int lost = 0;
+        for (int id = 0; id < targets; id++) {
+            boolean had = id < before.length && before[id];
+            if (after[id] && !had) {
+                gained++;
+                listener.gained(id);
+            } else if (!after[id] && had) {
+                lost++;
+                listener.lost(id);
+            }
+        }
+        if (initial) {
+            return;
+        }
+        rebalances.incrementAndGet();
+        targetsMoved.addAndGet(gained + lost);
+        System.out.println("🔀 Cluster members " + next.nodes() + ": owning " + ownedCount() + " of " + targets
+            + " targets (+" + gained + " gained, -" + lost + " handed over)");
+    }
+
+    // --- State sync ---
+
+    /**
+     * Pull the targets each peer owns that were probed since the last pull
+     */
+    private void sync() {
+        for (String peer : ring.nodes()) {
+            if (peer.equals(self) || !syncing.add(peer)) {
+                continue;
+            }
+            long since = syncCursors.getOrDefault(peer, 0L);
+            HttpRequest request = HttpRequest.newBuilder(URI.create("http://" + peer + "/cluster/state?since=" + since))
+                .timeout(Duration.ofMillis(Math.max(5000, syncIntervalMs * 2L)))
+                .GET()
+                .build();
+            client.sendAsync(request, HttpResponse.BodyHandlers.ofString())
+                .whenComplete((response, error) -> {
+                    syncing.remove(peer);
+                    if (error != null || response.statusCode() != 200) {
+                        syncFailures.incrementAndGet();
+                        return;
+                    }
+                    try {
+                        merge(peer, response.body());
+                        syncs.incrementAndGet();
+                    } catch (IOException | RuntimeException e) {
+                        syncFailures.incrementAndGet();
+                        System.err.println("Cluster state from " + peer + " unreadable: " + e.getMessage());
+                    }
+                });
+        }
+    }
+
+    /**
+     * Apply the rows of one peer's state answer; targets this node owns are left alone
+     */
+    private void merge(String peer, String body) throws IOException {
+        BufferedReader reader = new BufferedReader(new StringReader(body));
+        String header = reader.readLine();
+        if (header == null) {
+            return;
+        }
+        long asOf = Long.parseLong(header.trim());
+        String line;
+        while ((line = reader.readLine()) != null) {
+            String[] fields = line.split("\t");
+            if (fields.length < 13) {
+                continue;
+            }
+            int id = registry.idOf(fields[0]);
+            long lastCheck = Long.parseLong(fields[4]);
+            if (id < 0 || owns(id) || lastCheck < registry.lastCheckMillis(id)) {
+                continue;
+            }
+            boolean healthy = "1".equals(fields[1]);
+            int statusBefore = registry.status(id);
+            registry.restore(id, healthy, Integer.parseInt(fields[2]), Integer.parseInt(fields[3]), lastCheck,
+                Long.parseLong(fields[5]), Long.parseLong(fields[6]), Integer.parseInt(fields[7]));
+            remoteLatency.put(id, new long[] {Long.parseLong(fields[8]), Long.parseLong(fields[9]),
+                Long.parseLong(fields[10]), Long.parseLong(fields[11]), Long.parseLong(fields[12])});
+            rowsMerged.incrementAndGet();
+            int status = healthy ? TargetRegistry.STATUS_HEALTHY : TargetRegistry.STATUS_UNHEALTHY;
+            listener.merged(id, status != statusBefore);
+        }
+        syncCursors.put(peer, asOf - SYNC_OVERLAP_MS);
+    }
+
+    // --- Endpoints ---
+
+    private void handleMembers(HttpExchange exchange) throws IOException {
+        String from = queryParameter(exchange, "from");
+        StringBuilder body = new StringBuilder(64);
+        body.append(self).append("\t0\n");
+        synchronized (this) {
+            long now = System.currentTimeMillis();
+            if (from != null && !from.equals(self)) {
+                lastSeen.put(from, now);
+            }
+            for (Map.Entry<String, Long> member : lastSeen.entrySet()) {
+                body.append(member.getKey()).append('\t').append(now - member.getValue()).append('\n');
+            }
+        }
+        respond(exchange, "text/plain", body.toString());
+    }
+
+    /**
+     * One tab-separated row per owned target probed after since:
+     * name, healthy, status code, latency us, last check, total, failed, failure streak, p50, p90, p99, max, count
+     */
+    private void handleState(HttpExchange exchange) throws IOException {
+        String sinceParameter = queryParameter(exchange, "since");
+        long since = sinceParameter != null ? Long.parseLong(sinceParameter) : 0;
+        long asOf = System.currentTimeMillis();
+        StringBuilder body = new StringBuilder(4096);
+        body.append(asOf).append('\n');
+        int targets = registry.size();
+        for (int id = 0; id < targets; id++) {
+            long lastCheck = registry.lastCheckMillis(id);
+            if (lastCheck <= since || !owns(id)) {
+                continue;
+            }
+            LatencyHistogram histogram = registry.latency(id);
+            long[] percentiles = histogram != null ? histogram.recentPercentilesMicros(50, 90, 99) : new long[3];
+            body.append(registry.name(id))
+                .append('\t').append(registry.isHealthy(id) ? 1 : 0)
+                .append('\t').append(registry.lastStatusCode(id))
+                .append('\t').append(registry.lastLatencyMicros(id))
+                .append('\t').append(lastCheck)
+                .append('\t').append(registry.totalChecks(id))
+                .append('\t').append(registry.failedChecks(id))
+                .append('\t').append(registry.consecutiveFailures(id))
+                .append('\t').append(percentiles[0])
+                .append('\t').append(percentiles[1])
+                .append('\t').append(percentiles[2])
+                .append('\t').append(histogram != null ? histogram.recentMaxMicros() : 0)
+                .append('\t').append(histogram != null ? histogram.count() : 0)
+                .append('\n');
+        }
+        respond(exchange, "text/plain", body.toString());
+    }
+
+    private void handleStatus(HttpExchange exchange) throws IOException {
+        respond(exchange, "application/json", statusJson());
+    }
+
+    /**
+     * Membership, ownership and fleet counts of this node's view
+     */
+    public String statusJson() {
+        List<String> members = ring.nodes();
+        StringBuilder json = new StringBuilder(256);
+        json.append("{\"node\": ");
+        Json.quote(json, self);
+        json.append(", \"members\": ").append(members.size());
+        json.append(", \"member_list\": [");
+        for (int i = 0; i < members.size(); i++) {
+            Json.quote(json.append(i == 0 ? "" : ", "), members.get(i));
+        }
+        json.append("], \"targets\": ").append(registry.size());
+        json.append(", \"owned\": ").append(ownedCount());
+        json.append(", \"fleet_healthy\": ").append(registry.healthyCount());
+        json.append(", \"fleet_unhealthy\": ").append(registry.unhealthyCount());
+        json.append(", \"fleet_unknown\": ").append(registry.countStatus(TargetRegistry.STATUS_UNKNOWN));
+        json.append(", \"rebalances\": ").append(rebalances.get());
+        json.append(", \"targets_moved\": ").append(targetsMoved.get());
+        json.append(", \"syncs\": ").append(syncs.get());
+        json.append(", \"sync_failures\": ").append(syncFailures.get());
+        json.append(", \"rows_merged\": ").append(rowsMerged.get()).append('}');
+        return json.toString();
+    }
+
+    private static String queryParameter(HttpExchange exchange, String name) {
+        String query = exchange.getRequestURI().getRawQuery();
+        if (query == null) {
+            return null;
+        }
+        for (String pair : query.split("&")) {
+            if (pair.startsWith(name + "=")) {
+                return pair.substring(name.length() + 1);
+            }
+        }
+        return null;
+    }
+
+    private static void respond(HttpExchange exchange, String contentType, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", contentType);
+        exchange.sendResponseHeaders(200, bytes.length);
+        try (OutputStream os = exchange.getResponseBody()) {
+            os.write(bytes);
+        }
+    }
+
+    // --- Metrics ---
+
+    public String self() {
+        return self;
+    }
+
+    public List<String> members() {
+        return ring.nodes();
+    }
+
+    public int ownedCount() {
+        int count = 0;
+        for (boolean mine : owned) {
+            if (mine) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    public long rebalances() {
+        return rebalances.get();
+    }
+
+    /**
+     * Targets gained or handed over by rebalances after startup
+     */
+    public long targetsMoved() {
+        return targetsMoved.get();
+    }
+
+    public long syncs() {
+        return syncs.get();
+    }
+
+    public long syncFailures() {
+        return syncFailures.get();
+    }
+
+    public long rowsMerged() {
+        return rowsMerged.get();
+    }
+}
@@ -0,0 +1,54 @@
+package com.Health;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * Prints notifications to stdout, one write per notification
+ */
+public class ConsoleAlertSink implements AlertSink {
+
+    private static final DateTimeFormatter TIME_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
+    // A notification lists at most this many targets by name
+    private static final int MAX_LISTED_TARGETS = 20;
+
+    @Override
+    public String name() {
+        return "console";
+    }
+
+    @Override
+    public void send(Alert alert) {
+        StringBuilder out = new StringBuilder(256);
+        if (alert.isServiceDown()) {
+            out.append("\n🚨 ALERT: SERVICE DOWN DETECTED! 🚨\n");
+        } else {
+            out.append("\n🔔 ALERT: TARGET STATUS CHANGED\n");
+        }
+        out.append("=====================================\n");
+        out.append("Time: ").append(LocalDateTime.ofInstant(Instant.ofEpochMilli(alert.getCreatedMillis()),
+            ZoneId.systemDefault()).format(TIME_FORMAT)).append('\n');
+        out.append("Failed Services: ").append(alert.getUnhealthyTargets()).append('/')
+            .append(alert.getTotalTargets()).append('\n');
+        int listed = 0;
+        for (Alert.Change change : alert.getChanges()) {
+            if (listed++ == MAX_LISTED_TARGETS) {
+                out.append("... and ").append(alert.getChanges().size() - MAX_LISTED_TARGETS).append(" more\n");
+                break;
+            }
+            out.append(change.getKind() == Alert.Kind.DOWN ? "❌ " : "✅ ").append(change.getTarget())
+                .append(" (").append(change.getUrl()).append(')');
+            if (change.getError() != null) {
+                out.append(" - ").append(change.getError());
+            } else if (change.getKind() == Alert.Kind.DOWN) {
+                out.append(" - status ").append(change.getStatusCode());
+            }
+            out.append('\n');
+        }
+        out.append("=====================================\n");
+        System.out.println(out);
+    }
+}
@@ -0,0 +1,286 @@
+package com.Health;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Prober-owned host name cache with positive and negative TTLs
+ * Lookups run on a small resolver pool, never on the probe path, and
+ * concurrent lookups of the same name share one resolution. A name that
+ * failed to resolve is remembered for the negative TTL, so its probes fail
+ * fast instead of repeating a slow failing lookup every round. A resolved
+ * name keeps being served for up to one more TTL after it expires while a
+ * background lookup refreshes it, so probes do not queue behind the resolver
+ * pool on every expiry; a probe that does have to wait bounds the wait with
+ * its timeout
+ *
+ * The SelectorProbeEngine connects to the cached address, so for TCP, TLS and
+ * status-line checks the TTL decides where a probe goes. The JDK HttpClient
+ * resolves names itself when it opens a connection; on Java 17 it cannot be
+ * given a resolver or an address. For HTTP probes a positive entry only says
+ * the name resolved: the client's own lookup goes through the JDK address
+ * cache (networkaddress.cache.ttl), and pooled connections skip it entirely.
+ * What the cache saves on that path are the lookups of names that fail
+ */
+public class DnsCache {
+
+    /**
+     * Name resolution backend, replaceable for tests with a local stand-in
+     */
+    public interface Resolver {
+        InetAddress[] resolve(String host) throws UnknownHostException;
+    }
+
+    /**
+     * Cached outcome of one resolution; addresses is null for a failed lookup
+     */
+    public static final class Entry {
+        private final InetAddress[] addresses;
+        private final String error;
+        private final long expiresAtMillis;
+
+        Entry(InetAddress[] addresses, String error, long expiresAtMillis) {
+            this.addresses = addresses;
+            this.error = error;
+            this.expiresAtMillis = expiresAtMillis;
+        }
+
+        public boolean isResolved() {
+            return addresses != null;
+        }
+
+        public InetAddress[] getAddresses() {
+            return addresses != null ? addresses.clone() : new InetAddress[0];
+        }
+
+        public String getError() {
+            return error;
+        }
+    }
+
+    private final Resolver resolver;
+    private final long ttlMillis;
+    private final long negativeTtlMillis;
+    private final int maxEntries;
+    private final ExecutorService lookups;
+    private final ConcurrentHashMap<String, Entry> entries = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, CompletableFuture<Entry>> resolving = new ConcurrentHashMap<>();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder negativeHits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder failures = new LongAdder();
+    private final LongAdder refreshes = new LongAdder();
+    private final LongAdder timeouts = new LongAdder();
+    private final LongAdder lookupNanos = new LongAdder();
+    private final LongAdder failedLookupNanos = new LongAdder();
+
+    public DnsCache(Resolver resolver, long ttlMillis, long negativeTtlMillis, int maxEntries, int threads) {
+        this.resolver = resolver;
+        this.ttlMillis = ttlMillis;
+        this.negativeTtlMillis = negativeTtlMillis;
+        this.maxEntries = maxEntries;
+        AtomicInteger count = new AtomicInteger();
+        this.lookups = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "dns-resolver-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Cache configured by health.probe.dns.*, or null when disabled
+     */
+    public static DnsCache fromConfig(HealthConfig config) {
+        if (!config.getBoolean("health.probe.dns.enabled", true)) {
+            return null;
+        }
+        return new DnsCache(InetAddress::getAllByName,
+            config.getInt("health.probe.dns.ttl-ms", 30000),
+            config.getInt("health.probe.dns.negative-ttl-ms", 10000),
+            config.getInt("health.probe.dns.max-entries", 100000),
+            config.getInt("health.probe.dns.threads", 2));
+    }
+
+    /**
+     * Resolve a host name, from the cache when the entry is still fresh
+     * The future never completes exceptionally; check Entry#isResolved
+     */
+    public CompletableFuture<Entry> lookup(String host) {
+        Entry entry = entries.get(host);
+        long now = System.currentTimeMillis();
+        if (entry != null && entry.expiresAtMillis > now) {
+            (entry.isResolved() ? hits : negativeHits).increment();
+            return CompletableFuture.completedFuture(entry);
+        }
+        if (entry != null && entry.isResolved() && entry.expiresAtMillis + ttlMillis > now) {
+            // Expired but recent: answer with it and refresh in the background
+            hits.increment();
+            if (!resolving.containsKey(host)) {
+                refreshes.increment();
+                resolveAsync(host);
+            }
+            return CompletableFuture.completedFuture(entry);
+        }
+        misses.increment();
+        return resolveAsync(host);
+    }
+
+    /**
+     * Like lookup, but a resolution still running after timeoutMs gives a failed
+     * entry (not cached); the shared resolution itself keeps running
+     */
+    public CompletableFuture<Entry> lookup(String host, long timeoutMs) {
+        CompletableFuture<Entry> lookup = lookup(host);
+        if (lookup.isDone()) {
+            return lookup;
+        }
+        return lookup.copy().completeOnTimeout(null, timeoutMs, TimeUnit.MILLISECONDS).thenApply(entry -> {
+            if (entry != null) {
+                return entry;
+            }
+            timeouts.increment();
+            return new Entry(null, "lookup timed out after " + timeoutMs + " ms", 0);
+        });
+    }
+
+    /**
+     * Start a resolution of the name, or join the one already running
+     */
+    private CompletableFuture<Entry> resolveAsync(String host) {
+        CompletableFuture<Entry> promise = new CompletableFuture<>();
+        CompletableFuture<Entry> existing = resolving.putIfAbsent(host, promise);
+        if (existing != null) {
+            return existing;
+        }
+        try {
+            lookups.execute(() -> promise.complete(resolve(host)));
+        } catch (RejectedExecutionException e) {
+            promise.complete(new Entry(null, "resolver shut down", 0));
+        }
+        promise.whenComplete((result, error) -> resolving.remove(host, promise));
+        return promise;
+    }
+
+    private Entry resolve(String host) {
+        long start = System.nanoTime();
+        Entry entry;
+        try {
+            entry = new Entry(resolver.resolve(host), null, System.currentTimeMillis() + ttlMillis);
+        } catch (UnknownHostException | RuntimeException e) {
+            failures.increment();
+            failedLookupNanos.add(System.nanoTime() - start);
+            String message = e.getMessage() != null ? e.getMessage() : host;
+            entry = new Entry(null, message, System.currentTimeMillis() + negativeTtlMillis);
+        }
+        lookupNanos.add(System.nanoTime() - start);
+
+        if (entries.size() >= maxEntries && !entries.containsKey(host)) {
+            evictExpired();
+        }
+        if (entries.size() < maxEntries || entries.containsKey(host)) {
+            entries.put(host, entry);
+        }
+        return entry;
+    }
+
+    private void evictExpired() {
+        long now = System.currentTimeMillis();
+        entries.values().removeIf(entry -> entry.expiresAtMillis <= now);
+    }
+
+    /**
+     * Forget a name, e.g. after a connection failure suggests its address changed
+     */
+    public void invalidate(String host) {
+        entries.remove(host);
+    }
+
+    /**
+     * Whether a host is an IP literal that needs no lookup
+     */
+    static boolean isLiteral(String host) {
+        if (host.indexOf(':') >= 0 || host.startsWith("[")) {
+            return true;
+        }
+        for (int i = 0; i < host.length(); i++) {
+            char c = host.charAt(i);
+            if ((c < '0' || c > '9') && c != '.') {
+                return false;
+            }
+        }
+        return !host.isEmpty();
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    public long hits() {
+        return hits.sum();
+    }
+
+    public long negativeHits() {
+        return negativeHits.sum();
+    }
+
+    public long misses() {
+        return misses.sum();
+    }
+
+    public long failures() {
+        return failures.sum();
+    }
+
+    /**
+     * Expired names served while a background lookup refreshed them
+     */
+    public long refreshes() {
+        return refreshes.sum();
+    }
+
+    /**
+     * Probes that gave up waiting for a lookup
+     */
+    public long timeouts() {
+        return timeouts.sum();
+    }
+
+    /**
+     * Share of lookups answered from the cache, positive or negative
+     */
+    public double hitRate() {
+        long cached = hits.sum() + negativeHits.sum();
+        long total = cached + misses.sum();
+        return total > 0 ? (double) cached / total : 0;
+    }
+
+    /**
+     * Time spent in the resolver, in milliseconds
+     */
+    public double lookupMillis() {
+        return lookupNanos.sum() / 1e6;
+    }
+
+    /**
+     * Time of failing lookups that negative hits skipped, estimated from the mean
+     * failed lookup time. Positive hits are left out: the HttpClient resolves
+     * those names again on a new connection
+     */
+    public double failedLookupMillisAvoided() {
+        long failed = failures.sum();
+        return failed > 0 ? failedLookupNanos.sum() / 1e6 / failed * negativeHits.sum() : 0;
+    }
+
+    public void shutdown() {
+        lookups.shutdownNow();
+    }
+}
@@ -0,0 +1,91 @@
+package com.Health;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.TreeSet;
+
+/**
+ * Immutable consistent-hash ring of cluster nodes
+ * Every node is placed at virtualNodes points on a 64-bit ring and a key
+ * belongs to the first node point at or after the key's hash. Adding or
+ * removing a node only moves the keys on the arcs that node gains or loses,
+ * about 1/N of them, and every node computes the same owners from the same
+ * member list
+ */
+public final class HashRing {
+
+    private final List<String> nodes;
+    private final long[] points;
+    private final int[] owners;
+
+    public HashRing(Collection<String> members, int virtualNodes) {
+        this.nodes = Collections.unmodifiableList(new ArrayList<>(new TreeSet<>(members)));
+        int count = nodes.size() * virtualNodes;
+        long[] keys = new long[count];
+        for (int node = 0; node < nodes.size(); node++) {
+            for (int replica = 0; replica < virtualNodes; replica++) {
+                keys[node * virtualNodes + replica] = hash(nodes.get(node) + "#" + replica);
+            }
+        }
+
+        // Sort point positions together with their node index
+        Integer[] order = new Integer[count];
+        for (int i = 0; i < count; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, (a, b) -> Long.compare(keys[a], keys[b]));
+        this.points = new long[count];
+        this.owners = new int[count];
+        for (int i = 0; i < count; i++) {
+            points[i] = keys[order[i]];
+            owners[i] = order[i] / virtualNodes;
+        }
+    }
+
+    /**
+     * Node that owns a key, or null on an empty ring
+     */
+    public String owner(String key) {
+        return owner(hash(key));
+    }
+
+    public String owner(long keyHash) {
+        if (points.length == 0) {
+            return null;
+        }
+        int index = Arrays.binarySearch(points, keyHash);
+        if (index < 0) {
+            index = -index - 1;
+        }
+        return nodes.get(owners[index == points.length ? 0 : index]);
+    }
+
+    public List<String> nodes() {
+        return nodes;
+    }
+
+    public boolean contains(String node) {
+        return Collections.binarySearch(nodes, node) >= 0;
+    }
+
+    /**
+     * 64-bit FNV-1a of the UTF-8 bytes with a final avalanche, so similar names spread evenly
+     */
+    static long hash(String key) {
+        long h = 0xcbf29ce484222325L;
+        for (byte b : key.getBytes(StandardCharsets.UTF_8)) {
+            h ^= b & 0xff;
+            h *= 0x100000001b3L;
+        }
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
@@ -1,9 +1,5 @@
 package com.Health;
 
-import java.util.concurrent.Executors;
-import java.util.concurrent.ScheduledExecutorService;
-import java.util.concurrent.TimeUnit;
-
 public class HealthCheckApp {
     
     public static void main(String[] args) {
@@ -16,13 +12,13 @@ public class HealthCheckApp {
             // Start health monitoring in background
             startHealthMonitoring();
             
-            // Keep application running
             Runtime.getRuntime().addShutdownHook(new Thread(() -> {
                 System.out.println("\n🛑 Shutting down Health Check Application...");
+                HealthCheckService.stopMonitoring();
             }));
             
-            // Keep main thread alive
-            Thread.currentThread().join();
+            // Print the shared status every 30 seconds; keeps the main thread alive
+            StatusConsole.watch(30);
             
         } catch (Exception e) {
             System.err.println("❌ Failed to start application: " + e.getMessage());
@@ -33,25 +29,9 @@ public class HealthCheckApp {
     private static void startHealthMonitoring() {
         System.out.println("🏥 Starting health monitoring...");
         
-        // Perform initial health check
-        Main.main(new String[]{});
-        
-        // Schedule periodic health checks every 30 seconds
-        ScheduledExecutorService scheduler = Executors.newScheduledThreadPool(1);
-        scheduler.scheduleAtFixedRate(() -> {
-            System.out.println("\n=== Scheduled Health Check ===");
-            System.out.println("Time: " + java.time.LocalDateTime.now());
-            
-            Main.endpointOneStatus = Main.checkStatus(Main.ENDPOINT_ONE);
-            Main.endpointTwoStatus = Main.checkStatus(Main.ENDPOINT_TWO);
-            Main.endpointThreeStatus = Main.checkStatus(Main.ENDPOINT_THREE);
-            
-            System.out.println("ENDPOINT_ONE: " + (Main.endpointOneStatus ? "✅" : "❌"));
-            System.out.println("ENDPOINT_TWO: " + (Main.endpointTwoStatus ? "✅" : "❌"));
-            System.out.println("ENDPOINT_THREE: " + (Main.endpointThreeStatus ? "✅" : "❌"));
-            
-        }, 30, 30, TimeUnit.SECONDS);
+        // One shared monitor feeds the /health endpoint and the console
+        HealthCheckService.startMonitoring();
         
-        System.out.println("✅ Health monitoring started (30-second intervals)");
+        System.out.println("✅ Health monitoring started (" + HealthCheckService.registry().size() + " targets, per-target intervals)");
     }
 }
@@ -2,6 +2,7 @@ package com.Health;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.context.ConfigurableApplicationContext;
 import org.springframework.scheduling.annotation.EnableAsync;
 import org.springframework.scheduling.annotation.EnableScheduling;
 
@@ -11,30 +12,39 @@ import org.springframework.scheduling.annotation.EnableScheduling;
 public class HealthCheckApplication {
     
     public static void main(String[] args) {
-        SpringApplication.run(HealthCheckApplication.class, args);
+        // Lite mode: HealthCheckServer only, no Spring classes are loaded
+        if (liteMode(args)) {
+            MainApplication.main(args);
+            return;
+        }
+        
+        ConfigurableApplicationContext context = SpringApplication.run(HealthCheckApplication.class, args);
         
         // Start background health monitoring
         startHealthMonitoring();
+        
+        if (TrainingRun.enabled()) {
+            String port = context.getEnvironment().getProperty("local.server.port", "8080");
+            String contextPath = context.getEnvironment().getProperty("server.servlet.context-path", "");
+            TrainingRun.complete("http://127.0.0.1:" + port + contextPath + "/api/health");
+            System.exit(SpringApplication.exit(context));
+        }
     }
     
-    private static void startHealthMonitoring() {
-        Thread monitoringThread = new Thread(() -> {
-            while (true) {
-                try {
-                    // Update status every 30 seconds
-                    EndPoints.endpointOneStatus = EndPoints.checkStatus(EndPoints.ENDPOINT_ONE);
-                    EndPoints.endpointTwoStatus = EndPoints.checkStatus(EndPoints.ENDPOINT_TWO);
-                    EndPoints.endpointThreeStatus = EndPoints.checkStatus(EndPoints.ENDPOINT_THREE);
-                    
-                    Thread.sleep(30000); // 30 seconds
-                } catch (InterruptedException e) {
-                    Thread.currentThread().interrupt();
-                    break;
-                }
+    /**
+     * --lite on the command line or health.mode=lite
+     */
+    private static boolean liteMode(String[] args) {
+        for (String arg : args) {
+            if ("--lite".equals(arg)) {
+                return true;
             }
-        });
-        
-        monitoringThread.setDaemon(true);
-        monitoringThread.start();
+        }
+        return "lite".equalsIgnoreCase(HealthConfig.get().getString("health.mode", "spring"));
+    }
+    
+    private static void startHealthMonitoring() {
+        // Probe every registered target on its own schedule in the background
+        HealthCheckService.startMonitoring();
     }
 }
@@ -3,7 +3,14 @@ package com.Health;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.http.ResponseEntity;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.TimeUnit;
@@ -11,100 +18,426 @@ import java.util.concurrent.TimeUnit;
 @RestController
 @RequestMapping("/api")
 public class HealthCheckController {
-    
-    private final EndPoints healthChecker = new EndPoints();
-    
+
+    private final TargetRegistry registry = HealthCheckService.registry();
+    private final long streamTimeoutMs = HealthConfig.get().getInt("health.stream.timeout-ms", 0);
+
+    /**
+     * Without parameters, checks every target; with status, tag, host, cursor or
+     * limit, lists the matching targets from their recorded state instead
+     */
     @GetMapping("/health")
-    public ResponseEntity<Map<String, Object>> getHealth() {
-        Map<String, Object> healthStatus = new HashMap<>();
-        
-        // Check all endpoints asynchronously
-        CompletableFuture<Boolean> endpoint1 = CompletableFuture.supplyAsync(() -> 
-            healthChecker.checkStatus(EndPoints.ENDPOINT_ONE));
-        CompletableFuture<Boolean> endpoint2 = CompletableFuture.supplyAsync(() -> 
-            healthChecker.checkStatus(EndPoints.ENDPOINT_TWO));
-        CompletableFuture<Boolean> endpoint3 = CompletableFuture.supplyAsync(() -> 
-            healthChecker.checkStatus(EndPoints.ENDPOINT_THREE));
-        
+    public ResponseEntity<Map<String, Object>> getHealth(
+            @RequestParam(value = "status", required = false) String status,
+            @RequestParam(value = "tag", required = false) String tag,
+            @RequestParam(value = "host", required = false) String host,
+            @RequestParam(value = "cursor", required = false) String cursor,
+            @RequestParam(value = "limit", required = false) Integer limit) {
+        if (status != null || tag != null || host != null || cursor != null || limit != null) {
+            return queryHealth(status, tag, host, cursor, limit);
+        }
+        Map<String, Object> healthStatus = new LinkedHashMap<>();
+
+        // Check all targets asynchronously; fresh results and in-flight probes are shared.
+        // In cluster mode targets owned by peers are answered from their merged state
+        int targetCount = registry.size();
+        CompletableFuture<?>[] checks = new CompletableFuture<?>[targetCount];
+        for (int id = 0; id < targetCount; id++) {
+            checks[id] = HealthCheckService.checkOnDemand(id);
+        }
+
         try {
             // Wait for all checks to complete with timeout
-            Boolean status1 = endpoint1.get(10, TimeUnit.SECONDS);
-            Boolean status2 = endpoint2.get(10, TimeUnit.SECONDS);
-            Boolean status3 = endpoint3.get(10, TimeUnit.SECONDS);
-            
+            CompletableFuture.allOf(checks).get(10, TimeUnit.SECONDS);
+
+            boolean allHealthy = registry.allHealthy();
+            Map<String, Object> latency = new LinkedHashMap<>();
             healthStatus.put("timestamp", java.time.LocalDateTime.now().toString());
-            healthStatus.put("ENDPOINT_ONE", status1);
-            healthStatus.put("ENDPOINT_TWO", status2);
-            healthStatus.put("ENDPOINT_THREE", status3);
-            healthStatus.put("overall_status", (status1 && status2 && status3) ? "ALL_HEALTHY" : "SOME_UNHEALTHY");
-            
+            for (int id = 0; id < targetCount; id++) {
+                healthStatus.put(registry.name(id), registry.isHealthy(id));
+                latency.put(registry.name(id), latencySummary(id));
+            }
+            healthStatus.put("overall_status", allHealthy ? "ALL_HEALTHY" : "SOME_UNHEALTHY");
+            healthStatus.put("latency_ms", latency);
+            ClusterNode cluster = HealthCheckService.cluster();
+            if (cluster != null) {
+                Map<String, Object> clusterInfo = new LinkedHashMap<>();
+                clusterInfo.put("node", cluster.self());
+                clusterInfo.put("members", cluster.members());
+                clusterInfo.put("owned_targets", cluster.ownedCount());
+                healthStatus.put("cluster", clusterInfo);
+            }
+
             // Return appropriate HTTP status
-            HttpStatus httpStatus = (status1 && status2 && status3) ? HttpStatus.OK : HttpStatus.SERVICE_UNAVAILABLE;
-            
+            HttpStatus httpStatus = allHealthy ? HttpStatus.OK : HttpStatus.SERVICE_UNAVAILABLE;
+
             return ResponseEntity.status(httpStatus).body(healthStatus);
-            
+
         } catch (Exception e) {
             healthStatus.put("error", "Health check failed: " + e.getMessage());
             healthStatus.put("timestamp", java.time.LocalDateTime.now().toString());
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(healthStatus);
         }
     }
-    
+
+    /**
+     * One page of the targets matching the filters, answered from the registry's
+     * indexes without probing; next_cursor is passed back as cursor for the next page
+     */
+    private ResponseEntity<Map<String, Object>> queryHealth(String status, String tag, String host, String cursor,
+                                                            Integer limit) {
+        Map<String, Object> response = new LinkedHashMap<>();
+        TargetQuery query;
+        int from;
+        try {
+            query = TargetQuery.parse(status, tag, host);
+            from = cursor != null && !cursor.isEmpty() ? Integer.parseInt(cursor) : 0;
+            if (from < 0) {
+                throw new IllegalArgumentException("Invalid cursor '" + cursor + "'");
+            }
+        } catch (NumberFormatException e) {
+            response.put("error", "Invalid cursor '" + cursor + "'");
+            return ResponseEntity.badRequest().body(response);
+        } catch (IllegalArgumentException e) {
+            response.put("error", e.getMessage());
+            return ResponseEntity.badRequest().body(response);
+        }
+
+        TargetQuery.Result result = query.run(registry, from, limit != null ? limit : TargetQuery.DEFAULT_LIMIT);
+        List<Map<String, Object>> targets = new ArrayList<>(result.ids().length);
+        for (int id : result.ids()) {
+            Map<String, Object> target = new LinkedHashMap<>();
+            target.put("name", registry.name(id));
+            target.put("url", registry.url(id));
+            target.put("host", registry.host(id));
+            target.put("tags", registry.tags(id));
+            target.put("status", TargetQuery.statusName(registry.status(id)));
+            target.put("status_code", registry.lastStatusCode(id));
+            target.put("latency_ms", registry.lastLatencyMicros(id) / 1000.0);
+            target.put("consecutive_failures", registry.consecutiveFailures(id));
+            target.put("last_check", registry.lastCheckMillis(id));
+            targets.add(target);
+        }
+
+        Map<String, Object> filter = new LinkedHashMap<>();
+        if (query.status() >= 0) {
+            filter.put("status", TargetQuery.statusName(query.status()));
+        }
+        if (query.tag() != null) {
+            filter.put("tag", query.tag());
+        }
+        if (query.host() != null) {
+            filter.put("host", query.host());
+        }
+        response.put("filter", filter);
+        response.put("count", targets.size());
+        response.put("targets", targets);
+        response.put("next_cursor", result.nextCursor() >= 0 ? Integer.toString(result.nextCursor()) : null);
+        response.put("examined", result.examined());
+        response.put("timestamp", java.time.LocalDateTime.now().toString());
+        return ResponseEntity.ok(response);
+    }
+
     @GetMapping("/health/{endpoint}")
     public ResponseEntity<Map<String, Object>> getEndpointHealth(@PathVariable String endpoint) {
         Map<String, Object> response = new HashMap<>();
-        
+
         try {
-            boolean status = false;
-            String endpointUrl = "";
-            
-            switch (endpoint.toLowerCase()) {
-                case "1":
-                case "one":
-                    endpointUrl = EndPoints.ENDPOINT_ONE;
-                    status = healthChecker.checkStatus(EndPoints.ENDPOINT_ONE);
-                    break;
-                case "2":
-                case "two":
-                    endpointUrl = EndPoints.ENDPOINT_TWO;
-                    status = healthChecker.checkStatus(EndPoints.ENDPOINT_TWO);
-                    break;
-                case "3":
-                case "three":
-                    endpointUrl = EndPoints.ENDPOINT_THREE;
-                    status = healthChecker.checkStatus(EndPoints.ENDPOINT_THREE);
-                    break;
-                default:
-                    response.put("error", "Invalid endpoint. Use 1, 2, or 3");
-                    return ResponseEntity.badRequest().body(response);
+            int targetId = resolveTarget(endpoint);
+            if (targetId < 0) {
+                response.put("error", "Invalid endpoint. Use a target name or a number from 1 to " + registry.size());
+                return ResponseEntity.badRequest().body(response);
             }
-            
+
+            boolean status = HealthCheckService.checkOnDemand(targetId).get(10, TimeUnit.SECONDS);
+
             response.put("endpoint", endpoint);
-            response.put("url", endpointUrl);
+            response.put("name", registry.name(targetId));
+            response.put("url", registry.url(targetId));
             response.put("status", status ? "HEALTHY" : "UNHEALTHY");
+            response.put("latency_ms", latencySummary(targetId));
             response.put("timestamp", java.time.LocalDateTime.now().toString());
-            
+
             return ResponseEntity.status(status ? HttpStatus.OK : HttpStatus.SERVICE_UNAVAILABLE)
                     .body(response);
-                    
+
         } catch (Exception e) {
             response.put("error", "Health check failed: " + e.getMessage());
             response.put("timestamp", java.time.LocalDateTime.now().toString());
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(response);
         }
     }
-    
+
+    /**
+     * Recorded probe results of one target; the range defaults to the last hour
+     */
+    @GetMapping("/health/{endpoint}/history")
+    public ResponseEntity<Map<String, Object>> getEndpointHistory(
+            @PathVariable String endpoint,
+            @RequestParam(value = "from", required = false) Long from,
+            @RequestParam(value = "to", required = false) Long to,
+            @RequestParam(value = "limit", defaultValue = "1000") int limit) {
+        Map<String, Object> response = new LinkedHashMap<>();
+
+        int targetId = resolveTarget(endpoint);
+        if (targetId < 0) {
+            response.put("error", "Invalid endpoint. Use a target name or a number from 1 to " + registry.size());
+            return ResponseEntity.badRequest().body(response);
+        }
+        if (!HealthCheckService.historyEnabled()) {
+            response.put("error", "Probe history is disabled (health.history.enabled)");
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(response);
+        }
+
+        long toMillis = to != null ? to : System.currentTimeMillis();
+        long fromMillis = from != null ? from : toMillis - 3600_000L;
+        List<Map<String, Object>> records = new ArrayList<>();
+        for (ProbeRecord record : HealthCheckService.probeHistory(targetId, fromMillis, toMillis,
+                Math.max(1, Math.min(limit, 100000)))) {
+            Map<String, Object> entry = new LinkedHashMap<>();
+            entry.put("timestamp", record.getTimestampMillis());
+            entry.put("status_code", record.getStatusCode());
+            entry.put("healthy", record.isHealthy());
+            entry.put("latency_ms", record.getLatencyMicros() / 1000.0);
+            entry.put("error", record.getError().name());
+            records.add(entry);
+        }
+
+        response.put("name", registry.name(targetId));
+        response.put("from", fromMillis);
+        response.put("to", toMillis);
+        response.put("count", records.size());
+        response.put("records", records);
+        return ResponseEntity.ok(response);
+    }
+
+    /**
+     * Availability and latency of one target from its rollups; the range defaults to the last 24 hours
+     */
+    @GetMapping("/health/{endpoint}/uptime")
+    public ResponseEntity<Map<String, Object>> getEndpointUptime(
+            @PathVariable String endpoint,
+            @RequestParam(value = "resolution", required = false) String resolution,
+            @RequestParam(value = "from", required = false) Long from,
+            @RequestParam(value = "to", required = false) Long to) {
+        Map<String, Object> response = new LinkedHashMap<>();
+
+        int targetId = resolveTarget(endpoint);
+        if (targetId < 0) {
+            response.put("error", "Invalid endpoint. Use a target name or a number from 1 to " + registry.size());
+            return ResponseEntity.badRequest().body(response);
+        }
+        long toMillis = to != null ? to : System.currentTimeMillis();
+        long fromMillis = from != null ? from : toMillis - 86400_000L;
+        UptimeRollup.Resolution level = resolution != null
+            ? UptimeRollup.Resolution.parse(resolution)
+            : UptimeRollup.Resolution.covering(fromMillis, System.currentTimeMillis());
+        if (level == null) {
+            response.put("error", "Invalid resolution. Use 1m, 5m, 1h or 1d");
+            return ResponseEntity.badRequest().body(response);
+        }
+
+        UptimeRollup rollup = HealthCheckService.uptime(targetId, level);
+        List<Map<String, Object>> buckets = new ArrayList<>();
+        if (rollup != null) {
+            for (UptimeRollup.Summary bucket : rollup.buckets(level, fromMillis, toMillis)) {
+                buckets.add(uptimeSummary(bucket));
+            }
+        }
+
+        response.put("name", registry.name(targetId));
+        response.put("resolution", level.label());
+        response.put("summary", uptimeSummary(rollup != null
+            ? rollup.summarize(level, fromMillis, toMillis)
+            : new UptimeRollup.Summary(fromMillis, toMillis, 0, 0, 0, 0)));
+        response.put("buckets", buckets);
+        return ResponseEntity.ok(response);
+    }
+
+    /**
+     * SLA report: availability of every target over a range; the range defaults to the last 30 days
+     */
+    @GetMapping("/health/uptime")
+    public ResponseEntity<Map<String, Object>> getUptimeReport(
+            @RequestParam(value = "resolution", required = false) String resolution,
+            @RequestParam(value = "from", required = false) Long from,
+            @RequestParam(value = "to", required = false) Long to) {
+        Map<String, Object> response = new LinkedHashMap<>();
+        long started = System.nanoTime();
+
+        long toMillis = to != null ? to : System.currentTimeMillis();
+        long fromMillis = from != null ? from : toMillis - 30 * 86400_000L;
+        UptimeRollup.Resolution level = resolution != null
+            ? UptimeRollup.Resolution.parse(resolution)
+            : UptimeRollup.Resolution.covering(fromMillis, System.currentTimeMillis());
+        if (level == null) {
+            response.put("error", "Invalid resolution. Use 1m, 5m, 1h or 1d");
+            return ResponseEntity.badRequest().body(response);
+        }
+
+        long totalCount = 0;
+        long totalErrors = 0;
+        Map<String, Object> targets = new LinkedHashMap<>();
+        for (int id = 0; id < registry.size(); id++) {
+            UptimeRollup rollup = HealthCheckService.uptime(id, level);
+            if (rollup == null) {
+                continue;
+            }
+            UptimeRollup.Summary summary = rollup.summarize(level, fromMillis, toMillis);
+            totalCount += summary.getCount();
+            totalErrors += summary.getErrors();
+            targets.put(registry.name(id), uptimeSummary(summary));
+        }
+
+        response.put("from", fromMillis);
+        response.put("to", toMillis);
+        response.put("resolution", level.label());
+        response.put("availability", totalCount > 0 ? (1.0 - (double) totalErrors / totalCount) * 100 : 100.0);
+        response.put("count", totalCount);
+        response.put("errors", totalErrors);
+        response.put("targets", targets);
+        response.put("computed_in_ms", (System.nanoTime() - started) / 1e6);
+        return ResponseEntity.ok(response);
+    }
+
     @GetMapping("/health/summary")
     public ResponseEntity<Map<String, Object>> getHealthSummary() {
-        Map<String, Object> summary = new HashMap<>();
-        
-        // Get current status from static variables
-        summary.put("ENDPOINT_ONE", EndPoints.endpointOneStatus);
-        summary.put("ENDPOINT_TWO", EndPoints.endpointTwoStatus);
-        summary.put("ENDPOINT_THREE", EndPoints.endpointThreeStatus);
-        summary.put("all_healthy", EndPoints.allEndpointsHealthy());
+        Map<String, Object> summary = new LinkedHashMap<>();
+
+        // Get current status recorded by the background monitor
+        for (int id = 0; id < registry.size(); id++) {
+            summary.put(registry.name(id), registry.isHealthy(id));
+        }
+        summary.put("all_healthy", registry.allHealthy());
+        summary.put("on_demand", onDemandStats());
         summary.put("timestamp", java.time.LocalDateTime.now().toString());
-        
+
         return ResponseEntity.ok(summary);
     }
+
+    /**
+     * Server-sent events: the current snapshot, then status changes and metric deltas
+     * Subscribers are served from the shared event bus and never trigger probes
+     */
+    @GetMapping(value = "/health/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> streamHealth() {
+        SseEmitter emitter = new SseEmitter(streamTimeoutMs);
+        HealthEventBus events = HealthCheckService.events();
+        HealthEventBus.Subscriber subscriber = events.subscribe(new EmitterSink(emitter));
+        if (subscriber == null) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+        }
+        emitter.onCompletion(() -> events.unsubscribe(subscriber));
+        emitter.onTimeout(() -> events.unsubscribe(subscriber));
+        emitter.onError(error -> events.unsubscribe(subscriber));
+        return ResponseEntity.ok(emitter);
+    }
+
+    /**
+     * How many outbound probes the on-demand endpoints sent and avoided
+     */
+    private Map<String, Object> onDemandStats() {
+        ProbeCoalescer onDemand = HealthCheckService.onDemand();
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("freshness_ttl_ms", onDemand.freshnessTtlMs());
+        stats.put("requests", onDemand.requests());
+        stats.put("probes_issued", onDemand.issued());
+        stats.put("served_fresh", onDemand.servedFresh());
+        stats.put("coalesced", onDemand.coalesced());
+        stats.put("probes_avoided", onDemand.avoided());
+        return stats;
+    }
+
+    private Map<String, Object> uptimeSummary(UptimeRollup.Summary summary) {
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("from", summary.getFromMillis());
+        result.put("to", summary.getToMillis());
+        result.put("availability", summary.getAvailability());
+        result.put("count", summary.getCount());
+        result.put("errors", summary.getErrors());
+        result.put("avg_latency_ms", summary.getAvgLatencyMillis());
+        result.put("max_latency_ms", summary.getMaxLatencyMillis());
+        return result;
+    }
+
+    /**
+     * Recent p50/p90/p99/max latency of a target in milliseconds, with the lifetime figures when known
+     */
+    private Map<String, Object> latencySummary(int targetId) {
+        long[] latency = HealthCheckService.latencySummary(targetId);
+        Map<String, Object> summary = new LinkedHashMap<>();
+        summary.put("p50", latency[0] / 1000.0);
+        summary.put("p90", latency[1] / 1000.0);
+        summary.put("p99", latency[2] / 1000.0);
+        summary.put("max", latency[3] / 1000.0);
+        summary.put("count", latency[4]);
+        long[] lifetime = HealthCheckService.lifetimeLatency(targetId);
+        if (lifetime != null) {
+            Map<String, Object> total = new LinkedHashMap<>();
+            total.put("p50", lifetime[0] / 1000.0);
+            total.put("p90", lifetime[1] / 1000.0);
+            total.put("p99", lifetime[2] / 1000.0);
+            total.put("max", lifetime[3] / 1000.0);
+            summary.put("lifetime", total);
+        }
+        return summary;
+    }
+
+    /**
+     * Sends shared event payloads through an SseEmitter
+     */
+    private static class EmitterSink implements HealthEventBus.Sink {
+        private final SseEmitter emitter;
+
+        EmitterSink(SseEmitter emitter) {
+            this.emitter = emitter;
+        }
+
+        @Override
+        public void send(HealthEvent event) throws IOException {
+            emitter.send(SseEmitter.event()
+                .id(Long.toString(event.id()))
+                .name(event.name())
+                .data(event.data()));
+        }
+
+        @Override
+        public void heartbeat() throws IOException {
+            emitter.send(SseEmitter.event().comment("keep-alive"));
+        }
+
+        @Override
+        public void close() {
+            emitter.complete();
+        }
+
+        // The container's output is not interruptible; completing with an error closes the connection
+        @Override
+        public void abort() {
+            emitter.completeWithError(new InterruptedIOException("write deadline exceeded"));
+        }
+    }
+
+    /**
+     * Resolve a path segment to a target id: a 1-based number, "one"/"two"/"three", or a target name
+     */
+    private int resolveTarget(String endpoint) {
+        switch (endpoint.toLowerCase()) {
+            case "one": return registry.contains(0) ? 0 : -1;
+            case "two": return registry.contains(1) ? 1 : -1;
+            case "three": return registry.contains(2) ? 2 : -1;
+            default:
+                break;
+        }
+        int byName = registry.idOf(endpoint);
+        if (byName >= 0) {
+            return byName;
+        }
+        try {
+            int id = Integer.parseInt(endpoint) - 1;
+            return registry.contains(id) ? id : -1;
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
 }
@@ -5,42 +5,69 @@ import com.sun.net.httpserver.HttpHandler;
 import com.sun.net.httpserver.HttpExchange;
 import java.io.IOException;
 import java.io.OutputStream;
-import java.net.InetSocketAddress;
 import java.nio.charset.StandardCharsets;
 
 /**
  * Simple HTTP Server to expose health check metrics
- * Provides /health endpoint with JSON metrics
+ * Provides /health endpoint with JSON metrics. Front-end of the lite mode
+ * (MainApplication), which runs without a Spring context. Requests are served
+ * as configured by health.server.* (see ServingMode)
  */
 public class HealthCheckServer {
     
-    private static final int PORT = 8080;
+    private static final int PORT = HealthConfig.get().getInt("health.server.port", 8080);
+    private static final int MAX_LISTED_TARGETS = 50;
     private static HttpServer server;
+    private static ServingMode mode = ServingMode.fromConfig(HealthConfig.get());
     
     public static void startServer() throws IOException {
-        server = HttpServer.create(new InetSocketAddress(PORT), 0);
+        startServer(mode);
+    }
+    
+    public static void startServer(ServingMode servingMode) throws IOException {
+        mode = servingMode;
+        server = mode.create(PORT, "health-http-");
         
         // Health endpoint
-        server.createContext("/health", new HealthHandler());
+        server.createContext("/health", mode.wrap(new HealthHandler()));
+        
+        // Server-sent events with state transitions and metric deltas
+        server.createContext("/health/stream", mode.wrapStream(new StreamHandler()));
         
         // Root endpoint with basic info
-        server.createContext("/", new RootHandler());
+        server.createContext("/", mode.wrap(new RootHandler()));
         
-        server.setExecutor(null);
         server.start();
         
-        System.out.println("🌐 Health Check Server started on port " + PORT);
-        System.out.println("📊 Health metrics available at: http://localhost:" + PORT + "/health");
-        System.out.println("ℹ️  Server info available at: http://localhost:" + PORT + "/");
+        // health.server.port=0 binds any free port
+        int port = port();
+        System.out.println("🌐 Health Check Server started on port " + port + " (" + mode + ")");
+        System.out.println("📊 Health metrics available at: http://localhost:" + port + "/health");
+        System.out.println("📡 Health event stream available at: http://localhost:" + port + "/health/stream");
+        System.out.println("ℹ️  Server info available at: http://localhost:" + port + "/");
     }
     
     public static void stopServer() {
         if (server != null) {
-            server.stop(0);
+            mode.stop(server);
             System.out.println("🛑 Health Check Server stopped");
         }
     }
     
+    /**
+     * Bound port once started, otherwise the configured one
+     */
+    public static int port() {
+        return server != null ? server.getAddress().getPort() : PORT;
+    }
+    
+    /**
+     * Serving mode of the server, health.server.* unless started with another
+     */
+    public static ServingMode mode() {
+        return mode;
+    }
+    
     /**
      * Handler for /health endpoint
      */
@@ -48,54 +75,131 @@ public class HealthCheckServer {
         @Override
         public void handle(HttpExchange exchange) throws IOException {
             if ("GET".equals(exchange.getRequestMethod())) {
-                String response = HealthCheckService.getHealthMetrics();
+                // Pre-encoded by the prober; nothing is formatted per request
+                StatusSnapshot snapshot = HealthCheckService.snapshot();
                 
                 exchange.getResponseHeaders().set("Content-Type", "application/json");
                 exchange.getResponseHeaders().set("Access-Control-Allow-Origin", "*");
                 exchange.getResponseHeaders().set("Access-Control-Allow-Methods", "GET");
                 exchange.getResponseHeaders().set("Access-Control-Allow-Headers", "Content-Type");
+                exchange.getResponseHeaders().set("Cache-Control", "no-cache");
+                exchange.getResponseHeaders().set("ETag", snapshot.etag());
                 
-                exchange.sendResponseHeaders(200, response.getBytes(StandardCharsets.UTF_8).length);
-                
-                try (OutputStream os = exchange.getResponseBody()) {
-                    os.write(response.getBytes(StandardCharsets.UTF_8));
+                // Unchanged since the client's copy
+                if (snapshot.matches(exchange.getRequestHeaders().getFirst("If-None-Match"))) {
+                    exchange.sendResponseHeaders(304, -1);
+                    exchange.close();
+                    return;
                 }
+                
+                // The gzip copy is compressed once per snapshot version
+                mode.send(exchange, snapshot.json(), snapshot::gzip);
             } else {
                 exchange.sendResponseHeaders(405, -1); // Method Not Allowed
             }
         }
     }
     
+    /**
+     * Handler for /health/stream: keeps the response open and hands it to the event bus
+     */
+    static class StreamHandler implements HttpHandler {
+        @Override
+        public void handle(HttpExchange exchange) throws IOException {
+            if (!"GET".equals(exchange.getRequestMethod())) {
+                exchange.sendResponseHeaders(405, -1);
+                exchange.close();
+                return;
+            }
+            
+            HealthEventBus events = HealthCheckService.events();
+            ExchangeSink sink = new ExchangeSink(exchange);
+            exchange.getResponseHeaders().set("Content-Type", "text/event-stream");
+            exchange.getResponseHeaders().set("Cache-Control", "no-cache");
+            exchange.getResponseHeaders().set("Access-Control-Allow-Origin", "*");
+            
+            // Writes happen on the bus writer threads; this handler returns right away
+            synchronized (sink) {
+                if (events.subscribe(sink) == null) {
+                    exchange.sendResponseHeaders(503, -1);
+                    exchange.close();
+                    return;
+                }
+                exchange.sendResponseHeaders(200, 0);
+            }
+        }
+    }
+    
+    /**
+     * Writes pre-encoded event frames to an open exchange
+     */
+    static class ExchangeSink implements HealthEventBus.Sink {
+        private static final byte[] HEARTBEAT = ": keep-alive\n\n".getBytes(StandardCharsets.UTF_8);
+        
+        private final HttpExchange exchange;
+        
+        ExchangeSink(HttpExchange exchange) {
+            this.exchange = exchange;
+        }
+        
+        // Synchronized so the first event waits for the response headers
+        @Override
+        public synchronized void send(HealthEvent event) throws IOException {
+            OutputStream os = exchange.getResponseBody();
+            os.write(event.frame());
+            os.flush();
+        }
+        
+        @Override
+        public synchronized void heartbeat() throws IOException {
+            OutputStream os = exchange.getResponseBody();
+            os.write(HEARTBEAT);
+            os.flush();
+        }
+        
+        @Override
+        public void close() {
+            exchange.close();
+        }
+    }
+    
     /**
      * Handler for root endpoint
      */
     static class RootHandler implements HttpHandler {
         @Override
         public void handle(HttpExchange exchange) throws IOException {
+            TargetRegistry registry = HealthCheckService.registry();
+            StringBuilder targets = new StringBuilder();
+            int listed = Math.min(registry.size(), MAX_LISTED_TARGETS);
+            for (int id = 0; id < listed; id++) {
+                targets.append("<li>").append(registry.name(id)).append(": ")
+                    .append(registry.url(id)).append("</li>");
+            }
+            if (registry.size() > listed) {
+                targets.append("<li>... and ").append(registry.size() - listed).append(" more</li>");
+            }
+            
             String response = "<!DOCTYPE html>" +
                 "<html><head><title>Health Check Service</title></head>" +
                 "<body>" +
                 "<h1>🏥 Health Check Service</h1>" +
-                "<p>This service monitors 3 endpoints and provides health metrics.</p>" +
+                "<p>This service monitors " + registry.size() + " endpoints and provides health metrics.</p>" +
                 "<h2>Available Endpoints:</h2>" +
                 "<ul>" +
                 "<li><a href='/health'>GET /health</a> - Health metrics in JSON format</li>" +
+                "<li><a href='/health/stream'>GET /health/stream</a> - Server-sent events with status changes and metric deltas</li>" +
                 "</ul>" +
                 "<h2>Monitored Endpoints:</h2>" +
                 "<ul>" +
-                "<li>Endpoint 1: " + HealthCheckService.ENDPOINT_ONE + "</li>" +
-                "<li>Endpoint 2: " + HealthCheckService.ENDPOINT_TWO + "</li>" +
-                "<li>Endpoint 3: " + HealthCheckService.ENDPOINT_THREE + "</li>" +
+                targets +
                 "</ul>" +
                 "<p><em>Service started at: " + java.time.LocalDateTime.now() + "</em></p>" +
                 "</body></html>";
             
+            byte[] body = response.getBytes(StandardCharsets.UTF_8);
             exchange.getResponseHeaders().set("Content-Type", "text/html");
-            exchange.sendResponseHeaders(200, response.getBytes(StandardCharsets.UTF_8).length);
-            
-            try (OutputStream os = exchange.getResponseBody()) {
-                os.write(response.getBytes(StandardCharsets.UTF_8));
-            }
+            mode.send(exchange, body, () -> ServingMode.gzip(body));
         }
     }
 }
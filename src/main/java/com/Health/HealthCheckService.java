@@ -1,242 +1,862 @@
 package com.Health;
 
 import java.io.IOException;
-import java.net.HttpURLConnection;
-import java.net.URL;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
+import java.util.Collections;
+import java.util.List;
 import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
 
 /**
  * Comprehensive Health Check Service
- * Monitors 3 endpoints and exposes metrics via /health endpoint
+ * Monitors the configured targets and exposes metrics via /health endpoint
  */
 public class HealthCheckService {
     
-    // Endpoints to monitor
+    // Default endpoints, monitored when no health.target.* entries are configured
     public static final String ENDPOINT_ONE = "https://prod.npontu.io/endpoint_1/health_check";
     public static final String ENDPOINT_TWO = "https://prod.npontu.io/endpoint_2/health_check";
     public static final String ENDPOINT_THREE = "https://prod.npontu.io/endpoint_3/health_check";
     
-    // Health status tracking
-    private static volatile boolean endpointOneStatus = false;
-    private static volatile boolean endpointTwoStatus = false;
-    private static volatile boolean endpointThreeStatus = false;
+    // Health status tracking, indexed by target id
+    private static final TargetRegistry registry = loadTargets();
     
     // Metrics tracking
-    private static final AtomicInteger totalChecks = new AtomicInteger(0);
-    private static final AtomicInteger failedChecks = new AtomicInteger(0);
+    private static final LongAdder totalChecks = new LongAdder();
+    private static final LongAdder failedChecks = new LongAdder();
+    private static final LongAdder[] probeErrors = new LongAdder[ProbeError.values().length];
     private static final AtomicLong lastCheckTime = new AtomicLong(0);
     private static final AtomicInteger consecutiveFailures = new AtomicInteger(0);
     
+    static {
+        for (int i = 0; i < probeErrors.length; i++) {
+            probeErrors[i] = new LongAdder();
+        }
+    }
+    
     // Service down detection
     private static final int MAX_CONSECUTIVE_FAILURES = 3;
-    private static final long ALERT_COOLDOWN_MS = 300000; // 5 minutes
-    private static volatile long lastAlertTime = 0;
     
-    // Thread pool for concurrent health checks
-    private static final ExecutorService executor = Executors.newFixedThreadPool(3);
+    // Console output lists at most this many targets by name
+    private static final int MAX_LISTED_TARGETS = 20;
+    
+    // Health check configuration (per-target interval/timeout options override these)
+    private static final int CHECK_INTERVAL_MS = HealthConfig.get().getInt("health.check.interval", 30000);
+    private static final int REQUEST_TIMEOUT_MS = HealthConfig.get().getInt("health.check.timeout", 10000);
+    
+    // Initial phase spread of targets without a jitter option (-1 spreads over the whole interval)
+    private static final int CHECK_JITTER_MS = HealthConfig.get().getInt("health.check.jitter", -1);
+    
+    // Released by the first recorded probe result (startup timing, CDS training runs)
+    private static final CountDownLatch firstProbe = new CountDownLatch(1);
+    
+    // On-demand probes from API requests share in-flight probes and reuse fresh results;
+    // targets under background monitoring are served from the store between scheduled probes
+    private static final ProbeCoalescer onDemand = new ProbeCoalescer(registry,
+        HealthCheckService::checkEndpointHealth,
+        HealthConfig.get().getInt("health.ondemand.freshness-ms", 15000),
+        HealthCheckService::monitored);
+    
+    // Per-target scheduling on a timer wheel
+    private static volatile ProbeScheduler scheduler;
+    private static final ScheduledExecutorService backgroundTasks = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "health-background");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private static ScheduledFuture<?> summaryTask;
+    private static ScheduledFuture<?> snapshotTask;
+    
+    // Pre-encoded /health document, republished after state changes (at most once per interval,
+    // immediately when a target changes status)
+    private static final int SNAPSHOT_INTERVAL_MS = HealthConfig.get().getInt("health.snapshot.interval-ms", 1000);
+    private static volatile StatusSnapshot snapshot;
+    private static final AtomicLong snapshotVersion = new AtomicLong(0);
+    private static final AtomicBoolean snapshotDirty = new AtomicBoolean(true);
+    private static final AtomicBoolean snapshotPublishQueued = new AtomicBoolean(false);
+    
+    // Status changes go to the alert pipeline, which groups, deduplicates and delivers them off the probe path
+    private static final AlertDispatcher alerts = AlertDispatcher.fromConfig(HealthConfig.get(), registry,
+        MAX_CONSECUTIVE_FAILURES);
+    
+    // Streaming subscribers get state transitions and metric deltas
+    private static final HealthEventBus events = HealthEventBus.fromConfig(HealthCheckService::snapshot, HealthConfig.get());
+    private static final int METRICS_EVENT_KEY = -2;
+    private static long lastStreamedChecks = 0;
+    private static long lastStreamedFailures = 0;
+    
+    private static final DateTimeFormatter LOG_TIME_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+    private static final DateTimeFormatter ISO_TIME_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ss");
+    
+    // Shared non-blocking probe engine (pooled connections, DNS cache, TLS session reuse)
+    private static final ProbeEngine probeEngine = ProbeEngine.fromConfig(REQUEST_TIMEOUT_MS, HealthConfig.get());
+    
+    // Execution mode for probes: async, fixed-pool or virtual-threads (health.probe.mode)
+    private static final ProbeExecutor probeExecutor = ProbeExecutor.fromConfig(probeEngine, HealthConfig.get());
+    
+    // Probe results are logged through a ring buffer and written by a background thread (health.log.*)
+    private static final ProbeLog probeLog = ProbeLog.fromConfig(HealthConfig.get(), id -> registry.url(id));
     
-    // Health check configuration
-    private static final int CHECK_INTERVAL_SECONDS = 30;
-    private static final int REQUEST_TIMEOUT_MS = 10000;
+    // Append-only probe history on disk (health.history.*), null when disabled
+    private static final ProbeHistory history = openHistory();
+    private static final long HISTORY_RETENTION_CHECK_MS = 60000;
+    private static ScheduledFuture<?> retentionTask;
+    
+    // Cluster mode (health.cluster.*): this instance probes its share of the targets and
+    // merges the state of the rest from its peers; null when running alone
+    private static final ClusterNode cluster = ClusterNode.fromConfig(HealthConfig.get(), registry,
+        new ClusterListener());
+    
+    static {
+        restoreFromHistoryInBackground();
+        if (cluster != null) {
+            cluster.start();
+        }
+    }
+    
+    private static TargetRegistry loadTargets() {
+        TargetRegistry targets = TargetLoader.load(HealthConfig.get());
+        if (targets.size() == 0) {
+            targets.register(new TargetSpec("endpoint_1", ENDPOINT_ONE));
+            targets.register(new TargetSpec("endpoint_2", ENDPOINT_TWO));
+            targets.register(new TargetSpec("endpoint_3", ENDPOINT_THREE));
+        }
+        return targets;
+    }
+    
+    private static ProbeHistory openHistory() {
+        try {
+            return ProbeHistory.fromConfig(HealthConfig.get());
+        } catch (IOException | RuntimeException e) {
+            System.err.println("Probe history disabled, cannot open it: " + e.getMessage());
+            return null;
+        }
+    }
     
     /**
-     * Check the health status of a single endpoint
+     * Replay the retained history on its own thread, so startup does not wait
+     * for it. Probes run meanwhile; results from before now come from the
+     * history and later ones from the probes, so none is counted twice
      */
-    private static boolean checkEndpointHealth(String url) {
-        try {
-            URL endpointUrl = new URL(url);
-            HttpURLConnection connection = (HttpURLConnection) endpointUrl.openConnection();
-            connection.setRequestMethod("GET");
-            connection.setConnectTimeout(REQUEST_TIMEOUT_MS);
-            connection.setReadTimeout(REQUEST_TIMEOUT_MS);
-            connection.setRequestProperty("User-Agent", "HealthCheckService/1.0");
-            
-            int responseCode = connection.getResponseCode();
-            boolean isHealthy = responseCode >= 200 && responseCode < 300;
-            
-            System.out.println(String.format("[%s] %s - Status: %d - %s", 
-                LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss")),
-                url, responseCode, isHealthy ? "HEALTHY" : "UNHEALTHY"));
-            
-            return isHealthy;
-            
-        } catch (IOException e) {
-            System.err.println(String.format("[%s] ERROR checking %s: %s", 
-                LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss")),
-                url, e.getMessage()));
-            return false;
+    private static void restoreFromHistoryInBackground() {
+        if (history == null) {
+            return;
+        }
+        long cutoff = System.currentTimeMillis();
+        Thread restore = new Thread(() -> {
+            try {
+                restoreFromHistory(cutoff);
+            } catch (RuntimeException e) {
+                System.err.println("Probe history restore failed: " + e.getMessage());
+            }
+        }, "health-history-restore");
+        restore.setDaemon(true);
+        restore.start();
+    }
+    
+    /**
+     * Rebuild counters, rollups and last known status from the history recorded before cutoffMillis
+     */
+    private static void restoreFromHistory(long cutoffMillis) {
+        long started = System.nanoTime();
+        int historyTargets = history.targetCount();
+        long[] total = new long[historyTargets];
+        long[] failed = new long[historyTargets];
+        long[] lastCheck = new long[historyTargets];
+        int[] lastStatusCode = new int[historyTargets];
+        int[] lastLatency = new int[historyTargets];
+        int[] failureStreak = new int[historyTargets];
+        boolean[] lastHealthy = new boolean[historyTargets];
+        int[] targetIds = new int[historyTargets];
+        for (int historyId = 0; historyId < historyTargets; historyId++) {
+            targetIds[historyId] = registry.idOf(history.targetName(historyId));
+        }
+        history.scan((id, timestamp, statusCode, latencyMicros, error) -> {
+            if (id < historyTargets && targetIds[id] >= 0 && timestamp < cutoffMillis) {
+                boolean healthy = error == ProbeError.NONE;
+                registry.restoreUptime(targetIds[id], timestamp, healthy, latencyMicros);
+                total[id]++;
+                if (!healthy) {
+                    failed[id]++;
+                }
+                failureStreak[id] = healthy ? 0 : failureStreak[id] + 1;
+                lastCheck[id] = timestamp;
+                lastStatusCode[id] = statusCode;
+                lastLatency[id] = latencyMicros;
+                lastHealthy[id] = healthy;
+            }
+            return true;
+        });
+        
+        long restoredChecks = 0;
+        int restoredTargets = 0;
+        for (int historyId = 0; historyId < historyTargets; historyId++) {
+            int targetId = targetIds[historyId];
+            if (targetId < 0 || total[historyId] == 0) {
+                continue;
+            }
+            registry.mergeHistory(targetId, lastHealthy[historyId], lastStatusCode[historyId], lastLatency[historyId],
+                lastCheck[historyId], total[historyId], failed[historyId], failureStreak[historyId]);
+            totalChecks.add(total[historyId]);
+            failedChecks.add(failed[historyId]);
+            lastCheckTime.accumulateAndGet(lastCheck[historyId], Math::max);
+            restoredChecks += total[historyId];
+            restoredTargets++;
+        }
+        consecutiveFailures.set(registry.unhealthyCount());
+        requestSnapshotPublish();
+        System.out.println("💾 Restored " + restoredChecks + " probe results for " + restoredTargets
+            + " targets from " + history.directory() + " in " + (System.nanoTime() - started) / 1_000_000 + " ms");
+    }
+    
+    /**
+     * Failed probes of one error class since startup
+     */
+    public static long probeErrors(ProbeError cause) {
+        return probeErrors[cause.ordinal()].sum();
+    }
+    
+    public static long totalChecks() {
+        return totalChecks.sum();
+    }
+    
+    public static long failedChecks() {
+        return failedChecks.sum();
+    }
+    
+    /**
+     * Running scheduler, or null while monitoring is stopped
+     */
+    public static ProbeScheduler scheduler() {
+        return scheduler;
+    }
+    
+    public static ProbeExecutor probeExecutor() {
+        return probeExecutor;
+    }
+    
+    /**
+     * Cluster membership of this instance, or null when it runs alone
+     */
+    public static ClusterNode cluster() {
+        return cluster;
+    }
+    
+    /**
+     * Whether this instance probes the target (always, unless a cluster peer owns it)
+     */
+    public static boolean ownsTarget(int targetId) {
+        return cluster == null || cluster.owns(targetId);
+    }
+    
+    /**
+     * Registry of all monitored targets and their current state
+     */
+    public static TargetRegistry registry() {
+        return registry;
+    }
+    
+    /**
+     * Check the health status of a single target and record the result
+     */
+    static CompletableFuture<Boolean> checkEndpointHealth(int targetId) {
+        return checkEndpointHealth(targetId, REQUEST_TIMEOUT_MS);
+    }
+    
+    static CompletableFuture<Boolean> checkEndpointHealth(int targetId, int timeoutMs) {
+        String url = registry.url(targetId);
+        SocketCheck socketCheck = registry.socketCheck(targetId);
+        return probeExecutor.probe(url, timeoutMs, registry.assertion(targetId), socketCheck).thenApply(result -> {
+            if (probeLog != null) {
+                probeLog.log(targetId, result);
+            }
+            recordResult(targetId, result);
+            return result.isHealthy();
+        });
+    }
+    
+    /**
+     * Health of a target for an inbound request: a result recorded within the
+     * freshness TTL is reused, concurrent requests share one outbound probe
+     */
+    public static CompletableFuture<Boolean> checkOnDemand(int targetId) {
+        // A peer's target is answered from the state merged from that peer
+        if (!ownsTarget(targetId)) {
+            return CompletableFuture.completedFuture(registry.isHealthy(targetId));
         }
+        return onDemand.check(targetId);
     }
     
     /**
-     * Perform health check on all endpoints concurrently
+     * Whether the background monitor is currently probing the target
      */
-    private static void performHealthCheck() {
-        System.out.println("\n=== Performing Health Check ===");
+    private static boolean monitored(int targetId) {
+        return scheduler != null && ownsTarget(targetId);
+    }
+    
+    public static ProbeCoalescer onDemand() {
+        return onDemand;
+    }
+    
+    /**
+     * Record one probe result and raise an alert if too many targets are down
+     */
+    private static void recordResult(int targetId, ProbeResult result) {
+        boolean changed = registry.record(targetId, result);
+        if (history != null) {
+            history.append(history.targetId(registry.name(targetId)), result);
+        }
         
-        // Create futures for concurrent execution
-        Future<Boolean> future1 = executor.submit(() -> checkEndpointHealth(ENDPOINT_ONE));
-        Future<Boolean> future2 = executor.submit(() -> checkEndpointHealth(ENDPOINT_TWO));
-        Future<Boolean> future3 = executor.submit(() -> checkEndpointHealth(ENDPOINT_THREE));
+        // Update metrics (counted per probe)
+        totalChecks.increment();
+        if (!result.isHealthy()) {
+            failedChecks.increment();
+            probeErrors[result.getErrorClass().ordinal()].increment();
+        }
+        lastCheckTime.set(System.currentTimeMillis());
+        snapshotDirty.set(true);
+        if (firstProbe.getCount() > 0) {
+            recordFirstProbe();
+        }
         
-        try {
-            // Wait for all checks to complete with timeout
-            boolean status1 = future1.get(REQUEST_TIMEOUT_MS + 5000, TimeUnit.MILLISECONDS);
-            boolean status2 = future2.get(REQUEST_TIMEOUT_MS + 5000, TimeUnit.MILLISECONDS);
-            boolean status3 = future3.get(REQUEST_TIMEOUT_MS + 5000, TimeUnit.MILLISECONDS);
-            
-            // Update status
-            endpointOneStatus = status1;
-            endpointTwoStatus = status2;
-            endpointThreeStatus = status3;
-            
-            // Update metrics
-            totalChecks.incrementAndGet();
-            lastCheckTime.set(System.currentTimeMillis());
+        if (changed) {
+            requestSnapshotPublish();
+            publishStatusEvent(targetId, result);
             
-            // Check for failures
-            int currentFailures = 0;
-            if (!status1) currentFailures++;
-            if (!status2) currentFailures++;
-            if (!status3) currentFailures++;
+            consecutiveFailures.set(registry.unhealthyCount());
             
-            if (currentFailures > 0) {
-                failedChecks.addAndGet(currentFailures);
-                consecutiveFailures.set(currentFailures);
-                
-                // Check if we need to send alert
-                if (currentFailures >= MAX_CONSECUTIVE_FAILURES) {
-                    sendServiceDownAlert(currentFailures);
-                }
+            // Queued for the alert workers; never blocks the probe
+            if (result.isHealthy()) {
+                alerts.targetRecovered(targetId, result);
             } else {
-                consecutiveFailures.set(0);
+                alerts.targetDown(targetId, result);
             }
-            
-            // Print summary
-            printHealthSummary();
-            
-        } catch (Exception e) {
-            System.err.println("Error during health check: " + e.getMessage());
-            failedChecks.incrementAndGet();
-            consecutiveFailures.incrementAndGet();
+        }
+    }
+    
+    private static synchronized void recordFirstProbe() {
+        if (firstProbe.getCount() > 0) {
+            System.out.println("⏱️  First probe recorded " + millisSinceJvmStart() + " ms after JVM start");
+            firstProbe.countDown();
         }
     }
     
     /**
-     * Send alert when service goes down
+     * Wait until the first probe result has been recorded
+     * @return false on timeout
      */
-    private static void sendServiceDownAlert(int failedServices) {
-        long currentTime = System.currentTimeMillis();
-        
-        // Implement cooldown to avoid spam
-        if (currentTime - lastAlertTime < ALERT_COOLDOWN_MS) {
+    public static boolean awaitFirstProbe(long timeoutMs) throws InterruptedException {
+        return firstProbe.await(timeoutMs, TimeUnit.MILLISECONDS);
+    }
+    
+    /**
+     * Milliseconds since this JVM was launched, or -1 where the OS does not report it
+     */
+    public static long millisSinceJvmStart() {
+        return ProcessHandle.current().info().startInstant()
+            .map(start -> System.currentTimeMillis() - start.toEpochMilli())
+            .orElse(-1L);
+    }
+    
+    /**
+     * Start per-target scheduled monitoring of every registered target
+     * Safe to call more than once; only the first call starts the scheduler
+     */
+    public static synchronized void startMonitoring() {
+        if (scheduler != null) {
             return;
         }
+        scheduler = new ProbeScheduler(registry, HealthCheckService::checkEndpointHealth,
+            CHECK_INTERVAL_MS, REQUEST_TIMEOUT_MS, CHECK_JITTER_MS, AdaptiveInterval.fromConfig(HealthConfig.get()));
+        scheduler.start(HealthCheckService::ownsTarget);
         
-        lastAlertTime = currentTime;
+        // Print summary once per default interval
+        summaryTask = backgroundTasks.scheduleAtFixedRate(
+            HealthCheckService::printHealthSummary,
+            CHECK_INTERVAL_MS,
+            CHECK_INTERVAL_MS,
+            TimeUnit.MILLISECONDS
+        );
         
-        System.out.println("\n🚨 ALERT: SERVICE DOWN DETECTED! 🚨");
-        System.out.println("=====================================");
-        System.out.println("Time: " + LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss")));
-        System.out.println("Failed Services: " + failedServices + "/3");
-        System.out.println("Endpoint 1: " + (endpointOneStatus ? "✅" : "❌"));
-        System.out.println("Endpoint 2: " + (endpointTwoStatus ? "✅" : "❌"));
-        System.out.println("Endpoint 3: " + (endpointThreeStatus ? "✅" : "❌"));
-        System.out.println("=====================================\n");
+        // Fold counter and latency updates into a new snapshot at most once per interval
+        snapshotTask = backgroundTasks.scheduleWithFixedDelay(
+            HealthCheckService::publishSnapshot,
+            SNAPSHOT_INTERVAL_MS,
+            SNAPSHOT_INTERVAL_MS,
+            TimeUnit.MILLISECONDS
+        );
         
-        // In production, this would send to monitoring systems like:
-        // - PagerDuty
-        // - Slack/Teams
-        // - Email notifications
-        // - Log aggregation systems (ELK, Splunk)
+        // Drop history segments past the retention
+        if (history != null) {
+            retentionTask = backgroundTasks.scheduleWithFixedDelay(
+                history::enforceRetention,
+                HISTORY_RETENTION_CHECK_MS,
+                HISTORY_RETENTION_CHECK_MS,
+                TimeUnit.MILLISECONDS
+            );
+        }
     }
     
     /**
-     * Print health summary
+     * Stop scheduled monitoring
+     */
+    public static synchronized void stopMonitoring() {
+        if (scheduler != null) {
+            scheduler.stop();
+            scheduler = null;
+            summaryTask.cancel(false);
+            snapshotTask.cancel(false);
+            if (retentionTask != null) {
+                retentionTask.cancel(false);
+            }
+        }
+        if (history != null) {
+            history.flush();
+        }
+    }
+    
+    public static ProbeLog probeLog() {
+        return probeLog;
+    }
+    
+    public static boolean historyEnabled() {
+        return history != null;
+    }
+    
+    /**
+     * Recorded probe results of a target within [fromMillis, toMillis], oldest first
+     */
+    public static List<ProbeRecord> probeHistory(int targetId, long fromMillis, long toMillis, int limit) {
+        if (history == null) {
+            return Collections.emptyList();
+        }
+        return history.query(history.targetId(registry.name(targetId)), fromMillis, toMillis, limit);
+    }
+    
+    /**
+     * Uptime rollups of a target, or null before its first probe. A 1- or 5-minute
+     * level is kept from the first query at it on, back-filled from the probe history
+     */
+    public static UptimeRollup uptime(int targetId, UptimeRollup.Resolution resolution) {
+        UptimeRollup rollup = registry.uptime(targetId);
+        if (rollup == null || !resolution.onDemand()) {
+            return rollup;
+        }
+        long now = System.currentTimeMillis();
+        if (rollup.track(resolution, now) && history != null) {
+            history.query(history.targetId(registry.name(targetId)), now - resolution.retentionMillis(), now - 1,
+                (id, timestamp, statusCode, latencyMicros, error) -> {
+                    rollup.backfill(resolution, timestamp, error == ProbeError.NONE, latencyMicros);
+                    return true;
+                });
+        }
+        return rollup;
+    }
+    
+    /**
+     * Current pre-encoded health snapshot (for /health endpoint)
+     */
+    public static StatusSnapshot snapshot() {
+        StatusSnapshot current = snapshot;
+        
+        // Without the background monitor nobody republishes, so refresh on read
+        if (current == null || (scheduler == null && snapshotDirty.get())) {
+            current = publishSnapshot();
+        }
+        return current;
+    }
+    
+    /**
+     * Queue an immediate snapshot rebuild, coalescing concurrent requests
+     */
+    private static void requestSnapshotPublish() {
+        if (snapshotPublishQueued.compareAndSet(false, true)) {
+            try {
+                backgroundTasks.execute(HealthCheckService::publishSnapshot);
+            } catch (RejectedExecutionException e) {
+                snapshotPublishQueued.set(false);
+            }
+        }
+    }
+    
+    /**
+     * Rebuild and publish the snapshot if anything changed since the last one
+     */
+    private static synchronized StatusSnapshot publishSnapshot() {
+        snapshotPublishQueued.set(false);
+        
+        // Clear the flag before building so updates made during the build mark it dirty again
+        if (!snapshotDirty.getAndSet(false) && snapshot != null) {
+            return snapshot;
+        }
+        StatusSnapshot published = new StatusSnapshot(snapshotVersion.incrementAndGet(), buildHealthMetrics());
+        snapshot = published;
+        publishMetricsEvent();
+        return published;
+    }
+    
+    public static HealthEventBus events() {
+        return events;
+    }
+    
+    /**
+     * Stream a status transition of one target
+     */
+    private static void publishStatusEvent(int targetId, ProbeResult result) {
+        if (!events.hasSubscribers()) {
+            return;
+        }
+        boolean healthy = registry.isHealthy(targetId);
+        StringBuilder json = new StringBuilder(192);
+        json.append("{\"id\": ").append(targetId);
+        json.append(", \"target\": ");
+        Json.quote(json, registry.name(targetId));
+        json.append(", \"status\": \"").append(healthy ? "healthy" : "unhealthy").append('"');
+        json.append(", \"healthy\": ").append(healthy);
+        json.append(", \"status_code\": ").append(result.getStatusCode());
+        json.append(", \"latency_ms\": ").append(formatMillis(result.getLatencyNanos() / 1000));
+        if (result.getError() != null) {
+            json.append(", \"error\": ");
+            Json.quote(json, result.getError());
+        }
+        json.append(", \"unhealthy_targets\": ").append(registry.unhealthyCount());
+        json.append(", \"timestamp\": \"").append(LocalDateTime.now().format(ISO_TIME_FORMAT)).append("\"}");
+        events.publish(HealthEventBus.EVENT_STATUS, targetId, json.toString());
+    }
+    
+    /**
+     * Stream counter deltas since the last metrics event (caller holds the publish lock)
+     */
+    private static void publishMetricsEvent() {
+        long checks = totalChecks.sum();
+        long failures = failedChecks.sum();
+        long checksDelta = checks - lastStreamedChecks;
+        long failedDelta = failures - lastStreamedFailures;
+        lastStreamedChecks = checks;
+        lastStreamedFailures = failures;
+        if (checksDelta == 0 || !events.hasSubscribers()) {
+            return;
+        }
+        StringBuilder json = new StringBuilder(192);
+        json.append("{\"total_checks\": ").append(checks);
+        json.append(", \"failed_checks\": ").append(failures);
+        json.append(", \"checks_delta\": ").append(checksDelta);
+        json.append(", \"failed_delta\": ").append(failedDelta);
+        json.append(", \"healthy_targets\": ").append(registry.healthyCount());
+        json.append(", \"unhealthy_targets\": ").append(registry.unhealthyCount());
+        json.append(", \"timestamp\": \"").append(LocalDateTime.now().format(ISO_TIME_FORMAT)).append("\"}");
+        events.publish(HealthEventBus.EVENT_METRICS, METRICS_EVENT_KEY, json.toString());
+    }
+    
+    /**
+     * List the unhealthy targets by name, up to MAX_LISTED_TARGETS
+     */
+    private static void appendUnhealthyTargets(StringBuilder out, String marker) {
+        int listed = 0;
+        int unhealthy = 0;
+        for (int id = 0; id < registry.size(); id++) {
+            if (!registry.isHealthy(id)) {
+                unhealthy++;
+                if (listed < MAX_LISTED_TARGETS) {
+                    out.append(marker).append(' ').append(registry.name(id))
+                        .append(" (").append(registry.url(id)).append(")\n");
+                    listed++;
+                }
+            }
+        }
+        if (unhealthy > listed) {
+            out.append("... and ").append(unhealthy - listed).append(" more\n");
+        }
+    }
+    
+    /**
+     * Print health summary (one console write, so it is not interleaved with other output)
      */
     private static void printHealthSummary() {
-        System.out.println("\n--- Health Summary ---");
-        System.out.println("Endpoint 1: " + (endpointOneStatus ? "✅ HEALTHY" : "❌ UNHEALTHY"));
-        System.out.println("Endpoint 2: " + (endpointTwoStatus ? "✅ HEALTHY" : "❌ UNHEALTHY"));
-        System.out.println("Endpoint 3: " + (endpointThreeStatus ? "✅ HEALTHY" : "❌ UNHEALTHY"));
+        int healthy = registry.countStatus(TargetRegistry.STATUS_HEALTHY);
+        StringBuilder summary = new StringBuilder(512);
+        
+        summary.append("\n--- Health Summary ---\n");
+        summary.append("Healthy Targets: ").append(healthy).append('/').append(registry.size()).append('\n');
+        appendUnhealthyTargets(summary, "❌ UNHEALTHY");
         
-        boolean allHealthy = endpointOneStatus && endpointTwoStatus && endpointThreeStatus;
-        System.out.println("Overall Status: " + (allHealthy ? "✅ ALL HEALTHY" : "❌ DEGRADED"));
-        System.out.println("Consecutive Failures: " + consecutiveFailures.get());
-        System.out.println("Total Checks: " + totalChecks.get());
-        System.out.println("Failed Checks: " + failedChecks.get());
-        System.out.println("Success Rate: " + String.format("%.2f%%", 
-            totalChecks.get() > 0 ? (1.0 - (double)failedChecks.get() / totalChecks.get()) * 100 : 100));
+        boolean allHealthy = registry.allHealthy();
+        summary.append("Overall Status: ").append(allHealthy ? "✅ ALL HEALTHY" : "❌ DEGRADED").append('\n');
+        summary.append("Consecutive Failures: ").append(consecutiveFailures.get()).append('\n');
+        long checks = totalChecks.sum();
+        long failures = failedChecks.sum();
+        summary.append("Total Checks: ").append(checks).append('\n');
+        summary.append("Failed Checks: ").append(failures).append('\n');
+        summary.append("Success Rate: ").append(String.format("%.2f%%", 
+            checks > 0 ? (1.0 - (double)failures / checks) * 100 : 100));
+        if (probeLog != null && probeLog.dropped() > 0) {
+            summary.append("\nProbe Log Records Dropped: ").append(probeLog.dropped());
+        }
+        System.out.println(summary);
     }
     
     /**
      * Get health metrics in JSON format (for /health endpoint)
      */
     public static String getHealthMetrics() {
-        boolean allHealthy = endpointOneStatus && endpointTwoStatus && endpointThreeStatus;
-        double successRate = totalChecks.get() > 0 ? 
-            (1.0 - (double)failedChecks.get() / totalChecks.get()) * 100 : 100;
+        return snapshot().asString();
+    }
+    
+    /**
+     * Encode the full health document from the current state
+     * Package-private for the serialization benchmark
+     */
+    static String buildHealthMetrics() {
+        boolean allHealthy = registry.allHealthy();
+        long checks = totalChecks.sum();
+        long failures = failedChecks.sum();
+        double successRate = checks > 0 ? 
+            (1.0 - (double)failures / checks) * 100 : 100;
         
-        return String.format(
-            "{\n" +
-            "  \"timestamp\": \"%s\",\n" +
-            "  \"status\": \"%s\",\n" +
-            "  \"endpoints\": {\n" +
-            "    \"endpoint_1\": {\n" +
-            "      \"url\": \"%s\",\n" +
-            "      \"status\": \"%s\",\n" +
-            "      \"healthy\": %s\n" +
-            "    },\n" +
-            "    \"endpoint_2\": {\n" +
-            "      \"url\": \"%s\",\n" +
-            "      \"status\": \"%s\",\n" +
-            "      \"healthy\": %s\n" +
-            "    },\n" +
-            "    \"endpoint_3\": {\n" +
-            "      \"url\": \"%s\",\n" +
-            "      \"status\": \"%s\",\n" +
-            "      \"healthy\": %s\n" +
-            "    }\n" +
-            "  },\n" +
-            "  \"metrics\": {\n" +
-            "    \"total_checks\": %d,\n" +
-            "    \"failed_checks\": %d,\n" +
-            "    \"success_rate\": %.2f,\n" +
-            "    \"consecutive_failures\": %d,\n" +
-            "    \"last_check_time\": \"%s\"\n" +
-            "  },\n" +
-            "  \"alerts\": {\n" +
-            "    \"service_down_detected\": %s,\n" +
-            "    \"last_alert_time\": \"%s\"\n" +
-            "  }\n" +
-            "}",
-            LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ss")),
-            allHealthy ? "healthy" : "degraded",
-            ENDPOINT_ONE,
-            endpointOneStatus ? "healthy" : "unhealthy",
-            endpointOneStatus,
-            ENDPOINT_TWO,
-            endpointTwoStatus ? "healthy" : "unhealthy",
-            endpointTwoStatus,
-            ENDPOINT_THREE,
-            endpointThreeStatus ? "healthy" : "unhealthy",
-            endpointThreeStatus,
-            totalChecks.get(),
-            failedChecks.get(),
-            successRate,
-            consecutiveFailures.get(),
-            lastCheckTime.get() > 0 ? 
-                LocalDateTime.ofEpochSecond(lastCheckTime.get() / 1000, 0, 
-                    java.time.ZoneOffset.UTC).format(DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ss")) : "never",
-            consecutiveFailures.get() >= MAX_CONSECUTIVE_FAILURES,
-            lastAlertTime > 0 ? 
-                LocalDateTime.ofEpochSecond(lastAlertTime / 1000, 0, 
-                    java.time.ZoneOffset.UTC).format(DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ss")) : "never"
-        );
+        int targetCount = registry.size();
+        StringBuilder json = new StringBuilder(256 + targetCount * 128);
+        json.append("{\n");
+        json.append("  \"timestamp\": \"").append(LocalDateTime.now().format(ISO_TIME_FORMAT)).append("\",\n");
+        json.append("  \"status\": \"").append(allHealthy ? "healthy" : "degraded").append("\",\n");
+        json.append("  \"endpoints\": {\n");
+        for (int id = 0; id < targetCount; id++) {
+            boolean healthy = registry.isHealthy(id);
+            json.append("    ");
+            Json.quote(json, registry.name(id)).append(": {\n");
+            json.append("      \"url\": ");
+            Json.quote(json, registry.url(id)).append(",\n");
+            json.append("      \"status\": \"").append(healthy ? "healthy" : "unhealthy").append("\",\n");
+            json.append("      \"healthy\": ").append(healthy).append(",\n");
+            appendLatency(json, latencySummary(id), lifetimeLatency(id));
+            json.append(id < targetCount - 1 ? "    },\n" : "    }\n");
+        }
+        json.append("  },\n");
+        json.append("  \"metrics\": {\n");
+        json.append("    \"total_checks\": ").append(checks).append(",\n");
+        json.append("    \"failed_checks\": ").append(failures).append(",\n");
+        json.append("    \"success_rate\": ").append(String.format("%.2f", successRate)).append(",\n");
+        json.append("    \"consecutive_failures\": ").append(consecutiveFailures.get()).append(",\n");
+        json.append("    \"last_check_time\": \"").append(lastCheckTime.get() > 0 ? 
+            LocalDateTime.ofEpochSecond(lastCheckTime.get() / 1000, 0, 
+                java.time.ZoneOffset.UTC).format(ISO_TIME_FORMAT) : "never").append("\"\n");
+        json.append("  },\n");
+        json.append("  \"on_demand\": {\n");
+        json.append("    \"requests\": ").append(onDemand.requests()).append(",\n");
+        json.append("    \"probes_issued\": ").append(onDemand.issued()).append(",\n");
+        json.append("    \"served_fresh\": ").append(onDemand.servedFresh()).append(",\n");
+        json.append("    \"coalesced\": ").append(onDemand.coalesced()).append(",\n");
+        json.append("    \"probes_avoided\": ").append(onDemand.avoided()).append("\n");
+        json.append("  },\n");
+        HostLimiter hosts = probeExecutor.hostLimiter();
+        json.append("  \"hosts\": {\n");
+        json.append("    \"groups\": ").append(hosts.hosts()).append(",\n");
+        json.append("    \"max_in_flight_per_host\": ").append(hosts.maxPerHost()).append(",\n");
+        json.append("    \"queued\": ").append(hosts.queued()).append(",\n");
+        json.append("    \"fast_failed\": ").append(hosts.fastFailed()).append(",\n");
+        json.append("    \"circuit_trips\": ").append(hosts.trips()).append(",\n");
+        json.append("    \"canaries\": ").append(hosts.canaries()).append(",\n");
+        json.append("    \"degraded\": [");
+        List<HostLimiter.HostStatus> degraded = hosts.troubledHosts();
+        for (int i = 0; i < degraded.size(); i++) {
+            HostLimiter.HostStatus host = degraded.get(i);
+            json.append(i == 0 ? "\n" : ",\n");
+            json.append("      {\"host\": ");
+            Json.quote(json, host.getHost()).append(", ");
+            json.append("\"state\": \"").append(host.getState()).append("\", ");
+            json.append("\"in_flight\": ").append(host.getInFlight()).append(", ");
+            json.append("\"queued\": ").append(host.getQueued()).append(", ");
+            json.append("\"fast_failed\": ").append(host.getFastFailed()).append("}");
+        }
+        json.append(degraded.isEmpty() ? "]\n" : "\n    ]\n");
+        json.append("  },\n");
+        DnsCache dns = probeEngine.dns();
+        if (dns != null) {
+            json.append("  \"dns\": {\n");
+            json.append("    \"cached_names\": ").append(dns.size()).append(",\n");
+            json.append("    \"hits\": ").append(dns.hits()).append(",\n");
+            json.append("    \"negative_hits\": ").append(dns.negativeHits()).append(",\n");
+            json.append("    \"lookups\": ").append(dns.misses()).append(",\n");
+            json.append("    \"failed_lookups\": ").append(dns.failures()).append(",\n");
+            json.append("    \"background_refreshes\": ").append(dns.refreshes()).append(",\n");
+            json.append("    \"lookup_timeouts\": ").append(dns.timeouts()).append(",\n");
+            json.append("    \"hit_rate\": ").append(String.format("%.4f", dns.hitRate())).append(",\n");
+            json.append("    \"failed_lookup_time_avoided_ms\": ").append(Math.round(dns.failedLookupMillisAvoided())).append("\n");
+            json.append("  },\n");
+        }
+        if (probeLog != null) {
+            json.append("  \"probe_log\": {\n");
+            json.append("    \"written\": ").append(probeLog.written()).append(",\n");
+            json.append("    \"dropped\": ").append(probeLog.dropped()).append(",\n");
+            json.append("    \"backlog\": ").append(probeLog.backlog()).append(",\n");
+            json.append("    \"batches\": ").append(probeLog.batches()).append(",\n");
+            json.append("    \"rotations\": ").append(probeLog.rotations()).append("\n");
+            json.append("  },\n");
+        }
+        TlsHandshakes handshakes = probeEngine.handshakes();
+        json.append("  \"tls\": {\n");
+        json.append("    \"cached_sessions\": ").append(probeEngine.tlsSessions()).append(",\n");
+        json.append("    \"full_handshakes\": ").append(handshakes.full()).append(",\n");
+        json.append("    \"resumed_handshakes\": ").append(handshakes.resumed()).append(",\n");
+        json.append("    \"resumption_rate\": ").append(String.format("%.4f", handshakes.resumptionRate())).append(",\n");
+        json.append("    \"mean_full_handshake_ms\": ").append(String.format("%.3f", handshakes.meanFullMillis())).append(",\n");
+        json.append("    \"mean_resumed_handshake_ms\": ").append(String.format("%.3f", handshakes.meanResumedMillis())).append(",\n");
+        json.append("    \"handshake_time_saved_ms\": ").append(Math.round(handshakes.savedMillis())).append("\n");
+        json.append("  },\n");
+        ProbeScheduler activeScheduler = scheduler;
+        if (activeScheduler != null) {
+            json.append("  \"scheduling\": {\n");
+            json.append("    \"mean_interval_ms\": ").append(Math.round(activeScheduler.meanIntervalMs())).append(",\n");
+            json.append("    \"confirmation_probes\": ").append(activeScheduler.confirmations()).append(",\n");
+            json.append("    \"skipped_in_flight\": ").append(activeScheduler.skippedInFlight()).append("\n");
+            json.append("  },\n");
+        }
+        if (cluster != null) {
+            json.append("  \"cluster\": {\n");
+            json.append("    \"node\": ");
+            Json.quote(json, cluster.self()).append(",\n");
+            json.append("    \"members\": [");
+            List<String> members = cluster.members();
+            for (int i = 0; i < members.size(); i++) {
+                Json.quote(json.append(i == 0 ? "" : ", "), members.get(i));
+            }
+            json.append("],\n");
+            json.append("    \"owned_targets\": ").append(cluster.ownedCount()).append(",\n");
+            json.append("    \"rebalances\": ").append(cluster.rebalances()).append(",\n");
+            json.append("    \"targets_moved\": ").append(cluster.targetsMoved()).append(",\n");
+            json.append("    \"peer_syncs\": ").append(cluster.syncs()).append(",\n");
+            json.append("    \"peer_sync_failures\": ").append(cluster.syncFailures()).append(",\n");
+            json.append("    \"rows_merged\": ").append(cluster.rowsMerged()).append("\n");
+            json.append("  },\n");
+        }
+        json.append("  \"stream\": {\n");
+        json.append("    \"subscribers\": ").append(events.subscribers()).append(",\n");
+        json.append("    \"events_published\": ").append(events.published()).append(",\n");
+        json.append("    \"conflated\": ").append(events.conflated()).append(",\n");
+        json.append("    \"resyncs\": ").append(events.resyncs()).append(",\n");
+        json.append("    \"evicted\": ").append(events.evicted()).append("\n");
+        json.append("  },\n");
+        json.append("  \"alerts\": {\n");
+        json.append("    \"service_down_detected\": ").append(consecutiveFailures.get() >= MAX_CONSECUTIVE_FAILURES).append(",\n");
+        long lastAlertTime = alerts.lastNotificationMillis();
+        json.append("    \"last_alert_time\": \"").append(lastAlertTime > 0 ? 
+            LocalDateTime.ofEpochSecond(lastAlertTime / 1000, 0, 
+                java.time.ZoneOffset.UTC).format(ISO_TIME_FORMAT) : "never").append("\",\n");
+        json.append("    \"changes_queued\": ").append(alerts.queued()).append(",\n");
+        json.append("    \"changes_dropped\": ").append(alerts.dropped()).append(",\n");
+        json.append("    \"deduplicated\": ").append(alerts.deduplicated()).append(",\n");
+        json.append("    \"notifications\": ").append(alerts.notifications()).append(",\n");
+        json.append("    \"sinks\": {");
+        List<AlertDispatcher.SinkWorker> sinks = alerts.sinks();
+        for (int i = 0; i < sinks.size(); i++) {
+            AlertDispatcher.SinkWorker sink = sinks.get(i);
+            json.append(i == 0 ? "\n" : ",\n").append("      ");
+            Json.quote(json, sink.name()).append(": {\"sent\": ").append(sink.sent());
+            json.append(", \"failed\": ").append(sink.failed());
+            json.append(", \"timeouts\": ").append(sink.timeouts());
+            json.append(", \"merged\": ").append(sink.merged()).append("}");
+        }
+        json.append(sinks.isEmpty() ? "}\n" : "\n    }\n");
+        json.append("  }\n");
+        json.append("}");
+        return json.toString();
+    }
+    
+    /**
+     * Recent p50, p90, p99, max (microseconds) and lifetime probe count of a
+     * target, as reported by its owner when a cluster peer probes it. Recent
+     * figures weigh each window (health.latency.window-s) half as much as the next
+     */
+    public static long[] latencySummary(int targetId) {
+        if (!ownsTarget(targetId)) {
+            long[] remote = cluster.remoteLatency(targetId);
+            if (remote != null) {
+                return remote;
+            }
+        }
+        LatencyHistogram histogram = registry.latency(targetId);
+        if (histogram == null) {
+            return new long[5];
+        }
+        long[] percentiles = histogram.recentPercentilesMicros(50, 90, 99);
+        return new long[] {percentiles[0], percentiles[1], percentiles[2], histogram.recentMaxMicros(), histogram.count()};
+    }
+    
+    /**
+     * Lifetime p50, p90, p99 and max (microseconds) of a target probed here, or
+     * null when it has not been probed here or a cluster peer reports it
+     */
+    public static long[] lifetimeLatency(int targetId) {
+        if (!ownsTarget(targetId) && cluster.remoteLatency(targetId) != null) {
+            return null;
+        }
+        LatencyHistogram histogram = registry.latency(targetId);
+        if (histogram == null) {
+            return null;
+        }
+        long[] percentiles = histogram.percentilesMicros(50, 90, 99);
+        return new long[] {percentiles[0], percentiles[1], percentiles[2], histogram.maxMicros()};
+    }
+    
+    /**
+     * Append the latency percentiles of one target in milliseconds, recent first, then lifetime if known
+     */
+    private static void appendLatency(StringBuilder json, long[] latency, long[] lifetime) {
+        json.append("      \"latency_ms\": {")
+            .append("\"p50\": ").append(formatMillis(latency[0]))
+            .append(", \"p90\": ").append(formatMillis(latency[1]))
+            .append(", \"p99\": ").append(formatMillis(latency[2]))
+            .append(", \"max\": ").append(formatMillis(latency[3]))
+            .append(", \"count\": ").append(latency[4]);
+        if (lifetime != null) {
+            json.append(", \"lifetime\": {")
+                .append("\"p50\": ").append(formatMillis(lifetime[0]))
+                .append(", \"p90\": ").append(formatMillis(lifetime[1]))
+                .append(", \"p99\": ").append(formatMillis(lifetime[2]))
+                .append(", \"max\": ").append(formatMillis(lifetime[3]))
+                .append("}");
+        }
+        json.append("}\n");
+    }
+    
+    static String formatMillis(long micros) {
+        return String.format("%.1f", micros / 1000.0);
+    }
+    
+    /**
+     * Applies cluster rebalancing to the scheduler and merged peer state to the snapshot
+     */
+    private static final class ClusterListener implements ClusterNode.Listener {
+        
+        @Override
+        public void gained(int targetId) {
+            synchronized (HealthCheckService.class) {
+                if (scheduler != null) {
+                    scheduler.add(targetId);
+                }
+            }
+        }
+        
+        @Override
+        public void lost(int targetId) {
+            synchronized (HealthCheckService.class) {
+                if (scheduler != null) {
+                    scheduler.remove(targetId);
+                }
+            }
+        }
+        
+        @Override
+        public void merged(int targetId, boolean statusChanged) {
+            snapshotDirty.set(true);
+            if (statusChanged) {
+                consecutiveFailures.set(registry.unhealthyCount());
+                requestSnapshotPublish();
+            }
+        }
     }
     
     /**
@@ -244,29 +864,23 @@ public class HealthCheckService {
      */
     public static void main(String[] args) {
         System.out.println("🏥 Health Check Service Starting...");
-        System.out.println("Monitoring 3 endpoints every " + CHECK_INTERVAL_SECONDS + " seconds");
+        System.out.println("Monitoring " + registry.size() + " targets every " + CHECK_INTERVAL_MS / 1000 + " seconds");
         System.out.println("Health metrics available at: GET /health");
+        if (cluster != null) {
+            System.out.println("Cluster node " + cluster.self() + ": probing " + cluster.ownedCount()
+                + " targets, status at GET /cluster/status");
+        }
         System.out.println("Press Ctrl+C to stop monitoring\n");
         
-        // Perform initial health check
-        performHealthCheck();
-        
-        // Schedule periodic health checks
-        ScheduledExecutorService scheduler = Executors.newScheduledThreadPool(1);
-        scheduler.scheduleAtFixedRate(
-            HealthCheckService::performHealthCheck,
-            CHECK_INTERVAL_SECONDS,
-            CHECK_INTERVAL_SECONDS,
-            TimeUnit.SECONDS
-        );
+        // Each target is probed on its own schedule, spread across the interval
+        startMonitoring();
         
         // Keep the main thread alive
         try {
             Thread.currentThread().join();
         } catch (InterruptedException e) {
             System.out.println("Health check service stopped.");
-            scheduler.shutdown();
-            executor.shutdown();
+            stopMonitoring();
         }
     }
 }
@@ -0,0 +1,78 @@
+package com.Health;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Properties;
+
+/**
+ * Configuration shared by the Spring and the lightweight HttpServer modes
+ * Reads application.properties from the classpath; JVM system properties override it
+ */
+public class HealthConfig {
+
+    private static final String RESOURCE = "application.properties";
+
+    private static volatile HealthConfig defaults;
+
+    private final Properties properties;
+
+    public HealthConfig(Properties properties) {
+        this.properties = properties;
+    }
+
+    /**
+     * Configuration loaded once from the classpath and system properties
+     */
+    public static HealthConfig get() {
+        HealthConfig config = defaults;
+        if (config == null) {
+            synchronized (HealthConfig.class) {
+                if (defaults == null) {
+                    defaults = load();
+                }
+                config = defaults;
+            }
+        }
+        return config;
+    }
+
+    private static HealthConfig load() {
+        Properties properties = new Properties();
+        try (InputStream in = HealthConfig.class.getClassLoader().getResourceAsStream(RESOURCE)) {
+            if (in != null) {
+                properties.load(in);
+            }
+        } catch (IOException e) {
+            System.err.println("Could not read " + RESOURCE + ": " + e.getMessage());
+        }
+        properties.putAll(System.getProperties());
+        return new HealthConfig(properties);
+    }
+
+    public Properties properties() {
+        return properties;
+    }
+
+    public String getString(String key, String defaultValue) {
+        String value = properties.getProperty(key);
+        return value != null && !value.isBlank() ? value.trim() : defaultValue;
+    }
+
+    public int getInt(String key, int defaultValue) {
+        String value = getString(key, null);
+        if (value == null) {
+            return defaultValue;
+        }
+        try {
+            return Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            System.err.println("Invalid value for " + key + ": " + value + ", using " + defaultValue);
+            return defaultValue;
+        }
+    }
+
+    public boolean getBoolean(String key, boolean defaultValue) {
+        String value = getString(key, null);
+        return value != null ? Boolean.parseBoolean(value) : defaultValue;
+    }
+}
@@ -0,0 +1,54 @@
+package com.Health;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * One server-sent event, encoded once and shared by every subscriber
+ * Events with the same key replace each other in a slow subscriber's buffer
+ */
+public final class HealthEvent {
+
+    private final long id;
+    private final String name;
+    private final int key;
+    private final String data;
+    private final byte[] frame;
+
+    /**
+     * @param data single-line JSON payload
+     */
+    public HealthEvent(long id, String name, int key, String data) {
+        this.id = id;
+        this.name = name;
+        this.key = key;
+        this.data = data;
+        this.frame = ("id: " + id + "\nevent: " + name + "\ndata: " + data + "\n\n")
+            .getBytes(StandardCharsets.UTF_8);
+    }
+
+    public long id() {
+        return id;
+    }
+
+    public String name() {
+        return name;
+    }
+
+    /**
+     * Conflation key: the target id for status events, negative for fleet-wide events
+     */
+    public int key() {
+        return key;
+    }
+
+    public String data() {
+        return data;
+    }
+
+    /**
+     * Complete text/event-stream frame. Shared between subscribers - callers must not modify it
+     */
+    public byte[] frame() {
+        return frame;
+    }
+}
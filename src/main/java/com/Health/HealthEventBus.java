@@ -0,0 +1,398 @@
+package com.Health;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.LinkedHashMap;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Fan-out of health state deltas to streaming subscribers
+ * Every event is encoded once. Each subscriber has a bounded buffer keyed by
+ * target, so a slow consumer only ever holds the latest event per target;
+ * if the buffer overflows it is dropped and the subscriber is resynchronised
+ * with the current pre-encoded snapshot instead. Writes happen on a small
+ * writer pool, never on the probe threads. A buffer bounds memory but not a
+ * blocked write, so every write also has a deadline: when it passes, a
+ * watchdog interrupts the writer still blocked on that subscriber, aborts the
+ * subscriber's sink and evicts it. The interrupt alone only frees writers
+ * blocked on an interruptible channel; a servlet container's output stream
+ * is not one, so the abort (closing the exchange, completing the emitter with
+ * an error) is what tears that connection down. Aborts run on their own
+ * threads, so a sink that is slow to abort cannot stall the watchdog. Where
+ * the container holds the write until its own write timeout, that timeout
+ * bounds how long the writer thread stays blocked
+ */
+public class HealthEventBus {
+
+    public static final String EVENT_SNAPSHOT = "snapshot";
+    public static final String EVENT_STATUS = "status";
+    public static final String EVENT_METRICS = "metrics";
+
+    /**
+     * Where a subscriber's events are written (an SSE response body, an SseEmitter, ...)
+     */
+    public interface Sink {
+        void send(HealthEvent event) throws IOException;
+
+        void heartbeat() throws IOException;
+
+        void close();
+
+        /**
+         * Tear the connection down under a write that missed its deadline
+         * Called from another thread while that write may still be blocked
+         */
+        default void abort() {
+            close();
+        }
+    }
+
+    private final Supplier<StatusSnapshot> snapshots;
+    private final int bufferSize;
+    private final int maxSubscribers;
+    private final ScheduledExecutorService writers;
+    private final ScheduledExecutorService watchdog;
+    private final ExecutorService aborts;
+    private final long writeTimeoutNanos;
+
+    private final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+    private final AtomicInteger subscriberCount = new AtomicInteger(0);
+    private final AtomicLong sequence = new AtomicLong(0);
+    private volatile HealthEvent snapshotEvent;
+    private volatile long snapshotEventVersion = -1;
+
+    private final LongAdder published = new LongAdder();
+    private final LongAdder conflated = new LongAdder();
+    private final LongAdder resyncs = new LongAdder();
+    private final LongAdder evicted = new LongAdder();
+
+    public HealthEventBus(Supplier<StatusSnapshot> snapshots, int bufferSize, int maxSubscribers,
+                          int writerThreads, long heartbeatMs) {
+        this(snapshots, bufferSize, maxSubscribers, writerThreads, heartbeatMs, 0);
+    }
+
+    /**
+     * @param writeTimeoutMs time one write to a subscriber may block before it is evicted, 0 for no limit
+     */
+    public HealthEventBus(Supplier<StatusSnapshot> snapshots, int bufferSize, int maxSubscribers,
+                          int writerThreads, long heartbeatMs, long writeTimeoutMs) {
+        this.snapshots = snapshots;
+        this.bufferSize = bufferSize;
+        this.maxSubscribers = maxSubscribers;
+        AtomicInteger threadCount = new AtomicInteger(0);
+        this.writers = Executors.newScheduledThreadPool(writerThreads, runnable -> {
+            Thread thread = new Thread(runnable, "health-stream-writer-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        if (heartbeatMs > 0) {
+            writers.scheduleAtFixedRate(this::heartbeat, heartbeatMs, heartbeatMs, TimeUnit.MILLISECONDS);
+        }
+        this.writeTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(0, writeTimeoutMs));
+        if (writeTimeoutMs > 0) {
+            // Its own thread: the writers may all be blocked when it has to step in
+            this.watchdog = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "health-stream-watchdog");
+                thread.setDaemon(true);
+                return thread;
+            });
+            AtomicInteger abortCount = new AtomicInteger(0);
+            this.aborts = Executors.newCachedThreadPool(runnable -> {
+                Thread thread = new Thread(runnable, "health-stream-abort-" + abortCount.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+            long sweepMs = Math.max(10, Math.min(1000, writeTimeoutMs / 4));
+            watchdog.scheduleWithFixedDelay(this::enforceWriteDeadlines, sweepMs, sweepMs, TimeUnit.MILLISECONDS);
+        } else {
+            this.watchdog = null;
+            this.aborts = null;
+        }
+    }
+
+    public static HealthEventBus fromConfig(Supplier<StatusSnapshot> snapshots, HealthConfig config) {
+        return new HealthEventBus(snapshots,
+            config.getInt("health.stream.buffer-size", 256),
+            config.getInt("health.stream.max-subscribers", 10000),
+            config.getInt("health.stream.writer-threads", 2),
+            config.getInt("health.stream.heartbeat-ms", 15000),
+            config.getInt("health.stream.write-timeout-ms", 10000));
+    }
+
+    /**
+     * Register a subscriber; it first receives the current snapshot, then deltas
+     * Returns null when the subscriber limit is reached
+     */
+    public Subscriber subscribe(Sink sink) {
+        if (subscriberCount.incrementAndGet() > maxSubscribers) {
+            subscriberCount.decrementAndGet();
+            return null;
+        }
+        Subscriber subscriber = new Subscriber(sink);
+        subscribers.add(subscriber);
+        subscriber.resync();
+        return subscriber;
+    }
+
+    public void unsubscribe(Subscriber subscriber) {
+        if (subscribers.remove(subscriber)) {
+            subscriberCount.decrementAndGet();
+            subscriber.close();
+        }
+    }
+
+    public boolean hasSubscribers() {
+        return subscriberCount.get() > 0;
+    }
+
+    /**
+     * Encode an event once and queue it for every subscriber
+     */
+    public void publish(String name, int key, String data) {
+        if (!hasSubscribers()) {
+            return;
+        }
+        HealthEvent event = new HealthEvent(sequence.incrementAndGet(), name, key, data);
+        published.increment();
+        for (Subscriber subscriber : subscribers) {
+            subscriber.offer(event);
+        }
+    }
+
+    public void shutdown() {
+        for (Subscriber subscriber : subscribers) {
+            unsubscribe(subscriber);
+        }
+        writers.shutdownNow();
+        if (watchdog != null) {
+            watchdog.shutdownNow();
+            aborts.shutdownNow();
+        }
+    }
+
+    public int subscribers() {
+        return subscriberCount.get();
+    }
+
+    public long published() {
+        return published.sum();
+    }
+
+    /**
+     * Buffered events replaced by a newer event for the same key
+     */
+    public long conflated() {
+        return conflated.sum();
+    }
+
+    /**
+     * Overflowed buffers replaced by a full snapshot
+     */
+    public long resyncs() {
+        return resyncs.sum();
+    }
+
+    /**
+     * Subscribers dropped because one write blocked past the write timeout
+     */
+    public long evicted() {
+        return evicted.sum();
+    }
+
+    private void enforceWriteDeadlines() {
+        long now = System.nanoTime();
+        for (Subscriber subscriber : subscribers) {
+            subscriber.enforceDeadline(now);
+        }
+    }
+
+    private void heartbeat() {
+        for (Subscriber subscriber : subscribers) {
+            subscriber.requestHeartbeat();
+        }
+    }
+
+    /**
+     * Current snapshot as an event, encoded once per snapshot version
+     */
+    private HealthEvent snapshotEvent() {
+        StatusSnapshot snapshot = snapshots.get();
+        HealthEvent event = snapshotEvent;
+        if (event == null || snapshotEventVersion != snapshot.version()) {
+            // SSE data is line-based; the pretty-printed document only has newlines between tokens
+            event = new HealthEvent(sequence.incrementAndGet(), EVENT_SNAPSHOT, -1,
+                snapshot.asString().replace("\n", ""));
+            snapshotEvent = event;
+            snapshotEventVersion = snapshot.version();
+        }
+        return event;
+    }
+
+    /**
+     * One streaming client and its bounded, conflating buffer
+     */
+    public final class Subscriber {
+
+        private final Sink sink;
+        private final LinkedHashMap<Integer, HealthEvent> pending = new LinkedHashMap<>();
+        private boolean resync;
+        private boolean heartbeat;
+        private boolean scheduled;
+        private boolean closed;
+        // Thread blocked in a write to this subscriber and when it started, guarded by writeLock
+        private final Object writeLock = new Object();
+        private Thread writer;
+        private long writeStartedNanos;
+
+        private Subscriber(Sink sink) {
+            this.sink = sink;
+        }
+
+        private void offer(HealthEvent event) {
+            synchronized (this) {
+                if (closed) {
+                    return;
+                }
+                if (pending.size() >= bufferSize && !pending.containsKey(event.key())) {
+                    // Too far behind: the snapshot sent on resync covers everything dropped
+                    pending.clear();
+                    resync = true;
+                    resyncs.increment();
+                }
+                if (pending.put(event.key(), event) != null) {
+                    conflated.increment();
+                }
+                schedule();
+            }
+        }
+
+        private synchronized void resync() {
+            resync = true;
+            schedule();
+        }
+
+        private synchronized void requestHeartbeat() {
+            if (!closed && pending.isEmpty() && !resync) {
+                heartbeat = true;
+                schedule();
+            }
+        }
+
+        // Caller holds the lock
+        private void schedule() {
+            if (!scheduled && !closed) {
+                scheduled = true;
+                try {
+                    writers.execute(this::drain);
+                } catch (RejectedExecutionException e) {
+                    scheduled = false;
+                }
+            }
+        }
+
+        private void drain() {
+            try {
+                while (true) {
+                    boolean sendSnapshot;
+                    boolean sendHeartbeat;
+                    HealthEvent[] batch;
+                    synchronized (this) {
+                        if (closed || (!resync && !heartbeat && pending.isEmpty())) {
+                            scheduled = false;
+                            return;
+                        }
+                        sendSnapshot = resync;
+                        sendHeartbeat = heartbeat;
+                        batch = pending.values().toArray(new HealthEvent[0]);
+                        resync = false;
+                        heartbeat = false;
+                        pending.clear();
+                    }
+
+                    if (sendSnapshot) {
+                        write(snapshotEvent());
+                    }
+                    for (HealthEvent event : batch) {
+                        write(event);
+                    }
+                    if (sendHeartbeat && !sendSnapshot && batch.length == 0) {
+                        write(null);
+                    }
+                }
+            } catch (IOException | RuntimeException e) {
+                // Client went away, or stalled past the write deadline
+                synchronized (this) {
+                    scheduled = false;
+                }
+                unsubscribe(this);
+            }
+        }
+
+        /**
+         * Write one event, or a heartbeat for null, under the write deadline
+         */
+        private void write(HealthEvent event) throws IOException {
+            synchronized (writeLock) {
+                writer = Thread.currentThread();
+                writeStartedNanos = System.nanoTime();
+            }
+            boolean interrupted;
+            try {
+                if (event != null) {
+                    sink.send(event);
+                } else {
+                    sink.heartbeat();
+                }
+            } finally {
+                synchronized (writeLock) {
+                    writer = null;
+                    // Cleared here: an interrupt meant for this write must not close the next channel the thread writes
+                    interrupted = Thread.interrupted();
+                }
+            }
+            if (interrupted) {
+                throw new InterruptedIOException("write deadline exceeded");
+            }
+        }
+
+        private void enforceDeadline(long now) {
+            synchronized (writeLock) {
+                if (writer == null || now - writeStartedNanos <= writeTimeoutNanos) {
+                    return;
+                }
+                evicted.increment();
+                writer.interrupt();
+                writer = null;
+            }
+            try {
+                aborts.execute(() -> {
+                    sink.abort();
+                    unsubscribe(this);
+                });
+            } catch (RejectedExecutionException e) {
+                // Shutting down: every subscriber is being closed anyway
+            }
+        }
+
+        private void close() {
+            synchronized (this) {
+                if (closed) {
+                    return;
+                }
+                closed = true;
+                pending.clear();
+            }
+            sink.close();
+        }
+    }
+}
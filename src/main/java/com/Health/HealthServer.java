@@ -4,39 +4,40 @@ import com.sun.net.httpserver.HttpServer;
 import com.sun.net.httpserver.HttpHandler;
 import com.sun.net.httpserver.HttpExchange;
 import java.io.IOException;
-import java.io.OutputStream;
-import java.net.InetSocketAddress;
 import java.nio.charset.StandardCharsets;
 
 public class HealthServer {
     
+    // Same health.server.* serving mode as HealthCheckServer
+    private static final ServingMode MODE = ServingMode.fromConfig(HealthConfig.get());
+    
     public static void startHealthEndpoint() throws IOException {
-        HttpServer server = HttpServer.create(new InetSocketAddress(8080), 0);
+        HttpServer server = MODE.create(8080, "health-endpoint-");
         
         // /health endpoint
-        server.createContext("/health", new HttpHandler() {
-            @Override
-            public void handle(HttpExchange exchange) throws IOException {
-                if ("GET".equals(exchange.getRequestMethod())) {
-                    String response = Main.getHealth();
-                    
-                    exchange.getResponseHeaders().set("Content-Type", "application/json");
-                    exchange.getResponseHeaders().set("Access-Control-Allow-Origin", "*");
-                    
-                    exchange.sendResponseHeaders(200, response.getBytes(StandardCharsets.UTF_8).length);
-                    
-                    try (OutputStream os = exchange.getResponseBody()) {
-                        os.write(response.getBytes(StandardCharsets.UTF_8));
-                    }
-                } else {
-                    exchange.sendResponseHeaders(405, -1); // Method Not Allowed
-                }
-            }
-        });
+        server.createContext("/health", MODE.wrap(new HealthHandler()));
         
-        server.setExecutor(null);
         server.start();
         
-        System.out.println("🌐 Health endpoint available at: http://localhost:8080/health");
+        System.out.println("🌐 Health endpoint available at: http://localhost:8080/health (" + MODE + ")");
+    }
+    
+    /**
+     * Handler for /health endpoint
+     */
+    static class HealthHandler implements HttpHandler {
+        @Override
+        public void handle(HttpExchange exchange) throws IOException {
+            if ("GET".equals(exchange.getRequestMethod())) {
+                byte[] response = Main.getHealth().getBytes(StandardCharsets.UTF_8);
+                
+                exchange.getResponseHeaders().set("Content-Type", "application/json");
+                exchange.getResponseHeaders().set("Access-Control-Allow-Origin", "*");
+                
+                MODE.send(exchange, response, () -> ServingMode.gzip(response));
+            } else {
+                exchange.sendResponseHeaders(405, -1); // Method Not Allowed
+            }
+        }
     }
 }
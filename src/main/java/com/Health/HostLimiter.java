@@ -0,0 +1,363 @@
+package com.Health;
+
+import java.net.URI;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+/**
+ * Per-host admission of outbound probes
+ * Targets are grouped by host. At most maxPerHost probes run against a host
+ * at once; further probes wait in a per-host queue without holding a thread.
+ * After failureThreshold consecutive host-level failures (see
+ * ProbeError#hostLevel) the host's circuit opens and its probes fail fast
+ * with CIRCUIT_OPEN. Once the open period ends a single canary probe is let
+ * through: success closes the circuit, failure reopens it for twice as long
+ * (up to maxOpenMillis)
+ */
+public class HostLimiter {
+
+    public enum State { CLOSED, OPEN, HALF_OPEN }
+
+    /**
+     * Probe waiting for a free slot on its host
+     */
+    private static final class Pending {
+        final String url;
+        final Supplier<CompletableFuture<ProbeResult>> probe;
+        final CompletableFuture<ProbeResult> future;
+
+        Pending(String url, Supplier<CompletableFuture<ProbeResult>> probe, CompletableFuture<ProbeResult> future) {
+            this.url = url;
+            this.probe = probe;
+            this.future = future;
+        }
+    }
+
+    /**
+     * Admission and breaker state of one host, guarded by its own monitor
+     */
+    private static final class Host {
+        final String name;
+        final ArrayDeque<Pending> waiting = new ArrayDeque<>();
+        int inFlight;
+        State state = State.CLOSED;
+        int consecutiveFailures;
+        long openUntilMillis;
+        long openMillis;
+        long fastFailed;
+
+        Host(String name) {
+            this.name = name;
+        }
+    }
+
+    /**
+     * Point-in-time view of one host group
+     */
+    public static final class HostStatus {
+        private final String host;
+        private final State state;
+        private final int inFlight;
+        private final int queued;
+        private final int consecutiveFailures;
+        private final long fastFailed;
+
+        HostStatus(String host, State state, int inFlight, int queued, int consecutiveFailures, long fastFailed) {
+            this.host = host;
+            this.state = state;
+            this.inFlight = inFlight;
+            this.queued = queued;
+            this.consecutiveFailures = consecutiveFailures;
+            this.fastFailed = fastFailed;
+        }
+
+        public String getHost() {
+            return host;
+        }
+
+        public State getState() {
+            return state;
+        }
+
+        public int getInFlight() {
+            return inFlight;
+        }
+
+        public int getQueued() {
+            return queued;
+        }
+
+        public int getConsecutiveFailures() {
+            return consecutiveFailures;
+        }
+
+        public long getFastFailed() {
+            return fastFailed;
+        }
+    }
+
+    private final int maxPerHost;
+    private final int failureThreshold;
+    private final long baseOpenMillis;
+    private final long maxOpenMillis;
+    private final LongSupplier clockMillis;
+    private final ConcurrentHashMap<String, Host> hosts = new ConcurrentHashMap<>();
+
+    private final LongAdder admitted = new LongAdder();
+    private final LongAdder queued = new LongAdder();
+    private final LongAdder fastFailed = new LongAdder();
+    private final LongAdder trips = new LongAdder();
+    private final LongAdder canaries = new LongAdder();
+
+    public HostLimiter(int maxPerHost) {
+        this(maxPerHost, 0, 0, 0);
+    }
+
+    /**
+     * @param failureThreshold consecutive host-level failures that open the circuit, 0 disables breaking
+     */
+    public HostLimiter(int maxPerHost, int failureThreshold, long openMillis, long maxOpenMillis) {
+        this(maxPerHost, failureThreshold, openMillis, maxOpenMillis, System::currentTimeMillis);
+    }
+
+    /**
+     * @param clockMillis time source of the open periods, replaceable for tests
+     */
+    public HostLimiter(int maxPerHost, int failureThreshold, long openMillis, long maxOpenMillis,
+                       LongSupplier clockMillis) {
+        this.maxPerHost = maxPerHost;
+        this.failureThreshold = failureThreshold;
+        this.baseOpenMillis = openMillis;
+        this.maxOpenMillis = Math.max(openMillis, maxOpenMillis);
+        this.clockMillis = clockMillis;
+    }
+
+    public int maxPerHost() {
+        return maxPerHost;
+    }
+
+    /**
+     * Lower-cased host part of a URL, or the URL itself if it cannot be parsed
+     * Host names are case-insensitive, so Example.com and example.com share one limit and breaker
+     */
+    static String hostOf(String url) {
+        try {
+            String host = URI.create(url).getHost();
+            return host != null ? host.toLowerCase(Locale.ROOT) : url;
+        } catch (IllegalArgumentException e) {
+            return url;
+        }
+    }
+
+    /**
+     * Run a probe once its host admits it
+     * The returned future never completes exceptionally; probes rejected by an
+     * open circuit complete immediately with a CIRCUIT_OPEN failure
+     */
+    public CompletableFuture<ProbeResult> submit(String url, Supplier<CompletableFuture<ProbeResult>> probe) {
+        Host host = hosts.computeIfAbsent(hostOf(url), Host::new);
+        boolean canary = false;
+        synchronized (host) {
+            if (host.state == State.OPEN && clockMillis.getAsLong() >= host.openUntilMillis) {
+                host.state = State.HALF_OPEN;
+                canary = true;
+            } else if (host.state != State.CLOSED) {
+                host.fastFailed++;
+                fastFailed.increment();
+                return CompletableFuture.completedFuture(rejected(url, host));
+            } else if (host.inFlight >= maxPerHost) {
+                CompletableFuture<ProbeResult> future = new CompletableFuture<>();
+                host.waiting.add(new Pending(url, probe, future));
+                queued.increment();
+                return future;
+            }
+            host.inFlight++;
+        }
+        if (canary) {
+            canaries.increment();
+        }
+        CompletableFuture<ProbeResult> future = new CompletableFuture<>();
+        run(host, new Pending(url, probe, future), canary);
+        return future;
+    }
+
+    /**
+     * Start a probe and, while the probes it hands its slot to complete at once
+     * (negative-cached names, an open circuit further down), the waiting ones
+     * after it in a loop rather than nested callbacks, so a long queue cannot
+     * overflow the stack. A probe still running finishes in its own callback
+     */
+    private void run(Host host, Pending pending, boolean canary) {
+        while (pending != null) {
+            admitted.increment();
+            CompletableFuture<ProbeResult> running;
+            try {
+                running = pending.probe.get();
+            } catch (RuntimeException e) {
+                running = CompletableFuture.completedFuture(
+                    ProbeResult.failure(pending.url, 0, e.getMessage(), ProbeError.of(e)));
+            }
+            Pending current = pending;
+            boolean currentCanary = canary;
+            if (!running.isDone()) {
+                running.whenComplete((result, error) -> {
+                    ProbeResult outcome = outcome(current, result, error);
+                    Pending next = finish(host, outcome, currentCanary);
+                    current.future.complete(outcome);
+                    run(host, next, false);
+                });
+                return;
+            }
+            ProbeResult outcome = running.handle((result, error) -> outcome(current, result, error)).join();
+            pending = finish(host, outcome, canary);
+            current.future.complete(outcome);
+            canary = false;
+        }
+    }
+
+    private static ProbeResult outcome(Pending pending, ProbeResult result, Throwable error) {
+        return result != null ? result
+            : ProbeResult.failure(pending.url, 0, String.valueOf(error), ProbeError.of(error));
+    }
+
+    /**
+     * Release the slot and update the breaker
+     * @return the waiting probe the slot goes to, or null
+     */
+    private Pending finish(Host host, ProbeResult result, boolean canary) {
+        Pending next = null;
+        List<Pending> rejected = null;
+        synchronized (host) {
+            host.inFlight--;
+            if (result.getErrorClass().hostLevel()) {
+                host.consecutiveFailures++;
+                if (canary) {
+                    host.openMillis = Math.min(maxOpenMillis, host.openMillis * 2);
+                    open(host);
+                } else if (host.state == State.CLOSED && failureThreshold > 0
+                        && host.consecutiveFailures >= failureThreshold) {
+                    host.openMillis = baseOpenMillis;
+                    open(host);
+                    trips.increment();
+                }
+            } else {
+                host.consecutiveFailures = 0;
+                if (canary) {
+                    host.state = State.CLOSED;
+                }
+            }
+
+            if (host.state == State.OPEN && !host.waiting.isEmpty()) {
+                rejected = new ArrayList<>(host.waiting);
+                host.fastFailed += rejected.size();
+                host.waiting.clear();
+            } else if (host.state == State.CLOSED && host.inFlight < maxPerHost) {
+                next = host.waiting.poll();
+                if (next != null) {
+                    host.inFlight++;
+                }
+            }
+        }
+        if (rejected != null) {
+            fastFailed.add(rejected.size());
+            for (Pending pending : rejected) {
+                pending.future.complete(rejected(pending.url, host));
+            }
+        }
+        return next;
+    }
+
+    private void open(Host host) {
+        host.state = State.OPEN;
+        host.openUntilMillis = clockMillis.getAsLong() + host.openMillis;
+    }
+
+    private static ProbeResult rejected(String url, Host host) {
+        return ProbeResult.failure(url, 0, "circuit open for host " + host.name, ProbeError.CIRCUIT_OPEN);
+    }
+
+    /**
+     * Probes currently running against the host
+     */
+    public int inFlight(String host) {
+        Host state = hosts.get(host.toLowerCase(Locale.ROOT));
+        if (state == null) {
+            return 0;
+        }
+        synchronized (state) {
+            return state.inFlight;
+        }
+    }
+
+    /**
+     * Breaker state of a host, CLOSED for hosts never probed
+     */
+    public State state(String host) {
+        Host state = hosts.get(host.toLowerCase(Locale.ROOT));
+        if (state == null) {
+            return State.CLOSED;
+        }
+        synchronized (state) {
+            return state.state;
+        }
+    }
+
+    /**
+     * Hosts whose circuit is not closed or that have probes waiting
+     */
+    public List<HostStatus> troubledHosts() {
+        List<HostStatus> result = new ArrayList<>();
+        for (Host host : hosts.values()) {
+            synchronized (host) {
+                if (host.state != State.CLOSED || !host.waiting.isEmpty()) {
+                    result.add(new HostStatus(host.name, host.state, host.inFlight, host.waiting.size(),
+                        host.consecutiveFailures, host.fastFailed));
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Number of host groups seen so far
+     */
+    public int hosts() {
+        return hosts.size();
+    }
+
+    public long admitted() {
+        return admitted.sum();
+    }
+
+    /**
+     * Probes that had to wait for a free slot on their host
+     */
+    public long queued() {
+        return queued.sum();
+    }
+
+    /**
+     * Probes rejected by an open circuit
+     */
+    public long fastFailed() {
+        return fastFailed.sum();
+    }
+
+    /**
+     * Times a closed circuit opened
+     */
+    public long trips() {
+        return trips.sum();
+    }
+
+    public long canaries() {
+        return canaries.sum();
+    }
+}
@@ -0,0 +1,38 @@
+package com.Health;
+
+/**
+ * Minimal JSON string escaping for the hand-written health documents
+ */
+final class Json {
+
+    private Json() {
+    }
+
+    /**
+     * Append a value as a quoted, escaped JSON string
+     */
+    static StringBuilder quote(StringBuilder out, String value) {
+        out.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"': out.append("\\\""); break;
+                case '\\': out.append("\\\\"); break;
+                case '\n': out.append("\\n"); break;
+                case '\r': out.append("\\r"); break;
+                case '\t': out.append("\\t"); break;
+                default:
+                    if (c < 0x20) {
+                        out.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        out.append(c);
+                    }
+            }
+        }
+        return out.append('"');
+    }
+
+    static String quote(String value) {
+        return quote(new StringBuilder(value.length() + 2), value).toString();
+    }
+}
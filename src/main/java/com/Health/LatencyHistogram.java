@@ -0,0 +1,212 @@
+package com.Health;
+
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Fixed-size, log-bucketed latency histogram in the style of HdrHistogram
+ * Values are microseconds; every power of two is split into 8 linear
+ * sub-buckets, so a reported value is within 12.5% of the recorded one.
+ * Recording is lock-free and allocation-free and safe from concurrent probe threads
+ *
+ * With a window, a second set of buckets decays: every window its counts are
+ * halved, so the recent percentiles follow the last few windows and a slow
+ * spell fades out instead of staying in p99 forever. The cumulative buckets
+ * are kept for lifetime figures
+ */
+public final class LatencyHistogram {
+
+    private static final int SUB_BITS = 3;
+    private static final int SUB_BUCKETS = 1 << SUB_BITS;
+
+    // Values above 2^27 us (~134 s) are clamped into the last bucket
+    private static final int MAX_EXPONENT = 27;
+    private static final long MAX_TRACKABLE = (1L << (MAX_EXPONENT + 1)) - 1;
+
+    static final int BUCKETS = (MAX_EXPONENT - SUB_BITS + 2) * SUB_BUCKETS;
+
+    // Bucket counts followed by the total count and the maximum value
+    private static final int TOTAL = BUCKETS;
+    private static final int MAX = BUCKETS + 1;
+
+    // A recent sample weighs this much, so it survives a few halvings before rounding to 0
+    private static final int RECENT_WEIGHT = 16;
+
+    private final AtomicIntegerArray counts = new AtomicIntegerArray(BUCKETS + 2);
+    private final AtomicLong sumMicros = new AtomicLong();
+
+    // Decaying buckets, null without a window
+    private final AtomicIntegerArray recent;
+    private final long windowMillis;
+    private final AtomicLong nextDecayMillis;
+    private final AtomicLong windowMax = new AtomicLong();
+    private volatile long previousWindowMax;
+
+    /**
+     * Cumulative histogram only; the recent figures are the lifetime ones
+     */
+    public LatencyHistogram() {
+        this(0);
+    }
+
+    /**
+     * @param windowMillis period after which recent counts are halved, 0 for none
+     */
+    public LatencyHistogram(long windowMillis) {
+        this.windowMillis = windowMillis;
+        this.recent = windowMillis > 0 ? new AtomicIntegerArray(BUCKETS) : null;
+        this.nextDecayMillis = new AtomicLong(System.currentTimeMillis() + windowMillis);
+    }
+
+    /**
+     * Record one latency value in microseconds
+     */
+    public void recordMicros(long micros) {
+        long value = Math.min(Math.max(micros, 0), MAX_TRACKABLE);
+        int index = indexOf(value);
+        counts.incrementAndGet(index);
+        counts.incrementAndGet(TOTAL);
+        sumMicros.addAndGet(value);
+
+        int max = counts.get(MAX);
+        while (value > max && !counts.compareAndSet(MAX, max, (int) value)) {
+            max = counts.get(MAX);
+        }
+
+        if (recent != null) {
+            decayIfDue(System.currentTimeMillis());
+            recent.getAndUpdate(index, count -> count <= Integer.MAX_VALUE - RECENT_WEIGHT ? count + RECENT_WEIGHT : count);
+            long highest = windowMax.get();
+            while (value > highest && !windowMax.compareAndSet(highest, value)) {
+                highest = windowMax.get();
+            }
+        }
+    }
+
+    /**
+     * Halve the recent counts once per window elapsed. One caller wins the due
+     * time and decays; a sample recorded meanwhile is halved or not, either is fine
+     */
+    private void decayIfDue(long nowMillis) {
+        long due = nextDecayMillis.get();
+        if (nowMillis < due) {
+            return;
+        }
+        long windows = 1 + (nowMillis - due) / windowMillis;
+        if (!nextDecayMillis.compareAndSet(due, due + windows * windowMillis)) {
+            return;
+        }
+        int shift = (int) Math.min(windows, 31);
+        for (int i = 0; i < BUCKETS; i++) {
+            if (recent.get(i) != 0) {
+                recent.getAndUpdate(i, count -> count >>> shift);
+            }
+        }
+        previousWindowMax = windows == 1 ? windowMax.getAndSet(0) : 0;
+        if (windows > 1) {
+            windowMax.set(0);
+        }
+    }
+
+    public long count() {
+        return counts.get(TOTAL);
+    }
+
+    /**
+     * Sum of all recorded values, for mean latency and Prometheus _sum series
+     */
+    public long sumMicros() {
+        return sumMicros.get();
+    }
+
+    public long maxMicros() {
+        return counts.get(MAX);
+    }
+
+    /**
+     * Highest value still weighing in the recent counts: exact when it was
+     * recorded in the current or the previous window, else its bucket's upper bound
+     */
+    public long recentMaxMicros() {
+        if (recent == null) {
+            return maxMicros();
+        }
+        decayIfDue(System.currentTimeMillis());
+        int highest = BUCKETS - 1;
+        while (highest >= 0 && recent.get(highest) == 0) {
+            highest--;
+        }
+        if (highest < 0) {
+            return 0;
+        }
+        long known = Math.max(windowMax.get(), previousWindowMax);
+        return indexOf(known) == highest ? known : Math.min(upperBound(highest), maxMicros());
+    }
+
+    /**
+     * Values at the given percentiles (0-100) over every recorded value, in microseconds
+     * Each value is the upper bound of its bucket, capped at the recorded maximum
+     */
+    public long[] percentilesMicros(double... percentiles) {
+        return percentiles(counts, maxMicros(), percentiles);
+    }
+
+    /**
+     * Values at the given percentiles (0-100) with older windows weighing less, in microseconds
+     */
+    public long[] recentPercentilesMicros(double... percentiles) {
+        if (recent == null) {
+            return percentilesMicros(percentiles);
+        }
+        decayIfDue(System.currentTimeMillis());
+        return percentiles(recent, recentMaxMicros(), percentiles);
+    }
+
+    /**
+     * Percentiles of a bucket array, computed in one pass over a snapshot of it
+     */
+    private static long[] percentiles(AtomicIntegerArray buckets, long max, double... percentiles) {
+        long[] values = new long[percentiles.length];
+        long total = 0;
+        int[] snapshot = new int[BUCKETS];
+        for (int i = 0; i < BUCKETS; i++) {
+            snapshot[i] = buckets.get(i);
+            total += snapshot[i];
+        }
+        if (total == 0) {
+            return values;
+        }
+
+        for (int p = 0; p < percentiles.length; p++) {
+            long rank = Math.max(1, (long) Math.ceil(percentiles[p] / 100.0 * total));
+            long seen = 0;
+            for (int i = 0; i < BUCKETS; i++) {
+                seen += snapshot[i];
+                if (seen >= rank) {
+                    values[p] = Math.min(upperBound(i), max);
+                    break;
+                }
+            }
+        }
+        return values;
+    }
+
+    static int indexOf(long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        int mantissa = (int) (value >>> (exponent - SUB_BITS)) & (SUB_BUCKETS - 1);
+        return (exponent - SUB_BITS + 1) * SUB_BUCKETS + mantissa;
+    }
+
+    static long upperBound(int index) {
+        if (index < SUB_BUCKETS) {
+            return index;
+        }
+        int exponent = index / SUB_BUCKETS + SUB_BITS - 1;
+        int mantissa = index % SUB_BUCKETS;
+        int shift = exponent - SUB_BITS;
+        return ((long) (SUB_BUCKETS + mantissa) << shift) + (1L << shift) - 1;
+    }
+}
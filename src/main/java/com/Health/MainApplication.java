@@ -1,17 +1,14 @@
 package com.Health;
 
-import java.util.concurrent.Executors;
-import java.util.concurrent.ScheduledExecutorService;
-import java.util.concurrent.TimeUnit;
-
 /**
- * Main Application - Health Check Service
- * Combines health monitoring with HTTP server for metrics exposure
+ * Main Application - Health Check Service, lite mode
+ * Combines health monitoring with HTTP server for metrics exposure, without a
+ * Spring context. Also started by HealthCheckApplication with --lite
  */
 public class MainApplication {
     
     public static void main(String[] args) {
-        System.out.println("🚀 Starting Health Check Service...");
+        System.out.println("🚀 Starting Health Check Service (lite mode)...");
         System.out.println("=====================================");
         
         try {
@@ -24,9 +21,17 @@ public class MainApplication {
             // Keep the application running
             Runtime.getRuntime().addShutdownHook(new Thread(() -> {
                 System.out.println("\n🛑 Shutting down Health Check Service...");
+                HealthCheckService.stopMonitoring();
                 HealthCheckServer.stopServer();
             }));
             
+            System.out.println("✅ Ready " + HealthCheckService.millisSinceJvmStart() + " ms after JVM start");
+            
+            if (TrainingRun.enabled()) {
+                TrainingRun.complete("http://127.0.0.1:" + HealthCheckServer.port() + "/health");
+                System.exit(0);
+            }
+            
             // Keep main thread alive
             Thread.currentThread().join();
             
@@ -43,18 +48,10 @@ public class MainApplication {
     private static void startHealthMonitoring() {
         System.out.println("🏥 Starting health monitoring...");
         
-        // Perform initial health check
-        HealthCheckService.performHealthCheck();
-        
-        // Schedule periodic health checks every 30 seconds
-        ScheduledExecutorService scheduler = Executors.newScheduledThreadPool(1);
-        scheduler.scheduleAtFixedRate(
-            HealthCheckService::performHealthCheck,
-            30, // initial delay
-            30, // period
-            TimeUnit.SECONDS
-        );
+        // Each target runs on its own timer with a random initial phase,
+        // so probes are spread across the interval instead of fired in one batch
+        HealthCheckService.startMonitoring();
         
-        System.out.println("✅ Health monitoring started (30-second intervals)");
+        System.out.println("✅ Health monitoring started (" + HealthCheckService.registry().size() + " targets, per-target intervals)");
     }
 }
@@ -0,0 +1,123 @@
+package com.Health;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.IntFunction;
+import java.util.function.IntPredicate;
+
+/**
+ * Single-flight layer for on-demand probes triggered by inbound requests
+ * A result recorded within the freshness TTL (usually by the background
+ * monitor) is served without probing; otherwise concurrent requests for the
+ * same target share one in-flight probe. While the background monitor probes
+ * a target, its last result stays fresh until the next scheduled probe is
+ * overdue, so front-ends never add probes on top of the schedule
+ */
+public class ProbeCoalescer {
+
+    // Allowance for a scheduled probe to fire late and record its result
+    private static final long SCHEDULE_SLACK_MS = 1000;
+
+    private final TargetRegistry registry;
+    private final IntFunction<CompletableFuture<Boolean>> probe;
+    private final long freshnessTtlMs;
+    private final IntPredicate monitored;
+    private final ConcurrentHashMap<Integer, CompletableFuture<Boolean>> inFlight = new ConcurrentHashMap<>();
+
+    private final LongAdder requests = new LongAdder();
+    private final LongAdder servedFresh = new LongAdder();
+    private final LongAdder coalesced = new LongAdder();
+    private final LongAdder issued = new LongAdder();
+
+    public ProbeCoalescer(TargetRegistry registry, IntFunction<CompletableFuture<Boolean>> probe, long freshnessTtlMs) {
+        this(registry, probe, freshnessTtlMs, id -> false);
+    }
+
+    /**
+     * @param monitored whether the background monitor is currently probing a target
+     */
+    public ProbeCoalescer(TargetRegistry registry, IntFunction<CompletableFuture<Boolean>> probe, long freshnessTtlMs,
+                          IntPredicate monitored) {
+        this.registry = registry;
+        this.probe = probe;
+        this.freshnessTtlMs = freshnessTtlMs;
+        this.monitored = monitored;
+    }
+
+    /**
+     * Health of a target, from a fresh recorded result or a shared probe
+     */
+    public CompletableFuture<Boolean> check(int targetId) {
+        requests.increment();
+
+        long lastCheck = registry.lastCheckMillis(targetId);
+        if (freshnessTtlMs > 0 && lastCheck > 0
+                && System.currentTimeMillis() - lastCheck <= freshnessMs(targetId)
+                && registry.status(targetId) != TargetRegistry.STATUS_UNKNOWN) {
+            servedFresh.increment();
+            return CompletableFuture.completedFuture(registry.isHealthy(targetId));
+        }
+
+        CompletableFuture<Boolean> promise = new CompletableFuture<>();
+        CompletableFuture<Boolean> existing = inFlight.putIfAbsent(targetId, promise);
+        if (existing != null) {
+            coalesced.increment();
+            return existing;
+        }
+
+        issued.increment();
+        probe.apply(targetId).whenComplete((healthy, error) -> {
+            inFlight.remove(targetId, promise);
+            promise.complete(error == null && Boolean.TRUE.equals(healthy));
+        });
+        return promise;
+    }
+
+    /**
+     * How old a recorded result may be: the TTL, or a full schedule period of a monitored target
+     */
+    private long freshnessMs(int targetId) {
+        if (!monitored.test(targetId)) {
+            return freshnessTtlMs;
+        }
+        return Math.max(freshnessTtlMs,
+            (long) registry.intervalMs(targetId) + registry.timeoutMs(targetId) + SCHEDULE_SLACK_MS);
+    }
+
+    public long freshnessTtlMs() {
+        return freshnessTtlMs;
+    }
+
+    public long requests() {
+        return requests.sum();
+    }
+
+    /**
+     * Requests answered from a result recorded within the TTL
+     */
+    public long servedFresh() {
+        return servedFresh.sum();
+    }
+
+    /**
+     * Requests that joined a probe already in flight
+     */
+    public long coalesced() {
+        return coalesced.sum();
+    }
+
+    /**
+     * Outbound probes actually sent
+     */
+    public long issued() {
+        return issued.sum();
+    }
+
+    /**
+     * Outbound probes avoided compared to probing on every request
+     */
+    public long avoided() {
+        return servedFresh.sum() + coalesced.sum();
+    }
+}
@@ -0,0 +1,309 @@
+package com.Health;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.security.GeneralSecurityException;
+import java.security.KeyStore;
+import java.time.Duration;
+import java.util.Enumeration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLSession;
+import javax.net.ssl.SSLSessionContext;
+import javax.net.ssl.TrustManager;
+import javax.net.ssl.TrustManagerFactory;
+
+/**
+ * Non-blocking probe engine built on one shared java.net.http.HttpClient
+ * Connections are pooled and kept alive between probes, HTTP/2 is negotiated
+ * where the target supports it, and every probe completes a CompletableFuture.
+ * The engine owns its SSLContext, so TLS sessions are cached per engine and a
+ * new connection to a known host resumes instead of doing a full handshake.
+ * With a DnsCache host names are checked against it before each probe and a
+ * name that does not resolve fails without a request; the client still
+ * resolves the name itself when it connects.
+ * A BodyAssertion is evaluated over the streaming body; without one the body
+ * is discarded unread
+ */
+public class ProbeEngine {
+
+    private static final int DEFAULT_TIMEOUT_MS = 10000;
+    private static final String USER_AGENT = "HealthCheckService/1.0";
+    private static final int DEFAULT_TLS_SESSIONS = 10000;
+    private static final int DEFAULT_TLS_SESSION_TIMEOUT_S = 3600;
+
+    private static final ProbeEngine SHARED = new ProbeEngine(DEFAULT_TIMEOUT_MS);
+
+    private final HttpClient client;
+    private final Duration requestTimeout;
+    private final DnsCache dns;
+    private final SSLContext tls;
+    private final TlsHandshakes handshakes = new TlsHandshakes();
+
+    public ProbeEngine(int timeoutMs) {
+        this(timeoutMs, null, tlsContext(DEFAULT_TLS_SESSIONS, DEFAULT_TLS_SESSION_TIMEOUT_S));
+    }
+
+    /**
+     * @param dns name cache consulted before each probe, or null to leave resolution to the client
+     * @param tls context whose client session cache is shared by all probes of this engine
+     */
+    public ProbeEngine(int timeoutMs, DnsCache dns, SSLContext tls) {
+        this.requestTimeout = Duration.ofMillis(timeoutMs);
+        this.dns = dns;
+        this.tls = handshakes.wrap(tls);
+        this.client = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_2)
+            .connectTimeout(requestTimeout)
+            .followRedirects(HttpClient.Redirect.NEVER)
+            .sslContext(this.tls)
+            .build();
+    }
+
+    /**
+     * Engine configured by health.probe.dns.* and health.probe.tls.*
+     */
+    public static ProbeEngine fromConfig(int timeoutMs, HealthConfig config) {
+        return new ProbeEngine(timeoutMs, DnsCache.fromConfig(config), tlsContext(
+            config.getInt("health.probe.tls.session-cache-size", DEFAULT_TLS_SESSIONS),
+            config.getInt("health.probe.tls.session-timeout-s", DEFAULT_TLS_SESSION_TIMEOUT_S)));
+    }
+
+    /**
+     * A TLS context of its own, so its session cache is not shared with the rest of the JVM
+     */
+    public static SSLContext tlsContext(int sessionCacheSize, int sessionTimeoutSeconds) {
+        return tlsContext(null, sessionCacheSize, sessionTimeoutSeconds);
+    }
+
+    /**
+     * @param trustStore certificates to trust instead of the JDK defaults, e.g. a self-signed stub's
+     */
+    public static SSLContext tlsContext(KeyStore trustStore, int sessionCacheSize, int sessionTimeoutSeconds) {
+        try {
+            TrustManager[] trust = null;
+            if (trustStore != null) {
+                TrustManagerFactory factory = TrustManagerFactory.getInstance(TrustManagerFactory.getDefaultAlgorithm());
+                factory.init(trustStore);
+                trust = factory.getTrustManagers();
+            }
+            SSLContext context = SSLContext.getInstance("TLS");
+            context.init(null, trust, null);
+            context.getClientSessionContext().setSessionCacheSize(sessionCacheSize);
+            context.getClientSessionContext().setSessionTimeout(sessionTimeoutSeconds);
+            return context;
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("No TLS support in this runtime", e);
+        }
+    }
+
+    /**
+     * Engine shared by every probing loop in the application
+     */
+    public static ProbeEngine shared() {
+        return SHARED;
+    }
+
+    /**
+     * Probe an endpoint asynchronously. The returned future never completes
+     * exceptionally - transport errors are reported as a failed ProbeResult
+     */
+    public CompletableFuture<ProbeResult> probe(String url) {
+        return probe(url, (int) requestTimeout.toMillis());
+    }
+
+    /**
+     * Probe an endpoint asynchronously with a per-probe timeout
+     */
+    public CompletableFuture<ProbeResult> probe(String url, int timeoutMs) {
+        return probe(url, timeoutMs, null);
+    }
+
+    /**
+     * Probe an endpoint asynchronously, checking the body of a 2xx response
+     * @param assertion body assertion, or null for the status code only
+     */
+    public CompletableFuture<ProbeResult> probe(String url, int timeoutMs, BodyAssertion assertion) {
+        long start = System.nanoTime();
+        HttpRequest request;
+        try {
+            request = newRequest(URI.create(url), Duration.ofMillis(timeoutMs));
+        } catch (IllegalArgumentException e) {
+            return CompletableFuture.completedFuture(
+                ProbeResult.failure(url, System.nanoTime() - start, e.getMessage(), ProbeError.INVALID_URL));
+        }
+
+        String host = request.uri().getHost();
+        if (dns == null || host == null || DnsCache.isLiteral(host)) {
+            return send(url, request, assertion, start);
+        }
+        return dns.lookup(host, timeoutMs).thenCompose(entry -> entry.isResolved()
+            ? send(url, request, assertion, start)
+            : CompletableFuture.completedFuture(unresolved(url, host, entry, start)));
+    }
+
+    private CompletableFuture<ProbeResult> send(String url, HttpRequest request, BodyAssertion assertion, long start) {
+        if (assertion != null) {
+            return client.sendAsync(request, assertion.handler(BodyAssertion.DEFAULT_DRAIN_BYTES))
+                .handle((response, error) -> {
+                    long latency = System.nanoTime() - start;
+                    if (error != null) {
+                        return failed(url, request, error, latency);
+                    }
+                    return checked(url, response, latency);
+                });
+        }
+        // The body is drained and discarded so the connection goes back to the pool
+        return client.sendAsync(request, HttpResponse.BodyHandlers.discarding())
+            .handle((response, error) -> {
+                long latency = System.nanoTime() - start;
+                if (error != null) {
+                    return failed(url, request, error, latency);
+                }
+                return ProbeResult.response(url, response.statusCode(), latency);
+            });
+    }
+
+    /**
+     * Result of a response whose body went through a BodyAssertion (null body for a non-2xx status)
+     */
+    private static ProbeResult checked(String url, HttpResponse<BodyAssertion.Evaluation> response, long latency) {
+        BodyAssertion.Evaluation evaluation = response.body();
+        if (evaluation != null && !evaluation.passed()) {
+            return ProbeResult.bodyMismatch(url, response.statusCode(), latency, evaluation.reason());
+        }
+        return ProbeResult.response(url, response.statusCode(), latency);
+    }
+
+    private ProbeResult failed(String url, HttpRequest request, Throwable error, long latency) {
+        ProbeError errorClass = ProbeError.of(error);
+        if (errorClass == ProbeError.DNS && dns != null && request.uri().getHost() != null) {
+            // The client's own lookup disagreed with the cache; resolve afresh next time
+            dns.invalidate(request.uri().getHost());
+        }
+        return ProbeResult.failure(url, latency, describe(error), errorClass);
+    }
+
+    private static ProbeResult unresolved(String url, String host, DnsCache.Entry entry, long start) {
+        return ProbeResult.failure(url, System.nanoTime() - start,
+            "cannot resolve " + host + ": " + entry.getError(), ProbeError.DNS);
+    }
+
+    /**
+     * Probe an endpoint and wait for the result (for the simple CLI loops)
+     */
+    public ProbeResult probeBlocking(String url) {
+        return probeBlocking(url, (int) requestTimeout.toMillis());
+    }
+
+    /**
+     * Probe an endpoint on the calling thread with a per-probe timeout
+     * Cheap to block on when the caller is a virtual thread
+     */
+    public ProbeResult probeBlocking(String url, int timeoutMs) {
+        return probeBlocking(url, timeoutMs, null);
+    }
+
+    /**
+     * Probe an endpoint on the calling thread, checking the body of a 2xx response
+     * @param assertion body assertion, or null for the status code only
+     */
+    public ProbeResult probeBlocking(String url, int timeoutMs, BodyAssertion assertion) {
+        long start = System.nanoTime();
+        HttpRequest request = null;
+        try {
+            request = newRequest(URI.create(url), Duration.ofMillis(timeoutMs));
+            String host = request.uri().getHost();
+            if (dns != null && host != null && !DnsCache.isLiteral(host)) {
+                DnsCache.Entry entry = dns.lookup(host).get(timeoutMs, TimeUnit.MILLISECONDS);
+                if (!entry.isResolved()) {
+                    return unresolved(url, host, entry, start);
+                }
+            }
+            if (assertion != null) {
+                return checked(url, client.send(request, assertion.handler(BodyAssertion.DEFAULT_DRAIN_BYTES)),
+                    System.nanoTime() - start);
+            }
+            HttpResponse<Void> response = client.send(request, HttpResponse.BodyHandlers.discarding());
+            return ProbeResult.response(url, response.statusCode(), System.nanoTime() - start);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return ProbeResult.failure(url, System.nanoTime() - start, "interrupted", ProbeError.INTERRUPTED);
+        } catch (TimeoutException e) {
+            return ProbeResult.failure(url, System.nanoTime() - start, "name lookup timed out", ProbeError.DNS);
+        } catch (ExecutionException e) {
+            return ProbeResult.failure(url, System.nanoTime() - start, describe(e.getCause()), ProbeError.DNS);
+        } catch (IllegalArgumentException e) {
+            return ProbeResult.failure(url, System.nanoTime() - start, describe(e), ProbeError.of(e));
+        } catch (IOException e) {
+            return failed(url, request, e, System.nanoTime() - start);
+        }
+    }
+
+    public DnsCache dns() {
+        return dns;
+    }
+
+    public SSLContext tls() {
+        return tls;
+    }
+
+    /**
+     * Full and resumed handshakes of this engine's connections, and of selector checks sharing its context
+     */
+    public TlsHandshakes handshakes() {
+        return handshakes;
+    }
+
+    /**
+     * TLS sessions currently held for resumption
+     */
+    public int tlsSessions() {
+        SSLSessionContext sessions = tls.getClientSessionContext();
+        int count = 0;
+        for (Enumeration<byte[]> ids = sessions.getIds(); ids.hasMoreElements(); ids.nextElement()) {
+            count++;
+        }
+        return count;
+    }
+
+    /**
+     * Drop every cached TLS session, forcing full handshakes on new connections
+     */
+    public void clearTlsSessions() {
+        SSLSessionContext sessions = tls.getClientSessionContext();
+        for (Enumeration<byte[]> ids = sessions.getIds(); ids.hasMoreElements(); ) {
+            SSLSession session = sessions.getSession(ids.nextElement());
+            if (session != null) {
+                session.invalidate();
+            }
+        }
+    }
+
+    private HttpRequest newRequest(URI uri, Duration timeout) {
+        // HTTP/2 is negotiated via ALPN over TLS. Cleartext targets stay on HTTP/1.1
+        // because an h2c upgrade attempt on every request defeats connection reuse
+        HttpClient.Version version = "https".equalsIgnoreCase(uri.getScheme())
+            ? HttpClient.Version.HTTP_2 : HttpClient.Version.HTTP_1_1;
+        return HttpRequest.newBuilder(uri)
+            .version(version)
+            .GET()
+            .timeout(timeout)
+            .header("User-Agent", USER_AGENT)
+            .build();
+    }
+
+    private static String describe(Throwable error) {
+        Throwable cause = error instanceof CompletionException && error.getCause() != null
+            ? error.getCause() : error;
+        String message = cause.getMessage();
+        return message != null ? message : cause.getClass().getSimpleName();
+    }
+}
@@ -0,0 +1,92 @@
+package com.Health;
+
+import java.io.IOException;
+import java.net.ConnectException;
+import java.net.UnknownHostException;
+import java.net.http.HttpConnectTimeoutException;
+import java.net.http.HttpTimeoutException;
+import java.util.concurrent.CompletionException;
+import javax.net.ssl.SSLException;
+
+/**
+ * Class of a probe outcome, stored as one byte in the probe history
+ * Codes are persisted, so existing values must never be renumbered
+ */
+public enum ProbeError {
+    NONE(0),
+    HTTP_STATUS(1),
+    TIMEOUT(2),
+    CONNECT(3),
+    DNS(4),
+    TLS(5),
+    IO(6),
+    INVALID_URL(7),
+    INTERRUPTED(8),
+    OTHER(9),
+    CIRCUIT_OPEN(10),
+    BODY(11);
+
+    private static final ProbeError[] BY_CODE = new ProbeError[16];
+
+    static {
+        for (ProbeError error : values()) {
+            BY_CODE[error.code] = error;
+        }
+    }
+
+    private final int code;
+
+    ProbeError(int code) {
+        this.code = code;
+    }
+
+    public int code() {
+        return code;
+    }
+
+    public static ProbeError fromCode(int code) {
+        ProbeError error = code >= 0 && code < BY_CODE.length ? BY_CODE[code] : null;
+        return error != null ? error : OTHER;
+    }
+
+    /**
+     * Whether the failure points at the host being unreachable rather than
+     * at the target's own response; these count towards opening the host's circuit
+     */
+    public boolean hostLevel() {
+        return this == TIMEOUT || this == CONNECT || this == DNS || this == TLS;
+    }
+
+    /**
+     * Classify the exception that ended a probe before a response arrived
+     */
+    public static ProbeError of(Throwable error) {
+        Throwable cause = error instanceof CompletionException && error.getCause() != null
+            ? error.getCause() : error;
+        if (cause instanceof HttpConnectTimeoutException) {
+            return CONNECT;
+        }
+        if (cause instanceof HttpTimeoutException) {
+            return TIMEOUT;
+        }
+        if (cause instanceof UnknownHostException) {
+            return DNS;
+        }
+        if (cause instanceof ConnectException) {
+            return CONNECT;
+        }
+        if (cause instanceof SSLException) {
+            return TLS;
+        }
+        if (cause instanceof IllegalArgumentException) {
+            return INVALID_URL;
+        }
+        if (cause instanceof InterruptedException) {
+            return INTERRUPTED;
+        }
+        if (cause instanceof IOException) {
+            return IO;
+        }
+        return OTHER;
+    }
+}
@@ -0,0 +1,184 @@
+package com.Health;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs probes in the configured execution mode
+ *
+ *   async           - non-blocking sends on the shared HttpClient (default)
+ *   fixed-pool      - blocking sends on a fixed pool of platform threads
+ *   virtual-threads - blocking sends, one Java 21 virtual thread per probe
+ *
+ * Every mode goes through a HostLimiter, which bounds the probes in flight per
+ * host and fails probes to unreachable hosts fast. Targets with a SocketCheck
+ * (tcp, tls, status-line) run on the SelectorProbeEngine in every mode
+ */
+public class ProbeExecutor {
+
+    public enum Mode {
+        ASYNC, FIXED_POOL, VIRTUAL_THREADS;
+
+        static Mode parse(String value) {
+            switch (value.trim().toLowerCase()) {
+                case "fixed-pool": return FIXED_POOL;
+                case "virtual-threads": return VIRTUAL_THREADS;
+                case "async": return ASYNC;
+                default:
+                    System.err.println("Unknown probe mode '" + value + "', using async");
+                    return ASYNC;
+            }
+        }
+    }
+
+    private final ProbeEngine engine;
+    private final Mode mode;
+    private final ExecutorService executor;
+    private final HostLimiter hostLimiter;
+    private int selectorThreads = Runtime.getRuntime().availableProcessors();
+    private volatile SelectorProbeEngine sockets;
+
+    public ProbeExecutor(ProbeEngine engine, Mode mode, int poolSize, int maxPerHost) {
+        this(engine, mode, poolSize, new HostLimiter(maxPerHost));
+    }
+
+    public ProbeExecutor(ProbeEngine engine, Mode mode, int poolSize, HostLimiter hostLimiter) {
+        this.engine = engine;
+        this.hostLimiter = hostLimiter;
+
+        ExecutorService selected = null;
+        Mode effective = mode;
+        if (mode == Mode.VIRTUAL_THREADS) {
+            selected = newVirtualThreadExecutor();
+            if (selected == null) {
+                System.err.println("Virtual threads need Java 21+, falling back to fixed-pool mode");
+                effective = Mode.FIXED_POOL;
+            }
+        }
+        if (effective == Mode.FIXED_POOL) {
+            selected = Executors.newFixedThreadPool(poolSize, daemonThreads("probe-worker-"));
+        }
+        this.mode = effective;
+        this.executor = selected;
+    }
+
+    /**
+     * Executor configured by health.probe.mode, health.probe.pool-size, health.probe.max-per-host
+     * health.probe.breaker.* and health.probe.selector-threads
+     */
+    public static ProbeExecutor fromConfig(ProbeEngine engine, HealthConfig config) {
+        HostLimiter hostLimiter = new HostLimiter(
+            config.getInt("health.probe.max-per-host", 64),
+            config.getInt("health.probe.breaker.failures", 5),
+            config.getInt("health.probe.breaker.open-ms", 30000),
+            config.getInt("health.probe.breaker.max-open-ms", 300000));
+        ProbeExecutor executor = new ProbeExecutor(engine,
+            Mode.parse(config.getString("health.probe.mode", "async")),
+            config.getInt("health.probe.pool-size", 3),
+            hostLimiter);
+        executor.selectorThreads = Math.max(1,
+            config.getInt("health.probe.selector-threads", Runtime.getRuntime().availableProcessors()));
+        return executor;
+    }
+
+    public Mode mode() {
+        return mode;
+    }
+
+    public HostLimiter hostLimiter() {
+        return hostLimiter;
+    }
+
+    /**
+     * Probe a URL in the configured mode; the future never completes exceptionally
+     */
+    public CompletableFuture<ProbeResult> probe(String url, int timeoutMs) {
+        return probe(url, timeoutMs, null);
+    }
+
+    /**
+     * @param assertion checked against the body of a 2xx response, or null
+     */
+    public CompletableFuture<ProbeResult> probe(String url, int timeoutMs, BodyAssertion assertion) {
+        return hostLimiter.submit(url, () -> dispatch(url, timeoutMs, assertion));
+    }
+
+    /**
+     * @param socketCheck socket-level check run instead of the HTTP probe, or null
+     */
+    public CompletableFuture<ProbeResult> probe(String url, int timeoutMs, BodyAssertion assertion,
+                                                SocketCheck socketCheck) {
+        if (socketCheck == null) {
+            return probe(url, timeoutMs, assertion);
+        }
+        return hostLimiter.submit(url, () -> sockets().probe(socketCheck, url, timeoutMs));
+    }
+
+    /**
+     * Selector engine for socket checks, started on the first one; shares the
+     * ProbeEngine's DNS cache and TLS sessions
+     */
+    public SelectorProbeEngine sockets() {
+        SelectorProbeEngine current = sockets;
+        if (current == null) {
+            synchronized (this) {
+                current = sockets;
+                if (current == null) {
+                    current = new SelectorProbeEngine(selectorThreads, engine.dns(), engine.tls());
+                    sockets = current;
+                }
+            }
+        }
+        return current;
+    }
+
+    /**
+     * Start an admitted probe; blocking modes only take a thread once the host has a free slot
+     */
+    private CompletableFuture<ProbeResult> dispatch(String url, int timeoutMs, BodyAssertion assertion) {
+        if (executor == null) {
+            return engine.probe(url, timeoutMs, assertion);
+        }
+        try {
+            return CompletableFuture.supplyAsync(() -> engine.probeBlocking(url, timeoutMs, assertion), executor);
+        } catch (RejectedExecutionException e) {
+            return CompletableFuture.completedFuture(ProbeResult.failure(url, 0, "probe executor shut down"));
+        }
+    }
+
+    public void shutdown() {
+        if (executor != null) {
+            executor.shutdown();
+        }
+        if (sockets != null) {
+            sockets.shutdown();
+        }
+    }
+
+    /**
+     * Executors.newVirtualThreadPerTaskExecutor() looked up reflectively, so the
+     * code still builds for Java 17; null when the runtime has no virtual threads
+     */
+    static ExecutorService newVirtualThreadExecutor() {
+        try {
+            Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) factory.invoke(null);
+        } catch (ReflectiveOperationException e) {
+            return null;
+        }
+    }
+
+    private static ThreadFactory daemonThreads(String prefix) {
+        AtomicInteger counter = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, prefix + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
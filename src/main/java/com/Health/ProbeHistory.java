@@ -0,0 +1,515 @@
+package com.Health;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Stream;
+
+/**
+ * Append-only probe history in segmented, memory-mapped files
+ * Every result is a fixed 24-byte record; writers reserve a slot with one
+ * atomic increment and write it in place, so appends never take a lock or
+ * make a system call. Each segment tracks its time range and which targets
+ * it contains, plus the time range of every block of 4096 records, so a range
+ * query for one target only reads blocks that can hold matching records.
+ * Segments older than the retention are deleted whole
+ *
+ * Record layout (little-endian):
+ *   0  long  timestamp (epoch millis)
+ *   8  int   target id
+ *   12 int   latency (micros)
+ *   16 short status code (-1 without a response)
+ *   18 byte  error class (ProbeError code)
+ *   19 byte  reserved
+ *   20 int   commit marker, written last
+ */
+public class ProbeHistory {
+
+    static final int RECORD_SIZE = 24;
+    static final int HEADER_SIZE = 64;
+    static final int BLOCK_SHIFT = 12;
+
+    private static final long SEGMENT_MAGIC = 0x3130545348434848L; // "HHCHST01"
+    private static final int FORMAT_VERSION = 1;
+    private static final int COMMITTED = 0x52434843;
+    private static final String TARGETS_FILE = "targets.tsv";
+    private static final String SEGMENT_PREFIX = "segment-";
+    private static final String SEGMENT_SUFFIX = ".seg";
+
+    private static final VarHandle INT_VIEW =
+        MethodHandles.byteBufferViewVarHandle(int[].class, ByteOrder.LITTLE_ENDIAN);
+
+    /**
+     * Receives records from a scan; return false to stop
+     */
+    public interface RecordVisitor {
+        boolean visit(int targetId, long timestampMillis, int statusCode, int latencyMicros, ProbeError error);
+    }
+
+    private final Path directory;
+    private final int segmentRecords;
+    private final long retentionMillis;
+
+    // Stable target ids, independent of registry order
+    private final ConcurrentHashMap<String, Integer> idsByName = new ConcurrentHashMap<>();
+    private final List<String> names = new CopyOnWriteArrayList<>();
+    private final BufferedWriter targetsWriter;
+
+    private final CopyOnWriteArrayList<Segment> segments = new CopyOnWriteArrayList<>();
+    private volatile Segment current;
+    private long nextSequence;
+
+    private final LongAdder appended = new LongAdder();
+
+    private ProbeHistory(Path directory, int segmentRecords, long retentionMillis) throws IOException {
+        this.directory = directory;
+        this.segmentRecords = segmentRecords;
+        this.retentionMillis = retentionMillis;
+        Files.createDirectories(directory);
+
+        Path targetsFile = directory.resolve(TARGETS_FILE);
+        if (Files.exists(targetsFile)) {
+            for (String line : Files.readAllLines(targetsFile, StandardCharsets.UTF_8)) {
+                int tab = line.indexOf('\t');
+                if (tab > 0) {
+                    String name = line.substring(tab + 1);
+                    idsByName.put(name, names.size());
+                    names.add(name);
+                }
+            }
+        }
+        this.targetsWriter = Files.newBufferedWriter(targetsFile, StandardCharsets.UTF_8,
+            StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+
+        List<Path> files = new ArrayList<>();
+        try (Stream<Path> listing = Files.list(directory)) {
+            listing.filter(path -> path.getFileName().toString().startsWith(SEGMENT_PREFIX)
+                    && path.getFileName().toString().endsWith(SEGMENT_SUFFIX))
+                .sorted()
+                .forEach(files::add);
+        }
+        for (Path file : files) {
+            Segment segment = Segment.open(file, names.size());
+            if (segment != null) {
+                segments.add(segment);
+                nextSequence = Math.max(nextSequence, segment.sequence + 1);
+            }
+        }
+
+        Segment last = segments.isEmpty() ? null : segments.get(segments.size() - 1);
+        current = last != null && last.count() < last.capacity ? last : newSegment();
+        enforceRetention();
+    }
+
+    public static ProbeHistory open(Path directory, int segmentRecords, long retentionMillis) throws IOException {
+        return new ProbeHistory(directory, segmentRecords, retentionMillis);
+    }
+
+    /**
+     * History configured in application.properties, or null when disabled
+     */
+    public static ProbeHistory fromConfig(HealthConfig config) throws IOException {
+        if (!config.getBoolean("health.history.enabled", false)) {
+            return null;
+        }
+        return open(Paths.get(config.getString("health.history.dir", "data/history")),
+            config.getInt("health.history.segment-records", 1 << 20),
+            config.getInt("health.history.retention-hours", 168) * 3600_000L);
+    }
+
+    /**
+     * Stable history id of a target name, assigned on first use
+     */
+    public int targetId(String name) {
+        Integer id = idsByName.get(name);
+        return id != null ? id : assignTargetId(name);
+    }
+
+    private synchronized int assignTargetId(String name) {
+        Integer id = idsByName.get(name);
+        if (id != null) {
+            return id;
+        }
+        int assigned = names.size();
+        try {
+            targetsWriter.write(assigned + "\t" + name + "\n");
+            targetsWriter.flush();
+        } catch (IOException e) {
+            System.err.println("Failed to persist history target " + name + ": " + e.getMessage());
+        }
+        names.add(name);
+        idsByName.put(name, assigned);
+        return assigned;
+    }
+
+    /**
+     * Name of a history target id, or null if unknown
+     */
+    public String targetName(int id) {
+        return id >= 0 && id < names.size() ? names.get(id) : null;
+    }
+
+    public int targetCount() {
+        return names.size();
+    }
+
+    /**
+     * Append a probe result stamped with the current time
+     */
+    public void append(int targetId, ProbeResult result) {
+        append(targetId, System.currentTimeMillis(), result.getStatusCode(),
+            (int) Math.min(Integer.MAX_VALUE, result.getLatencyNanos() / 1000), result.getErrorClass());
+    }
+
+    public void append(int targetId, long timestampMillis, int statusCode, int latencyMicros, ProbeError error) {
+        Segment segment = current;
+        while (true) {
+            int slot = segment.reserve();
+            if (slot >= 0) {
+                segment.write(slot, targetId, timestampMillis, statusCode, latencyMicros, error);
+                appended.increment();
+                return;
+            }
+            segment = roll(segment);
+        }
+    }
+
+    private synchronized Segment roll(Segment full) {
+        if (current == full) {
+            try {
+                current = newSegment();
+            } catch (IOException e) {
+                throw new IllegalStateException("Cannot create history segment in " + directory, e);
+            }
+            enforceRetention();
+        }
+        return current;
+    }
+
+    private Segment newSegment() throws IOException {
+        Path file = directory.resolve(String.format("%s%012d%s", SEGMENT_PREFIX, nextSequence, SEGMENT_SUFFIX));
+        // The bitmap grows if more targets than this are written
+        Segment segment = Segment.create(file, nextSequence++, segmentRecords, Math.max(1024, names.size() * 2));
+        segments.add(segment);
+        return segment;
+    }
+
+    /**
+     * Visit the records of one target within [fromMillis, toMillis] in write order
+     * Segments outside the range or without the target are skipped unread
+     * @return number of records visited
+     */
+    public long query(int targetId, long fromMillis, long toMillis, RecordVisitor visitor) {
+        long visited = 0;
+        for (Segment segment : segments) {
+            if (!segment.mayContain(targetId, fromMillis, toMillis)) {
+                continue;
+            }
+            int count = segment.count();
+            MappedByteBuffer buffer = segment.buffer;
+            for (int block = 0; block << BLOCK_SHIFT < count; block++) {
+                if (!segment.blockOverlaps(block, fromMillis, toMillis)) {
+                    continue;
+                }
+                int end = Math.min(count, (block + 1) << BLOCK_SHIFT);
+                for (int slot = block << BLOCK_SHIFT; slot < end; slot++) {
+                    int offset = HEADER_SIZE + slot * RECORD_SIZE;
+                    if ((int) INT_VIEW.getAcquire(buffer, offset + 20) != COMMITTED
+                            || buffer.getInt(offset + 8) != targetId) {
+                        continue;
+                    }
+                    long timestamp = buffer.getLong(offset);
+                    if (timestamp < fromMillis || timestamp > toMillis) {
+                        continue;
+                    }
+                    visited++;
+                    if (!visitor.visit(targetId, timestamp, buffer.getShort(offset + 16),
+                            buffer.getInt(offset + 12), ProbeError.fromCode(buffer.get(offset + 18)))) {
+                        return visited;
+                    }
+                }
+            }
+        }
+        return visited;
+    }
+
+    /**
+     * Records of one target within [fromMillis, toMillis], at most limit of them
+     */
+    public List<ProbeRecord> query(int targetId, long fromMillis, long toMillis, int limit) {
+        List<ProbeRecord> records = new ArrayList<>();
+        query(targetId, fromMillis, toMillis, (id, timestamp, statusCode, latencyMicros, error) -> {
+            records.add(new ProbeRecord(id, timestamp, statusCode, latencyMicros, error));
+            return records.size() < limit;
+        });
+        return records;
+    }
+
+    /**
+     * Visit every retained record in write order
+     */
+    public void scan(RecordVisitor visitor) {
+        for (Segment segment : segments) {
+            int count = segment.count();
+            for (int slot = 0; slot < count; slot++) {
+                int offset = HEADER_SIZE + slot * RECORD_SIZE;
+                MappedByteBuffer buffer = segment.buffer;
+                if ((int) INT_VIEW.getAcquire(buffer, offset + 20) != COMMITTED) {
+                    continue;
+                }
+                if (!visitor.visit(buffer.getInt(offset + 8), buffer.getLong(offset), buffer.getShort(offset + 16),
+                        buffer.getInt(offset + 12), ProbeError.fromCode(buffer.get(offset + 18)))) {
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * Delete segments whose newest record is older than the retention
+     * @return number of segments deleted
+     */
+    public synchronized int enforceRetention() {
+        if (retentionMillis <= 0) {
+            return 0;
+        }
+        long cutoff = System.currentTimeMillis() - retentionMillis;
+        int deleted = 0;
+        for (Segment segment : segments) {
+            if (segment != current && segment.maxTimestamp.get() < cutoff) {
+                segments.remove(segment);
+                try {
+                    Files.deleteIfExists(segment.file);
+                    deleted++;
+                } catch (IOException e) {
+                    System.err.println("Failed to delete history segment " + segment.file + ": " + e.getMessage());
+                }
+            }
+        }
+        return deleted;
+    }
+
+    /**
+     * Force mapped records to disk
+     */
+    public void flush() {
+        for (Segment segment : segments) {
+            segment.buffer.force();
+        }
+    }
+
+    public synchronized void close() {
+        flush();
+        try {
+            targetsWriter.close();
+        } catch (IOException e) {
+            System.err.println("Failed to close history target file: " + e.getMessage());
+        }
+    }
+
+    public long appended() {
+        return appended.sum();
+    }
+
+    public int segments() {
+        return segments.size();
+    }
+
+    public Path directory() {
+        return directory;
+    }
+
+    /**
+     * One mapped file with its time range, per-block time ranges and target bitmap
+     */
+    private static final class Segment {
+        final Path file;
+        final long sequence;
+        final int capacity;
+        final MappedByteBuffer buffer;
+        final AtomicInteger next = new AtomicInteger();
+        final AtomicLong minTimestamp = new AtomicLong(Long.MAX_VALUE);
+        final AtomicLong maxTimestamp = new AtomicLong(Long.MIN_VALUE);
+        final AtomicLongArray blockMin;
+        final AtomicLongArray blockMax;
+        // Replaced by a larger copy when a target id beyond it is written
+        volatile AtomicLongArray targets;
+
+        private Segment(Path file, long sequence, int capacity, MappedByteBuffer buffer, int bitmapTargets) {
+            this.file = file;
+            this.sequence = sequence;
+            this.capacity = capacity;
+            this.buffer = buffer;
+            this.targets = new AtomicLongArray((bitmapTargets + 63) >>> 6);
+            int blocks = (capacity + (1 << BLOCK_SHIFT) - 1) >>> BLOCK_SHIFT;
+            this.blockMin = new AtomicLongArray(blocks);
+            this.blockMax = new AtomicLongArray(blocks);
+            for (int block = 0; block < blocks; block++) {
+                blockMin.set(block, Long.MAX_VALUE);
+                blockMax.set(block, Long.MIN_VALUE);
+            }
+        }
+
+        static Segment create(Path file, long sequence, int capacity, int bitmapTargets) throws IOException {
+            MappedByteBuffer buffer = map(file, capacity);
+            buffer.putLong(0, SEGMENT_MAGIC);
+            buffer.putInt(8, FORMAT_VERSION);
+            buffer.putInt(12, RECORD_SIZE);
+            buffer.putInt(16, capacity);
+            buffer.putLong(20, sequence);
+            return new Segment(file, sequence, capacity, buffer, bitmapTargets);
+        }
+
+        /**
+         * Map an existing segment and rebuild its index, or null if the file is not a segment
+         */
+        static Segment open(Path file, int bitmapTargets) throws IOException {
+            MappedByteBuffer header;
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+                if (channel.size() < HEADER_SIZE) {
+                    return null;
+                }
+                header = channel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_SIZE);
+            }
+            header.order(ByteOrder.LITTLE_ENDIAN);
+            if (header.getLong(0) != SEGMENT_MAGIC || header.getInt(12) != RECORD_SIZE) {
+                System.err.println("Skipping unrecognised history file " + file);
+                return null;
+            }
+            int capacity = header.getInt(16);
+            Segment segment = new Segment(file, header.getLong(20), capacity, map(file, capacity), bitmapTargets);
+
+            // A crash can leave holes; readers skip uncommitted slots
+            int end = 0;
+            for (int slot = 0; slot < capacity; slot++) {
+                int offset = HEADER_SIZE + slot * RECORD_SIZE;
+                if (segment.buffer.getInt(offset + 20) == COMMITTED) {
+                    segment.index(slot, segment.buffer.getInt(offset + 8), segment.buffer.getLong(offset));
+                    end = slot + 1;
+                }
+            }
+            segment.next.set(end);
+            return segment;
+        }
+
+        private static MappedByteBuffer map(Path file, int capacity) throws IOException {
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE,
+                    StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+                MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0,
+                    HEADER_SIZE + (long) capacity * RECORD_SIZE);
+                buffer.order(ByteOrder.LITTLE_ENDIAN);
+                return buffer;
+            }
+        }
+
+        /**
+         * Reserve a record slot, or -1 when the segment is full
+         */
+        int reserve() {
+            int slot = next.getAndIncrement();
+            return slot < capacity ? slot : -1;
+        }
+
+        /**
+         * Slots that may hold records
+         */
+        int count() {
+            return Math.min(next.get(), capacity);
+        }
+
+        void write(int slot, int targetId, long timestampMillis, int statusCode, int latencyMicros, ProbeError error) {
+            int offset = HEADER_SIZE + slot * RECORD_SIZE;
+            buffer.putLong(offset, timestampMillis);
+            buffer.putInt(offset + 8, targetId);
+            buffer.putInt(offset + 12, latencyMicros);
+            buffer.putShort(offset + 16, (short) statusCode);
+            buffer.put(offset + 18, (byte) error.code());
+            index(slot, targetId, timestampMillis);
+            INT_VIEW.setRelease(buffer, offset + 20, COMMITTED);
+        }
+
+        private void index(int slot, int targetId, long timestampMillis) {
+            lowerTo(minTimestamp, timestampMillis);
+            raiseTo(maxTimestamp, timestampMillis);
+            int block = slot >>> BLOCK_SHIFT;
+            long min = blockMin.get(block);
+            while (timestampMillis < min && !blockMin.compareAndSet(block, min, timestampMillis)) {
+                min = blockMin.get(block);
+            }
+            long max = blockMax.get(block);
+            while (timestampMillis > max && !blockMax.compareAndSet(block, max, timestampMillis)) {
+                max = blockMax.get(block);
+            }
+
+            int word = targetId >>> 6;
+            AtomicLongArray bitmap = targets;
+            if (word < bitmap.length() && (bitmap.get(word) & (1L << targetId)) != 0) {
+                return;
+            }
+            addTarget(targetId);
+        }
+
+        /**
+         * Set a target's bit, growing the bitmap first if the id is beyond it. Locked,
+         * so a bit is never set in an array that is being copied; this happens once
+         * per target and segment
+         */
+        private synchronized void addTarget(int targetId) {
+            int word = targetId >>> 6;
+            AtomicLongArray bitmap = targets;
+            if (word >= bitmap.length()) {
+                AtomicLongArray grown = new AtomicLongArray(Math.max(word + 1, bitmap.length() * 2));
+                for (int i = 0; i < bitmap.length(); i++) {
+                    grown.set(i, bitmap.get(i));
+                }
+                targets = grown;
+                bitmap = grown;
+            }
+            bitmap.set(word, bitmap.get(word) | (1L << targetId));
+        }
+
+        private static void lowerTo(AtomicLong bound, long value) {
+            long current = bound.get();
+            while (value < current && !bound.compareAndSet(current, value)) {
+                current = bound.get();
+            }
+        }
+
+        private static void raiseTo(AtomicLong bound, long value) {
+            long current = bound.get();
+            while (value > current && !bound.compareAndSet(current, value)) {
+                current = bound.get();
+            }
+        }
+
+        boolean blockOverlaps(int block, long fromMillis, long toMillis) {
+            return blockMax.get(block) >= fromMillis && blockMin.get(block) <= toMillis;
+        }
+
+        boolean mayContain(int targetId, long fromMillis, long toMillis) {
+            if (maxTimestamp.get() < fromMillis || minTimestamp.get() > toMillis) {
+                return false;
+            }
+            AtomicLongArray bitmap = targets;
+            int word = targetId >>> 6;
+            return word < bitmap.length() && (bitmap.get(word) & (1L << targetId)) != 0;
+        }
+    }
+}
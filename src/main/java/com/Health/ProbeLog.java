@@ -0,0 +1,319 @@
+package com.Health;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.IntFunction;
+
+/**
+ * Asynchronous probe log
+ * Probe threads claim a slot in a pre-allocated ring buffer with one CAS and
+ * store the raw fields of the result; nothing is formatted or written on the
+ * probing thread. A single writer thread formats the records in batches and
+ * appends them to a size-rotated file (and optionally the console). When the
+ * ring is full a record is dropped and counted rather than blocking the probe
+ */
+public class ProbeLog {
+
+    private static final DateTimeFormatter TIME_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+    private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(10);
+    private static final int MAX_BATCH = 4096;
+
+    private final int capacity;
+    private final int mask;
+    private final long[] timestamps;
+    private final int[] targets;
+    private final int[] statusCodes;
+    private final int[] latencies;
+    private final boolean[] healthy;
+    private final String[] errors;
+    // Sequence + 1 of the record a slot holds once it is fully written
+    private final AtomicLongArray published;
+    private final AtomicLong claimed = new AtomicLong();
+    private volatile long consumed;
+
+    private final IntFunction<String> urls;
+    private final Path file;
+    private final long maxFileBytes;
+    private final int maxFiles;
+    private final PrintStream console;
+    private final Thread writer;
+    private volatile boolean running = true;
+
+    private OutputStream out;
+    private long fileBytes;
+    private long lastSecond = -1;
+    private String lastTimestamp;
+
+    private final LongAdder dropped = new LongAdder();
+    private volatile long written;
+    private volatile long batches;
+    private volatile long rotations;
+
+    /**
+     * @param capacity ring size, rounded up to a power of two
+     * @param urls url of a target id, resolved on the writer thread
+     * @param file log file, or null to log to the console only
+     * @param console stream that also receives every line, or null
+     */
+    public ProbeLog(int capacity, IntFunction<String> urls, Path file, long maxFileBytes, int maxFiles,
+                    PrintStream console) throws IOException {
+        int size = Integer.highestOneBit(Math.max(2, capacity - 1)) << 1;
+        this.capacity = size;
+        this.mask = size - 1;
+        this.timestamps = new long[size];
+        this.targets = new int[size];
+        this.statusCodes = new int[size];
+        this.latencies = new int[size];
+        this.healthy = new boolean[size];
+        this.errors = new String[size];
+        this.published = new AtomicLongArray(size);
+        this.urls = urls;
+        this.file = file;
+        this.maxFileBytes = maxFileBytes;
+        this.maxFiles = maxFiles;
+        this.console = console;
+        if (file != null) {
+            openFile();
+        }
+
+        this.writer = new Thread(this::drainLoop, "probe-log-writer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    /**
+     * Log configured by health.log.*, or null when probe logging is disabled
+     */
+    public static ProbeLog fromConfig(HealthConfig config, IntFunction<String> urls) {
+        if (!config.getBoolean("health.log.enabled", true)) {
+            return null;
+        }
+        String file = config.getString("health.log.file", "");
+        boolean console = config.getBoolean("health.log.console", file.isEmpty());
+        try {
+            return new ProbeLog(
+                config.getInt("health.log.buffer-size", 65536),
+                urls,
+                file.isEmpty() ? null : Paths.get(file),
+                config.getInt("health.log.max-file-mb", 64) * 1024L * 1024L,
+                config.getInt("health.log.max-files", 5),
+                console ? System.out : null);
+        } catch (IOException e) {
+            System.err.println("Probe log file unavailable, logging to console: " + e.getMessage());
+            try {
+                return new ProbeLog(config.getInt("health.log.buffer-size", 65536), urls, null, 0, 0, System.out);
+            } catch (IOException impossible) {
+                return null;
+            }
+        }
+    }
+
+    /**
+     * Queue one probe result; never blocks, returns false if the record was dropped
+     */
+    public boolean log(int targetId, ProbeResult result) {
+        long sequence;
+        do {
+            sequence = claimed.get();
+            if (sequence - consumed >= capacity) {
+                dropped.increment();
+                return false;
+            }
+        } while (!claimed.compareAndSet(sequence, sequence + 1));
+
+        int slot = (int) (sequence & mask);
+        timestamps[slot] = System.currentTimeMillis();
+        targets[slot] = targetId;
+        statusCodes[slot] = result.getStatusCode();
+        latencies[slot] = (int) Math.min(Integer.MAX_VALUE, result.getLatencyNanos() / 1000);
+        healthy[slot] = result.isHealthy();
+        errors[slot] = result.getError();
+        published.lazySet(slot, sequence + 1);
+        return true;
+    }
+
+    private void drainLoop() {
+        StringBuilder batch = new StringBuilder(64 * 1024);
+        while (running || consumed < claimed.get()) {
+            long next = consumed;
+            int count = 0;
+            while (count < MAX_BATCH && published.get((int) (next & mask)) == next + 1) {
+                int slot = (int) (next & mask);
+                format(batch, slot);
+                errors[slot] = null;
+                next++;
+                count++;
+            }
+            if (count == 0) {
+                if (!running && consumed >= claimed.get()) {
+                    break;
+                }
+                LockSupport.parkNanos(IDLE_PARK_NANOS);
+                continue;
+            }
+            consumed = next;
+            write(batch);
+            batch.setLength(0);
+            written += count;
+            batches++;
+        }
+        closeFile();
+    }
+
+    private void format(StringBuilder line, int slot) {
+        long second = timestamps[slot] / 1000;
+        if (second != lastSecond) {
+            lastSecond = second;
+            lastTimestamp = LocalDateTime.ofInstant(Instant.ofEpochSecond(second), ZoneId.systemDefault())
+                .format(TIME_FORMAT);
+        }
+        line.append('[').append(lastTimestamp).append("] ");
+        int latencyMillis = latencies[slot] / 1000;
+        if (errors[slot] != null && statusCodes[slot] < 0) {
+            line.append("ERROR checking ").append(urls.apply(targets[slot])).append(": ").append(errors[slot]);
+        } else {
+            line.append(urls.apply(targets[slot]));
+            if (statusCodes[slot] == 0) {
+                // tcp and tls checks pass without an HTTP response
+                line.append(" - Connected - ");
+            } else {
+                line.append(" - Status: ").append(statusCodes[slot]).append(" - ");
+            }
+            line.append(healthy[slot] ? "HEALTHY" : "UNHEALTHY");
+            if (errors[slot] != null) {
+                line.append(": ").append(errors[slot]);
+            }
+        }
+        line.append(" (").append(latencyMillis).append(" ms)\n");
+    }
+
+    private void write(StringBuilder batch) {
+        byte[] bytes = batch.toString().getBytes(StandardCharsets.UTF_8);
+        if (console != null) {
+            console.write(bytes, 0, bytes.length);
+            console.flush();
+        }
+        if (out == null) {
+            return;
+        }
+        try {
+            if (fileBytes > 0 && fileBytes + bytes.length > maxFileBytes) {
+                rotate();
+            }
+            out.write(bytes);
+            out.flush();
+            fileBytes += bytes.length;
+        } catch (IOException e) {
+            System.err.println("Probe log write failed, continuing on console only: " + e.getMessage());
+            closeFile();
+        }
+    }
+
+    private void openFile() throws IOException {
+        Path parent = file.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        out = new BufferedOutputStream(Files.newOutputStream(file,
+            StandardOpenOption.CREATE, StandardOpenOption.APPEND), 64 * 1024);
+        fileBytes = Files.size(file);
+    }
+
+    /**
+     * probes.log becomes probes.log.1, probes.log.1 becomes probes.log.2 and so on;
+     * the oldest file beyond maxFiles is deleted
+     */
+    private void rotate() throws IOException {
+        out.close();
+        Files.deleteIfExists(rotated(maxFiles));
+        for (int i = maxFiles - 1; i >= 1; i--) {
+            Path source = rotated(i);
+            if (Files.exists(source)) {
+                Files.move(source, rotated(i + 1), StandardCopyOption.REPLACE_EXISTING);
+            }
+        }
+        if (maxFiles > 0) {
+            Files.move(file, rotated(1), StandardCopyOption.REPLACE_EXISTING);
+        } else {
+            Files.deleteIfExists(file);
+        }
+        rotations++;
+        openFile();
+    }
+
+    private Path rotated(int index) {
+        return file.resolveSibling(file.getFileName() + "." + index);
+    }
+
+    private void closeFile() {
+        if (out != null) {
+            try {
+                out.close();
+            } catch (IOException e) {
+                // Nothing left to do with a broken log file
+            }
+            out = null;
+        }
+    }
+
+    /**
+     * Write out everything queued so far and stop the writer
+     */
+    public void close() {
+        running = false;
+        LockSupport.unpark(writer);
+        try {
+            writer.join(5000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    public int capacity() {
+        return capacity;
+    }
+
+    /**
+     * Records waiting for the writer
+     */
+    public long backlog() {
+        return claimed.get() - consumed;
+    }
+
+    public long written() {
+        return written;
+    }
+
+    public long dropped() {
+        return dropped.sum();
+    }
+
+    public long batches() {
+        return batches;
+    }
+
+    public long rotations() {
+        return rotations;
+    }
+
+    public Path file() {
+        return file;
+    }
+}
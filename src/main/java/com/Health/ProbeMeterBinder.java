@@ -0,0 +1,144 @@
+package com.Health;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.FunctionTimer;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.TimeGauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import java.util.concurrent.TimeUnit;
+import java.util.function.ToDoubleFunction;
+import org.springframework.stereotype.Component;
+
+/**
+ * Registers the probe state as Micrometer meters (exposed at /actuator/prometheus)
+ * Every meter is a function meter that reads the counters the prober keeps
+ * anyway, so probing does no extra work and a scrape costs one array read per
+ * series. Per-target meters carry a target tag and are limited to
+ * health.metrics.per-target-limit targets; the fleet-wide meters are always
+ * registered
+ */
+@Component
+public class ProbeMeterBinder implements MeterBinder {
+
+    private final boolean perTarget;
+    private final int perTargetLimit;
+
+    public ProbeMeterBinder() {
+        this(HealthConfig.get().getBoolean("health.metrics.per-target", true),
+            HealthConfig.get().getInt("health.metrics.per-target-limit", 20000));
+    }
+
+    public ProbeMeterBinder(boolean perTarget, int perTargetLimit) {
+        this.perTarget = perTarget;
+        this.perTargetLimit = perTargetLimit;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry meters) {
+        TargetRegistry targets = HealthCheckService.registry();
+        bindFleet(meters, targets);
+        if (perTarget) {
+            int count = Math.min(targets.size(), perTargetLimit);
+            for (int id = 0; id < count; id++) {
+                bindTarget(meters, targets, id);
+            }
+            if (targets.size() > count) {
+                System.err.println("Per-target metrics limited to " + count + " of " + targets.size()
+                    + " targets (health.metrics.per-target-limit)");
+            }
+        }
+    }
+
+    private static void bindFleet(MeterRegistry meters, TargetRegistry targets) {
+        Gauge.builder("health.targets", targets, t -> t.countStatus(TargetRegistry.STATUS_HEALTHY))
+            .tag("status", "healthy")
+            .description("Monitored targets by current status")
+            .register(meters);
+        Gauge.builder("health.targets", targets, t -> t.countStatus(TargetRegistry.STATUS_UNHEALTHY))
+            .tag("status", "unhealthy")
+            .description("Monitored targets by current status")
+            .register(meters);
+        Gauge.builder("health.targets", targets, t -> t.countStatus(TargetRegistry.STATUS_UNKNOWN))
+            .tag("status", "unknown")
+            .description("Monitored targets by current status")
+            .register(meters);
+
+        FunctionCounter.builder("health.probes", targets, t -> HealthCheckService.totalChecks())
+            .description("Probes completed")
+            .register(meters);
+        for (ProbeError cause : ProbeError.values()) {
+            if (cause == ProbeError.NONE) {
+                continue;
+            }
+            FunctionCounter.builder("health.probe.errors", targets, t -> HealthCheckService.probeErrors(cause))
+                .tag("cause", cause.name().toLowerCase())
+                .description("Failed probes by cause")
+                .register(meters);
+        }
+
+        HostLimiter hosts = HealthCheckService.probeExecutor().hostLimiter();
+        FunctionCounter.builder("health.probe.fast.failed", hosts, HostLimiter::fastFailed)
+            .description("Probes rejected by an open host circuit")
+            .register(meters);
+        Gauge.builder("health.probe.hosts.degraded", hosts, h -> h.troubledHosts().size())
+            .description("Hosts with an open circuit or queued probes")
+            .register(meters);
+
+        TimeGauge.builder("health.scheduler.lag", targets, TimeUnit.NANOSECONDS, t -> schedulerValue(ProbeScheduler::lastLagNanos))
+            .description("Lag of the most recent probe firing behind its deadline")
+            .register(meters);
+        TimeGauge.builder("health.scheduler.lag.max", targets, TimeUnit.MILLISECONDS, t -> schedulerValue(ProbeScheduler::maxLagMillis))
+            .description("Largest firing lag since the scheduler started")
+            .register(meters);
+        FunctionCounter.builder("health.scheduler.late.firings", targets, t -> schedulerValue(ProbeScheduler::lateFirings))
+            .description("Firings that ran more than one tick late")
+            .register(meters);
+        FunctionCounter.builder("health.scheduler.skipped", targets, t -> schedulerValue(ProbeScheduler::skippedInFlight))
+            .description("Firings skipped because the previous probe was still in flight")
+            .register(meters);
+        Gauge.builder("health.scheduler.pending", targets, t -> schedulerValue(scheduler -> scheduler.wheel().pending()))
+            .description("Targets with a pending timer")
+            .register(meters);
+    }
+
+    /**
+     * A reading of the current scheduler, 0 while monitoring is stopped
+     */
+    private static double schedulerValue(ToDoubleFunction<ProbeScheduler> reading) {
+        ProbeScheduler scheduler = HealthCheckService.scheduler();
+        return scheduler != null ? reading.applyAsDouble(scheduler) : 0;
+    }
+
+    private static void bindTarget(MeterRegistry meters, TargetRegistry targets, int id) {
+        String name = targets.name(id);
+        FunctionTimer.builder("health.probe.duration", targets,
+                t -> {
+                    LatencyHistogram latency = t.latency(id);
+                    return latency != null ? latency.count() : 0;
+                },
+                t -> {
+                    LatencyHistogram latency = t.latency(id);
+                    return latency != null ? latency.sumMicros() : 0;
+                },
+                TimeUnit.MICROSECONDS)
+            .tag("target", name)
+            .description("Probe latency per target")
+            .register(meters);
+        Gauge.builder("health.target.up", targets, t -> statusValue(t.status(id)))
+            .tag("target", name)
+            .description("1 if the target is healthy, 0 if unhealthy, NaN until its first probe")
+            .register(meters);
+        FunctionCounter.builder("health.target.failures", targets, t -> t.failedChecks(id))
+            .tag("target", name)
+            .description("Failed probes per target")
+            .register(meters);
+    }
+
+    private static double statusValue(int status) {
+        if (status == TargetRegistry.STATUS_HEALTHY) {
+            return 1;
+        }
+        return status == TargetRegistry.STATUS_UNHEALTHY ? 0 : Double.NaN;
+    }
+}
@@ -0,0 +1,48 @@
+package com.Health;
+
+/**
+ * One probe result read back from the probe history
+ */
+public final class ProbeRecord {
+
+    private final int targetId;
+    private final long timestampMillis;
+    private final int statusCode;
+    private final int latencyMicros;
+    private final ProbeError error;
+
+    public ProbeRecord(int targetId, long timestampMillis, int statusCode, int latencyMicros, ProbeError error) {
+        this.targetId = targetId;
+        this.timestampMillis = timestampMillis;
+        this.statusCode = statusCode;
+        this.latencyMicros = latencyMicros;
+        this.error = error;
+    }
+
+    /**
+     * History target id (see ProbeHistory#targetId), not the registry id
+     */
+    public int getTargetId() {
+        return targetId;
+    }
+
+    public long getTimestampMillis() {
+        return timestampMillis;
+    }
+
+    public int getStatusCode() {
+        return statusCode;
+    }
+
+    public int getLatencyMicros() {
+        return latencyMicros;
+    }
+
+    public ProbeError getError() {
+        return error;
+    }
+
+    public boolean isHealthy() {
+        return error == ProbeError.NONE;
+    }
+}
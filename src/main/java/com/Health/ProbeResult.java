@@ -0,0 +1,98 @@
+package com.Health;
+
+/**
+ * Immutable outcome of a single endpoint probe
+ * Carries the status code and measured latency instead of just a boolean
+ */
+public final class ProbeResult {
+
+    private final String url;
+    private final int statusCode;
+    private final long latencyNanos;
+    private final String error;
+    private final ProbeError errorClass;
+
+    private ProbeResult(String url, int statusCode, long latencyNanos, String error, ProbeError errorClass) {
+        this.url = url;
+        this.statusCode = statusCode;
+        this.latencyNanos = latencyNanos;
+        this.error = error;
+        this.errorClass = errorClass;
+    }
+
+    public static ProbeResult response(String url, int statusCode, long latencyNanos) {
+        return new ProbeResult(url, statusCode, latencyNanos, null,
+            statusCode >= 200 && statusCode < 300 ? ProbeError.NONE : ProbeError.HTTP_STATUS);
+    }
+
+    /**
+     * A socket check that passed without an HTTP response: the connection was
+     * accepted, or the TLS handshake and certificate checks passed
+     */
+    public static ProbeResult connected(String url, long latencyNanos) {
+        return new ProbeResult(url, 0, latencyNanos, null, ProbeError.NONE);
+    }
+
+    /**
+     * A 2xx response whose body failed the target's BodyAssertion
+     */
+    public static ProbeResult bodyMismatch(String url, int statusCode, long latencyNanos, String reason) {
+        return new ProbeResult(url, statusCode, latencyNanos, reason, ProbeError.BODY);
+    }
+
+    public static ProbeResult failure(String url, long latencyNanos, String error) {
+        return failure(url, latencyNanos, error, ProbeError.OTHER);
+    }
+
+    public static ProbeResult failure(String url, long latencyNanos, String error, ProbeError errorClass) {
+        return new ProbeResult(url, -1, latencyNanos, error, errorClass);
+    }
+
+    public String getUrl() {
+        return url;
+    }
+
+    /**
+     * HTTP status code, 0 for a passed tcp or tls check, or -1 when no response was received
+     */
+    public int getStatusCode() {
+        return statusCode;
+    }
+
+    public long getLatencyNanos() {
+        return latencyNanos;
+    }
+
+    public long getLatencyMillis() {
+        return latencyNanos / 1_000_000;
+    }
+
+    /**
+     * Error message when the probe failed before a response arrived, or why the
+     * body assertion failed, otherwise null
+     */
+    public String getError() {
+        return error;
+    }
+
+    /**
+     * NONE for a 2xx response, HTTP_STATUS for any other response, BODY for a failed
+     * body assertion, otherwise the failure class
+     */
+    public ProbeError getErrorClass() {
+        return errorClass;
+    }
+
+    // Consider 200-299 as healthy status, if the body assertion (when configured) passed
+    public boolean isHealthy() {
+        return errorClass == ProbeError.NONE;
+    }
+
+    @Override
+    public String toString() {
+        return url + " - " + (statusCode < 0 ? "ERROR: " + error
+                : statusCode == 0 ? "Connected"
+                : "Status: " + statusCode + (error != null ? ", " + error : ""))
+            + " (" + getLatencyMillis() + " ms)";
+    }
+}
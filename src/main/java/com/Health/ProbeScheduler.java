@@ -0,0 +1,243 @@
+package com.Health;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.IntPredicate;
+
+/**
+ * Per-target probe scheduler on a hashed timer wheel
+ * Every target has its own interval, timeout and random initial phase, so
+ * outbound probes are spread evenly over the period instead of firing in one
+ * batch. The wheel thread only dispatches asynchronous probes and never waits
+ * for them, so a hanging target cannot delay anyone else's schedule.
+ * With an AdaptiveInterval policy each target's interval moves between its
+ * bounds after every probe (see AdaptiveInterval)
+ *
+ * Per-target options: interval (ms), timeout (ms), jitter (ms, initial phase spread),
+ * min-interval and max-interval (ms, adaptive bounds)
+ */
+public class ProbeScheduler {
+
+    /**
+     * Starts an asynchronous probe of one target
+     */
+    public interface ProbeTask {
+        CompletableFuture<?> probe(int targetId, int timeoutMs);
+    }
+
+    private static final long TICK_MILLIS = 100;
+    private static final int WHEEL_SIZE = 4096;
+
+    private final TargetRegistry registry;
+    private final ProbeTask task;
+    private final int defaultIntervalMs;
+    private final int defaultTimeoutMs;
+    private final int defaultJitterMs;
+    private final TimerWheel wheel;
+    private final AdaptiveInterval adaptive;
+    private volatile IntPredicate assigned = id -> true;
+
+    // Scheduling metrics
+    private final AtomicLong dispatched = new AtomicLong();
+    private final AtomicLong skippedInFlight = new AtomicLong();
+    private final AtomicLong lateFirings = new AtomicLong();
+    private final AtomicLong confirmations = new AtomicLong();
+    private volatile long maxLagNanos = 0;
+    private volatile long lastLagNanos = 0;
+
+    public ProbeScheduler(TargetRegistry registry, ProbeTask task, int defaultIntervalMs, int defaultTimeoutMs) {
+        this(registry, task, defaultIntervalMs, defaultTimeoutMs, null);
+    }
+
+    /**
+     * @param adaptive interval policy, or null for fixed intervals
+     */
+    public ProbeScheduler(TargetRegistry registry, ProbeTask task, int defaultIntervalMs, int defaultTimeoutMs,
+                          AdaptiveInterval adaptive) {
+        this(registry, task, defaultIntervalMs, defaultTimeoutMs, -1, adaptive);
+    }
+
+    /**
+     * @param defaultJitterMs initial phase spread of targets without a jitter option,
+     *                        negative for the whole interval
+     * @param adaptive interval policy, or null for fixed intervals
+     */
+    public ProbeScheduler(TargetRegistry registry, ProbeTask task, int defaultIntervalMs, int defaultTimeoutMs,
+                          int defaultJitterMs, AdaptiveInterval adaptive) {
+        this.registry = registry;
+        this.task = task;
+        this.defaultIntervalMs = defaultIntervalMs;
+        this.defaultTimeoutMs = defaultTimeoutMs;
+        this.defaultJitterMs = defaultJitterMs;
+        this.adaptive = adaptive;
+        this.wheel = new TimerWheel(TICK_MILLIS, WHEEL_SIZE, this::fire);
+    }
+
+    /**
+     * Schedule every registered target and start the wheel thread
+     */
+    public void start() {
+        start(id -> true);
+    }
+
+    /**
+     * Schedule the targets assigned to this instance and start the wheel thread
+     * A target that stops being assigned is dropped at its next firing
+     * (see ClusterNode); add() schedules a newly assigned one
+     */
+    public void start(IntPredicate assigned) {
+        this.assigned = assigned;
+        for (int id = 0; id < registry.size(); id++) {
+            if (assigned.test(id)) {
+                add(id);
+            }
+        }
+        wheel.start("probe-scheduler");
+    }
+
+    public void stop() {
+        wheel.stop();
+    }
+
+    /**
+     * Schedule a target, with its first probe at a random point within its jitter window
+     */
+    public void add(int targetId) {
+        TargetSpec spec = registry.spec(targetId);
+        int interval = Math.max((int) TICK_MILLIS, spec.intOption("interval", defaultIntervalMs));
+        int timeout = spec.intOption("timeout", Math.min(defaultTimeoutMs, interval));
+        int jitter = Math.min(interval, spec.intOption("jitter", defaultJitterMs >= 0 ? defaultJitterMs : interval));
+
+        registry.setSchedule(targetId, interval, timeout);
+        if (adaptive != null) {
+            int minInterval = Math.max((int) TICK_MILLIS,
+                spec.intOption("min-interval", Math.min(adaptive.minIntervalMs(), interval)));
+            int maxInterval = Math.max(interval, spec.intOption("max-interval", Math.max(adaptive.maxIntervalMs(), interval)));
+            registry.setIntervalBounds(targetId, Math.min(minInterval, interval), maxInterval);
+        }
+        long phase = jitter > 0 ? ThreadLocalRandom.current().nextLong(jitter) : 0;
+        wheel.schedule(targetId, phase);
+    }
+
+    public void remove(int targetId) {
+        wheel.cancel(targetId);
+    }
+
+    /**
+     * Wheel callback: re-arm the timer first, then dispatch without blocking
+     */
+    private void fire(int targetId, long deadlineTick) {
+        if (!assigned.test(targetId)) {
+            return;
+        }
+        long lag = System.nanoTime() - wheel.tickDeadlineNanos(deadlineTick);
+        if (lag > wheel.tickNanos()) {
+            lateFirings.incrementAndGet();
+        }
+        if (lag > maxLagNanos) {
+            maxLagNanos = lag;
+        }
+        lastLagNanos = lag;
+
+        // Anchor the next run to this deadline so the phase never drifts
+        wheel.scheduleAt(targetId, deadlineTick + wheel.ticksFor(registry.intervalMs(targetId)));
+
+        if (!registry.tryStartProbe(targetId)) {
+            skippedInFlight.incrementAndGet();
+            return;
+        }
+        dispatched.incrementAndGet();
+        int statusBefore = registry.status(targetId);
+        try {
+            task.probe(targetId, registry.timeoutMs(targetId))
+                .whenComplete((result, error) -> {
+                    registry.finishProbe(targetId);
+                    if (adaptive != null && error == null) {
+                        adapt(targetId, statusBefore);
+                    }
+                });
+        } catch (RuntimeException e) {
+            registry.finishProbe(targetId);
+            throw e;
+        }
+    }
+
+    /**
+     * Move a target's interval after a probe; a shorter interval takes effect immediately
+     */
+    private void adapt(int targetId, int statusBefore) {
+        int status = registry.status(targetId);
+        boolean changed = statusBefore != TargetRegistry.STATUS_UNKNOWN && statusBefore != status;
+        int current = registry.intervalMs(targetId);
+        int next = adaptive.next(current, registry.baseIntervalMs(targetId),
+            registry.minIntervalMs(targetId), registry.maxIntervalMs(targetId),
+            changed, status == TargetRegistry.STATUS_HEALTHY, registry.consecutiveFailures(targetId));
+        if (next == current) {
+            return;
+        }
+        registry.setIntervalMs(targetId, next);
+
+        if (next < current) {
+            // Pull the pending timer in, unless the target was removed meanwhile
+            long deadline = wheel.deadlineOf(targetId);
+            long sooner = wheel.currentTick() + wheel.ticksFor(next);
+            if (deadline >= 0 && sooner < deadline) {
+                wheel.scheduleAt(targetId, sooner);
+                confirmations.incrementAndGet();
+            }
+        }
+    }
+
+    public TimerWheel wheel() {
+        return wheel;
+    }
+
+    public long dispatched() {
+        return dispatched.get();
+    }
+
+    /**
+     * Firings skipped because the previous probe of the target was still running
+     */
+    public long skippedInFlight() {
+        return skippedInFlight.get();
+    }
+
+    /**
+     * Probes brought forward to confirm a failure or status change
+     */
+    public long confirmations() {
+        return confirmations.get();
+    }
+
+    /**
+     * Mean current interval over all scheduled targets in milliseconds
+     */
+    public double meanIntervalMs() {
+        long sum = 0;
+        int n = registry.size();
+        for (int id = 0; id < n; id++) {
+            sum += registry.intervalMs(id);
+        }
+        return n > 0 ? (double) sum / n : 0;
+    }
+
+    /**
+     * Firings that ran more than one tick after their deadline
+     */
+    public long lateFirings() {
+        return lateFirings.get();
+    }
+
+    public long maxLagMillis() {
+        return maxLagNanos / 1_000_000;
+    }
+
+    /**
+     * Lag of the most recent firing behind its deadline, in nanoseconds
+     */
+    public long lastLagNanos() {
+        return Math.max(0, lastLagNanos);
+    }
+}
@@ -0,0 +1,688 @@
+package com.Health;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.security.cert.X509Certificate;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLEngine;
+import javax.net.ssl.SSLEngineResult;
+import javax.net.ssl.SSLException;
+import javax.net.ssl.SSLParameters;
+import javax.net.ssl.SSLSession;
+
+/**
+ * Probe engine for SocketChecks: one NIO Selector loop per core multiplexes
+ * every check in flight, with no thread per probe. A probe is a non-blocking
+ * connect, then for TLS an SSLEngine handshake driven by readiness events,
+ * then for a status-line check the request and just enough of the response to
+ * parse the status code. The connection is closed as soon as the check is decided
+ *
+ * Each loop owns one read buffer and a pool of TLS buffers that are handed
+ * from probe to probe, and keeps its deadlines in a heap checked on every
+ * wakeup. Results complete on the loop thread, so dependent stages should be short
+ */
+public class SelectorProbeEngine {
+
+    private static final int READ_BUFFER_BYTES = 4096;
+    private static final int MAX_POOLED_BUFFERS = 256;
+    private static final long IDLE_SELECT_MS = 1000;
+    private static final long DAY_MILLIS = 24L * 60 * 60 * 1000;
+    private static final ByteBuffer EMPTY = ByteBuffer.allocate(0);
+    private static final byte[] HTTP_PREFIX = {'H', 'T', 'T', 'P', '/'};
+
+    private final Loop[] loops;
+    private final AtomicInteger next = new AtomicInteger();
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final LongAdder completed = new LongAdder();
+    private final DnsCache dns;
+    private final SSLContext tls;
+
+    /**
+     * @param threads selector loops, one per core is enough to saturate them
+     * @param dns name cache for check hosts, or null to resolve them on the common pool
+     * @param tls context for tls and https checks; shared with the ProbeEngine so sessions resume
+     */
+    public SelectorProbeEngine(int threads, DnsCache dns, SSLContext tls) {
+        this.dns = dns;
+        this.tls = tls;
+        this.loops = new Loop[Math.max(1, threads)];
+        try {
+            for (int i = 0; i < loops.length; i++) {
+                loops[i] = new Loop("probe-selector-" + (i + 1));
+            }
+        } catch (IOException e) {
+            shutdown();
+            throw new UncheckedIOException("Cannot open probe selector", e);
+        }
+        for (Loop loop : loops) {
+            loop.thread.start();
+        }
+    }
+
+    /**
+     * Run a check; the future never completes exceptionally
+     * @param url reported in the result
+     */
+    public CompletableFuture<ProbeResult> probe(SocketCheck check, String url, int timeoutMs) {
+        long start = System.nanoTime();
+        String host = check.host();
+        if (DnsCache.isLiteral(host)) {
+            return submit(new Probe(check, url, new InetSocketAddress(host, check.port()), start, timeoutMs));
+        }
+        if (dns == null) {
+            return CompletableFuture.supplyAsync(() -> new InetSocketAddress(host, check.port()))
+                .thenCompose(address -> address.isUnresolved()
+                    ? CompletableFuture.completedFuture(ProbeResult.failure(url, System.nanoTime() - start,
+                        "cannot resolve " + host, ProbeError.DNS))
+                    : submit(new Probe(check, url, address, start, timeoutMs)));
+        }
+        return dns.lookup(host, timeoutMs).thenCompose(entry -> entry.isResolved()
+            ? submit(new Probe(check, url, new InetSocketAddress(entry.getAddresses()[0], check.port()), start,
+                timeoutMs))
+            : CompletableFuture.completedFuture(ProbeResult.failure(url, System.nanoTime() - start,
+                "cannot resolve " + host + ": " + entry.getError(), ProbeError.DNS)));
+    }
+
+    private CompletableFuture<ProbeResult> submit(Probe probe) {
+        Loop loop = loops[Math.floorMod(next.getAndIncrement(), loops.length)];
+        if (!loop.running) {
+            return CompletableFuture.completedFuture(ProbeResult.failure(probe.url, System.nanoTime() - probe.start,
+                "probe engine shut down"));
+        }
+        inFlight.incrementAndGet();
+        loop.submit(probe);
+        return probe.future;
+    }
+
+    public int threads() {
+        return loops.length;
+    }
+
+    /**
+     * Ids of the selector threads, for per-core CPU accounting
+     */
+    long[] threadIds() {
+        return Arrays.stream(loops).mapToLong(loop -> loop.thread.getId()).toArray();
+    }
+
+    public int inFlight() {
+        return inFlight.get();
+    }
+
+    public long completed() {
+        return completed.sum();
+    }
+
+    /**
+     * Stop the loops; checks still in flight fail
+     */
+    public void shutdown() {
+        for (Loop loop : loops) {
+            if (loop != null) {
+                loop.running = false;
+                loop.selector.wakeup();
+            }
+        }
+    }
+
+    /**
+     * One check in flight and its connection state, touched only by its loop after submission
+     */
+    private static final class Probe {
+        final SocketCheck check;
+        final String url;
+        final InetSocketAddress address;
+        final long start;
+        final long deadline;
+        final int timeoutMs;
+        final CompletableFuture<ProbeResult> future = new CompletableFuture<>();
+
+        int heapIndex = -1;
+        SocketChannel channel;
+        SelectionKey key;
+        boolean connected;
+        ByteBuffer request;
+
+        SSLEngine engine;
+        boolean handshaken;
+        ByteBuffer netIn;
+        ByteBuffer netOut;
+        ByteBuffer appIn;
+
+        // Status line parse state: HTTP/ prefix, version, three status digits
+        int phase;
+        int count;
+        int status;
+
+        Probe(SocketCheck check, String url, InetSocketAddress address, long start, int timeoutMs) {
+            this.check = check;
+            this.url = url;
+            this.address = address;
+            this.start = start;
+            this.timeoutMs = timeoutMs;
+            this.deadline = start + timeoutMs * 1_000_000L;
+        }
+
+        static final int MORE = -1;
+        static final int MALFORMED = -2;
+
+        /**
+         * Feed response bytes to the status line parser
+         * @return the status code, MORE or MALFORMED
+         */
+        int parseStatus(ByteBuffer in) {
+            while (in.hasRemaining()) {
+                byte b = in.get();
+                if (phase == 0) {
+                    if (b != HTTP_PREFIX[count]) {
+                        return MALFORMED;
+                    }
+                    if (++count == HTTP_PREFIX.length) {
+                        phase = 1;
+                        count = 0;
+                    }
+                } else if (phase == 1) {
+                    if (b == ' ' && count > 0) {
+                        phase = 2;
+                        count = 0;
+                    } else if ((b < '0' || b > '9') && b != '.' || ++count > 8) {
+                        return MALFORMED;
+                    }
+                } else {
+                    if (b < '0' || b > '9') {
+                        return MALFORMED;
+                    }
+                    status = status * 10 + (b - '0');
+                    if (++count == 3) {
+                        return status;
+                    }
+                }
+            }
+            return MORE;
+        }
+    }
+
+    /**
+     * Min-heap of probe deadlines; each probe knows its slot so a finished one is removed in O(log n)
+     */
+    private static final class DeadlineHeap {
+        private Probe[] heap = new Probe[64];
+        private int size;
+
+        boolean isEmpty() {
+            return size == 0;
+        }
+
+        Probe peek() {
+            return size > 0 ? heap[0] : null;
+        }
+
+        void add(Probe probe) {
+            if (size == heap.length) {
+                heap = Arrays.copyOf(heap, size * 2);
+            }
+            heap[size] = probe;
+            probe.heapIndex = size;
+            up(size++);
+        }
+
+        void remove(Probe probe) {
+            int index = probe.heapIndex;
+            if (index < 0) {
+                return;
+            }
+            probe.heapIndex = -1;
+            Probe last = heap[--size];
+            heap[size] = null;
+            if (index < size) {
+                heap[index] = last;
+                last.heapIndex = index;
+                up(index);
+                down(last.heapIndex);
+            }
+        }
+
+        private void up(int index) {
+            Probe probe = heap[index];
+            while (index > 0) {
+                int parent = (index - 1) >>> 1;
+                if (heap[parent].deadline - probe.deadline <= 0) {
+                    break;
+                }
+                place(heap[parent], index);
+                index = parent;
+            }
+            place(probe, index);
+        }
+
+        private void down(int index) {
+            Probe probe = heap[index];
+            while (true) {
+                int child = 2 * index + 1;
+                if (child >= size) {
+                    break;
+                }
+                if (child + 1 < size && heap[child + 1].deadline - heap[child].deadline < 0) {
+                    child++;
+                }
+                if (probe.deadline - heap[child].deadline <= 0) {
+                    break;
+                }
+                place(heap[child], index);
+                index = child;
+            }
+            place(probe, index);
+        }
+
+        private void place(Probe probe, int index) {
+            heap[index] = probe;
+            probe.heapIndex = index;
+        }
+    }
+
+    /**
+     * Selector loop: registers submitted probes, advances ready connections and expires deadlines
+     */
+    private final class Loop implements Runnable {
+        final Selector selector;
+        final Thread thread;
+        final ConcurrentLinkedQueue<Probe> submitted = new ConcurrentLinkedQueue<>();
+        final AtomicBoolean wakeupPending = new AtomicBoolean();
+        final DeadlineHeap deadlines = new DeadlineHeap();
+        final ByteBuffer readBuffer = ByteBuffer.allocateDirect(READ_BUFFER_BYTES);
+        final ArrayDeque<ByteBuffer> packetBuffers = new ArrayDeque<>();
+        final ArrayDeque<ByteBuffer> applicationBuffers = new ArrayDeque<>();
+        volatile boolean running = true;
+
+        Loop(String name) throws IOException {
+            this.selector = Selector.open();
+            this.thread = new Thread(this, name);
+            thread.setDaemon(true);
+        }
+
+        void submit(Probe probe) {
+            submitted.add(probe);
+            // One wakeup covers every probe queued before the loop drains the queue
+            if (wakeupPending.compareAndSet(false, true)) {
+                selector.wakeup();
+            }
+        }
+
+        @Override
+        public void run() {
+            while (running) {
+                try {
+                    if (submitted.isEmpty()) {
+                        Probe first = deadlines.peek();
+                        long waitMs = first == null ? IDLE_SELECT_MS
+                            : Math.max(1, (first.deadline - System.nanoTime() + 999_999) / 1_000_000);
+                        selector.select(this::ready, waitMs);
+                    } else {
+                        selector.selectNow(this::ready);
+                    }
+                    wakeupPending.set(false);
+                    Probe probe;
+                    while ((probe = submitted.poll()) != null) {
+                        open(probe);
+                    }
+                    expire(System.nanoTime());
+                } catch (IOException | RuntimeException e) {
+                    System.err.println("Probe selector loop error: " + e);
+                }
+            }
+            Probe probe;
+            while ((probe = submitted.poll()) != null) {
+                deadlines.add(probe);
+            }
+            while ((probe = deadlines.peek()) != null) {
+                fail(probe, "probe engine shut down", ProbeError.OTHER);
+            }
+            try {
+                selector.close();
+            } catch (IOException e) {
+                // Closing anyway
+            }
+        }
+
+        private void open(Probe probe) {
+            deadlines.add(probe);
+            try {
+                SocketChannel channel = SocketChannel.open();
+                probe.channel = channel;
+                channel.configureBlocking(false);
+                channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+                boolean connected = channel.connect(probe.address);
+                probe.key = channel.register(selector, connected ? 0 : SelectionKey.OP_CONNECT, probe);
+                if (connected) {
+                    connected(probe);
+                }
+            } catch (IOException | RuntimeException e) {
+                fail(probe, e);
+            }
+        }
+
+        private void ready(SelectionKey key) {
+            Probe probe = (Probe) key.attachment();
+            try {
+                if (key.isConnectable()) {
+                    if (probe.channel.finishConnect()) {
+                        connected(probe);
+                    }
+                } else {
+                    advance(probe);
+                }
+            } catch (IOException | RuntimeException e) {
+                fail(probe, e);
+            }
+        }
+
+        private void connected(Probe probe) throws IOException {
+            probe.connected = true;
+            SocketCheck check = probe.check;
+            if (check.type() == SocketCheck.Type.TCP) {
+                succeed(probe, ProbeResult.connected(probe.url, System.nanoTime() - probe.start));
+                return;
+            }
+            if (check.tls()) {
+                SSLEngine engine = tls.createSSLEngine(check.host(), check.port());
+                engine.setUseClientMode(true);
+                SSLParameters parameters = engine.getSSLParameters();
+                parameters.setEndpointIdentificationAlgorithm("HTTPS");
+                engine.setSSLParameters(parameters);
+                probe.engine = engine;
+                int packetSize = engine.getSession().getPacketBufferSize();
+                probe.netIn = borrow(packetBuffers, packetSize);
+                probe.netOut = borrow(packetBuffers, packetSize).flip();
+                probe.appIn = borrow(applicationBuffers, engine.getSession().getApplicationBufferSize());
+                engine.beginHandshake();
+            }
+            probe.request = check.request();
+            advance(probe);
+        }
+
+        private void advance(Probe probe) throws IOException {
+            if (probe.engine == null) {
+                plainExchange(probe);
+                return;
+            }
+            if (!probe.handshaken) {
+                if (!handshake(probe)) {
+                    return;
+                }
+                probe.handshaken = true;
+                if (probe.check.type() == SocketCheck.Type.TLS) {
+                    certificate(probe);
+                    return;
+                }
+            }
+            tlsExchange(probe);
+        }
+
+        private void plainExchange(Probe probe) throws IOException {
+            if (probe.request.hasRemaining()) {
+                probe.channel.write(probe.request);
+                if (probe.request.hasRemaining()) {
+                    interest(probe, SelectionKey.OP_WRITE);
+                    return;
+                }
+            }
+            while (true) {
+                readBuffer.clear();
+                int n = probe.channel.read(readBuffer);
+                if (n < 0) {
+                    fail(probe, "connection closed before the status line", ProbeError.IO);
+                    return;
+                }
+                if (n == 0) {
+                    interest(probe, SelectionKey.OP_READ);
+                    return;
+                }
+                readBuffer.flip();
+                if (status(probe, readBuffer)) {
+                    return;
+                }
+            }
+        }
+
+        /**
+         * Drive the handshake as far as the socket allows
+         * @return true once it has finished
+         */
+        private boolean handshake(Probe probe) throws IOException {
+            SSLEngine engine = probe.engine;
+            while (true) {
+                if (!flush(probe)) {
+                    return false;
+                }
+                switch (engine.getHandshakeStatus()) {
+                    case NEED_WRAP:
+                        probe.netOut.clear();
+                        SSLEngineResult wrapped = engine.wrap(EMPTY, probe.netOut);
+                        probe.netOut.flip();
+                        if (wrapped.getStatus() == SSLEngineResult.Status.CLOSED && !probe.netOut.hasRemaining()) {
+                            throw new SSLException("connection closed during the TLS handshake");
+                        }
+                        break;
+                    case NEED_UNWRAP:
+                        SSLEngineResult unwrapped = unwrap(probe);
+                        if (unwrapped == null) {
+                            return false;
+                        }
+                        if (unwrapped.getStatus() == SSLEngineResult.Status.CLOSED) {
+                            throw new SSLException("connection closed during the TLS handshake");
+                        }
+                        break;
+                    case NEED_TASK:
+                        // Certificate validation and key exchange, run inline on the loop
+                        Runnable task;
+                        while ((task = engine.getDelegatedTask()) != null) {
+                            task.run();
+                        }
+                        break;
+                    default:
+                        return true;
+                }
+            }
+        }
+
+        private void certificate(Probe probe) throws SSLException {
+            SSLSession session = probe.engine.getSession();
+            X509Certificate leaf = (X509Certificate) session.getPeerCertificates()[0];
+            // Never resumed, so the next check sees the certificate the host presents then
+            session.invalidate();
+            long remaining = leaf.getNotAfter().getTime() - System.currentTimeMillis();
+            if (remaining < probe.check.certMinDays() * DAY_MILLIS) {
+                fail(probe, "certificate expires in " + Math.floorDiv(remaining, DAY_MILLIS) + " days ("
+                    + leaf.getNotAfter().toInstant() + "), " + probe.check.certMinDays() + " required", ProbeError.TLS);
+                return;
+            }
+            succeed(probe, ProbeResult.connected(probe.url, System.nanoTime() - probe.start));
+        }
+
+        private void tlsExchange(Probe probe) throws IOException {
+            while (true) {
+                if (!flush(probe)) {
+                    return;
+                }
+                if (!probe.request.hasRemaining()) {
+                    break;
+                }
+                probe.netOut.clear();
+                SSLEngineResult wrapped = probe.engine.wrap(probe.request, probe.netOut);
+                probe.netOut.flip();
+                if (wrapped.getStatus() == SSLEngineResult.Status.CLOSED) {
+                    fail(probe, "TLS session closed before the request was sent", ProbeError.IO);
+                    return;
+                }
+            }
+            while (true) {
+                SSLEngineResult unwrapped = unwrap(probe);
+                if (unwrapped == null) {
+                    return;
+                }
+                probe.appIn.flip();
+                if (status(probe, probe.appIn)) {
+                    return;
+                }
+                probe.appIn.clear();
+                if (unwrapped.getStatus() == SSLEngineResult.Status.CLOSED) {
+                    fail(probe, "connection closed before the status line", ProbeError.IO);
+                    return;
+                }
+            }
+        }
+
+        /**
+         * Unwrap one record from netIn, reading more off the socket when it holds only part of one
+         * @return the result, or null when the socket has nothing more yet
+         */
+        private SSLEngineResult unwrap(Probe probe) throws IOException {
+            while (true) {
+                probe.netIn.flip();
+                SSLEngineResult result = probe.engine.unwrap(probe.netIn, probe.appIn);
+                probe.netIn.compact();
+                if (result.getStatus() != SSLEngineResult.Status.BUFFER_UNDERFLOW) {
+                    return result;
+                }
+                int n = probe.channel.read(probe.netIn);
+                if (n < 0) {
+                    throw new EOFException("connection closed by the peer");
+                }
+                if (n == 0) {
+                    interest(probe, SelectionKey.OP_READ);
+                    return null;
+                }
+            }
+        }
+
+        /**
+         * Write out pending TLS records
+         * @return false when the socket is full and the probe waits for OP_WRITE
+         */
+        private boolean flush(Probe probe) throws IOException {
+            if (probe.netOut.hasRemaining()) {
+                probe.channel.write(probe.netOut);
+                if (probe.netOut.hasRemaining()) {
+                    interest(probe, SelectionKey.OP_WRITE);
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        /**
+         * Feed response bytes to the probe's status line parser, completing it once decided
+         */
+        private boolean status(Probe probe, ByteBuffer bytes) {
+            int status = probe.parseStatus(bytes);
+            if (status == Probe.MORE) {
+                return false;
+            }
+            if (status == Probe.MALFORMED) {
+                fail(probe, "malformed HTTP status line", ProbeError.IO);
+            } else {
+                succeed(probe, ProbeResult.response(probe.url, status, System.nanoTime() - probe.start));
+            }
+            return true;
+        }
+
+        private void interest(Probe probe, int ops) {
+            if (probe.key.interestOps() != ops) {
+                probe.key.interestOps(ops);
+            }
+        }
+
+        private void expire(long now) {
+            Probe probe;
+            while ((probe = deadlines.peek()) != null && probe.deadline - now <= 0) {
+                if (probe.connected) {
+                    fail(probe, "timed out after " + probe.timeoutMs + " ms", ProbeError.TIMEOUT);
+                } else {
+                    fail(probe, "connect timed out after " + probe.timeoutMs + " ms", ProbeError.CONNECT);
+                }
+            }
+        }
+
+        private void succeed(Probe probe, ProbeResult result) {
+            close(probe);
+            finish(probe, result);
+        }
+
+        private void fail(Probe probe, String error, ProbeError errorClass) {
+            close(probe);
+            finish(probe, ProbeResult.failure(probe.url, System.nanoTime() - probe.start, error, errorClass));
+        }
+
+        private void fail(Probe probe, Throwable error) {
+            // Anything that breaks a handshake, a reset included, is a TLS failure
+            ProbeError errorClass = probe.engine != null && !probe.handshaken ? ProbeError.TLS : ProbeError.of(error);
+            String message = error.getMessage() != null ? error.getMessage() : error.getClass().getSimpleName();
+            fail(probe, message, errorClass);
+        }
+
+        private void finish(Probe probe, ProbeResult result) {
+            // Only the loop completes a probe, so the counters can move first
+            if (!probe.future.isDone()) {
+                inFlight.decrementAndGet();
+                completed.increment();
+                probe.future.complete(result);
+            }
+        }
+
+        /**
+         * Release the probe's socket and hand its TLS buffers back to the pool
+         */
+        private void close(Probe probe) {
+            deadlines.remove(probe);
+            if (probe.key != null) {
+                probe.key.cancel();
+            }
+            if (probe.channel != null) {
+                try {
+                    probe.channel.close();
+                } catch (IOException e) {
+                    // Nothing left to release
+                }
+                probe.channel = null;
+            }
+            if (probe.engine != null) {
+                giveBack(packetBuffers, probe.netIn);
+                giveBack(packetBuffers, probe.netOut);
+                giveBack(applicationBuffers, probe.appIn);
+                probe.netIn = null;
+                probe.netOut = null;
+                probe.appIn = null;
+                probe.engine = null;
+            }
+            probe.request = null;
+        }
+
+        private ByteBuffer borrow(ArrayDeque<ByteBuffer> pool, int size) {
+            ByteBuffer buffer = pool.poll();
+            if (buffer == null || buffer.capacity() < size) {
+                return ByteBuffer.allocate(size);
+            }
+            return buffer.clear();
+        }
+
+        private void giveBack(ArrayDeque<ByteBuffer> pool, ByteBuffer buffer) {
+            if (buffer != null && pool.size() < MAX_POOLED_BUFFERS) {
+                pool.push(buffer);
+            }
+        }
+    }
+}
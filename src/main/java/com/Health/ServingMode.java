@@ -0,0 +1,353 @@
+package com.Health;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.net.InetSocketAddress;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * How the built-in HttpServer front-ends (HealthCheckServer, HealthServer) serve requests
+ *
+ *   dispatcher - handlers run on the server's single dispatcher thread (the former behaviour)
+ *   bounded    - a fixed pool of worker threads with a bounded queue; when the queue
+ *                is full the request is answered 503 with Retry-After right away
+ *   virtual    - one Java 21 virtual thread per request, bounded pool on Java 17
+ *
+ * plus the accept backlog, keep-alive and gzip of large documents. The JDK
+ * server's idle and request timeouts are JVM-wide system properties, so they
+ * are applied once, before the first HttpServer is created, unless set on the
+ * command line. Its response timeout would also cut the long-lived event
+ * stream, so it is left unset; request/response handlers get a per-exchange
+ * deadline instead (wrap), and the stream is wrapped without one (wrapStream)
+ */
+public final class ServingMode {
+
+    public enum Executor {
+        DISPATCHER, BOUNDED, VIRTUAL;
+
+        static Executor parse(String value) {
+            switch (value.trim().toLowerCase()) {
+                case "dispatcher": return DISPATCHER;
+                case "virtual": return VIRTUAL;
+                case "bounded": return BOUNDED;
+                default:
+                    System.err.println("Unknown server executor '" + value + "', using bounded");
+                    return BOUNDED;
+            }
+        }
+    }
+
+    static final String GZIP_ETAG_SUFFIX = "-gzip\"";
+
+    // Marks a request the bounded pool had no room for; it is answered on the dispatcher
+    private static final ThreadLocal<Boolean> SHED = new ThreadLocal<>();
+    private static final Object SERVER_DEFAULTS_LOCK = new Object();
+    private static boolean serverDefaultsApplied;
+    // Closes exchanges that outlive their deadline; shared by every server in the JVM
+    private static final ScheduledExecutorService WATCHDOG = watchdog();
+
+    private final Executor executor;
+    private final int threads;
+    private final int queue;
+    private final int backlog;
+    private final boolean keepAlive;
+    private final boolean gzip;
+    private final int gzipMinBytes;
+    private final int exchangeTimeoutMs;
+    private final LongAdder shed = new LongAdder();
+    private final LongAdder timedOut = new LongAdder();
+    private ExecutorService workers;
+
+    public ServingMode(Executor executor, int threads, int queue, int backlog, boolean keepAlive, boolean gzip,
+                       int gzipMinBytes) {
+        this(executor, threads, queue, backlog, keepAlive, gzip, gzipMinBytes, 0);
+    }
+
+    /**
+     * @param exchangeTimeoutMs deadline of a request/response exchange, 0 for none
+     */
+    public ServingMode(Executor executor, int threads, int queue, int backlog, boolean keepAlive, boolean gzip,
+                       int gzipMinBytes, int exchangeTimeoutMs) {
+        this.executor = executor;
+        this.threads = Math.max(1, threads);
+        this.queue = Math.max(1, queue);
+        this.backlog = backlog;
+        this.keepAlive = keepAlive;
+        this.gzip = gzip;
+        this.gzipMinBytes = gzipMinBytes;
+        this.exchangeTimeoutMs = Math.max(0, exchangeTimeoutMs);
+    }
+
+    /**
+     * Mode configured by health.server.*
+     */
+    public static ServingMode fromConfig(HealthConfig config) {
+        applyServerDefaults(config);
+        return new ServingMode(
+            Executor.parse(config.getString("health.server.executor", "bounded")),
+            config.getInt("health.server.threads", 32),
+            config.getInt("health.server.queue", 4096),
+            config.getInt("health.server.backlog", 1024),
+            config.getBoolean("health.server.keep-alive", true),
+            config.getBoolean("health.server.gzip", true),
+            config.getInt("health.server.gzip-min-bytes", 1024),
+            config.getInt("health.server.exchange-timeout-s", 10) * 1000);
+    }
+
+    /**
+     * Idle keep-alive connections and the request timeout of the JDK server, read
+     * by it once per JVM; a -Dsun.net.httpserver.* flag takes precedence.
+     * maxRspTime is not set: it would apply to /health/stream as well
+     */
+    static void applyServerDefaults(HealthConfig config) {
+        synchronized (SERVER_DEFAULTS_LOCK) {
+            if (serverDefaultsApplied) {
+                return;
+            }
+            serverDefaultsApplied = true;
+            defaultProperty("sun.net.httpserver.idleInterval", config.getInt("health.server.keep-alive-s", 30));
+            defaultProperty("sun.net.httpserver.maxIdleConnections",
+                config.getInt("health.server.max-idle-connections", 10000));
+            // Clients that never finish their request are cut off; it only runs until the request is read
+            int timeout = config.getInt("health.server.exchange-timeout-s", 10);
+            if (timeout > 0) {
+                defaultProperty("sun.net.httpserver.maxReqTime", timeout);
+            }
+            defaultProperty("sun.net.httpserver.nodelay", "true");
+        }
+    }
+
+    private static void defaultProperty(String key, Object value) {
+        if (System.getProperty(key) == null) {
+            System.setProperty(key, String.valueOf(value));
+        }
+    }
+
+    /**
+     * Create and configure a server on the port; the caller adds contexts and starts it
+     */
+    public HttpServer create(int port, String threadPrefix) throws IOException {
+        applyServerDefaults(HealthConfig.get());
+        HttpServer server = HttpServer.create(new InetSocketAddress(port), backlog);
+        ExecutorService selected = null;
+        if (executor == Executor.VIRTUAL) {
+            selected = ProbeExecutor.newVirtualThreadExecutor();
+            if (selected == null) {
+                System.err.println("Virtual threads need Java 21+, serving on a bounded pool");
+            }
+        }
+        if (executor != Executor.DISPATCHER && selected == null) {
+            selected = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(queue), daemonThreads(threadPrefix), shedding());
+        }
+        workers = selected;
+        server.setExecutor(selected);
+        return server;
+    }
+
+    /**
+     * Stop the server and its worker pool
+     */
+    public void stop(HttpServer server) {
+        server.stop(0);
+        if (workers != null) {
+            workers.shutdownNow();
+        }
+    }
+
+    /**
+     * Overflow of the bounded pool: run the exchange on the dispatcher, marked so
+     * the handler only writes a 503 instead of doing its work
+     */
+    private RejectedExecutionHandler shedding() {
+        return (exchange, pool) -> {
+            if (pool.isShutdown()) {
+                return;
+            }
+            SHED.set(Boolean.TRUE);
+            try {
+                exchange.run();
+            } finally {
+                SHED.remove();
+            }
+        };
+    }
+
+    /**
+     * Wrap a request/response handler with load shedding, the keep-alive setting
+     * and the exchange deadline: a client still not done reading the response
+     * when it passes has its connection closed, which frees the worker
+     */
+    public HttpHandler wrap(HttpHandler handler) {
+        HttpHandler shedding = wrapStream(handler);
+        if (exchangeTimeoutMs == 0) {
+            return shedding;
+        }
+        return exchange -> {
+            ScheduledFuture<?> deadline = WATCHDOG.schedule(() -> {
+                timedOut.increment();
+                exchange.close();
+            }, exchangeTimeoutMs, TimeUnit.MILLISECONDS);
+            try {
+                shedding.handle(exchange);
+            } finally {
+                deadline.cancel(false);
+            }
+        };
+    }
+
+    /**
+     * Wrap a long-lived handler (the event stream) with load shedding and the keep-alive setting only
+     */
+    public HttpHandler wrapStream(HttpHandler handler) {
+        return exchange -> {
+            if (!keepAlive) {
+                exchange.getResponseHeaders().set("Connection", "close");
+            }
+            if (SHED.get() != null) {
+                shed.increment();
+                exchange.getResponseHeaders().set("Retry-After", "1");
+                exchange.sendResponseHeaders(503, -1);
+                exchange.close();
+                return;
+            }
+            handler.handle(exchange);
+        };
+    }
+
+    /**
+     * Send a 200 with the body, gzip-encoded when enabled, at least gzipMinBytes and accepted by the client
+     * @param gzipped the encoded body, so a copy cached with the document is used
+     */
+    public void send(HttpExchange exchange, byte[] body, Supplier<byte[]> gzipped) throws IOException {
+        byte[] payload = body;
+        if (gzip && body.length >= gzipMinBytes) {
+            exchange.getResponseHeaders().set("Vary", "Accept-Encoding");
+            if (acceptsGzip(exchange.getRequestHeaders().getFirst("Accept-Encoding"))) {
+                payload = gzipped.get();
+                exchange.getResponseHeaders().set("Content-Encoding", "gzip");
+                // A strong ETag names one encoding, so the gzip copy gets its own
+                String etag = exchange.getResponseHeaders().getFirst("ETag");
+                if (etag != null && etag.endsWith("\"")) {
+                    exchange.getResponseHeaders().set("ETag", etag.substring(0, etag.length() - 1) + GZIP_ETAG_SUFFIX);
+                }
+            }
+        }
+        exchange.sendResponseHeaders(200, payload.length);
+        try (OutputStream os = exchange.getResponseBody()) {
+            os.write(payload);
+        }
+    }
+
+    /**
+     * Whether an Accept-Encoding header allows gzip (listed without q=0)
+     */
+    static boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+        for (String coding : acceptEncoding.split(",")) {
+            String[] parts = coding.split(";");
+            if (!parts[0].trim().equalsIgnoreCase("gzip")) {
+                continue;
+            }
+            for (int i = 1; i < parts.length; i++) {
+                String parameter = parts[i].trim();
+                if (parameter.startsWith("q=")) {
+                    try {
+                        return Double.parseDouble(parameter.substring(2)) > 0;
+                    } catch (NumberFormatException e) {
+                        return false;
+                    }
+                }
+            }
+            return true;
+        }
+        return false;
+    }
+
+    public static byte[] gzip(byte[] body) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(Math.max(64, body.length / 4));
+        try (GZIPOutputStream zip = new GZIPOutputStream(out)) {
+            zip.write(body);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out.toByteArray();
+    }
+
+    public Executor executor() {
+        return executor;
+    }
+
+    public int backlog() {
+        return backlog;
+    }
+
+    public boolean keepAlive() {
+        return keepAlive;
+    }
+
+    public boolean gzip() {
+        return gzip;
+    }
+
+    public int exchangeTimeoutMs() {
+        return exchangeTimeoutMs;
+    }
+
+    /**
+     * Exchanges closed because the client had not read the response by the deadline
+     */
+    public long timedOut() {
+        return timedOut.sum();
+    }
+
+    /**
+     * Requests answered 503 because the bounded pool and its queue were full
+     */
+    public long shed() {
+        return shed.sum();
+    }
+
+    @Override
+    public String toString() {
+        String pool = executor == Executor.BOUNDED ? " " + threads + " threads, queue " + queue + "," : "";
+        return executor.name().toLowerCase() + "," + pool + " backlog " + backlog
+            + (keepAlive ? ", keep-alive" : ", no keep-alive") + (gzip ? ", gzip >= " + gzipMinBytes + " bytes" : "")
+            + (exchangeTimeoutMs > 0 ? ", deadline " + exchangeTimeoutMs + " ms" : "");
+    }
+
+    private static ScheduledExecutorService watchdog() {
+        ScheduledThreadPoolExecutor watchdog = new ScheduledThreadPoolExecutor(1, daemonThreads("health-http-watchdog-"));
+        // Most deadlines are cancelled long before they fire
+        watchdog.setRemoveOnCancelPolicy(true);
+        return watchdog;
+    }
+
+    private static ThreadFactory daemonThreads(String prefix) {
+        AtomicInteger counter = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, prefix + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
@@ -0,0 +1,171 @@
+package com.Health;
+
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Socket-level check of a target, run by the SelectorProbeEngine instead of
+ * the HttpClient. Each type reads only what it needs off the connection:
+ *
+ *   tcp          - the connection is accepted (tcp://host:port, databases and brokers)
+ *   tls          - the TLS handshake completes, the certificate matches the host
+ *                  and is valid for at least cert-min-days (tls://host[:port])
+ *   status-line  - the status line of a raw HTTP/1.1 GET is 2xx; the headers
+ *                  and body are never read (http:// or https:// URLs)
+ *
+ * Target options:
+ *   check=tcp|tls|status-line - check type; tcp:// and tls:// URLs default to their own type
+ *   cert-min-days=&lt;days&gt;       - certificate validity a tls check requires (default 14)
+ */
+public final class SocketCheck {
+
+    public enum Type { TCP, TLS, STATUS_LINE }
+
+    public static final int DEFAULT_CERT_MIN_DAYS = 14;
+
+    private static final String USER_AGENT = "HealthCheckService/1.0";
+
+    private final Type type;
+    private final String host;
+    private final int port;
+    private final boolean tls;
+    private final int certMinDays;
+    private final ByteBuffer request;
+
+    private SocketCheck(Type type, String host, int port, boolean tls, int certMinDays, byte[] request) {
+        this.type = type;
+        this.host = host;
+        this.port = port;
+        this.tls = tls;
+        this.certMinDays = certMinDays;
+        this.request = request != null ? ByteBuffer.wrap(request).asReadOnlyBuffer() : null;
+    }
+
+    public static SocketCheck tcp(String host, int port) {
+        return new SocketCheck(Type.TCP, host, port, false, 0, null);
+    }
+
+    public static SocketCheck tls(String host, int port, int certMinDays) {
+        return new SocketCheck(Type.TLS, host, port, true, certMinDays, null);
+    }
+
+    /**
+     * GET of the URL's path and query, sent with Connection: close
+     */
+    public static SocketCheck statusLine(URI uri) {
+        boolean https = "https".equalsIgnoreCase(uri.getScheme());
+        if (!https && !"http".equalsIgnoreCase(uri.getScheme())) {
+            throw new IllegalArgumentException("status-line checks need an http or https URL: " + uri);
+        }
+        String host = host(uri);
+        int port = uri.getPort() > 0 ? uri.getPort() : https ? 443 : 80;
+        String target = uri.getRawPath() == null || uri.getRawPath().isEmpty() ? "/" : uri.getRawPath();
+        if (uri.getRawQuery() != null) {
+            target += "?" + uri.getRawQuery();
+        }
+        String authority = uri.getPort() > 0 ? uri.getHost() + ":" + port : uri.getHost();
+        String request = "GET " + target + " HTTP/1.1\r\n"
+            + "Host: " + authority + "\r\n"
+            + "User-Agent: " + USER_AGENT + "\r\n"
+            + "Accept: */*\r\n"
+            + "Connection: close\r\n\r\n";
+        return new SocketCheck(Type.STATUS_LINE, host, port, https, 0,
+            request.getBytes(StandardCharsets.ISO_8859_1));
+    }
+
+    /**
+     * Check configured by a target's URL scheme and check option, or null when the
+     * target is probed over HTTP by the ProbeEngine
+     */
+    public static SocketCheck of(TargetSpec spec) {
+        URI uri;
+        try {
+            uri = URI.create(spec.getUrl());
+        } catch (IllegalArgumentException e) {
+            // Reported as an invalid URL by the ProbeEngine
+            return null;
+        }
+        String scheme = uri.getScheme() != null ? uri.getScheme().toLowerCase() : "";
+        String check = spec.option("check", "tcp".equals(scheme) || "tls".equals(scheme) ? scheme : "http");
+        try {
+            switch (check.trim().toLowerCase()) {
+                case "http":
+                    return null;
+                case "tcp":
+                    return tcp(host(uri), port(uri, -1));
+                case "tls":
+                    return tls(host(uri), port(uri, 443),
+                        spec.intOption("cert-min-days", DEFAULT_CERT_MIN_DAYS));
+                case "status-line":
+                    return statusLine(uri);
+                default:
+                    throw new IllegalArgumentException("unknown check type '" + check + "'");
+            }
+        } catch (IllegalArgumentException e) {
+            System.err.println("Invalid socket check for target " + spec.getName() + ": " + e.getMessage()
+                + ", probing it over HTTP");
+            return null;
+        }
+    }
+
+    private static String host(URI uri) {
+        if (uri.getHost() == null) {
+            throw new IllegalArgumentException("no host in " + uri);
+        }
+        String host = uri.getHost();
+        // URI keeps the brackets of an IPv6 literal
+        return host.startsWith("[") && host.endsWith("]") ? host.substring(1, host.length() - 1) : host;
+    }
+
+    private static int port(URI uri, int defaultPort) {
+        if (uri.getPort() > 0) {
+            return uri.getPort();
+        }
+        if ("https".equalsIgnoreCase(uri.getScheme())) {
+            return 443;
+        }
+        if ("http".equalsIgnoreCase(uri.getScheme())) {
+            return 80;
+        }
+        if (defaultPort < 0) {
+            throw new IllegalArgumentException("no port in " + uri);
+        }
+        return defaultPort;
+    }
+
+    public Type type() {
+        return type;
+    }
+
+    public String host() {
+        return host;
+    }
+
+    public int port() {
+        return port;
+    }
+
+    /**
+     * Whether the connection is wrapped in TLS (tls checks and https status-line checks)
+     */
+    public boolean tls() {
+        return tls;
+    }
+
+    public int certMinDays() {
+        return certMinDays;
+    }
+
+    /**
+     * Fresh view of the encoded request of a status-line check, or null
+     */
+    ByteBuffer request() {
+        return request != null ? request.duplicate() : null;
+    }
+
+    @Override
+    public String toString() {
+        return type.name().toLowerCase().replace('_', '-') + " " + host + ":" + port;
+    }
+}
@@ -0,0 +1,97 @@
+package com.Health;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Console front-end of the CLI modes
+ * Prints the status recorded by the shared monitor (HealthCheckService) at a
+ * fixed interval. It never probes, so a console running next to the HTTP
+ * front-ends adds no outbound traffic
+ */
+final class StatusConsole {
+
+    private static final int MAX_LISTED_TARGETS = 20;
+
+    private StatusConsole() {
+    }
+
+    /**
+     * Print the status every intervalSeconds until interrupted
+     */
+    static void watch(int intervalSeconds) {
+        while (true) {
+            print();
+            try {
+                TimeUnit.SECONDS.sleep(intervalSeconds);
+            } catch (InterruptedException e) {
+                System.out.println("Health check monitoring stopped.");
+                return;
+            }
+        }
+    }
+
+    /**
+     * One status report as a single console write
+     */
+    static void print() {
+        TargetRegistry registry = HealthCheckService.registry();
+        StringBuilder out = new StringBuilder(512);
+        out.append("--- Health Check Status ---\n");
+        out.append("Timestamp: ").append(LocalDateTime.now()).append('\n');
+        int listed = Math.min(registry.size(), MAX_LISTED_TARGETS);
+        for (int id = 0; id < listed; id++) {
+            out.append(registry.name(id)).append(": ");
+            switch (registry.status(id)) {
+                case TargetRegistry.STATUS_HEALTHY:
+                    out.append("✅ HEALTHY");
+                    break;
+                case TargetRegistry.STATUS_UNHEALTHY:
+                    out.append("❌ UNHEALTHY");
+                    break;
+                default:
+                    out.append("⏳ NOT YET PROBED");
+                    break;
+            }
+            if (registry.lastCheckMillis(id) > 0) {
+                out.append(" (").append(registry.lastStatusCode(id)).append(", ")
+                    .append(registry.lastLatencyMicros(id) / 1000).append(" ms)");
+            }
+            out.append('\n');
+        }
+        if (registry.size() > listed) {
+            out.append("... and ").append(registry.size() - listed).append(" more (")
+                .append(registry.unhealthyCount()).append(" unhealthy in total)\n");
+        }
+        out.append("Overall Status: ").append(registry.allHealthy() ? "✅ ALL HEALTHY" : "❌ SOME UNHEALTHY").append('\n');
+        out.append("=====================================\n");
+        System.out.println(out);
+    }
+
+    /**
+     * Status of the n-th target (1-based), false until it has been probed
+     */
+    static boolean endpointStatus(int number) {
+        TargetRegistry registry = HealthCheckService.registry();
+        return registry.contains(number - 1) && registry.isHealthy(number - 1);
+    }
+
+    /**
+     * Legacy /health document of the first three targets
+     */
+    static String legacyHealth(boolean detailed) {
+        StringBuilder json = new StringBuilder(160);
+        json.append("{\n");
+        if (detailed) {
+            json.append("  \"timestamp\": \"").append(LocalDateTime.now()).append("\",\n");
+        }
+        json.append("  \"ENDPOINT_ONE\": ").append(endpointStatus(1)).append(",\n");
+        json.append("  \"ENDPOINT_TWO\": ").append(endpointStatus(2)).append(",\n");
+        json.append("  \"ENDPOINT_THREE\": ").append(endpointStatus(3));
+        if (detailed) {
+            boolean allHealthy = endpointStatus(1) && endpointStatus(2) && endpointStatus(3);
+            json.append(",\n  \"overall_status\": \"").append(allHealthy ? "ALL_HEALTHY" : "SOME_UNHEALTHY").append('"');
+        }
+        return json.append("\n}").toString();
+    }
+}
@@ -0,0 +1,102 @@
+package com.Health;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Immutable, pre-encoded health document published by the prober
+ * Requests write the bytes as they are. The ETag is a hash of those bytes, not
+ * the version: versions restart with the process and differ between cluster
+ * nodes, so a version tag could match a different body across a restart or
+ * another node. The gzip encoding is made once per version, on the first request that accepts it
+ */
+public final class StatusSnapshot {
+
+    private final long version;
+    private final long createdMillis;
+    private final byte[] json;
+    private final String etag;
+    private final String gzipEtag;
+    private volatile byte[] gzip;
+
+    public StatusSnapshot(long version, String json) {
+        this.version = version;
+        this.createdMillis = System.currentTimeMillis();
+        this.json = json.getBytes(StandardCharsets.UTF_8);
+        String tag = Long.toHexString(hash(this.json));
+        this.etag = "\"" + tag + "\"";
+        // ETag of the gzip encoding, as sent by ServingMode
+        this.gzipEtag = "\"" + tag + ServingMode.GZIP_ETAG_SUFFIX;
+    }
+
+    public long version() {
+        return version;
+    }
+
+    public long createdMillis() {
+        return createdMillis;
+    }
+
+    /**
+     * Encoded JSON body. Shared between requests - callers must not modify it
+     */
+    public byte[] json() {
+        return json;
+    }
+
+    /**
+     * Gzip encoding of the body, compressed on first use and then shared
+     */
+    public byte[] gzip() {
+        byte[] encoded = gzip;
+        if (encoded == null) {
+            // Racing requests may each compress once; any copy is equivalent
+            encoded = ServingMode.gzip(json);
+            gzip = encoded;
+        }
+        return encoded;
+    }
+
+    public String etag() {
+        return etag;
+    }
+
+    /**
+     * True if an If-None-Match header value matches this snapshot
+     */
+    public boolean matches(String ifNoneMatch) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        for (String tag : ifNoneMatch.split(",")) {
+            String candidate = tag.trim();
+            if (candidate.startsWith("W/")) {
+                candidate = candidate.substring(2);
+            }
+            if (candidate.equals(etag) || candidate.equals("*") || candidate.equals(gzipEtag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 64-bit FNV-1a of the body with a final avalanche, as HashRing hashes names
+     */
+    static long hash(byte[] bytes) {
+        long h = 0xcbf29ce484222325L;
+        for (byte b : bytes) {
+            h ^= b & 0xff;
+            h *= 0x100000001b3L;
+        }
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+
+    public String asString() {
+        return new String(json, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,121 @@
+package com.Health;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Loads targets into a TargetRegistry, so adding targets needs no code change
+ *
+ * Targets come from application.properties entries
+ *   health.target.&lt;name&gt;=&lt;url&gt;
+ *   health.target.&lt;name&gt;.&lt;option&gt;=&lt;value&gt;
+ * and from the file named by health.targets.file, one target per line
+ *   &lt;name&gt; &lt;url&gt; [option=value ...]
+ * Blank lines and lines starting with # are ignored
+ */
+public class TargetLoader {
+
+    static final String TARGET_PREFIX = "health.target.";
+    static final String TARGETS_FILE = "health.targets.file";
+
+    /**
+     * Registry populated from the given configuration
+     */
+    public static TargetRegistry load(HealthConfig config) {
+        TargetRegistry registry = new TargetRegistry(config.getInt("health.latency.window-s", 300) * 1000L);
+        loadProperties(config, registry);
+
+        String file = config.getString(TARGETS_FILE, null);
+        if (file != null) {
+            try {
+                loadFile(Paths.get(file), registry);
+            } catch (IOException e) {
+                System.err.println("Could not read targets file " + file + ": " + e.getMessage());
+            }
+        }
+        return registry;
+    }
+
+    /**
+     * Register every health.target.* entry, ordered by target name
+     */
+    public static void loadProperties(HealthConfig config, TargetRegistry registry) {
+        Map<String, String> urls = new TreeMap<>();
+        Map<String, Map<String, String>> options = new HashMap<>();
+
+        for (String key : config.properties().stringPropertyNames()) {
+            if (!key.startsWith(TARGET_PREFIX)) {
+                continue;
+            }
+            String rest = key.substring(TARGET_PREFIX.length());
+            String value = config.properties().getProperty(key).trim();
+            int dot = rest.indexOf('.');
+            if (dot < 0) {
+                urls.put(rest, value);
+            } else {
+                options.computeIfAbsent(rest.substring(0, dot), name -> new HashMap<>())
+                    .put(rest.substring(dot + 1), value);
+            }
+        }
+
+        for (Map.Entry<String, String> entry : urls.entrySet()) {
+            Map<String, String> targetOptions = options.getOrDefault(entry.getKey(), new HashMap<>());
+            registry.register(new TargetSpec(entry.getKey(), entry.getValue(), targetOptions));
+        }
+    }
+
+    /**
+     * Register every target listed in a targets file
+     * @return number of targets read
+     */
+    public static int loadFile(Path path, TargetRegistry registry) throws IOException {
+        int count = 0;
+        try (BufferedReader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+            String line;
+            int lineNumber = 0;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                TargetSpec spec = parseLine(line);
+                if (spec == null) {
+                    if (!line.isBlank() && !line.trim().startsWith("#")) {
+                        System.err.println(path + ":" + lineNumber + ": expected '<name> <url> [option=value ...]'");
+                    }
+                    continue;
+                }
+                registry.register(spec);
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Parse one targets file line, or return null for comments and malformed lines
+     */
+    static TargetSpec parseLine(String line) {
+        String trimmed = line.trim();
+        if (trimmed.isEmpty() || trimmed.startsWith("#")) {
+            return null;
+        }
+        String[] parts = trimmed.split("\\s+");
+        if (parts.length < 2) {
+            return null;
+        }
+
+        Map<String, String> options = new HashMap<>();
+        for (int i = 2; i < parts.length; i++) {
+            int eq = parts[i].indexOf('=');
+            if (eq > 0) {
+                options.put(parts[i].substring(0, eq), parts[i].substring(eq + 1));
+            }
+        }
+        return new TargetSpec(parts[0], parts[1], options);
+    }
+}
@@ -0,0 +1,207 @@
+package com.Health;
+
+import java.util.Arrays;
+
+/**
+ * Filter over the recorded state of the fleet by status, tag and host, in any
+ * combination, answered from the TargetRegistry's indexes instead of a pass
+ * over every target. The smallest candidate set drives the scan (a tag's or a
+ * host's posting list, or the status bitset) and the other filters are checked
+ * per candidate, so "what is down right now" costs about the number of targets
+ * that are down. Matches come in id order, a page at a time; the cursor is the
+ * id to continue from and stays valid as targets are added. A target that
+ * changes status between two pages may be missed or listed twice
+ */
+public final class TargetQuery {
+
+    public static final int DEFAULT_LIMIT = 100;
+    public static final int MAX_LIMIT = 1000;
+
+    private final int status;
+    private final String tag;
+    private final String host;
+
+    /**
+     * @param status a TargetRegistry status, or -1 for any
+     * @param tag tag to match, or null for any
+     * @param host host to match, or null for any
+     */
+    public TargetQuery(int status, String tag, String host) {
+        this.status = status;
+        this.tag = normalize(tag);
+        String normalized = normalize(host);
+        // Hosts are indexed without the brackets of an IPv6 literal
+        this.host = normalized != null && normalized.startsWith("[") && normalized.endsWith("]")
+            ? normalized.substring(1, normalized.length() - 1) : normalized;
+    }
+
+    /**
+     * Query from request parameters; a null or empty parameter matches every target
+     * @throws IllegalArgumentException for an unknown status
+     */
+    public static TargetQuery parse(String status, String tag, String host) {
+        return new TargetQuery(normalize(status) != null ? parseStatus(status) : -1, tag, host);
+    }
+
+    private static int parseStatus(String value) {
+        switch (value.trim().toLowerCase()) {
+            case "healthy":
+            case "up":
+                return TargetRegistry.STATUS_HEALTHY;
+            case "unhealthy":
+            case "down":
+                return TargetRegistry.STATUS_UNHEALTHY;
+            case "unknown":
+                return TargetRegistry.STATUS_UNKNOWN;
+            default:
+                throw new IllegalArgumentException("Unknown status '" + value + "', use healthy, unhealthy or unknown");
+        }
+    }
+
+    private static String normalize(String value) {
+        if (value == null || value.trim().isEmpty()) {
+            return null;
+        }
+        return value.trim().toLowerCase();
+    }
+
+    public static String statusName(int status) {
+        switch (status) {
+            case TargetRegistry.STATUS_HEALTHY: return "HEALTHY";
+            case TargetRegistry.STATUS_UNHEALTHY: return "UNHEALTHY";
+            default: return "UNKNOWN";
+        }
+    }
+
+    /**
+     * Matching ids of one page
+     */
+    public static final class Result {
+        private final int[] ids;
+        private final int nextCursor;
+        private final int examined;
+
+        Result(int[] ids, int nextCursor, int examined) {
+            this.ids = ids;
+            this.nextCursor = nextCursor;
+            this.examined = examined;
+        }
+
+        public int[] ids() {
+            return ids;
+        }
+
+        /**
+         * Cursor of the next page, or -1 after the last match
+         */
+        public int nextCursor() {
+            return nextCursor;
+        }
+
+        /**
+         * Candidates the indexes yielded for this page, matching or not
+         */
+        public int examined() {
+            return examined;
+        }
+    }
+
+    /**
+     * Up to limit matches, starting at the cursor (0 for the first page)
+     */
+    public Result run(TargetRegistry registry, int cursor, int limit) {
+        Page page = new Page(Math.max(1, Math.min(limit, MAX_LIMIT)));
+        int from = Math.max(0, cursor);
+
+        TargetRegistry.Postings postings = null;
+        if (tag != null) {
+            postings = registry.tagged(tag);
+            if (postings == null) {
+                return page.result();
+            }
+        }
+        if (host != null) {
+            TargetRegistry.Postings hosted = registry.onHost(host);
+            if (hosted == null) {
+                return page.result();
+            }
+            if (postings == null || hosted.size() < postings.size()) {
+                postings = hosted;
+            }
+        }
+        if (postings != null && (status < 0 || postings.size() <= registry.countStatus(status))) {
+            // Size before the array: any array read afterwards holds that many ids
+            int n = postings.size();
+            int[] ids = postings.ids();
+            int start = Arrays.binarySearch(ids, 0, n, from);
+            for (int i = start >= 0 ? start : -start - 1; i < n; i++) {
+                if (!page.offer(registry, ids[i])) {
+                    break;
+                }
+            }
+        } else if (status >= 0) {
+            for (int id = registry.nextWithStatus(status, from); id >= 0; id = registry.nextWithStatus(status, id + 1)) {
+                if (!page.offer(registry, id)) {
+                    break;
+                }
+            }
+        } else {
+            for (int id = from, n = registry.size(); id < n; id++) {
+                if (!page.offer(registry, id)) {
+                    break;
+                }
+            }
+        }
+        return page.result();
+    }
+
+    private boolean matches(TargetRegistry registry, int id) {
+        // The status is read again: a bit may lag a change that is being applied
+        return (status < 0 || registry.status(id) == status)
+            && (tag == null || registry.hasTag(id, tag))
+            && (host == null || host.equals(registry.host(id)));
+    }
+
+    /**
+     * Matches collected so far; the first match past the limit becomes the next cursor
+     */
+    private final class Page {
+        final int[] ids;
+        int count;
+        int next = -1;
+        int examined;
+
+        Page(int limit) {
+            ids = new int[limit];
+        }
+
+        boolean offer(TargetRegistry registry, int id) {
+            examined++;
+            if (!matches(registry, id)) {
+                return true;
+            }
+            if (count == ids.length) {
+                next = id;
+                return false;
+            }
+            ids[count++] = id;
+            return true;
+        }
+
+        Result result() {
+            return new Result(Arrays.copyOf(ids, count), next, examined);
+        }
+    }
+
+    public int status() {
+        return status;
+    }
+
+    public String tag() {
+        return tag;
+    }
+
+    public String host() {
+        return host;
+    }
+}
@@ -0,0 +1,580 @@
+package com.Health;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Concurrent registry of monitored targets
+ * Every target gets a dense integer id; its status, last latency and counters
+ * live in primitive arrays indexed by that id. Arrays are allocated in fixed
+ * pages that never move, so growing the registry never loses a concurrent update
+ *
+ * Secondary indexes answer fleet queries without a pass over every target:
+ * one bitset per status, kept in step with each status change, and posting
+ * lists of the ids carrying each tag and living on each host, appended as
+ * targets register
+ */
+public class TargetRegistry {
+
+    public static final int STATUS_UNKNOWN = 0;
+    public static final int STATUS_HEALTHY = 1;
+    public static final int STATUS_UNHEALTHY = 2;
+
+    private static final int PAGE_SHIFT = 12;
+    private static final int PAGE_SIZE = 1 << PAGE_SHIFT;
+    private static final int PAGE_MASK = PAGE_SIZE - 1;
+    private static final int PAGE_WORDS = PAGE_SIZE >>> 6;
+    private static final int STATUS_COUNT = 3;
+    private static final String[] NO_TAGS = new String[0];
+    private static final long DEFAULT_LATENCY_WINDOW_MS = 300_000;
+
+    /**
+     * Fixed-size slice of the per-target state arrays
+     */
+    private static final class Page {
+        final TargetSpec[] specs = new TargetSpec[PAGE_SIZE];
+        final BodyAssertion[] assertions = new BodyAssertion[PAGE_SIZE];
+        final SocketCheck[] socketChecks = new SocketCheck[PAGE_SIZE];
+        final AtomicIntegerArray status = new AtomicIntegerArray(PAGE_SIZE);
+        final AtomicIntegerArray lastStatusCode = new AtomicIntegerArray(PAGE_SIZE);
+        final AtomicIntegerArray lastLatencyMicros = new AtomicIntegerArray(PAGE_SIZE);
+        final AtomicIntegerArray consecutiveFailures = new AtomicIntegerArray(PAGE_SIZE);
+        final AtomicLongArray lastCheckMillis = new AtomicLongArray(PAGE_SIZE);
+        final AtomicLongArray totalChecks = new AtomicLongArray(PAGE_SIZE);
+        final AtomicLongArray failedChecks = new AtomicLongArray(PAGE_SIZE);
+        final AtomicIntegerArray intervalMs = new AtomicIntegerArray(PAGE_SIZE);
+        final AtomicIntegerArray baseIntervalMs = new AtomicIntegerArray(PAGE_SIZE);
+        final AtomicIntegerArray minIntervalMs = new AtomicIntegerArray(PAGE_SIZE);
+        final AtomicIntegerArray maxIntervalMs = new AtomicIntegerArray(PAGE_SIZE);
+        final AtomicIntegerArray timeoutMs = new AtomicIntegerArray(PAGE_SIZE);
+        final AtomicIntegerArray inFlight = new AtomicIntegerArray(PAGE_SIZE);
+        final AtomicReferenceArray<LatencyHistogram> latency = new AtomicReferenceArray<>(PAGE_SIZE);
+        final AtomicReferenceArray<UptimeRollup> uptime = new AtomicReferenceArray<>(PAGE_SIZE);
+        final String[] hosts = new String[PAGE_SIZE];
+        final String[][] tags = new String[PAGE_SIZE][];
+        // One bit per slot for each status, and how many are set; written under the page's lock
+        final AtomicLongArray[] statusBits = {
+            new AtomicLongArray(PAGE_WORDS), new AtomicLongArray(PAGE_WORDS), new AtomicLongArray(PAGE_WORDS)};
+        final AtomicIntegerArray statusCounts = new AtomicIntegerArray(STATUS_COUNT);
+    }
+
+    /**
+     * Ids of the targets with one tag or on one host, ascending since ids are
+     * handed out in order. Appended under the registry's lock; a reader takes
+     * size() before ids(), and every array published holds at least that many ids
+     */
+    static final class Postings {
+        private volatile int[] ids = new int[4];
+        private volatile int size;
+
+        private void add(int id) {
+            int[] current = ids;
+            if (size == current.length) {
+                current = Arrays.copyOf(current, current.length * 2);
+                ids = current;
+            }
+            current[size] = id;
+            size = size + 1;
+        }
+
+        int size() {
+            return size;
+        }
+
+        int[] ids() {
+            return ids;
+        }
+    }
+
+    private final ConcurrentHashMap<String, Integer> idsByName = new ConcurrentHashMap<>();
+    private final long latencyWindowMillis;
+    private volatile Page[] pages = new Page[0];
+    private volatile int size = 0;
+    private final AtomicInteger healthyCount = new AtomicInteger();
+    private final AtomicInteger unhealthyCount = new AtomicInteger();
+    private final ConcurrentHashMap<String, Postings> tagPostings = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, Postings> hostPostings = new ConcurrentHashMap<>();
+
+    public TargetRegistry() {
+        this(DEFAULT_LATENCY_WINDOW_MS);
+    }
+
+    /**
+     * @param latencyWindowMillis period after which the recent latency counts of each target are halved
+     */
+    public TargetRegistry(long latencyWindowMillis) {
+        this.latencyWindowMillis = latencyWindowMillis;
+    }
+
+    /**
+     * Register a target, returning its id. Registering a known name returns the existing id
+     */
+    public synchronized int register(TargetSpec spec) {
+        Integer existing = idsByName.get(spec.getName());
+        if (existing != null) {
+            return existing;
+        }
+
+        int id = size;
+        int pageIndex = id >>> PAGE_SHIFT;
+        if (pageIndex == pages.length) {
+            Page[] grown = new Page[pages.length + 1];
+            System.arraycopy(pages, 0, grown, 0, pages.length);
+            grown[pageIndex] = new Page();
+            pages = grown;
+        }
+        pages[pageIndex].specs[id & PAGE_MASK] = spec;
+        pages[pageIndex].assertions[id & PAGE_MASK] = BodyAssertion.of(spec);
+        pages[pageIndex].socketChecks[id & PAGE_MASK] = SocketCheck.of(spec);
+        String host = host(spec);
+        String[] tags = tags(spec);
+        pages[pageIndex].hosts[id & PAGE_MASK] = host;
+        pages[pageIndex].tags[id & PAGE_MASK] = tags;
+        if (host != null) {
+            hostPostings.computeIfAbsent(host, key -> new Postings()).add(id);
+        }
+        for (String tag : tags) {
+            tagPostings.computeIfAbsent(tag, key -> new Postings()).add(id);
+        }
+        syncStatusBits(pages[pageIndex], id & PAGE_MASK);
+        idsByName.put(spec.getName(), id);
+
+        // Publish the new id only after its slot is filled
+        size = id + 1;
+        return id;
+    }
+
+    /**
+     * Lower-cased host of a target's URL, without the brackets of an IPv6 literal, or null
+     */
+    private static String host(TargetSpec spec) {
+        String host;
+        try {
+            host = URI.create(spec.getUrl()).getHost();
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+        if (host == null) {
+            return null;
+        }
+        host = host.toLowerCase();
+        return host.startsWith("[") && host.endsWith("]") ? host.substring(1, host.length() - 1) : host;
+    }
+
+    /**
+     * Distinct lower-cased tags of the comma-separated tags option
+     */
+    private static String[] tags(TargetSpec spec) {
+        String option = spec.option("tags", null);
+        if (option == null) {
+            return NO_TAGS;
+        }
+        List<String> tags = new ArrayList<>();
+        for (String tag : option.split(",")) {
+            String normalized = tag.trim().toLowerCase();
+            if (!normalized.isEmpty() && !tags.contains(normalized)) {
+                tags.add(normalized);
+            }
+        }
+        return tags.isEmpty() ? NO_TAGS : tags.toArray(NO_TAGS);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Id of the named target, or -1 if it is not registered
+     */
+    public int idOf(String name) {
+        Integer id = idsByName.get(name);
+        return id != null ? id : -1;
+    }
+
+    public boolean contains(int id) {
+        return id >= 0 && id < size;
+    }
+
+    private Page page(int id) {
+        if (!contains(id)) {
+            throw new IllegalArgumentException("Unknown target id: " + id);
+        }
+        return pages[id >>> PAGE_SHIFT];
+    }
+
+    public TargetSpec spec(int id) {
+        return page(id).specs[id & PAGE_MASK];
+    }
+
+    /**
+     * Body assertion from the target's body-* options, or null to check the status code only
+     */
+    public BodyAssertion assertion(int id) {
+        return page(id).assertions[id & PAGE_MASK];
+    }
+
+    /**
+     * Socket-level check from the target's scheme and check option, or null to probe it over HTTP
+     */
+    public SocketCheck socketCheck(int id) {
+        return page(id).socketChecks[id & PAGE_MASK];
+    }
+
+    public String name(int id) {
+        return spec(id).getName();
+    }
+
+    public String url(int id) {
+        return spec(id).getUrl();
+    }
+
+    /**
+     * Host of the target's URL, lower-cased, or null if the URL has none
+     */
+    public String host(int id) {
+        return page(id).hosts[id & PAGE_MASK];
+    }
+
+    /**
+     * Tags from the target's tags option, lower-cased
+     */
+    public List<String> tags(int id) {
+        return List.of(page(id).tags[id & PAGE_MASK]);
+    }
+
+    public boolean hasTag(int id, String tag) {
+        for (String candidate : page(id).tags[id & PAGE_MASK]) {
+            if (candidate.equals(tag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Posting list of a lower-cased tag, or null if no target carries it
+     */
+    Postings tagged(String tag) {
+        return tagPostings.get(tag);
+    }
+
+    /**
+     * Posting list of a lower-cased host, or null if no target is on it
+     */
+    Postings onHost(String host) {
+        return hostPostings.get(host);
+    }
+
+    public int status(int id) {
+        return page(id).status.get(id & PAGE_MASK);
+    }
+
+    public boolean isHealthy(int id) {
+        return status(id) == STATUS_HEALTHY;
+    }
+
+    public int lastStatusCode(int id) {
+        return page(id).lastStatusCode.get(id & PAGE_MASK);
+    }
+
+    public int lastLatencyMicros(int id) {
+        return page(id).lastLatencyMicros.get(id & PAGE_MASK);
+    }
+
+    public long lastCheckMillis(int id) {
+        return page(id).lastCheckMillis.get(id & PAGE_MASK);
+    }
+
+    public long totalChecks(int id) {
+        return page(id).totalChecks.get(id & PAGE_MASK);
+    }
+
+    public long failedChecks(int id) {
+        return page(id).failedChecks.get(id & PAGE_MASK);
+    }
+
+    public int consecutiveFailures(int id) {
+        return page(id).consecutiveFailures.get(id & PAGE_MASK);
+    }
+
+    /**
+     * Latency histogram of a target, or null until its first probe is recorded
+     */
+    public LatencyHistogram latency(int id) {
+        return page(id).latency.get(id & PAGE_MASK);
+    }
+
+    private LatencyHistogram histogram(Page page, int slot) {
+        LatencyHistogram histogram = page.latency.get(slot);
+        if (histogram == null) {
+            page.latency.compareAndSet(slot, null, new LatencyHistogram(latencyWindowMillis));
+            histogram = page.latency.get(slot);
+        }
+        return histogram;
+    }
+
+    /**
+     * Uptime rollups of a target, or null until its first probe is recorded
+     */
+    public UptimeRollup uptime(int id) {
+        return page(id).uptime.get(id & PAGE_MASK);
+    }
+
+    private static UptimeRollup rollup(Page page, int slot) {
+        UptimeRollup rollup = page.uptime.get(slot);
+        if (rollup == null) {
+            page.uptime.compareAndSet(slot, null, new UptimeRollup());
+            rollup = page.uptime.get(slot);
+        }
+        return rollup;
+    }
+
+    /**
+     * Add a persisted result to a target's uptime rollups (used when replaying history)
+     */
+    public void restoreUptime(int id, long timestampMillis, boolean healthy, long latencyMicros) {
+        Page page = page(id);
+        rollup(page, id & PAGE_MASK).record(timestampMillis, healthy, latencyMicros);
+    }
+
+    /**
+     * Record a probe result for a target
+     * @return true if the target's status changed
+     */
+    public boolean record(int id, ProbeResult result) {
+        Page page = page(id);
+        int slot = id & PAGE_MASK;
+        boolean healthy = result.isHealthy();
+
+        long latencyMicros = result.getLatencyNanos() / 1000;
+        page.lastStatusCode.set(slot, result.getStatusCode());
+        page.lastLatencyMicros.set(slot, (int) Math.min(Integer.MAX_VALUE, latencyMicros));
+        histogram(page, slot).recordMicros(latencyMicros);
+        long now = System.currentTimeMillis();
+        rollup(page, slot).record(now, healthy, latencyMicros);
+        page.lastCheckMillis.set(slot, now);
+        page.totalChecks.incrementAndGet(slot);
+        if (healthy) {
+            page.consecutiveFailures.set(slot, 0);
+        } else {
+            page.failedChecks.incrementAndGet(slot);
+            page.consecutiveFailures.incrementAndGet(slot);
+        }
+
+        int newStatus = healthy ? STATUS_HEALTHY : STATUS_UNHEALTHY;
+        int oldStatus = page.status.getAndSet(slot, newStatus);
+        if (oldStatus == newStatus) {
+            return false;
+        }
+        syncStatusBits(page, slot);
+        adjustCount(oldStatus, -1);
+        adjustCount(newStatus, 1);
+        return true;
+    }
+
+    /**
+     * Restore persisted state of a target (at startup, before any probe), or
+     * apply the state reported by the cluster node that probes it
+     */
+    public void restore(int id, boolean healthy, int lastStatusCode, int lastLatencyMicros, long lastCheckMillis,
+                        long totalChecks, long failedChecks, int consecutiveFailures) {
+        Page page = page(id);
+        int slot = id & PAGE_MASK;
+        page.lastStatusCode.set(slot, lastStatusCode);
+        page.lastLatencyMicros.set(slot, lastLatencyMicros);
+        page.lastCheckMillis.set(slot, lastCheckMillis);
+        page.totalChecks.set(slot, totalChecks);
+        page.failedChecks.set(slot, failedChecks);
+        page.consecutiveFailures.set(slot, consecutiveFailures);
+
+        int newStatus = healthy ? STATUS_HEALTHY : STATUS_UNHEALTHY;
+        int oldStatus = page.status.getAndSet(slot, newStatus);
+        if (oldStatus != newStatus) {
+            syncStatusBits(page, slot);
+            adjustCount(oldStatus, -1);
+            adjustCount(newStatus, 1);
+        }
+    }
+
+    /**
+     * Merge state replayed from the probe history while probes may already run:
+     * the counts are added to what was recorded since startup, and the last
+     * result is applied only when nothing newer was recorded. A probe recorded
+     * during the merge can lose its status to the replayed one until the next probe
+     */
+    public void mergeHistory(int id, boolean healthy, int lastStatusCode, int lastLatencyMicros, long lastCheckMillis,
+                             long totalChecks, long failedChecks, int consecutiveFailures) {
+        Page page = page(id);
+        int slot = id & PAGE_MASK;
+        page.totalChecks.addAndGet(slot, totalChecks);
+        page.failedChecks.addAndGet(slot, failedChecks);
+        long current;
+        do {
+            current = page.lastCheckMillis.get(slot);
+            if (current >= lastCheckMillis) {
+                return;
+            }
+        } while (!page.lastCheckMillis.compareAndSet(slot, current, lastCheckMillis));
+        page.lastStatusCode.set(slot, lastStatusCode);
+        page.lastLatencyMicros.set(slot, lastLatencyMicros);
+        page.consecutiveFailures.set(slot, consecutiveFailures);
+
+        int newStatus = healthy ? STATUS_HEALTHY : STATUS_UNHEALTHY;
+        int oldStatus = page.status.getAndSet(slot, newStatus);
+        if (oldStatus != newStatus) {
+            syncStatusBits(page, slot);
+            adjustCount(oldStatus, -1);
+            adjustCount(newStatus, 1);
+        }
+    }
+
+    /**
+     * Move a slot's bit to the status it holds now. Changes of one page are
+     * serialized and each reads the status afresh, so when two changes race the
+     * bits settle on the last status written
+     */
+    private static void syncStatusBits(Page page, int slot) {
+        int word = slot >>> 6;
+        long bit = 1L << slot;
+        synchronized (page) {
+            int current = page.status.get(slot);
+            for (int status = 0; status < STATUS_COUNT; status++) {
+                long bits = page.statusBits[status].get(word);
+                if (status == current && (bits & bit) == 0) {
+                    page.statusBits[status].set(word, bits | bit);
+                    page.statusCounts.incrementAndGet(status);
+                } else if (status != current && (bits & bit) != 0) {
+                    page.statusBits[status].set(word, bits & ~bit);
+                    page.statusCounts.decrementAndGet(status);
+                }
+            }
+        }
+    }
+
+    /**
+     * Smallest id at or after fromId whose status bit is set, or -1. Pages without
+     * such a target are skipped whole, so the cost follows the matches, not the fleet
+     */
+    int nextWithStatus(int status, int fromId) {
+        int n = size;
+        Page[] pages = this.pages;
+        int id = Math.max(0, fromId);
+        while (id < n) {
+            Page page = pages[id >>> PAGE_SHIFT];
+            int pageStart = id & ~PAGE_MASK;
+            if (page.statusCounts.get(status) > 0) {
+                AtomicLongArray bits = page.statusBits[status];
+                int word = (id & PAGE_MASK) >>> 6;
+                long remaining = bits.get(word) & (-1L << id);
+                while (remaining == 0 && ++word < PAGE_WORDS) {
+                    remaining = bits.get(word);
+                }
+                if (remaining != 0) {
+                    int found = pageStart + (word << 6) + Long.numberOfTrailingZeros(remaining);
+                    return found < n ? found : -1;
+                }
+            }
+            id = pageStart + PAGE_SIZE;
+        }
+        return -1;
+    }
+
+    private void adjustCount(int status, int delta) {
+        if (status == STATUS_HEALTHY) {
+            healthyCount.addAndGet(delta);
+        } else if (status == STATUS_UNHEALTHY) {
+            unhealthyCount.addAndGet(delta);
+        }
+    }
+
+    public int healthyCount() {
+        return healthyCount.get();
+    }
+
+    public int unhealthyCount() {
+        return unhealthyCount.get();
+    }
+
+    /**
+     * Current probe interval of a target in milliseconds, 0 until it is scheduled
+     */
+    public int intervalMs(int id) {
+        return page(id).intervalMs.get(id & PAGE_MASK);
+    }
+
+    /**
+     * Configured probe interval, before any adaptive stretching or shortening
+     */
+    public int baseIntervalMs(int id) {
+        return page(id).baseIntervalMs.get(id & PAGE_MASK);
+    }
+
+    public int minIntervalMs(int id) {
+        return page(id).minIntervalMs.get(id & PAGE_MASK);
+    }
+
+    public int maxIntervalMs(int id) {
+        return page(id).maxIntervalMs.get(id & PAGE_MASK);
+    }
+
+    public void setIntervalMs(int id, int intervalMs) {
+        page(id).intervalMs.set(id & PAGE_MASK, intervalMs);
+    }
+
+    /**
+     * Bounds for adaptive intervals; without them the interval stays at its base
+     */
+    public void setIntervalBounds(int id, int minIntervalMs, int maxIntervalMs) {
+        Page page = page(id);
+        page.minIntervalMs.set(id & PAGE_MASK, minIntervalMs);
+        page.maxIntervalMs.set(id & PAGE_MASK, maxIntervalMs);
+    }
+
+    public int timeoutMs(int id) {
+        return page(id).timeoutMs.get(id & PAGE_MASK);
+    }
+
+    public void setSchedule(int id, int intervalMs, int timeoutMs) {
+        Page page = page(id);
+        page.intervalMs.set(id & PAGE_MASK, intervalMs);
+        page.baseIntervalMs.set(id & PAGE_MASK, intervalMs);
+        page.minIntervalMs.set(id & PAGE_MASK, intervalMs);
+        page.maxIntervalMs.set(id & PAGE_MASK, intervalMs);
+        page.timeoutMs.set(id & PAGE_MASK, timeoutMs);
+    }
+
+    /**
+     * Mark a probe of the target as in flight
+     * @return false if a probe of this target is already running
+     */
+    public boolean tryStartProbe(int id) {
+        return page(id).inFlight.compareAndSet(id & PAGE_MASK, 0, 1);
+    }
+
+    public void finishProbe(int id) {
+        page(id).inFlight.set(id & PAGE_MASK, 0);
+    }
+
+    /**
+     * Number of targets currently in the given status, summed from the pages' bitset counts
+     */
+    public int countStatus(int status) {
+        int count = 0;
+        for (Page page : pages) {
+            count += page.statusCounts.get(status);
+        }
+        return count;
+    }
+
+    public boolean allHealthy() {
+        int n = size;
+        return n > 0 && healthyCount.get() == n;
+    }
+}
@@ -0,0 +1,56 @@
+package com.Health;
+
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * Configuration of one monitored target as read from a targets file or properties
+ * Extra settings are kept as key=value options
+ */
+public final class TargetSpec {
+
+    private final String name;
+    private final String url;
+    private final Map<String, String> options;
+
+    public TargetSpec(String name, String url) {
+        this(name, url, Collections.emptyMap());
+    }
+
+    public TargetSpec(String name, String url, Map<String, String> options) {
+        this.name = name;
+        this.url = url;
+        // Compact immutable copy keeps per-target memory small in large fleets
+        this.options = options.isEmpty() ? Collections.emptyMap() : Map.copyOf(options);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getUrl() {
+        return url;
+    }
+
+    public Map<String, String> getOptions() {
+        return options;
+    }
+
+    public String option(String key, String defaultValue) {
+        String value = options.get(key);
+        return value != null ? value : defaultValue;
+    }
+
+    public int intOption(String key, int defaultValue) {
+        String value = options.get(key);
+        if (value == null) {
+            return defaultValue;
+        }
+        try {
+            return Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            System.err.println("Invalid " + key + " for target " + name + ": " + value);
+            return defaultValue;
+        }
+    }
+}
@@ -0,0 +1,253 @@
+package com.Health;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Hashed timer wheel keyed by dense integer ids
+ * Timers live in intrusive doubly-linked bucket lists held in int arrays, so
+ * scheduling, cancelling and firing allocate nothing. Each id has at most one
+ * pending timer; scheduling it again moves the timer
+ */
+public class TimerWheel {
+
+    /**
+     * Called on the wheel thread when a timer expires
+     */
+    public interface Callback {
+        void fire(int id, long deadlineTick);
+    }
+
+    private static final int NONE = -1;
+
+    private final long tickNanos;
+    private final int mask;
+    private final int[] heads;
+    private final Callback callback;
+
+    // Per-id timer state, only touched while holding the wheel lock
+    private long[] deadlines = new long[0];
+    private int[] next = new int[0];
+    private int[] prev = new int[0];
+
+    private final long startNanos;
+    private long currentTick = 0;
+    private int pending = 0;
+
+    // Ids expired during one tick, fired after the lock is released
+    private int[] expiredIds = new int[256];
+    private long[] expiredTicks = new long[256];
+
+    private volatile Thread thread;
+    private volatile boolean running;
+
+    public TimerWheel(long tickMillis, int wheelSize, Callback callback) {
+        if (Integer.bitCount(wheelSize) != 1) {
+            throw new IllegalArgumentException("Wheel size must be a power of two: " + wheelSize);
+        }
+        this.tickNanos = TimeUnit.MILLISECONDS.toNanos(tickMillis);
+        this.mask = wheelSize - 1;
+        this.heads = new int[wheelSize];
+        Arrays.fill(heads, NONE);
+        this.callback = callback;
+        this.startNanos = System.nanoTime();
+    }
+
+    public long tickNanos() {
+        return tickNanos;
+    }
+
+    public synchronized long currentTick() {
+        return currentTick;
+    }
+
+    /**
+     * Number of timers currently scheduled
+     */
+    public synchronized int pending() {
+        return pending;
+    }
+
+    /**
+     * Schedule (or move) the timer for an id to fire after the given delay
+     */
+    public synchronized void schedule(int id, long delayMillis) {
+        long ticks = (TimeUnit.MILLISECONDS.toNanos(delayMillis) + tickNanos - 1) / tickNanos;
+        scheduleAt(id, currentTick + Math.max(1, ticks));
+    }
+
+    /**
+     * Schedule (or move) the timer for an id to fire at an absolute tick
+     * Ticks already in the past fire on the next tick
+     */
+    public synchronized void scheduleAt(int id, long deadlineTick) {
+        ensureCapacity(id);
+        if (deadlines[id] != NONE) {
+            unlink(id);
+        }
+        long tick = Math.max(deadlineTick, currentTick + 1);
+        deadlines[id] = tick;
+
+        int bucket = (int) (tick & mask);
+        int head = heads[bucket];
+        next[id] = head;
+        prev[id] = NONE;
+        if (head != NONE) {
+            prev[head] = id;
+        }
+        heads[bucket] = id;
+        pending++;
+    }
+
+    /**
+     * Deadline tick of the pending timer for an id, or -1 if none is pending
+     */
+    public synchronized long deadlineOf(int id) {
+        return id < deadlines.length ? deadlines[id] : NONE;
+    }
+
+    public synchronized boolean cancel(int id) {
+        if (id >= deadlines.length || deadlines[id] == NONE) {
+            return false;
+        }
+        unlink(id);
+        return true;
+    }
+
+    /**
+     * Number of ticks covering the given delay, rounded up
+     */
+    public long ticksFor(long delayMillis) {
+        return (TimeUnit.MILLISECONDS.toNanos(delayMillis) + tickNanos - 1) / tickNanos;
+    }
+
+    /**
+     * Nanosecond deadline of a tick, on the System.nanoTime() clock
+     */
+    public long tickDeadlineNanos(long tick) {
+        return startNanos + tick * tickNanos;
+    }
+
+    /**
+     * Process every tick that has elapsed up to the given System.nanoTime() value
+     * The wheel must be driven by a single thread; callbacks may reschedule freely
+     * @return number of timers fired
+     */
+    public int advanceTo(long nowNanos) {
+        long targetTick = (nowNanos - startNanos) / tickNanos;
+        int fired = 0;
+        while (true) {
+            int count;
+            synchronized (this) {
+                if (currentTick >= targetTick) {
+                    return fired;
+                }
+                currentTick++;
+                count = collectExpired(currentTick);
+            }
+            for (int i = 0; i < count; i++) {
+                try {
+                    callback.fire(expiredIds[i], expiredTicks[i]);
+                } catch (RuntimeException e) {
+                    System.err.println("Timer callback failed for id " + expiredIds[i] + ": " + e.getMessage());
+                }
+            }
+            fired += count;
+        }
+    }
+
+    /**
+     * Advance the wheel by a number of ticks without waiting (for benchmarks)
+     */
+    public int advanceTicks(long ticks) {
+        long target;
+        synchronized (this) {
+            target = currentTick + ticks;
+        }
+        return advanceTo(startNanos + target * tickNanos);
+    }
+
+    private int collectExpired(long tick) {
+        int count = 0;
+        int id = heads[(int) (tick & mask)];
+        while (id != NONE) {
+            int following = next[id];
+            long deadline = deadlines[id];
+            if (deadline <= tick) {
+                unlink(id);
+                if (count == expiredIds.length) {
+                    expiredIds = Arrays.copyOf(expiredIds, count * 2);
+                    expiredTicks = Arrays.copyOf(expiredTicks, count * 2);
+                }
+                expiredIds[count] = id;
+                expiredTicks[count] = deadline;
+                count++;
+            }
+            id = following;
+        }
+        return count;
+    }
+
+    private void unlink(int id) {
+        int before = prev[id];
+        int after = next[id];
+        if (before != NONE) {
+            next[before] = after;
+        } else {
+            heads[(int) (deadlines[id] & mask)] = after;
+        }
+        if (after != NONE) {
+            prev[after] = before;
+        }
+        deadlines[id] = NONE;
+        next[id] = NONE;
+        prev[id] = NONE;
+        pending--;
+    }
+
+    private void ensureCapacity(int id) {
+        if (id < deadlines.length) {
+            return;
+        }
+        int oldLength = deadlines.length;
+        int newLength = Math.max(id + 1, Math.max(64, oldLength * 2));
+        deadlines = Arrays.copyOf(deadlines, newLength);
+        next = Arrays.copyOf(next, newLength);
+        prev = Arrays.copyOf(prev, newLength);
+        Arrays.fill(deadlines, oldLength, newLength, NONE);
+        Arrays.fill(next, oldLength, newLength, NONE);
+        Arrays.fill(prev, oldLength, newLength, NONE);
+    }
+
+    /**
+     * Start the daemon thread that drives the wheel in real time
+     */
+    public synchronized void start(String name) {
+        if (running) {
+            return;
+        }
+        running = true;
+        thread = new Thread(() -> {
+            while (running) {
+                long now = System.nanoTime();
+                advanceTo(now);
+                long nextTick;
+                synchronized (this) {
+                    nextTick = tickDeadlineNanos(currentTick + 1);
+                }
+                LockSupport.parkNanos(Math.max(0, nextTick - System.nanoTime()));
+            }
+        }, name);
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    public void stop() {
+        running = false;
+        Thread t = thread;
+        if (t != null) {
+            LockSupport.unpark(t);
+        }
+    }
+}
@@ -0,0 +1,353 @@
+package com.Health;
+
+import java.nio.ByteBuffer;
+import java.security.KeyManagementException;
+import java.security.SecureRandom;
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BiFunction;
+import javax.net.ssl.KeyManager;
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLContextSpi;
+import javax.net.ssl.SSLEngine;
+import javax.net.ssl.SSLEngineResult;
+import javax.net.ssl.SSLException;
+import javax.net.ssl.SSLParameters;
+import javax.net.ssl.SSLServerSocketFactory;
+import javax.net.ssl.SSLSession;
+import javax.net.ssl.SSLSessionContext;
+import javax.net.ssl.SSLSocketFactory;
+import javax.net.ssl.TrustManager;
+
+/**
+ * Counts full and resumed TLS handshakes of the engines an SSLContext creates
+ * Both probe engines use SSLEngine (the HttpClient internally), so wrapping
+ * the context sees every handshake without touching the clients. A handshake
+ * is timed from its first record to FINISHED, and counts as resumed when the
+ * session it ends with was created before it started. Sockets from the
+ * context's factories are not counted
+ */
+public class TlsHandshakes {
+
+    private final LongAdder full = new LongAdder();
+    private final LongAdder resumed = new LongAdder();
+    private final LongAdder fullNanos = new LongAdder();
+    private final LongAdder resumedNanos = new LongAdder();
+
+    /**
+     * A context that behaves like the given one and counts the handshakes of its engines
+     */
+    public SSLContext wrap(SSLContext context) {
+        return new CountingContext(context, this);
+    }
+
+    void completed(boolean wasResumed, long nanos) {
+        if (wasResumed) {
+            resumed.increment();
+            resumedNanos.add(nanos);
+        } else {
+            full.increment();
+            fullNanos.add(nanos);
+        }
+    }
+
+    public long full() {
+        return full.sum();
+    }
+
+    public long resumed() {
+        return resumed.sum();
+    }
+
+    /**
+     * Share of handshakes that resumed a cached session
+     */
+    public double resumptionRate() {
+        long resumedCount = resumed.sum();
+        long total = resumedCount + full.sum();
+        return total > 0 ? (double) resumedCount / total : 0;
+    }
+
+    public double meanFullMillis() {
+        long count = full.sum();
+        return count > 0 ? fullNanos.sum() / 1e6 / count : 0;
+    }
+
+    public double meanResumedMillis() {
+        long count = resumed.sum();
+        return count > 0 ? resumedNanos.sum() / 1e6 / count : 0;
+    }
+
+    /**
+     * Handshake time saved by resumption: resumed handshakes times the measured
+     * difference between a full and a resumed one; 0 until both were seen
+     */
+    public double savedMillis() {
+        if (full.sum() == 0 || resumed.sum() == 0) {
+            return 0;
+        }
+        return resumed.sum() * Math.max(0, meanFullMillis() - meanResumedMillis());
+    }
+
+    private static final class CountingContext extends SSLContext {
+        CountingContext(SSLContext delegate, TlsHandshakes handshakes) {
+            super(new CountingSpi(delegate, handshakes), delegate.getProvider(), delegate.getProtocol());
+        }
+    }
+
+    private static final class CountingSpi extends SSLContextSpi {
+        private final SSLContext delegate;
+        private final TlsHandshakes handshakes;
+
+        CountingSpi(SSLContext delegate, TlsHandshakes handshakes) {
+            this.delegate = delegate;
+            this.handshakes = handshakes;
+        }
+
+        @Override
+        protected void engineInit(KeyManager[] keyManagers, TrustManager[] trustManagers, SecureRandom random)
+                throws KeyManagementException {
+            delegate.init(keyManagers, trustManagers, random);
+        }
+
+        @Override
+        protected SSLSocketFactory engineGetSocketFactory() {
+            return delegate.getSocketFactory();
+        }
+
+        @Override
+        protected SSLServerSocketFactory engineGetServerSocketFactory() {
+            return delegate.getServerSocketFactory();
+        }
+
+        @Override
+        protected SSLEngine engineCreateSSLEngine() {
+            return new CountingEngine(delegate.createSSLEngine(), handshakes);
+        }
+
+        @Override
+        protected SSLEngine engineCreateSSLEngine(String host, int port) {
+            return new CountingEngine(delegate.createSSLEngine(host, port), handshakes);
+        }
+
+        @Override
+        protected SSLSessionContext engineGetServerSessionContext() {
+            return delegate.getServerSessionContext();
+        }
+
+        @Override
+        protected SSLSessionContext engineGetClientSessionContext() {
+            return delegate.getClientSessionContext();
+        }
+
+        @Override
+        protected SSLParameters engineGetDefaultSSLParameters() {
+            return delegate.getDefaultSSLParameters();
+        }
+
+        @Override
+        protected SSLParameters engineGetSupportedSSLParameters() {
+            return delegate.getSupportedSSLParameters();
+        }
+    }
+
+    /**
+     * Forwards everything to the JDK engine and watches the results for the end of the first handshake
+     */
+    private static final class CountingEngine extends SSLEngine {
+        private final SSLEngine delegate;
+        private final TlsHandshakes handshakes;
+        private long startNanos;
+        private long startMillis;
+        private boolean counted;
+
+        CountingEngine(SSLEngine delegate, TlsHandshakes handshakes) {
+            super(delegate.getPeerHost(), delegate.getPeerPort());
+            this.delegate = delegate;
+            this.handshakes = handshakes;
+        }
+
+        private synchronized void started() {
+            if (startNanos == 0) {
+                startNanos = System.nanoTime();
+                startMillis = System.currentTimeMillis();
+            }
+        }
+
+        private SSLEngineResult observe(SSLEngineResult result) {
+            if (result.getHandshakeStatus() == SSLEngineResult.HandshakeStatus.FINISHED) {
+                finished();
+            }
+            return result;
+        }
+
+        private synchronized void finished() {
+            if (counted || startNanos == 0) {
+                return;
+            }
+            counted = true;
+            SSLSession session = delegate.getSession();
+            handshakes.completed(session.getCreationTime() < startMillis, System.nanoTime() - startNanos);
+        }
+
+        @Override
+        public SSLEngineResult wrap(ByteBuffer[] sources, int offset, int length, ByteBuffer destination)
+                throws SSLException {
+            started();
+            return observe(delegate.wrap(sources, offset, length, destination));
+        }
+
+        @Override
+        public SSLEngineResult unwrap(ByteBuffer source, ByteBuffer[] destinations, int offset, int length)
+                throws SSLException {
+            started();
+            return observe(delegate.unwrap(source, destinations, offset, length));
+        }
+
+        @Override
+        public void beginHandshake() throws SSLException {
+            started();
+            delegate.beginHandshake();
+        }
+
+        @Override
+        public Runnable getDelegatedTask() {
+            return delegate.getDelegatedTask();
+        }
+
+        @Override
+        public void closeInbound() throws SSLException {
+            delegate.closeInbound();
+        }
+
+        @Override
+        public boolean isInboundDone() {
+            return delegate.isInboundDone();
+        }
+
+        @Override
+        public void closeOutbound() {
+            delegate.closeOutbound();
+        }
+
+        @Override
+        public boolean isOutboundDone() {
+            return delegate.isOutboundDone();
+        }
+
+        @Override
+        public String[] getSupportedCipherSuites() {
+            return delegate.getSupportedCipherSuites();
+        }
+
+        @Override
+        public String[] getEnabledCipherSuites() {
+            return delegate.getEnabledCipherSuites();
+        }
+
+        @Override
+        public void setEnabledCipherSuites(String[] suites) {
+            delegate.setEnabledCipherSuites(suites);
+        }
+
+        @Override
+        public String[] getSupportedProtocols() {
+            return delegate.getSupportedProtocols();
+        }
+
+        @Override
+        public String[] getEnabledProtocols() {
+            return delegate.getEnabledProtocols();
+        }
+
+        @Override
+        public void setEnabledProtocols(String[] protocols) {
+            delegate.setEnabledProtocols(protocols);
+        }
+
+        @Override
+        public SSLSession getSession() {
+            return delegate.getSession();
+        }
+
+        @Override
+        public SSLSession getHandshakeSession() {
+            return delegate.getHandshakeSession();
+        }
+
+        @Override
+        public SSLEngineResult.HandshakeStatus getHandshakeStatus() {
+            return delegate.getHandshakeStatus();
+        }
+
+        @Override
+        public void setUseClientMode(boolean mode) {
+            delegate.setUseClientMode(mode);
+        }
+
+        @Override
+        public boolean getUseClientMode() {
+            return delegate.getUseClientMode();
+        }
+
+        @Override
+        public void setNeedClientAuth(boolean need) {
+            delegate.setNeedClientAuth(need);
+        }
+
+        @Override
+        public boolean getNeedClientAuth() {
+            return delegate.getNeedClientAuth();
+        }
+
+        @Override
+        public void setWantClientAuth(boolean want) {
+            delegate.setWantClientAuth(want);
+        }
+
+        @Override
+        public boolean getWantClientAuth() {
+            return delegate.getWantClientAuth();
+        }
+
+        @Override
+        public void setEnableSessionCreation(boolean flag) {
+            delegate.setEnableSessionCreation(flag);
+        }
+
+        @Override
+        public boolean getEnableSessionCreation() {
+            return delegate.getEnableSessionCreation();
+        }
+
+        @Override
+        public SSLParameters getSSLParameters() {
+            return delegate.getSSLParameters();
+        }
+
+        @Override
+        public void setSSLParameters(SSLParameters parameters) {
+            delegate.setSSLParameters(parameters);
+        }
+
+        @Override
+        public String getApplicationProtocol() {
+            return delegate.getApplicationProtocol();
+        }
+
+        @Override
+        public String getHandshakeApplicationProtocol() {
+            return delegate.getHandshakeApplicationProtocol();
+        }
+
+        @Override
+        public void setHandshakeApplicationProtocolSelector(BiFunction<SSLEngine, List<String>, String> selector) {
+            delegate.setHandshakeApplicationProtocolSelector(selector);
+        }
+
+        @Override
+        public BiFunction<SSLEngine, List<String>, String> getHandshakeApplicationProtocolSelector() {
+            return delegate.getHandshakeApplicationProtocolSelector();
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package com.Health;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+
+/**
+ * AppCDS training run of the lite and Spring modes
+ * With health.startup.training-run=true the application starts as usual,
+ * waits for its first probe, requests its own /health once and exits, so a
+ * JVM started with -XX:ArchiveClassesAtExit dumps the classes of startup,
+ * probing and serving (see the cds profile in pom.xml)
+ */
+final class TrainingRun {
+
+    private TrainingRun() {
+    }
+
+    static boolean enabled() {
+        return HealthConfig.get().getBoolean("health.startup.training-run", false);
+    }
+
+    /**
+     * Exercise the first probe and one /health request, then return so the caller can exit
+     */
+    static void complete(String healthUrl) {
+        int timeoutMs = HealthConfig.get().getInt("health.startup.training-timeout-ms", 30000);
+        try {
+            if (!HealthCheckService.awaitFirstProbe(timeoutMs)) {
+                System.err.println("⚠️  Training run: no probe recorded within " + timeoutMs + " ms");
+            }
+            HttpResponse<Void> response = HttpClient.newHttpClient().send(
+                HttpRequest.newBuilder(URI.create(healthUrl)).timeout(Duration.ofMillis(timeoutMs)).build(),
+                HttpResponse.BodyHandlers.discarding());
+            System.out.println("🎓 Training run complete (" + healthUrl + " returned " + response.statusCode() + ")");
+        } catch (IOException e) {
+            System.err.println("⚠️  Training run: " + healthUrl + " failed: " + e.getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
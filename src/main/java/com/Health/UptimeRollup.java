@@ -0,0 +1,385 @@
+package com.Health;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Per-target uptime rollups at 1-minute, 5-minute, hourly and daily resolution
+ * Each resolution is a ring of time buckets holding probe count, error count
+ * and mean/max latency. Recording touches one bucket per resolution, so it is
+ * O(1); a stale bucket is reset when the ring wraps onto it. Buckets are
+ * aligned to UTC. Rings are allocated on first use and grow with the span
+ * recorded, at 12 bytes per bucket. The hourly and daily levels are always
+ * kept; the 1- and 5-minute levels only once a target is queried at them
+ */
+public final class UptimeRollup {
+
+    /**
+     * Bucket width and ring length of one rollup level
+     */
+    public enum Resolution {
+        ONE_MINUTE("1m", 60_000L, 120, true),
+        FIVE_MINUTES("5m", 300_000L, 288, true),
+        ONE_HOUR("1h", 3_600_000L, 24 * 7, false),
+        ONE_DAY("1d", 86_400_000L, 400, false);
+
+        private final String label;
+        private final long bucketMillis;
+        private final int slots;
+        private final boolean onDemand;
+
+        Resolution(String label, long bucketMillis, int slots, boolean onDemand) {
+            this.label = label;
+            this.bucketMillis = bucketMillis;
+            this.slots = slots;
+            this.onDemand = onDemand;
+        }
+
+        public String label() {
+            return label;
+        }
+
+        public long bucketMillis() {
+            return bucketMillis;
+        }
+
+        /**
+         * Kept only for targets that were queried at this resolution
+         */
+        public boolean onDemand() {
+            return onDemand;
+        }
+
+        /**
+         * How far back this level reaches
+         */
+        public long retentionMillis() {
+            return bucketMillis * slots;
+        }
+
+        /**
+         * Resolution for a label such as "5m", or null if unknown
+         */
+        public static Resolution parse(String label) {
+            for (Resolution resolution : values()) {
+                if (resolution.label.equalsIgnoreCase(label)) {
+                    return resolution;
+                }
+            }
+            return null;
+        }
+
+        /**
+         * Finest resolution that still reaches back to fromMillis
+         */
+        public static Resolution covering(long fromMillis, long nowMillis) {
+            for (Resolution resolution : values()) {
+                if (nowMillis - fromMillis < resolution.retentionMillis() - resolution.bucketMillis) {
+                    return resolution;
+                }
+            }
+            return ONE_DAY;
+        }
+    }
+
+    /**
+     * Aggregated counts of a time range or a single bucket
+     */
+    public static final class Summary {
+        private final long fromMillis;
+        private final long toMillis;
+        private final long count;
+        private final long errors;
+        private final long latencySumMicros;
+        private final int latencyMaxMicros;
+
+        Summary(long fromMillis, long toMillis, long count, long errors, long latencySumMicros, int latencyMaxMicros) {
+            this.fromMillis = fromMillis;
+            this.toMillis = toMillis;
+            this.count = count;
+            this.errors = errors;
+            this.latencySumMicros = latencySumMicros;
+            this.latencyMaxMicros = latencyMaxMicros;
+        }
+
+        public long getFromMillis() {
+            return fromMillis;
+        }
+
+        public long getToMillis() {
+            return toMillis;
+        }
+
+        public long getCount() {
+            return count;
+        }
+
+        public long getErrors() {
+            return errors;
+        }
+
+        /**
+         * Percentage of successful probes, 100 when nothing was probed
+         */
+        public double getAvailability() {
+            return count > 0 ? (1.0 - (double) errors / count) * 100 : 100;
+        }
+
+        public double getAvgLatencyMillis() {
+            return count > 0 ? latencySumMicros / 1000.0 / count : 0;
+        }
+
+        public double getMaxLatencyMillis() {
+            return latencyMaxMicros / 1000.0;
+        }
+    }
+
+    private static final Resolution[] RESOLUTIONS = Resolution.values();
+
+    // Counts saturate at 24 bits, far above one bucket's probes at any supported interval
+    private static final int COUNT_MAX = (1 << 24) - 1;
+
+    /**
+     * Buckets of one resolution in a ring that grows with the span recorded, up
+     * to the resolution's slot count. The newest bucket number (head) is shared
+     * by the ring, so a slot's bucket follows from its position and needs no
+     * field of its own. A slot packs the probe count (24 bits), error count (24
+     * bits) and the upper 16 bits of the max latency as a float (within 0.8%,
+     * rounded up) into one long, next to the mean latency as a float: 12 bytes
+     * per bucket. Bucket numbers are buckets since 1970 plus one, so 0 means empty
+     */
+    private static final class Ring {
+        private static final int INITIAL_CAPACITY = 8;
+
+        private final Resolution resolution;
+        private long[] tallies;
+        private float[] means;
+        private int head;
+        private int first;
+
+        Ring(Resolution resolution) {
+            this.resolution = resolution;
+            int capacity = Math.min(INITIAL_CAPACITY, resolution.slots);
+            tallies = new long[capacity];
+            means = new float[capacity];
+        }
+
+        private int capacity() {
+            return tallies.length;
+        }
+
+        /**
+         * Oldest bucket number the ring still holds
+         */
+        int oldest() {
+            return Math.max(first, head - capacity() + 1);
+        }
+
+        int newest() {
+            return head;
+        }
+
+        void record(int epoch, boolean healthy, int latencyMicros) {
+            if (head == 0) {
+                head = epoch;
+                first = epoch;
+            } else if (epoch > head) {
+                int retainedFrom = Math.max(first, epoch - resolution.slots + 1);
+                grow(epoch - retainedFrom + 1);
+                // Buckets between the old head and this one start empty
+                for (int empty = Math.max(head + 1, epoch - capacity() + 1); empty <= epoch; empty++) {
+                    clear(empty);
+                }
+                head = epoch;
+                first = retainedFrom;
+            } else if (epoch < first) {
+                if (epoch <= head - resolution.slots) {
+                    // Older than anything this ring keeps
+                    return;
+                }
+                grow(head - epoch + 1);
+                for (int empty = epoch; empty < first; empty++) {
+                    clear(empty);
+                }
+                first = epoch;
+            } else if (epoch < oldest()) {
+                return;
+            }
+
+            int slot = epoch % capacity();
+            long tally = tallies[slot];
+            int count = (int) (tally >>> 40);
+            int errors = (int) (tally >>> 16) & COUNT_MAX;
+            int maxBits = (int) tally & 0xFFFF;
+            if (count < COUNT_MAX) {
+                count++;
+                // Running mean: stays exact to float precision where a float sum would drift
+                means[slot] += (latencyMicros - means[slot]) / count;
+                if (!healthy) {
+                    errors++;
+                }
+            }
+            // Bits of non-negative floats order like their values
+            maxBits = Math.max(maxBits, (Float.floatToRawIntBits(latencyMicros) + 0xFFFF) >>> 16);
+            tallies[slot] = ((long) count << 40) | ((long) errors << 16) | maxBits;
+        }
+
+        /**
+         * Widen the ring to hold at least the given number of buckets, keeping the ones it holds
+         */
+        private void grow(int needed) {
+            int capacity = capacity();
+            if (needed <= capacity || capacity == resolution.slots) {
+                return;
+            }
+            int grown = Math.min(resolution.slots, Math.max(needed, capacity * 2));
+            long[] newTallies = new long[grown];
+            float[] newMeans = new float[grown];
+            for (int epoch = oldest(); epoch <= head; epoch++) {
+                newTallies[epoch % grown] = tallies[epoch % capacity];
+                newMeans[epoch % grown] = means[epoch % capacity];
+            }
+            tallies = newTallies;
+            means = newMeans;
+        }
+
+        private void clear(int epoch) {
+            tallies[epoch % capacity()] = 0;
+            means[epoch % capacity()] = 0;
+        }
+
+        long count(int epoch) {
+            return tallies[epoch % capacity()] >>> 40;
+        }
+
+        long errors(int epoch) {
+            return (tallies[epoch % capacity()] >>> 16) & COUNT_MAX;
+        }
+
+        long latencySum(int epoch) {
+            return Math.round((double) means[epoch % capacity()] * count(epoch));
+        }
+
+        int latencyMax(int epoch) {
+            int bits = (int) tallies[epoch % capacity()] & 0xFFFF;
+            return (int) Float.intBitsToFloat(bits << 16);
+        }
+
+        long bytes() {
+            return capacity() * 12L;
+        }
+    }
+
+    private final Ring[] rings = new Ring[RESOLUTIONS.length];
+    // Per on-demand resolution, the time from which live results are recorded
+    private final long[] trackedFrom = new long[RESOLUTIONS.length];
+
+    /**
+     * Start keeping an on-demand resolution with results from nowMillis on;
+     * earlier ones can be back-filled with {@link #backfill}
+     * @return true if it was not kept before
+     */
+    public synchronized boolean track(Resolution resolution, long nowMillis) {
+        if (rings[resolution.ordinal()] != null) {
+            return false;
+        }
+        rings[resolution.ordinal()] = new Ring(resolution);
+        trackedFrom[resolution.ordinal()] = nowMillis;
+        return true;
+    }
+
+    /**
+     * Whether results are recorded at this resolution; the coarse ones always are
+     */
+    public synchronized boolean tracks(Resolution resolution) {
+        return !resolution.onDemand() || rings[resolution.ordinal()] != null;
+    }
+
+    /**
+     * Add one probe result to the bucket of every kept resolution
+     */
+    public synchronized void record(long timestampMillis, boolean healthy, long latencyMicros) {
+        int latency = (int) Math.min(Math.max(latencyMicros, 0), Integer.MAX_VALUE);
+        for (Resolution resolution : RESOLUTIONS) {
+            Ring ring = rings[resolution.ordinal()];
+            if (ring == null) {
+                if (resolution.onDemand()) {
+                    continue;
+                }
+                ring = new Ring(resolution);
+                rings[resolution.ordinal()] = ring;
+            } else if (timestampMillis < trackedFrom[resolution.ordinal()]) {
+                // Left to the back-fill
+                continue;
+            }
+            ring.record(epochOf(resolution, timestampMillis), healthy, latency);
+        }
+    }
+
+    /**
+     * Add a result from before an on-demand resolution was tracked to that resolution only
+     */
+    public synchronized void backfill(Resolution resolution, long timestampMillis, boolean healthy, long latencyMicros) {
+        Ring ring = rings[resolution.ordinal()];
+        if (ring != null && timestampMillis < trackedFrom[resolution.ordinal()]) {
+            ring.record(epochOf(resolution, timestampMillis), healthy,
+                (int) Math.min(Math.max(latencyMicros, 0), Integer.MAX_VALUE));
+        }
+    }
+
+    /**
+     * Totals over the buckets of one resolution that overlap [fromMillis, toMillis]
+     */
+    public synchronized Summary summarize(Resolution resolution, long fromMillis, long toMillis) {
+        Ring ring = rings[resolution.ordinal()];
+        long count = 0;
+        long errors = 0;
+        long latencySum = 0;
+        int latencyMax = 0;
+        if (ring != null) {
+            int last = Math.min(epochOf(resolution, toMillis), ring.newest());
+            for (int epoch = Math.max(epochOf(resolution, fromMillis), ring.oldest()); epoch <= last; epoch++) {
+                count += ring.count(epoch);
+                errors += ring.errors(epoch);
+                latencySum += ring.latencySum(epoch);
+                latencyMax = Math.max(latencyMax, ring.latencyMax(epoch));
+            }
+        }
+        return new Summary(fromMillis, toMillis, count, errors, latencySum, latencyMax);
+    }
+
+    /**
+     * Non-empty buckets of one resolution that overlap [fromMillis, toMillis], oldest first
+     */
+    public synchronized List<Summary> buckets(Resolution resolution, long fromMillis, long toMillis) {
+        Ring ring = rings[resolution.ordinal()];
+        List<Summary> result = new ArrayList<>();
+        if (ring == null) {
+            return result;
+        }
+        int last = Math.min(epochOf(resolution, toMillis), ring.newest());
+        for (int epoch = Math.max(epochOf(resolution, fromMillis), ring.oldest()); epoch <= last; epoch++) {
+            if (ring.count(epoch) > 0) {
+                long start = (epoch - 1L) * resolution.bucketMillis;
+                result.add(new Summary(start, start + resolution.bucketMillis - 1,
+                    ring.count(epoch), ring.errors(epoch), ring.latencySum(epoch), ring.latencyMax(epoch)));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Heap held by the buckets, excluding object and array headers
+     */
+    public synchronized long bytes() {
+        long bytes = 0;
+        for (Ring ring : rings) {
+            bytes += ring != null ? ring.bytes() : 0;
+        }
+        return bytes;
+    }
+
+    private static int epochOf(Resolution resolution, long timestampMillis) {
+        return (int) (Math.max(timestampMillis, 0) / resolution.bucketMillis) + 1;
+    }
+}
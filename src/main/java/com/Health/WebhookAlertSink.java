@@ -0,0 +1,45 @@
+package com.Health;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+
+/**
+ * POSTs each notification as JSON (see Alert#toJson) to a webhook URL,
+ * e.g. a Slack/Teams relay or a PagerDuty events bridge
+ */
+public class WebhookAlertSink implements AlertSink {
+
+    private final URI url;
+    private final Duration timeout;
+    private final HttpClient client;
+
+    public WebhookAlertSink(String url, int timeoutMs) {
+        this.url = URI.create(url);
+        this.timeout = Duration.ofMillis(timeoutMs);
+        this.client = HttpClient.newBuilder()
+            .connectTimeout(timeout)
+            .build();
+    }
+
+    @Override
+    public String name() {
+        return "webhook-" + url.getHost();
+    }
+
+    @Override
+    public void send(Alert alert) throws IOException, InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder(url)
+            .timeout(timeout)
+            .header("Content-Type", "application/json")
+            .POST(HttpRequest.BodyPublishers.ofString(alert.toJson()))
+            .build();
+        HttpResponse<Void> response = client.send(request, HttpResponse.BodyHandlers.discarding());
+        if (response.statusCode() < 200 || response.statusCode() >= 300) {
+            throw new IOException("webhook " + url + " answered " + response.statusCode());
+        }
+    }
+}
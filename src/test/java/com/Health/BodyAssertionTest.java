@@ -0,0 +1,126 @@
+package com.Health;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+
+class BodyAssertionTest {
+
+    /**
+     * Feeds a body in chunks of the given size until the assertion is decided
+     */
+    private static BodyAssertion.Evaluation feed(BodyAssertion assertion, String body, int chunk) {
+        BodyAssertion.Evaluation evaluation = assertion.start();
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        for (int offset = 0; offset < bytes.length; offset += chunk) {
+            if (evaluation.accept(ByteBuffer.wrap(bytes, offset, Math.min(chunk, bytes.length - offset)))) {
+                return evaluation;
+            }
+        }
+        evaluation.complete();
+        return evaluation;
+    }
+
+    @Test
+    void containsMatchesAcrossChunkBoundaries() {
+        BodyAssertion assertion = BodyAssertion.contains("\"status\":\"UP\"", 1024);
+        String body = "{\"db\":\"UP\",\"status\":\"UP\",\"padding\":\"" + "x".repeat(500) + "\"}";
+        for (int chunk = 1; chunk <= 16; chunk++) {
+            BodyAssertion.Evaluation evaluation = feed(assertion, body, chunk);
+            assertTrue(evaluation.passed(), "chunk " + chunk);
+            assertTrue(evaluation.bytesRead() < body.length(), "read " + evaluation.bytesRead());
+        }
+    }
+
+    @Test
+    void containsHandlesOverlappingPrefixes() {
+        assertTrue(feed(BodyAssertion.contains("aab", 100), "aaab", 1).passed());
+        assertTrue(feed(BodyAssertion.contains("abab", 100), "abaabab", 2).passed());
+    }
+
+    @Test
+    void undecidedAssertionFailsAtTheLimit() {
+        BodyAssertion assertion = BodyAssertion.contains("OK", 100);
+        BodyAssertion.Evaluation evaluation = feed(assertion, "x".repeat(1000) + "OK", 64);
+        assertTrue(evaluation.decided());
+        assertFalse(evaluation.passed());
+        assertEquals(100, evaluation.bytesRead());
+        assertEquals("body does not contain 'OK' within the first 100 bytes", evaluation.reason());
+    }
+
+    @Test
+    void bodyEndingWithoutAMatchFails() {
+        BodyAssertion.Evaluation evaluation = feed(BodyAssertion.contains("OK", 100), "FAIL", 3);
+        assertFalse(evaluation.passed());
+        assertEquals("body does not contain 'OK'", evaluation.reason());
+    }
+
+    @Test
+    void regexWaitsUntilTheMatchCannotGrow() {
+        BodyAssertion assertion = BodyAssertion.regex("version=\\d+", 1024);
+        BodyAssertion.Evaluation evaluation = assertion.start();
+        evaluation.accept(ByteBuffer.wrap("version=12".getBytes(StandardCharsets.UTF_8)));
+        assertFalse(evaluation.decided());
+        assertTrue(evaluation.accept(ByteBuffer.wrap("3;".getBytes(StandardCharsets.UTF_8))));
+        assertTrue(evaluation.passed());
+
+        assertTrue(feed(assertion, "version=7", 4).passed());
+        assertFalse(feed(assertion, "version=x", 4).passed());
+    }
+
+    @Test
+    void jsonEqualsFollowsNestedPaths() {
+        BodyAssertion assertion = BodyAssertion.jsonEquals("checks.db.status=UP", 4096);
+        String body = "{\"status\":\"DOWN\",\"list\":[{\"db\":{\"status\":\"DOWN\"}},1,true],"
+            + "\"checks\":{\"cache\":{\"status\":\"DOWN\"},\"db\":{\"latency\":3,\"status\":\"UP\"}},\"tail\":\""
+            + "x".repeat(1000) + "\"}";
+        for (int chunk : new int[] {1, 7, 4096}) {
+            assertTrue(feed(assertion, body, chunk).passed(), "chunk " + chunk);
+        }
+        // Decided at the value, long before the tail
+        assertTrue(feed(assertion, body, 16).bytesRead() < 200);
+    }
+
+    @Test
+    void jsonEqualsReportsMismatches() {
+        assertEquals("ok is \"false\", expected \"true\"",
+            feed(BodyAssertion.jsonEquals("ok=true", 1024), "{\"ok\": false}", 3).reason());
+        assertEquals("a.b not found", feed(BodyAssertion.jsonEquals("a.b=1", 1024), "{\"a\":{\"c\":1}}", 3).reason());
+        assertEquals("a is an object, expected \"1\"",
+            feed(BodyAssertion.jsonEquals("a=1", 1024), "{\"a\":{\"c\":1}}", 3).reason());
+        assertTrue(feed(BodyAssertion.jsonEquals("n=\"café\"", 1024), "{\"n\":\"caf\\u00e9\"}", 2).passed());
+        assertTrue(feed(BodyAssertion.jsonEquals("count=42", 1024), "{\"count\":42}", 5).passed());
+        assertTrue(feed(BodyAssertion.jsonEquals("v=1", 1024), "{\"v\":1", 5).reason().startsWith("incomplete JSON"));
+    }
+
+    @Test
+    void optionsSelectTheAssertion() {
+        assertNull(BodyAssertion.of(new TargetSpec("plain", "http://h/health")));
+        BodyAssertion assertion = BodyAssertion.of(new TargetSpec("json", "http://h/health",
+            Map.of("body-json", "status=UP", "body-limit", "2048")));
+        assertEquals(BodyAssertion.Kind.JSON_EQUALS, assertion.kind());
+        assertEquals(2048, assertion.limitBytes());
+    }
+
+    @Test
+    void malformedOptionsAlwaysFail() {
+        BodyAssertion regex = BodyAssertion.of(new TargetSpec("bad", "http://h/health", Map.of("body-regex", "(")));
+        assertEquals(BodyAssertion.Kind.INVALID, regex.kind());
+        BodyAssertion.Evaluation evaluation = feed(regex, "anything", 4);
+        assertFalse(evaluation.passed());
+        assertTrue(evaluation.reason().startsWith("invalid body assertion"), evaluation.reason());
+
+        BodyAssertion both = BodyAssertion.of(new TargetSpec("both", "http://h/health",
+            Map.of("body-contains", "UP", "body-regex", "UP")));
+        assertEquals(BodyAssertion.Kind.INVALID, both.kind());
+        assertFalse(feed(both, "", 1).passed());
+        assertThrows(IllegalArgumentException.class, () -> BodyAssertion.jsonEquals("a..b=1", 100));
+    }
+}
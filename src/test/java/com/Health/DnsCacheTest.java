@@ -0,0 +1,89 @@
+package com.Health;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.net.InetAddress;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.net.ssl.SSLContext;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+class DnsCacheTest {
+
+    private final CountDownLatch release = new CountDownLatch(1);
+    private final AtomicInteger resolutions = new AtomicInteger();
+    private DnsCache dns;
+
+    @AfterEach
+    void shutdown() {
+        release.countDown();
+        dns.shutdown();
+    }
+
+    private InetAddress[] hanging(String host) {
+        try {
+            release.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return new InetAddress[] {InetAddress.getLoopbackAddress()};
+    }
+
+    private InetAddress[] counting(String host) {
+        resolutions.incrementAndGet();
+        return new InetAddress[] {InetAddress.getLoopbackAddress()};
+    }
+
+    @Test
+    void waitOnAHangingResolverIsBounded() throws Exception {
+        dns = new DnsCache(this::hanging, 30_000, 10_000, 100, 1);
+        DnsCache.Entry entry = dns.lookup("slow.internal", 50).get(1, TimeUnit.SECONDS);
+        assertFalse(entry.isResolved());
+        assertTrue(entry.getError().contains("timed out"), entry.getError());
+        assertEquals(1, dns.timeouts());
+
+        // The timeout is not cached: the lookup that finishes later is
+        release.countDown();
+        assertTrue(dns.lookup("slow.internal").get(1, TimeUnit.SECONDS).isResolved());
+    }
+
+    @Test
+    void probeFailsWithDnsWhenTheLookupHangs() throws Exception {
+        dns = new DnsCache(this::hanging, 30_000, 10_000, 100, 1);
+        ProbeEngine engine = new ProbeEngine(100, dns, SSLContext.getDefault());
+        ProbeResult result = engine.probe("http://slow.internal/health", 100).get(1, TimeUnit.SECONDS);
+        assertEquals(ProbeError.DNS, result.getErrorClass());
+    }
+
+    @Test
+    void expiredNamesAreServedWhileRefreshing() throws Exception {
+        // Expired after 400 ms, looked up again after 800: 200 ms of slack either way
+        dns = new DnsCache(this::counting, 400, 10_000, 100, 1);
+        DnsCache.Entry first = dns.lookup("api.internal").get(1, TimeUnit.SECONDS);
+        Thread.sleep(600);
+
+        // Within one TTL past expiry the old entry answers at once and a refresh starts
+        assertSame(first, dns.lookup("api.internal").getNow(null));
+        assertEquals(1, dns.refreshes());
+        for (int i = 0; i < 100 && resolutions.get() < 2; i++) {
+            Thread.sleep(10);
+        }
+        assertEquals(2, resolutions.get());
+        assertEquals(1, dns.misses());
+    }
+
+    @Test
+    void longExpiredNamesAreLookedUpAgain() throws Exception {
+        dns = new DnsCache(this::counting, 20, 10_000, 100, 1);
+        dns.lookup("api.internal").get(1, TimeUnit.SECONDS);
+        Thread.sleep(100);
+        dns.lookup("api.internal").get(1, TimeUnit.SECONDS);
+        assertEquals(2, dns.misses());
+        assertEquals(0, dns.refreshes());
+    }
+}
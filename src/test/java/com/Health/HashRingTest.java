@@ -0,0 +1,85 @@
+package com.Health;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+
+class HashRingTest {
+
+    private static final int KEYS = 20_000;
+
+    @Test
+    void ownersDoNotDependOnMemberOrder() {
+        HashRing ring = new HashRing(List.of("node-a", "node-b", "node-c"), 128);
+        HashRing shuffled = new HashRing(List.of("node-c", "node-a", "node-b", "node-a"), 128);
+        assertEquals(List.of("node-a", "node-b", "node-c"), shuffled.nodes());
+        for (int i = 0; i < KEYS; i++) {
+            assertEquals(ring.owner("target-" + i), shuffled.owner("target-" + i));
+        }
+    }
+
+    @Test
+    void keysSpreadAcrossAllNodes() {
+        HashRing ring = new HashRing(List.of("node-a", "node-b", "node-c", "node-d"), 128);
+        Map<String, Integer> counts = new HashMap<>();
+        for (int i = 0; i < KEYS; i++) {
+            counts.merge(ring.owner("target-" + i), 1, Integer::sum);
+        }
+        assertEquals(4, counts.size());
+        for (int count : counts.values()) {
+            assertTrue(Math.abs(count - KEYS / 4) < KEYS / 4 / 4, "share " + count);
+        }
+    }
+
+    @Test
+    void addingANodeOnlyMovesKeysToIt() {
+        HashRing before = new HashRing(List.of("node-a", "node-b", "node-c", "node-d"), 128);
+        HashRing after = new HashRing(List.of("node-a", "node-b", "node-c", "node-d", "node-e"), 128);
+        int moved = 0;
+        for (int i = 0; i < KEYS; i++) {
+            String key = "target-" + i;
+            String owner = after.owner(key);
+            if (!owner.equals(before.owner(key))) {
+                assertEquals("node-e", owner, key);
+                moved++;
+            }
+        }
+        // About a fifth of the keys move to the fifth node
+        assertEquals(KEYS / 5.0, moved, KEYS / 20.0);
+    }
+
+    @Test
+    void removingANodeOnlyMovesItsKeys() {
+        HashRing before = new HashRing(List.of("node-a", "node-b", "node-c"), 128);
+        HashRing after = new HashRing(List.of("node-a", "node-c"), 128);
+        for (int i = 0; i < KEYS; i++) {
+            String key = "target-" + i;
+            String owner = before.owner(key);
+            if (!owner.equals("node-b")) {
+                assertEquals(owner, after.owner(key), key);
+            }
+        }
+        assertFalse(after.contains("node-b"));
+        assertTrue(after.contains("node-c"));
+    }
+
+    @Test
+    void emptyRingHasNoOwners() {
+        HashRing ring = new HashRing(List.of(), 128);
+        assertNull(ring.owner("target-1"));
+        assertTrue(ring.nodes().isEmpty());
+    }
+
+    @Test
+    void hashWrapsAroundToTheFirstPoint() {
+        HashRing ring = new HashRing(List.of("only"), 4);
+        assertEquals("only", ring.owner(Long.MAX_VALUE));
+        assertEquals("only", ring.owner(Long.MIN_VALUE));
+    }
+}
@@ -0,0 +1,98 @@
+package com.Health;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+class HealthEventBusTest {
+
+    private final StatusSnapshot snapshot = new StatusSnapshot(1, "{\"status\":\"UP\"}");
+    private HealthEventBus bus;
+
+    @AfterEach
+    void shutdown() {
+        bus.shutdown();
+    }
+
+    /**
+     * Records events; stalls on "stall" events, ignoring interrupts like a servlet output, until aborted
+     */
+    private static final class StallingSink implements HealthEventBus.Sink {
+        final List<String> received = new CopyOnWriteArrayList<>();
+        final CountDownLatch aborted = new CountDownLatch(1);
+        final CountDownLatch released = new CountDownLatch(1);
+
+        @Override
+        public void send(HealthEvent event) throws IOException {
+            if (event.data().equals("stall")) {
+                while (true) {
+                    try {
+                        aborted.await();
+                        released.countDown();
+                        throw new IOException("connection aborted");
+                    } catch (InterruptedException e) {
+                        // Not interruptible
+                    }
+                }
+            }
+            received.add(event.name());
+        }
+
+        @Override
+        public void heartbeat() {
+        }
+
+        @Override
+        public void close() {
+        }
+
+        @Override
+        public void abort() {
+            aborted.countDown();
+        }
+    }
+
+    @Test
+    void eventsReachSubscribersAfterTheSnapshot() throws Exception {
+        bus = new HealthEventBus(() -> snapshot, 16, 10, 1, 0, 1000);
+        StallingSink sink = new StallingSink();
+        assertNotNull(bus.subscribe(sink));
+        bus.publish(HealthEventBus.EVENT_STATUS, 1, "{\"id\":1}");
+        for (int i = 0; i < 200 && sink.received.size() < 2; i++) {
+            Thread.sleep(10);
+        }
+        assertEquals(List.of(HealthEventBus.EVENT_SNAPSHOT, HealthEventBus.EVENT_STATUS), sink.received);
+    }
+
+    @Test
+    void uninterruptibleWriteIsAbortedAtTheDeadline() throws Exception {
+        bus = new HealthEventBus(() -> snapshot, 16, 10, 1, 0, 100);
+        StallingSink sink = new StallingSink();
+        bus.subscribe(sink);
+        bus.publish(HealthEventBus.EVENT_STATUS, 1, "stall");
+
+        assertTrue(sink.aborted.await(5, TimeUnit.SECONDS), "sink was not aborted");
+        assertTrue(sink.released.await(5, TimeUnit.SECONDS), "writer still blocked");
+        assertEquals(1, bus.evicted());
+        for (int i = 0; i < 200 && bus.subscribers() > 0; i++) {
+            Thread.sleep(10);
+        }
+        assertEquals(0, bus.subscribers());
+
+        // The freed writer serves the next subscriber
+        StallingSink next = new StallingSink();
+        bus.subscribe(next);
+        for (int i = 0; i < 200 && next.received.isEmpty(); i++) {
+            Thread.sleep(10);
+        }
+        assertEquals(List.of(HealthEventBus.EVENT_SNAPSHOT), next.received);
+    }
+}
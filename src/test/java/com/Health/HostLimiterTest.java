@@ -0,0 +1,192 @@
+package com.Health;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.jupiter.api.Test;
+
+class HostLimiterTest {
+
+    private static final String URL = "http://db.internal:8080/health";
+    private static final String HOST = "db.internal";
+
+    private final AtomicLong now = new AtomicLong(1_000_000);
+
+    private static CompletableFuture<ProbeResult> healthy() {
+        return CompletableFuture.completedFuture(ProbeResult.response(URL, 200, 1000));
+    }
+
+    private static CompletableFuture<ProbeResult> refused() {
+        return CompletableFuture.completedFuture(ProbeResult.failure(URL, 1000, "refused", ProbeError.CONNECT));
+    }
+
+    private static ProbeResult run(HostLimiter limiter, boolean succeed) {
+        return limiter.submit(URL, () -> succeed ? healthy() : refused()).join();
+    }
+
+    @Test
+    void opensAfterConsecutiveHostFailures() {
+        HostLimiter limiter = new HostLimiter(4, 3, 60_000, 60_000);
+        run(limiter, false);
+        run(limiter, false);
+        assertEquals(HostLimiter.State.CLOSED, limiter.state(HOST));
+        run(limiter, false);
+        assertEquals(HostLimiter.State.OPEN, limiter.state(HOST));
+        assertEquals(1, limiter.trips());
+
+        boolean[] called = new boolean[1];
+        ProbeResult rejected = limiter.submit(URL, () -> {
+            called[0] = true;
+            return healthy();
+        }).join();
+        assertFalse(called[0]);
+        assertEquals(ProbeError.CIRCUIT_OPEN, rejected.getErrorClass());
+        assertEquals(1, limiter.fastFailed());
+    }
+
+    @Test
+    void successResetsTheFailureCount() {
+        HostLimiter limiter = new HostLimiter(4, 3, 60_000, 60_000);
+        run(limiter, false);
+        run(limiter, false);
+        run(limiter, true);
+        run(limiter, false);
+        run(limiter, false);
+        assertEquals(HostLimiter.State.CLOSED, limiter.state(HOST));
+    }
+
+    @Test
+    void statusErrorsDoNotTripTheBreaker() {
+        HostLimiter limiter = new HostLimiter(4, 2, 60_000, 60_000);
+        for (int i = 0; i < 5; i++) {
+            limiter.submit(URL, () -> CompletableFuture.completedFuture(ProbeResult.response(URL, 503, 1000))).join();
+        }
+        assertEquals(HostLimiter.State.CLOSED, limiter.state(HOST));
+    }
+
+    @Test
+    void canaryClosesTheCircuitOnSuccess() {
+        HostLimiter limiter = new HostLimiter(4, 1, 20, 1000, now::get);
+        run(limiter, false);
+        assertEquals(HostLimiter.State.OPEN, limiter.state(HOST));
+        now.addAndGet(19);
+        assertEquals(ProbeError.CIRCUIT_OPEN, run(limiter, true).getErrorClass());
+        now.addAndGet(1);
+
+        CompletableFuture<ProbeResult> canary = new CompletableFuture<>();
+        CompletableFuture<ProbeResult> result = limiter.submit(URL, () -> canary);
+        assertEquals(HostLimiter.State.HALF_OPEN, limiter.state(HOST));
+        assertEquals(1, limiter.canaries());
+        // Only the canary goes through while it runs
+        assertEquals(ProbeError.CIRCUIT_OPEN, run(limiter, true).getErrorClass());
+
+        canary.complete(ProbeResult.response(URL, 200, 1000));
+        assertTrue(result.join().isHealthy());
+        assertEquals(HostLimiter.State.CLOSED, limiter.state(HOST));
+        assertTrue(run(limiter, true).isHealthy());
+    }
+
+    @Test
+    void failedCanaryReopensForLonger() {
+        HostLimiter limiter = new HostLimiter(4, 1, 30, 1000, now::get);
+        run(limiter, false);
+        now.addAndGet(30);
+        run(limiter, false);
+        assertEquals(HostLimiter.State.OPEN, limiter.state(HOST));
+
+        // The open period doubled to 60 ms: still open after the first period
+        now.addAndGet(59);
+        assertEquals(ProbeError.CIRCUIT_OPEN, run(limiter, true).getErrorClass());
+        now.addAndGet(1);
+        assertTrue(run(limiter, true).isHealthy());
+        assertEquals(HostLimiter.State.CLOSED, limiter.state(HOST));
+        assertEquals(1, limiter.trips());
+    }
+
+    @Test
+    void openPeriodIsCappedAtTheMaximum() {
+        HostLimiter limiter = new HostLimiter(4, 1, 100, 250, now::get);
+        run(limiter, false);
+        for (long period : new long[] {100, 200, 250}) {
+            now.addAndGet(period);
+            run(limiter, false);
+        }
+        now.addAndGet(249);
+        assertEquals(ProbeError.CIRCUIT_OPEN, run(limiter, true).getErrorClass());
+        now.addAndGet(1);
+        assertTrue(run(limiter, true).isHealthy());
+    }
+
+    @Test
+    void queuedProbesFailFastWhenTheCircuitOpens() {
+        HostLimiter limiter = new HostLimiter(1, 1, 60_000, 60_000);
+        CompletableFuture<ProbeResult> running = new CompletableFuture<>();
+        CompletableFuture<ProbeResult> first = limiter.submit(URL, () -> running);
+        CompletableFuture<ProbeResult> waiting = limiter.submit(URL, HostLimiterTest::healthy);
+        assertEquals(1, limiter.inFlight(HOST));
+        assertEquals(1, limiter.queued());
+        assertFalse(waiting.isDone());
+
+        running.complete(ProbeResult.failure(URL, 1000, "timed out", ProbeError.TIMEOUT));
+        assertFalse(first.join().isHealthy());
+        assertEquals(ProbeError.CIRCUIT_OPEN, waiting.join().getErrorClass());
+        assertEquals(0, limiter.inFlight(HOST));
+    }
+
+    @Test
+    void hostNamesAreCaseInsensitive() {
+        HostLimiter limiter = new HostLimiter(1, 2, 60_000, 60_000);
+        String upper = "http://DB.Internal:8080/health";
+        limiter.submit(upper, HostLimiterTest::refused).join();
+        run(limiter, false);
+        assertEquals(HostLimiter.State.OPEN, limiter.state("DB.INTERNAL"));
+        assertEquals(1, limiter.hosts());
+
+        CompletableFuture<ProbeResult> running = new CompletableFuture<>();
+        HostLimiter slots = new HostLimiter(1);
+        slots.submit(upper, () -> running);
+        assertFalse(slots.submit(URL, HostLimiterTest::healthy).isDone());
+        assertEquals(1, slots.queued());
+    }
+
+    @Test
+    void waitingProbesRunAsSlotsFree() {
+        HostLimiter limiter = new HostLimiter(1);
+        CompletableFuture<ProbeResult> running = new CompletableFuture<>();
+        limiter.submit(URL, () -> running);
+        CompletableFuture<ProbeResult> waiting = limiter.submit(URL, HostLimiterTest::healthy);
+        assertFalse(waiting.isDone());
+
+        running.complete(ProbeResult.response(URL, 200, 1000));
+        assertTrue(waiting.join().isHealthy());
+        assertEquals(2, limiter.admitted());
+    }
+
+    @Test
+    void longQueueOfInstantProbesDrainsWithoutRecursion() {
+        HostLimiter limiter = new HostLimiter(1, 1, 60_000, 60_000);
+        CompletableFuture<ProbeResult> running = new CompletableFuture<>();
+        limiter.submit(URL, () -> running);
+        List<CompletableFuture<ProbeResult>> waiting = new ArrayList<>();
+        for (int i = 0; i < 100_000; i++) {
+            CompletableFuture<ProbeResult> previous = i > 0 ? waiting.get(i - 1) : null;
+            waiting.add(limiter.submit(URL, () -> {
+                // Each waiting probe's result is delivered before the next one starts
+                assertTrue(previous == null || previous.isDone());
+                return healthy();
+            }));
+        }
+
+        running.complete(ProbeResult.response(URL, 200, 1000));
+        for (CompletableFuture<ProbeResult> future : waiting) {
+            assertTrue(future.join().isHealthy());
+        }
+        assertEquals(0, limiter.inFlight(HOST));
+        assertEquals(100_001, limiter.admitted());
+    }
+}
@@ -0,0 +1,103 @@
+package com.Health;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+class LatencyHistogramTest {
+
+    @Test
+    void smallValuesHaveTheirOwnBuckets() {
+        for (int value = 0; value < 8; value++) {
+            assertEquals(value, LatencyHistogram.indexOf(value));
+            assertEquals(value, LatencyHistogram.upperBound(value));
+        }
+    }
+
+    @Test
+    void bucketsCoverEveryValueWithinOneEighth() {
+        for (long value = 1; value < 1L << 27; value = value * 3 / 2 + 1) {
+            int index = LatencyHistogram.indexOf(value);
+            long upper = LatencyHistogram.upperBound(index);
+            assertTrue(upper >= value, "bucket of " + value + " ends at " + upper);
+            assertTrue(upper - value <= value / 8, "bucket of " + value + " ends at " + upper);
+            if (index > 0) {
+                assertTrue(LatencyHistogram.upperBound(index - 1) < value, "previous bucket also holds " + value);
+            }
+        }
+    }
+
+    @Test
+    void bucketIndexesAreContiguous() {
+        int previous = LatencyHistogram.indexOf(0);
+        for (long value = 1; value < 1 << 16; value++) {
+            int index = LatencyHistogram.indexOf(value);
+            assertTrue(index == previous || index == previous + 1, "gap before " + value);
+            previous = index;
+        }
+    }
+
+    @Test
+    void hugeAndNegativeValuesAreClamped() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.recordMicros(-5);
+        histogram.recordMicros(Long.MAX_VALUE);
+        assertEquals(2, histogram.count());
+        assertTrue(histogram.maxMicros() < LatencyHistogram.upperBound(LatencyHistogram.BUCKETS - 1) + 1);
+        assertEquals(0, histogram.percentilesMicros(50)[0]);
+    }
+
+    @Test
+    void percentilesAreBucketBoundsCappedAtTheMaximum() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (int i = 1; i <= 100; i++) {
+            histogram.recordMicros(i * 1000);
+        }
+        long[] values = histogram.percentilesMicros(50, 99, 100);
+        assertEquals(50_000, values[0], 50_000 / 8.0);
+        assertTrue(values[0] >= 50_000);
+        assertEquals(99_000, values[1], 99_000 / 8.0);
+        assertEquals(100_000, values[2]);
+        assertEquals(100_000, histogram.maxMicros());
+        assertEquals(5_050_000, histogram.sumMicros());
+    }
+
+    @Test
+    void emptyHistogramReportsZeros() {
+        LatencyHistogram histogram = new LatencyHistogram(1000);
+        assertArrayEquals(new long[3], histogram.percentilesMicros(50, 90, 99));
+        assertArrayEquals(new long[3], histogram.recentPercentilesMicros(50, 90, 99));
+        assertEquals(0, histogram.recentMaxMicros());
+    }
+
+    @Test
+    void withoutAWindowRecentIsLifetime() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (int i = 0; i < 100; i++) {
+            histogram.recordMicros(i % 10 == 0 ? 900_000 : 2_000);
+        }
+        assertArrayEquals(histogram.percentilesMicros(50, 95), histogram.recentPercentilesMicros(50, 95));
+        assertEquals(histogram.maxMicros(), histogram.recentMaxMicros());
+    }
+
+    @Test
+    void slowSpellDecaysOutOfRecentPercentiles() throws InterruptedException {
+        LatencyHistogram histogram = new LatencyHistogram(50);
+        for (int i = 0; i < 100; i++) {
+            histogram.recordMicros(i % 10 == 0 ? 900_000 : 2_000);
+        }
+        assertEquals(900_000, histogram.recentPercentilesMicros(95)[0]);
+
+        // Five halvings shrink the old samples to a 32nd of their weight
+        Thread.sleep(5 * 50 + 30);
+        for (int i = 0; i < 100; i++) {
+            histogram.recordMicros(2_000);
+        }
+        assertEquals(2_000, histogram.recentPercentilesMicros(95)[0], 2_000 / 8.0);
+        assertEquals(900_000, histogram.percentilesMicros(99)[0]);
+        assertEquals(900_000, histogram.maxMicros());
+        assertEquals(200, histogram.count());
+    }
+}
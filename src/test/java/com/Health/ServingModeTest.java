@@ -0,0 +1,120 @@
+package com.Health;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.sun.net.httpserver.HttpServer;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.GZIPInputStream;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class ServingModeTest {
+
+    private final ServingMode mode = new ServingMode(ServingMode.Executor.BOUNDED, 4, 16, 16, true, true, 1024, 300);
+    private final HttpClient client = HttpClient.newHttpClient();
+    private HttpServer server;
+
+    @BeforeEach
+    void startServer() throws IOException {
+        server = mode.create(0, "serving-test-");
+        // Five chunks 100 ms apart: the whole exchange runs past the 300 ms deadline
+        server.createContext("/stream", mode.wrapStream(exchange -> {
+            exchange.sendResponseHeaders(200, 0);
+            try (OutputStream os = exchange.getResponseBody()) {
+                for (int i = 0; i < 5; i++) {
+                    os.write(("event " + i + "\n").getBytes(StandardCharsets.UTF_8));
+                    os.flush();
+                    sleep(100);
+                }
+            }
+        }));
+        server.createContext("/stalled", mode.wrap(exchange -> {
+            exchange.sendResponseHeaders(200, 0);
+            try (OutputStream os = exchange.getResponseBody()) {
+                os.write("first\n".getBytes(StandardCharsets.UTF_8));
+                os.flush();
+                sleep(600);
+                os.write("second\n".getBytes(StandardCharsets.UTF_8));
+            } catch (IOException e) {
+                // Closed by the deadline
+            }
+        }));
+        server.start();
+    }
+
+    @AfterEach
+    void stopServer() {
+        mode.stop(server);
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private String get(String path) throws IOException, InterruptedException {
+        URI uri = URI.create("http://localhost:" + server.getAddress().getPort() + path);
+        return client.send(HttpRequest.newBuilder(uri).build(), HttpResponse.BodyHandlers.ofString()).body();
+    }
+
+    @Test
+    void streamOutlivesTheExchangeDeadline() throws Exception {
+        String body = get("/stream");
+        assertEquals("event 0\nevent 1\nevent 2\nevent 3\nevent 4\n", body);
+        assertEquals(0, mode.timedOut());
+        // The JVM-wide response timeout would cut the stream as well
+        assertNull(System.getProperty("sun.net.httpserver.maxRspTime"));
+    }
+
+    @Test
+    void stalledExchangeIsClosedAtTheDeadline() throws Exception {
+        String body;
+        try {
+            body = get("/stalled");
+        } catch (IOException e) {
+            body = "";
+        }
+        // The response ends at the deadline, before the handler writes again
+        assertFalse(body.contains("second"), body);
+        assertEquals(1, mode.timedOut());
+    }
+
+    @Test
+    void acceptsGzipHonoursQualityValues() {
+        assertFalse(ServingMode.acceptsGzip(null));
+        assertFalse(ServingMode.acceptsGzip(""));
+        assertTrue(ServingMode.acceptsGzip("gzip"));
+        assertTrue(ServingMode.acceptsGzip("GZIP"));
+        assertTrue(ServingMode.acceptsGzip("br, gzip;q=0.5"));
+        assertTrue(ServingMode.acceptsGzip("deflate, gzip ; q=1"));
+        assertFalse(ServingMode.acceptsGzip("gzip;q=0"));
+        assertFalse(ServingMode.acceptsGzip("gzip;q=0.0, br"));
+        assertFalse(ServingMode.acceptsGzip("gzip;q=high"));
+        assertFalse(ServingMode.acceptsGzip("deflate"));
+        assertFalse(ServingMode.acceptsGzip("x-gzip"));
+    }
+
+    @Test
+    void gzipRoundTrips() throws IOException {
+        byte[] body = "{\"status\":\"UP\"}".repeat(100).getBytes(StandardCharsets.UTF_8);
+        byte[] zipped = ServingMode.gzip(body);
+        assertTrue(zipped.length < body.length);
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(zipped))) {
+            assertEquals(new String(body, StandardCharsets.UTF_8), new String(in.readAllBytes(), StandardCharsets.UTF_8));
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package com.Health;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+class StatusSnapshotTest {
+
+    @Test
+    void etagFollowsTheBodyNotTheVersion() {
+        // Same version in two processes (or on two nodes) with different bodies
+        StatusSnapshot before = new StatusSnapshot(1, "{\"status\":\"UP\"}");
+        StatusSnapshot after = new StatusSnapshot(1, "{\"status\":\"DOWN\"}");
+        assertNotEquals(before.etag(), after.etag());
+        assertFalse(after.matches(before.etag()));
+
+        // Same body under another version keeps its tag
+        assertEquals(before.etag(), new StatusSnapshot(7, "{\"status\":\"UP\"}").etag());
+    }
+
+    @Test
+    void matchesEitherEncodingAndWeakTags() {
+        StatusSnapshot snapshot = new StatusSnapshot(3, "{\"status\":\"UP\"}");
+        String etag = snapshot.etag();
+        String gzipEtag = etag.substring(0, etag.length() - 1) + ServingMode.GZIP_ETAG_SUFFIX;
+        assertTrue(snapshot.matches(etag));
+        assertTrue(snapshot.matches("\"other\", W/" + gzipEtag));
+        assertTrue(snapshot.matches("*"));
+        assertFalse(snapshot.matches(null));
+        assertFalse(snapshot.matches("\"3\""));
+    }
+}
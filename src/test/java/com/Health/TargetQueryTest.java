@@ -0,0 +1,130 @@
+package com.Health;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.IntPredicate;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class TargetQueryTest {
+
+    private static final int TARGETS = 500;
+
+    private final TargetRegistry registry = new TargetRegistry();
+
+    @BeforeEach
+    void registerFleet() {
+        long now = System.currentTimeMillis();
+        for (int i = 0; i < TARGETS; i++) {
+            String tags = i % 2 == 0 ? "prod, eu" : "Staging";
+            int id = registry.register(new TargetSpec("svc-" + i, "http://host-" + (i % 5) + ".internal/health",
+                Map.of("tags", tags)));
+            // Every third target stays unknown, the rest alternate between up and down
+            if (i % 3 == 1) {
+                registry.restore(id, true, 200, 1000, now, 1, 0, 0);
+            } else if (i % 3 == 2) {
+                registry.restore(id, false, 503, 1000, now, 1, 1, 1);
+            }
+        }
+    }
+
+    private List<Integer> all(TargetQuery query, int limit) {
+        List<Integer> ids = new ArrayList<>();
+        int cursor = 0;
+        do {
+            TargetQuery.Result page = query.run(registry, cursor, limit);
+            assertTrue(page.ids().length <= limit);
+            for (int id : page.ids()) {
+                ids.add(id);
+            }
+            cursor = page.nextCursor();
+        } while (cursor >= 0);
+        return ids;
+    }
+
+    private static List<Integer> expected(IntPredicate match) {
+        List<Integer> ids = new ArrayList<>();
+        for (int i = 0; i < TARGETS; i++) {
+            if (match.test(i)) {
+                ids.add(i);
+            }
+        }
+        return ids;
+    }
+
+    @Test
+    void pagesReturnEveryMatchOnceInIdOrder() {
+        assertEquals(expected(i -> true), all(TargetQuery.parse(null, null, null), 7));
+        assertEquals(expected(i -> i % 3 == 2), all(TargetQuery.parse("down", null, null), 10));
+        assertEquals(expected(i -> i % 3 == 0), all(TargetQuery.parse("unknown", null, null), 1000));
+    }
+
+    @Test
+    void filtersCombine() {
+        assertEquals(expected(i -> i % 2 == 0), all(TargetQuery.parse(null, "prod", null), 13));
+        assertEquals(expected(i -> i % 5 == 3), all(TargetQuery.parse("", null, "HOST-3.internal"), 13));
+        assertEquals(expected(i -> i % 2 == 1 && i % 3 == 1),
+            all(TargetQuery.parse("healthy", "staging", null), 13));
+        assertEquals(expected(i -> i % 2 == 0 && i % 5 == 1 && i % 3 == 2),
+            all(TargetQuery.parse("unhealthy", "eu", "host-1.internal"), 4));
+    }
+
+    @Test
+    void unknownTagOrHostMatchesNothing() {
+        TargetQuery.Result result = TargetQuery.parse(null, "nope", null).run(registry, 0, 10);
+        assertEquals(0, result.ids().length);
+        assertEquals(-1, result.nextCursor());
+        assertEquals(0, TargetQuery.parse("up", null, "elsewhere").run(registry, 0, 10).ids().length);
+    }
+
+    @Test
+    void statusChangesMoveTargetsBetweenQueries() {
+        int id = registry.idOf("svc-0");
+        registry.restore(id, false, 500, 1000, System.currentTimeMillis(), 2, 1, 1);
+        List<Integer> down = all(TargetQuery.parse("down", null, null), 50);
+        assertTrue(down.contains(id));
+        assertEquals(expected(i -> i % 3 == 0 && i != 0), all(TargetQuery.parse("unknown", null, null), 50));
+    }
+
+    @Test
+    void limitIsClamped() {
+        assertEquals(1, TargetQuery.parse(null, null, null).run(registry, 0, 0).ids().length);
+        TargetQuery.Result page = TargetQuery.parse(null, null, null).run(registry, 495, 100_000);
+        assertArrayEquals(new int[] {495, 496, 497, 498, 499}, page.ids());
+        assertEquals(-1, page.nextCursor());
+        assertEquals(TargetQuery.MAX_LIMIT, new TargetQuery(-1, null, null).run(bigRegistry(), 0, 5000).ids().length);
+    }
+
+    @Test
+    void cursorIsTheFirstIdOfTheNextPage() {
+        TargetQuery.Result page = TargetQuery.parse("up", null, null).run(registry, 0, 3);
+        assertArrayEquals(new int[] {1, 4, 7}, page.ids());
+        assertEquals(10, page.nextCursor());
+    }
+
+    @Test
+    void unknownStatusIsRejected() {
+        assertThrows(IllegalArgumentException.class, () -> TargetQuery.parse("degraded", null, null));
+    }
+
+    @Test
+    void bracketedIpv6HostsMatch() {
+        int id = registry.register(new TargetSpec("v6", "http://[::1]:8080/health"));
+        TargetQuery.Result result = TargetQuery.parse(null, null, "[::1]").run(registry, 0, 10);
+        assertArrayEquals(new int[] {id}, result.ids());
+    }
+
+    private static TargetRegistry bigRegistry() {
+        TargetRegistry big = new TargetRegistry();
+        for (int i = 0; i < TargetQuery.MAX_LIMIT + 10; i++) {
+            big.register(new TargetSpec("t-" + i, "http://h/health"));
+        }
+        return big;
+    }
+}
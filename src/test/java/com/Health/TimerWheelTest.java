@@ -0,0 +1,115 @@
+package com.Health;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+class TimerWheelTest {
+
+    private final List<long[]> fired = new ArrayList<>();
+    private final TimerWheel wheel = new TimerWheel(10, 64, (id, deadlineTick) -> fired.add(new long[] {id, deadlineTick}));
+
+    @Test
+    void firesOnTheDeadlineTick() {
+        wheel.schedule(3, 50);
+        assertEquals(5, wheel.deadlineOf(3));
+
+        assertEquals(0, wheel.advanceTicks(4));
+        assertEquals(1, wheel.advanceTicks(1));
+        assertEquals(3, fired.get(0)[0]);
+        assertEquals(5, fired.get(0)[1]);
+        assertEquals(0, wheel.pending());
+        assertEquals(-1, wheel.deadlineOf(3));
+    }
+
+    @Test
+    void delaysRoundUpToWholeTicks() {
+        wheel.schedule(0, 1);
+        wheel.schedule(1, 11);
+        assertEquals(1, wheel.deadlineOf(0));
+        assertEquals(2, wheel.deadlineOf(1));
+    }
+
+    @Test
+    void deadlinesBeyondOneRotationWaitForTheirRound() {
+        // 64 slots of 10 ms: tick 70 shares slot 6 with tick 6
+        wheel.scheduleAt(1, 70);
+        wheel.scheduleAt(2, 6);
+        wheel.advanceTicks(10);
+        assertEquals(1, fired.size());
+        assertEquals(2, fired.get(0)[0]);
+
+        wheel.advanceTicks(60);
+        assertEquals(2, fired.size());
+        assertEquals(1, fired.get(1)[0]);
+        assertEquals(70, fired.get(1)[1]);
+    }
+
+    @Test
+    void reschedulingMovesTheTimer() {
+        wheel.schedule(7, 30);
+        wheel.schedule(7, 100);
+        assertEquals(1, wheel.pending());
+
+        wheel.advanceTicks(5);
+        assertTrue(fired.isEmpty());
+        wheel.advanceTicks(5);
+        assertEquals(1, fired.size());
+        assertEquals(10, fired.get(0)[1]);
+    }
+
+    @Test
+    void cancelledTimersDoNotFire() {
+        wheel.schedule(2, 20);
+        assertTrue(wheel.cancel(2));
+        assertFalse(wheel.cancel(2));
+        assertFalse(wheel.cancel(500));
+
+        wheel.advanceTicks(10);
+        assertTrue(fired.isEmpty());
+        assertEquals(0, wheel.pending());
+    }
+
+    @Test
+    void pastDeadlinesFireOnTheNextTick() {
+        wheel.advanceTicks(20);
+        wheel.scheduleAt(4, 3);
+        assertEquals(21, wheel.deadlineOf(4));
+        assertEquals(1, wheel.advanceTicks(1));
+    }
+
+    @Test
+    void callbacksMayReschedule() {
+        TimerWheel[] self = new TimerWheel[1];
+        List<Long> ticks = new ArrayList<>();
+        self[0] = new TimerWheel(10, 8, (id, deadlineTick) -> {
+            ticks.add(deadlineTick);
+            self[0].schedule(id, 30);
+        });
+        self[0].schedule(0, 30);
+
+        assertEquals(3, self[0].advanceTicks(9));
+        assertEquals(List.of(3L, 6L, 9L), ticks);
+        assertEquals(1, self[0].pending());
+    }
+
+    @Test
+    void manyIdsInOneSlot() {
+        for (int id = 0; id < 1000; id++) {
+            wheel.scheduleAt(id, 1 + (id % 2) * 64);
+        }
+        assertEquals(500, wheel.advanceTicks(1));
+        assertEquals(500, wheel.pending());
+        assertEquals(500, wheel.advanceTicks(64));
+    }
+
+    @Test
+    void rejectsWheelSizesThatAreNotPowersOfTwo() {
+        assertThrows(IllegalArgumentException.class, () -> new TimerWheel(10, 100, (id, tick) -> { }));
+    }
+}
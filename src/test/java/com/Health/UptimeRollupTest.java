@@ -0,0 +1,139 @@
+package com.Health;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+class UptimeRollupTest {
+
+    private static final long MINUTE = 60_000L;
+    private static final long HOUR = 60 * MINUTE;
+    private static final long DAY = 24 * HOUR;
+    // A UTC midnight, so day and hour buckets start on it
+    private static final long T0 = 1_700_006_400_000L;
+
+    @Test
+    void summarizesEveryLevel() {
+        UptimeRollup rollup = new UptimeRollup();
+        rollup.track(UptimeRollup.Resolution.ONE_MINUTE, 0);
+        rollup.track(UptimeRollup.Resolution.FIVE_MINUTES, 0);
+        for (int i = 0; i < 60; i++) {
+            rollup.record(T0 + i * 10_000L, i % 6 != 0, 2_000);
+        }
+        for (UptimeRollup.Resolution resolution : UptimeRollup.Resolution.values()) {
+            UptimeRollup.Summary summary = rollup.summarize(resolution, T0, T0 + 10 * MINUTE);
+            assertEquals(60, summary.getCount(), resolution.label());
+            assertEquals(10, summary.getErrors(), resolution.label());
+            assertEquals(2.0, summary.getAvgLatencyMillis(), 0.001);
+            assertEquals(100 - 100.0 / 6, summary.getAvailability(), 0.001);
+        }
+    }
+
+    @Test
+    void bucketsAreAlignedAndSkipEmptyOnes() {
+        UptimeRollup rollup = new UptimeRollup();
+        rollup.record(T0 + 5 * HOUR + 1, true, 1_000);
+        rollup.record(T0 + 5 * HOUR + 2, false, 3_000);
+        rollup.record(T0 + 9 * HOUR, true, 8_000);
+
+        List<UptimeRollup.Summary> buckets = rollup.buckets(UptimeRollup.Resolution.ONE_HOUR, T0, T0 + DAY);
+        assertEquals(2, buckets.size());
+        assertEquals(T0 + 5 * HOUR, buckets.get(0).getFromMillis());
+        assertEquals(T0 + 6 * HOUR - 1, buckets.get(0).getToMillis());
+        assertEquals(2, buckets.get(0).getCount());
+        assertEquals(1, buckets.get(0).getErrors());
+        assertEquals(2.0, buckets.get(0).getAvgLatencyMillis(), 0.001);
+        assertEquals(3.0, buckets.get(0).getMaxLatencyMillis(), 3.0 / 100);
+        assertEquals(T0 + 9 * HOUR, buckets.get(1).getFromMillis());
+    }
+
+    @Test
+    void slotsExpireWhenTheRingWrapsOntoThem() {
+        UptimeRollup rollup = new UptimeRollup();
+        rollup.record(T0, false, 1_000);
+        // 168 hourly slots: an hour 170 hours later reuses the slot of T0's hour plus 2
+        rollup.record(T0 + 2 * HOUR, false, 1_000);
+        rollup.record(T0 + 170 * HOUR, true, 1_000);
+
+        UptimeRollup.Summary hourly = rollup.summarize(UptimeRollup.Resolution.ONE_HOUR, T0, T0 + 171 * HOUR);
+        assertEquals(1, hourly.getCount());
+        assertEquals(0, hourly.getErrors());
+        // The daily level still reaches back
+        UptimeRollup.Summary daily = rollup.summarize(UptimeRollup.Resolution.ONE_DAY, T0, T0 + 171 * HOUR);
+        assertEquals(3, daily.getCount());
+        assertEquals(2, daily.getErrors());
+    }
+
+    @Test
+    void resultsOlderThanTheRetentionAreDropped() {
+        UptimeRollup rollup = new UptimeRollup();
+        rollup.record(T0 + 200 * HOUR, true, 1_000);
+        rollup.record(T0, false, 1_000);
+        assertEquals(1, rollup.summarize(UptimeRollup.Resolution.ONE_HOUR, T0, T0 + 201 * HOUR).getCount());
+        assertEquals(2, rollup.summarize(UptimeRollup.Resolution.ONE_DAY, T0, T0 + 201 * HOUR).getCount());
+    }
+
+    @Test
+    void outOfOrderResultsWithinTheRetentionAreKept() {
+        UptimeRollup rollup = new UptimeRollup();
+        rollup.record(T0 + 100 * HOUR, true, 1_000);
+        rollup.record(T0 + 3 * HOUR, false, 1_000);
+        rollup.record(T0 + 50 * HOUR, true, 1_000);
+        UptimeRollup.Summary summary = rollup.summarize(UptimeRollup.Resolution.ONE_HOUR, T0, T0 + 101 * HOUR);
+        assertEquals(3, summary.getCount());
+        assertEquals(1, summary.getErrors());
+        assertEquals(3, rollup.buckets(UptimeRollup.Resolution.ONE_HOUR, T0, T0 + 101 * HOUR).size());
+    }
+
+    @Test
+    void ringsGrowWithTheSpanRecorded() {
+        UptimeRollup rollup = new UptimeRollup();
+        rollup.record(T0, true, 1_000);
+        long small = rollup.bytes();
+        for (int hour = 0; hour < 24 * 30; hour++) {
+            rollup.record(T0 + hour * HOUR, true, 1_000);
+        }
+        assertTrue(rollup.bytes() > small);
+        // 168 hourly and 30 daily buckets at most 12 bytes each, plus growth slack
+        assertTrue(rollup.bytes() <= (168 + 64) * 12, "bytes " + rollup.bytes());
+        assertEquals(24 * 7, rollup.buckets(UptimeRollup.Resolution.ONE_HOUR, T0, T0 + 30 * DAY).size());
+    }
+
+    @Test
+    void fineLevelsAreKeptOnlyOnceTracked() {
+        UptimeRollup rollup = new UptimeRollup();
+        rollup.record(T0, true, 1_000);
+        assertFalse(rollup.tracks(UptimeRollup.Resolution.ONE_MINUTE));
+        assertTrue(rollup.tracks(UptimeRollup.Resolution.ONE_HOUR));
+        assertEquals(0, rollup.summarize(UptimeRollup.Resolution.ONE_MINUTE, T0, T0 + HOUR).getCount());
+
+        assertTrue(rollup.track(UptimeRollup.Resolution.ONE_MINUTE, T0 + MINUTE));
+        assertFalse(rollup.track(UptimeRollup.Resolution.ONE_MINUTE, T0 + 2 * MINUTE));
+        // Live results before the tracking time are left to the back-fill, and vice versa
+        rollup.record(T0 + 30_000, true, 1_000);
+        rollup.record(T0 + 90_000, true, 1_000);
+        rollup.backfill(UptimeRollup.Resolution.ONE_MINUTE, T0, true, 1_000);
+        rollup.backfill(UptimeRollup.Resolution.ONE_MINUTE, T0 + 90_000, true, 1_000);
+
+        List<UptimeRollup.Summary> minutes = rollup.buckets(UptimeRollup.Resolution.ONE_MINUTE, T0, T0 + HOUR);
+        assertEquals(2, minutes.size());
+        assertEquals(1, minutes.get(0).getCount());
+        assertEquals(1, minutes.get(1).getCount());
+        assertEquals(3, rollup.summarize(UptimeRollup.Resolution.ONE_HOUR, T0, T0 + HOUR).getCount());
+    }
+
+    @Test
+    void resolutionCoveringPicksTheFinestLevelThatReachesBack() {
+        long now = T0 + 400 * DAY;
+        assertEquals(UptimeRollup.Resolution.ONE_MINUTE, UptimeRollup.Resolution.covering(now - HOUR, now));
+        assertEquals(UptimeRollup.Resolution.FIVE_MINUTES, UptimeRollup.Resolution.covering(now - 12 * HOUR, now));
+        assertEquals(UptimeRollup.Resolution.ONE_HOUR, UptimeRollup.Resolution.covering(now - 3 * DAY, now));
+        assertEquals(UptimeRollup.Resolution.ONE_DAY, UptimeRollup.Resolution.covering(now - 30 * DAY, now));
+        assertEquals(UptimeRollup.Resolution.FIVE_MINUTES, UptimeRollup.Resolution.parse("5m"));
+        assertNull(UptimeRollup.Resolution.parse("2h"));
+    }
+}